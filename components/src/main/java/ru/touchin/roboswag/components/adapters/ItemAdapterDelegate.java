@@ -1,6 +1,7 @@
 package ru.touchin.roboswag.components.adapters;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.view.ViewGroup;
 
 import java.util.List;
@@ -32,6 +33,18 @@ public abstract class ItemAdapterDelegate<TViewHolder extends BindableViewHolder
      */
     public abstract boolean isForViewType(@NonNull final Object item, final int positionInAdapter, final int itemCollectionPosition);
 
+    /**
+     * Returns class of items which are processable by this delegate.
+     * If it is not null then {@link #isForViewType(Object, int, int)} is called only for instances of this class
+     * so adapter could skip this delegate for other items without calling it.
+     *
+     * @return Class of items or null if delegate should check every item.
+     */
+    @Nullable
+    public Class<?> getItemClass() {
+        return null;
+    }
+
     /**
      * Returns unique ID of item to support stable ID's logic of RecyclerView's adapter.
      *
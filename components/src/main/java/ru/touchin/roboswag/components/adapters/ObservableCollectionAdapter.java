@@ -23,28 +23,40 @@ import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import android.view.Choreographer;
 import android.view.ViewGroup;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+import io.reactivex.BackpressureStrategy;
 import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.functions.BiConsumer;
 import io.reactivex.functions.Consumer;
 import io.reactivex.subjects.BehaviorSubject;
 import ru.touchin.roboswag.components.utils.LifecycleBindable;
 import ru.touchin.roboswag.components.utils.UiUtils;
+import ru.touchin.roboswag.core.android.support.v7.util.BatchingListUpdateCallback;
 import ru.touchin.roboswag.core.log.Lc;
 import ru.touchin.roboswag.core.observables.collections.ObservableCollection;
 import ru.touchin.roboswag.core.observables.collections.ObservableList;
 import ru.touchin.roboswag.core.observables.collections.changes.Change;
 import ru.touchin.roboswag.core.observables.collections.changes.ChangePayloadProducer;
+import ru.touchin.roboswag.core.observables.collections.changes.ChangesLog;
 import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import ru.touchin.roboswag.core.observables.collections.changes.ItemIdExtractor;
 import ru.touchin.roboswag.core.observables.collections.changes.SameItemsPredicate;
 import ru.touchin.roboswag.core.observables.collections.loadable.LoadingMoreList;
+import ru.touchin.roboswag.core.observables.collections.loadable.WindowedLoadingMoreList;
 import ru.touchin.roboswag.core.utils.Optional;
 import ru.touchin.roboswag.core.utils.ShouldNotHappenException;
 
@@ -66,6 +78,7 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
         extends RecyclerView.Adapter<BindableViewHolder> {
 
     private static final int PRE_LOADING_COUNT = 20;
+    private static final int DEFAULT_FULL_REFRESH_THRESHOLD = 64;
 
     private static boolean inDebugMode;
 
@@ -82,6 +95,8 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
     @NonNull
     private final BehaviorSubject<Boolean> moreAutoLoadingRequested = BehaviorSubject.create();
     @NonNull
+    private final BehaviorSubject<Integer> windowedLoadingPosition = BehaviorSubject.create();
+    @NonNull
     private final LifecycleBindable lifecycleBindable;
     @Nullable
     private Object onItemClickListener;
@@ -95,6 +110,52 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
     private final List<RecyclerView> attachedRecyclerViews = new LinkedList<>();
     @NonNull
     private final List<AdapterDelegate<? extends BindableViewHolder>> delegates = new ArrayList<>();
+    @NonNull
+    private final SparseArray<AdapterDelegate<? extends BindableViewHolder>> delegatesByViewType = new SparseArray<>();
+    // item delegates can't process positions out of collection so first position delegate of same view type is used for them
+    @NonNull
+    private final SparseArray<AdapterDelegate<? extends BindableViewHolder>> positionDelegatesByViewType = new SparseArray<>();
+    // delegates to check for items of specific class in order of adding; PositionAdapterDelegates are checked for any item
+    @NonNull
+    private final Map<Class<?>, List<AdapterDelegate<? extends BindableViewHolder>>> delegatesByItemClass = new HashMap<>();
+    @NonNull
+    private final List<AdapterDelegate<? extends BindableViewHolder>> positionDelegates = new ArrayList<>();
+    // view types of items by position in collection; they are valid for state of collection with number cachedViewTypesChangesCount
+    @NonNull
+    private int[] cachedViewTypes = new int[0];
+    @NonNull
+    private boolean[] cachedViewTypesValid = new boolean[0];
+    private int cachedViewTypesChangesCount = -1;
+    private int cachedViewTypesHeadersCount;
+    // view types could depend on something else than items so they are recalculating on any notify about changes.
+    // It is registered only while adapter is attached as observers are not allowed on setting stable ids
+    @NonNull
+    private final RecyclerView.AdapterDataObserver cachedViewTypesObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            cachedViewTypesChangesCount = -1;
+        }
+
+        @Override
+        public void onItemRangeChanged(final int positionStart, final int itemCount) {
+            invalidateCachedViewTypes(positionStart - getHeadersCount(), positionStart - getHeadersCount() + itemCount);
+        }
+    };
+    private boolean frameAlignedUpdates = true;
+    private int fullRefreshThreshold = DEFAULT_FULL_REFRESH_THRESHOLD;
+    // changes of one update merged like BatchingListUpdateCallback does before notifying
+    @NonNull
+    private final ChangesLog mergedChanges = new ChangesLog();
+    @NonNull
+    private final ChangesLog.Cursor mergedChangesCursor = mergedChanges.cursor();
+    @NonNull
+    private final BatchingListUpdateCallback changesMerger = new BatchingListUpdateCallback(mergedChanges);
+    @NonNull
+    private final AtomicLong notifyCallsCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong mergedRangesCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong fullRefreshesCount = new AtomicLong();
 
     public ObservableCollectionAdapter(@NonNull final LifecycleBindable lifecycleBindable) {
         super();
@@ -108,16 +169,105 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
                     } else {
                         innerCollection.setDiffUtilsSource(null);
                     }
-                    return collection != null ? collection.observeItems() : Observable.just(Collections.emptyList());
-                }), innerCollection::set);
+                    if (collection instanceof WindowedLoadingMoreList) {
+                        return createWindowedChangesObservable((WindowedLoadingMoreList<TItem, ?, ?>) collection);
+                    }
+                    return (collection != null ? collection.observeItems() : Observable.just(Collections.<TItem>emptyList()))
+                            .observeOn(AndroidSchedulers.mainThread())
+                            // items are applying one by one and only latest of items arrived during applying are kept
+                            // so calculation in progress is never cancelled and adapter is updating even if items are changing constantly
+                            .toFlowable(BackpressureStrategy.LATEST)
+                            .flatMap(items -> alignToFrame(items)
+                                    .flatMapCompletable(alignedItems -> innerCollection.setAsync(alignedItems, AndroidSchedulers.mainThread()))
+                                    .toFlowable(), 1)
+                            .toObservable();
+                }));
         lifecycleBindable.untilDestroy(createMoreAutoLoadingObservable());
     }
 
+    /**
+     * Applies changes of {@link WindowedLoadingMoreList} to inner collection one by one.
+     * Such collection could contain huge count of items so they are not copied and compared on each change.
+     *
+     * @param collection Collection to apply changes of;
+     * @return Observable of applying changes.
+     */
+    @NonNull
+    private Observable<?> createWindowedChangesObservable(@NonNull final WindowedLoadingMoreList<TItem, ?, ?> collection) {
+        return collection.observeChangesFromStart()
+                .observeOn(AndroidSchedulers.mainThread())
+                .doOnNext(new Consumer<CollectionChanges<TItem>>() {
+                    private boolean firstChanges = true;
+
+                    @Override
+                    public void accept(@NonNull final CollectionChanges<TItem> collectionChanges) {
+                        if (firstChanges) {
+                            firstChanges = false;
+                            innerCollection.clear();
+                        }
+                        applyWindowedChanges(collectionChanges);
+                    }
+                });
+    }
+
+    private void applyWindowedChanges(@NonNull final CollectionChanges<TItem> collectionChanges) {
+        int insertedItemsOffset = 0;
+        for (final Change change : collectionChanges.getChanges()) {
+            if (change instanceof Change.Inserted) {
+                final Change.Inserted castedChange = (Change.Inserted) change;
+                innerCollection.addAll(castedChange.getPosition(), collectionChanges.getInsertedItems()
+                        .subList(insertedItemsOffset, insertedItemsOffset + castedChange.getCount()));
+                insertedItemsOffset += castedChange.getCount();
+            } else if (change instanceof Change.Changed) {
+                final Change.Changed castedChange = (Change.Changed) change;
+                innerCollection.update(castedChange.getPosition(), collectionChanges.getInsertedItems()
+                        .subList(insertedItemsOffset, insertedItemsOffset + castedChange.getCount()));
+                insertedItemsOffset += castedChange.getCount();
+            } else if (change instanceof Change.Removed) {
+                final Change.Removed castedChange = (Change.Removed) change;
+                innerCollection.remove(castedChange.getPosition(), castedChange.getCount());
+            } else {
+                Lc.assertion("Not supported " + change);
+            }
+        }
+    }
+
+    /**
+     * Delays items till next frame so items changing many times during one frame are applied to adapter only once.
+     * Latest items are always applied at next frame so frequent changes can't postpone them forever.
+     *
+     * @param items Items to apply;
+     * @return Observable emitting items at next frame or immediately if alignment is not needed.
+     */
+    @NonNull
+    private Observable<Collection<TItem>> alignToFrame(@NonNull final Collection<TItem> items) {
+        if (!frameAlignedUpdates || !anyChangeApplied || !anyRecyclerViewShown()) {
+            return Observable.just(items);
+        }
+        return Observable.create(emitter -> {
+            final Choreographer.FrameCallback frameCallback = frameTimeNanos -> {
+                emitter.onNext(items);
+                emitter.onComplete();
+            };
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+            emitter.setCancellable(() -> Choreographer.getInstance().removeFrameCallback(frameCallback));
+        });
+    }
+
     @NonNull
     private Observable createMoreAutoLoadingObservable() {
         return observableCollectionSubject
                 .switchMap(collectionOptional -> {
                     final ObservableCollection<TItem> collection = collectionOptional.get();
+                    if (collection instanceof WindowedLoadingMoreList) {
+                        // loading pages around bound position also moves window of loaded pages
+                        return windowedLoadingPosition
+                                .distinctUntilChanged()
+                                .switchMap(position -> ((WindowedLoadingMoreList<?, ?, ?>) collection)
+                                        .loadRange(position - PRE_LOADING_COUNT, position + PRE_LOADING_COUNT)
+                                        .onErrorReturnItem(new ArrayList<>())
+                                        .toObservable());
+                    }
                     if (!(collection instanceof LoadingMoreList)) {
                         return Observable.empty();
                     }
@@ -150,6 +300,11 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
     @Override
     public void onAttachedToRecyclerView(@NonNull final RecyclerView recyclerView) {
         super.onAttachedToRecyclerView(recyclerView);
+        if (attachedRecyclerViews.isEmpty()) {
+            registerAdapterDataObserver(cachedViewTypesObserver);
+            // notifies made while detached were not observed
+            cachedViewTypesChangesCount = -1;
+        }
         attachedRecyclerViews.add(recyclerView);
     }
 
@@ -166,6 +321,10 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
     public void onDetachedFromRecyclerView(@NonNull final RecyclerView recyclerView) {
         super.onDetachedFromRecyclerView(recyclerView);
         attachedRecyclerViews.remove(recyclerView);
+        if (attachedRecyclerViews.isEmpty()) {
+            unregisterAdapterDataObserver(cachedViewTypesObserver);
+            cachedViewTypesChangesCount = -1;
+        }
     }
 
     /**
@@ -226,6 +385,7 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
             Lc.assertion("Items changes called on not main thread");
             return;
         }
+        updateCachedViewTypes(collectionChanges);
         if (!anyChangeApplied || !anyRecyclerViewShown()) {
             anyChangeApplied = true;
             refreshUpdate();
@@ -238,41 +398,104 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
             }
             return;
         }
-        notifyAboutChanges(collectionChanges.getChanges());
+        notifyAboutChanges(collectionChanges.getChangesLog());
         lastUpdatedChangeNumber = innerCollection.getChangesCount();
     }
 
     private void refreshUpdate() {
         notifyDataSetChanged();
+        notifyCallsCount.incrementAndGet();
+        fullRefreshesCount.incrementAndGet();
         lastUpdatedChangeNumber = innerCollection.getChangesCount();
     }
 
-    private void notifyAboutChanges(@NonNull final Collection<Change> changes) {
-        for (final Change change : changes) {
-            if (change instanceof Change.Inserted) {
-                final Change.Inserted castedChange = (Change.Inserted) change;
-                notifyItemRangeInserted(castedChange.getPosition() + getHeadersCount(), castedChange.getCount());
-            } else if (change instanceof Change.Removed) {
-                if (getItemCount() - getHeadersCount() == 0) {
-                    //TODO: bug of recyclerview?
-                    notifyDataSetChanged();
-                } else {
-                    final Change.Removed castedChange = (Change.Removed) change;
-                    notifyItemRangeRemoved(castedChange.getPosition() + getHeadersCount(), castedChange.getCount());
-                }
-            } else if (change instanceof Change.Moved) {
-                final Change.Moved castedChange = (Change.Moved) change;
-                notifyItemMoved(castedChange.getFromPosition() + getHeadersCount(), castedChange.getToPosition() + getHeadersCount());
-            } else if (change instanceof Change.Changed) {
-                final Change.Changed castedChange = (Change.Changed) change;
-                notifyItemRangeChanged(
-                        castedChange.getPosition() + getHeadersCount(),
-                        castedChange.getCount(),
-                        castedChange.getPayload());
-            } else {
-                Lc.assertion("Not supported " + change);
+    private void notifyAboutChanges(@NonNull final ChangesLog changes) {
+        mergedChanges.clear();
+        changes.dispatchTo(changesMerger);
+        changesMerger.dispatchLastEvent();
+        mergedRangesCount.addAndGet(changes.size() - mergedChanges.size());
+        if (mergedChanges.size() > fullRefreshThreshold) {
+            refreshUpdate();
+            return;
+        }
+        mergedChangesCursor.moveToStart();
+        while (mergedChangesCursor.moveToNext()) {
+            notifyCallsCount.incrementAndGet();
+            switch (mergedChangesCursor.getType()) {
+                case INSERTED:
+                    notifyItemRangeInserted(mergedChangesCursor.getPosition() + getHeadersCount(), mergedChangesCursor.getCount());
+                    break;
+                case REMOVED:
+                    if (getItemCount() - getHeadersCount() == 0) {
+                        //TODO: bug of recyclerview?
+                        notifyDataSetChanged();
+                        fullRefreshesCount.incrementAndGet();
+                    } else {
+                        notifyItemRangeRemoved(mergedChangesCursor.getPosition() + getHeadersCount(), mergedChangesCursor.getCount());
+                    }
+                    break;
+                case MOVED:
+                    notifyItemMoved(mergedChangesCursor.getPosition() + getHeadersCount(), mergedChangesCursor.getToPosition() + getHeadersCount());
+                    break;
+                case CHANGED:
+                    notifyItemRangeChanged(
+                            mergedChangesCursor.getPosition() + getHeadersCount(),
+                            mergedChangesCursor.getCount(),
+                            mergedChangesCursor.getPayload());
+                    break;
+                default:
+                    Lc.assertion("Not supported " + mergedChangesCursor.getType());
+                    break;
             }
         }
+        mergedChanges.clear();
+    }
+
+    /**
+     * Sets if items of collection should be applied to adapter not more often than once per frame.
+     * If items are changing many times during one frame then only latest of them are applied. It is enabled by default.
+     *
+     * @param frameAlignedUpdates True to apply items once per frame.
+     */
+    public void setFrameAlignedUpdates(final boolean frameAlignedUpdates) {
+        this.frameAlignedUpdates = frameAlignedUpdates;
+    }
+
+    /**
+     * Sets count of notifications about changed ranges after which {@link #notifyDataSetChanged()} is called instead of them.
+     * Ranges are counted after merging of adjacent ones.
+     *
+     * @param fullRefreshThreshold Maximum count of range notifications for one update.
+     */
+    public void setFullRefreshThreshold(final int fullRefreshThreshold) {
+        this.fullRefreshThreshold = fullRefreshThreshold;
+    }
+
+    /**
+     * Returns count of notify calls made by adapter about changes of items including full refreshes.
+     *
+     * @return Notify calls count.
+     */
+    public long getNotifyCallsCount() {
+        return notifyCallsCount.get();
+    }
+
+    /**
+     * Returns count of changed ranges which were merged into adjacent ones and so didn't cause separate notify calls.
+     *
+     * @return Merged ranges count.
+     */
+    public long getMergedRangesCount() {
+        return mergedRangesCount.get();
+    }
+
+    /**
+     * Returns count of full refreshes by {@link #notifyDataSetChanged()} made because of changes of items.
+     *
+     * @return Full refreshes count.
+     */
+    public long getFullRefreshesCount() {
+        return fullRefreshesCount.get();
     }
 
     /**
@@ -331,7 +554,7 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
             }
         }
         delegates.add(delegate);
-        notifyDataSetChanged();
+        onDelegatesChanged();
     }
 
     /**
@@ -341,9 +564,79 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
      */
     public void removeDelegate(@NonNull final AdapterDelegate<? extends BindableViewHolder> delegate) {
         delegates.remove(delegate);
+        onDelegatesChanged();
+    }
+
+    private void onDelegatesChanged() {
+        delegatesByViewType.clear();
+        positionDelegatesByViewType.clear();
+        delegatesByItemClass.clear();
+        positionDelegates.clear();
+        for (final AdapterDelegate<? extends BindableViewHolder> delegate : delegates) {
+            if (delegatesByViewType.get(delegate.getItemViewType()) == null) {
+                delegatesByViewType.put(delegate.getItemViewType(), delegate);
+            }
+            if (delegate instanceof PositionAdapterDelegate) {
+                positionDelegates.add(delegate);
+                if (positionDelegatesByViewType.get(delegate.getItemViewType()) == null) {
+                    positionDelegatesByViewType.put(delegate.getItemViewType(), delegate);
+                }
+            }
+        }
         notifyDataSetChanged();
     }
 
+    @NonNull
+    private List<AdapterDelegate<? extends BindableViewHolder>> getDelegatesOfItem(@Nullable final TItem item) {
+        if (item == null) {
+            return positionDelegates;
+        }
+        List<AdapterDelegate<? extends BindableViewHolder>> result = delegatesByItemClass.get(item.getClass());
+        if (result == null) {
+            result = new ArrayList<>();
+            for (final AdapterDelegate<? extends BindableViewHolder> delegate : delegates) {
+                if (delegate instanceof ItemAdapterDelegate) {
+                    final Class<?> itemClass = ((ItemAdapterDelegate) delegate).getItemClass();
+                    if (itemClass == null || itemClass.isInstance(item)) {
+                        result.add(delegate);
+                    }
+                } else if (delegate instanceof PositionAdapterDelegate) {
+                    result.add(delegate);
+                } else {
+                    Lc.assertion("Delegate of type " + delegate.getClass());
+                }
+            }
+            delegatesByItemClass.put(item.getClass(), result);
+        }
+        return result;
+    }
+
+    private void updateCachedViewTypes(@NonNull final CollectionChanges<TItem> collectionChanges) {
+        if (collectionChanges.getNumber() != cachedViewTypesChangesCount + 1) {
+            cachedViewTypesChangesCount = -1;
+            return;
+        }
+        final ChangesLog.Cursor cursor = collectionChanges.getChangesLog().cursor();
+        while (cursor.moveToNext()) {
+            if (cursor.getType() == ChangesLog.Type.MOVED) {
+                invalidateCachedViewTypes(Math.min(cursor.getPosition(), cursor.getToPosition()), cachedViewTypes.length);
+            } else if (cursor.getType() == ChangesLog.Type.CHANGED) {
+                invalidateCachedViewTypes(cursor.getPosition(), cursor.getPosition() + cursor.getCount());
+            } else {
+                invalidateCachedViewTypes(cursor.getPosition(), cachedViewTypes.length);
+            }
+        }
+        cachedViewTypesChangesCount = collectionChanges.getNumber();
+    }
+
+    private void invalidateCachedViewTypes(final int fromPositionInCollection, final int toPositionInCollection) {
+        final int from = Math.max(0, fromPositionInCollection);
+        final int to = Math.min(cachedViewTypesValid.length, toPositionInCollection);
+        if (from < to) {
+            Arrays.fill(cachedViewTypesValid, from, to, false);
+        }
+    }
+
     private void checkDelegates(@Nullable final AdapterDelegate alreadyPickedDelegate, @NonNull final AdapterDelegate currentDelegate) {
         if (alreadyPickedDelegate != null) {
             throw new ShouldNotHappenException("Concurrent delegates: " + currentDelegate + " and " + alreadyPickedDelegate);
@@ -355,35 +648,46 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
         return shiftedPosition >= 0 && shiftedPosition < innerCollection.size() ? shiftedPosition : -1;
     }
 
-    @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.ModifiedCyclomaticComplexity", "PMD.StdCyclomaticComplexity", "PMD.NPathComplexity"})
-    //Complexity: because of debug code
     @Override
     public int getItemViewType(final int positionInAdapter) {
-        AdapterDelegate delegateOfViewType = null;
         final int positionInCollection = getItemPositionInCollection(positionInAdapter);
-        final TItem item = positionInCollection >= 0 ? innerCollection.get(positionInCollection) : null;
-        for (final AdapterDelegate<?> delegate : delegates) {
-            if (delegate instanceof ItemAdapterDelegate) {
-                if (item != null && ((ItemAdapterDelegate) delegate).isForViewType(item, positionInAdapter, positionInCollection)) {
-                    checkDelegates(delegateOfViewType, delegate);
-                    delegateOfViewType = delegate;
-                    if (!inDebugMode) {
-                        break;
-                    }
-                }
-            } else if (delegate instanceof PositionAdapterDelegate) {
-                if (((PositionAdapterDelegate) delegate).isForViewType(positionInAdapter)) {
-                    checkDelegates(delegateOfViewType, delegate);
-                    delegateOfViewType = delegate;
-                    if (!inDebugMode) {
-                        break;
-                    }
+        if (positionInCollection < 0) {
+            return calculateItemViewType(positionInAdapter, positionInCollection, null);
+        }
+        if (cachedViewTypesChangesCount != innerCollection.getChangesCount() || cachedViewTypesHeadersCount != getHeadersCount()) {
+            Arrays.fill(cachedViewTypesValid, false);
+            cachedViewTypesChangesCount = innerCollection.getChangesCount();
+            cachedViewTypesHeadersCount = getHeadersCount();
+        }
+        if (cachedViewTypesValid.length <= positionInCollection) {
+            final int newLength = Math.max(innerCollection.size(), positionInCollection + 1);
+            cachedViewTypes = Arrays.copyOf(cachedViewTypes, newLength);
+            cachedViewTypesValid = Arrays.copyOf(cachedViewTypesValid, newLength);
+        }
+        if (!cachedViewTypesValid[positionInCollection]) {
+            cachedViewTypes[positionInCollection] = calculateItemViewType(positionInAdapter, positionInCollection,
+                    innerCollection.get(positionInCollection));
+            cachedViewTypesValid[positionInCollection] = true;
+        }
+        return cachedViewTypes[positionInCollection];
+    }
+
+    @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.ModifiedCyclomaticComplexity", "PMD.StdCyclomaticComplexity", "PMD.NPathComplexity"})
+    //Complexity: because of debug code
+    private int calculateItemViewType(final int positionInAdapter, final int positionInCollection, @Nullable final TItem item) {
+        AdapterDelegate delegateOfViewType = null;
+        for (final AdapterDelegate<?> delegate : getDelegatesOfItem(item)) {
+            final boolean isForViewType = delegate instanceof ItemAdapterDelegate
+                    ? ((ItemAdapterDelegate) delegate).isForViewType(item, positionInAdapter, positionInCollection)
+                    : ((PositionAdapterDelegate) delegate).isForViewType(positionInAdapter);
+            if (isForViewType) {
+                checkDelegates(delegateOfViewType, delegate);
+                delegateOfViewType = delegate;
+                if (!inDebugMode) {
+                    break;
                 }
-            } else {
-                Lc.assertion("Delegate of type " + delegate.getClass());
             }
         }
-
         return delegateOfViewType != null ? delegateOfViewType.getItemViewType() : super.getItemViewType(positionInAdapter);
     }
 
@@ -399,38 +703,24 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
         return result.value;
     }
 
-    @SuppressWarnings("PMD.CyclomaticComplexity")
     private void tryDelegateAction(final int positionInAdapter,
                                    @NonNull final BiConsumer<ItemAdapterDelegate, Integer> itemAdapterDelegateAction,
                                    @NonNull final Consumer<PositionAdapterDelegate> positionAdapterDelegateAction,
                                    @NonNull final Consumer<Integer> defaultAction) {
         final int viewType = getItemViewType(positionInAdapter);
         final int positionInCollection = getItemPositionInCollection(positionInAdapter);
-        for (final AdapterDelegate<?> delegate : delegates) {
+        AdapterDelegate<?> delegate = delegatesByViewType.get(viewType);
+        if (delegate instanceof ItemAdapterDelegate && positionInCollection < 0) {
+            delegate = positionDelegatesByViewType.get(viewType);
+        }
+        try {
             if (delegate instanceof ItemAdapterDelegate) {
-                if (positionInCollection >= 0 && viewType == delegate.getItemViewType()) {
-                    try {
-                        itemAdapterDelegateAction.accept((ItemAdapterDelegate) delegate, positionInCollection);
-                    } catch (final Exception exception) {
-                        Lc.assertion(exception);
-                    }
-                    return;
-                }
+                itemAdapterDelegateAction.accept((ItemAdapterDelegate) delegate, positionInCollection);
             } else if (delegate instanceof PositionAdapterDelegate) {
-                if (viewType == delegate.getItemViewType()) {
-                    try {
-                        positionAdapterDelegateAction.accept((PositionAdapterDelegate) delegate);
-                    } catch (final Exception exception) {
-                        Lc.assertion(exception);
-                    }
-                    return;
-                }
+                positionAdapterDelegateAction.accept((PositionAdapterDelegate) delegate);
             } else {
-                Lc.assertion("Delegate of type " + delegate.getClass());
+                defaultAction.accept(positionInCollection);
             }
-        }
-        try {
-            defaultAction.accept(positionInCollection);
         } catch (final Exception exception) {
             Lc.assertion(exception);
         }
@@ -444,10 +734,9 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
     @NonNull
     @Override
     public BindableViewHolder onCreateViewHolder(@NonNull final ViewGroup parent, final int viewType) {
-        for (final AdapterDelegate<?> delegate : delegates) {
-            if (delegate.getItemViewType() == viewType) {
-                return delegate.onCreateViewHolder(parent);
-            }
+        final AdapterDelegate<?> delegate = delegatesByViewType.get(viewType);
+        if (delegate != null) {
+            return delegate.onCreateViewHolder(parent);
         }
         throw new ShouldNotHappenException("Add some AdapterDelegate or override this method");
     }
@@ -532,6 +821,10 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
     }
 
     private void updateMoreAutoLoadingRequest(final int positionInCollection) {
+        if (getObservableCollection() instanceof WindowedLoadingMoreList) {
+            windowedLoadingPosition.onNext(positionInCollection);
+            return;
+        }
         if (positionInCollection > innerCollection.size() - PRE_LOADING_COUNT) {
             return;
         }
@@ -638,6 +931,19 @@ public abstract class ObservableCollectionAdapter<TItem, TItemViewHolder extends
         innerCollection.enableDiffUtils(detectMoves, sameItemsPredicate, changePayloadProducer);
     }
 
+    /**
+     * Enable diff utils algorithm in collection changes for items which are same only if they have same primitive ids.
+     *
+     * @param detectMoves           The flag that determines whether the {@link Change.Moved} changes will be generated or not;
+     * @param itemIdExtractor       Function to get id of item;
+     * @param changePayloadProducer Function that calculate change payload when items the same but contents are different.
+     */
+    public void enableIdDiff(final boolean detectMoves,
+                             @NonNull final ItemIdExtractor<TItem> itemIdExtractor,
+                             @Nullable final ChangePayloadProducer<TItem> changePayloadProducer) {
+        innerCollection.enableIdDiff(detectMoves, itemIdExtractor, changePayloadProducer);
+    }
+
     /**
      * Disable diff utils algorithm.
      */
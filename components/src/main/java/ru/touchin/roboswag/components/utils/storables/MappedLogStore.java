@@ -0,0 +1,341 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.components.utils.storables;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+import ru.touchin.roboswag.core.observables.storable.Store;
+import ru.touchin.roboswag.core.utils.Optional;
+
+/**
+ * Store for {@link ru.touchin.roboswag.core.observables.storable.Storable} which is keeping values in memory-mapped append-only file.
+ * It is suitable for big values (like serialized lists of objects) because only changed value is writing to disk on store
+ * and only requested value is reading from disk on load.
+ * Every record is protected by checksum so partially written records are dropped on opening after crash.
+ * File is compacting when it contains more outdated records than actual ones.
+ * By default every store is flushing file to disk before completion so value survives power loss.
+ * It costs time proportional to count of changed pages and could be disabled if surviving of process crash is enough
+ * as OS is writing mapped pages by itself anyway.
+ * Empty keys are not supported.
+ */
+public class MappedLogStore implements Store<String, byte[]> {
+
+    private static final Charset KEY_CHARSET = Charset.forName("UTF-8");
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int MIN_COMPACTION_GARBAGE_SIZE = 1024 * 1024;
+    private static final int REMOVED_VALUE_LENGTH = -1;
+    // key length + value length + checksum
+    private static final int RECORD_OVERHEAD = 3 * 4;
+
+    @NonNull
+    private final File file;
+    @NonNull
+    private final Map<String, Record> index = new HashMap<>();
+    private final boolean syncOnStore;
+    @Nullable
+    private RandomAccessFile randomAccessFile;
+    @Nullable
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private long garbageSize;
+
+    public MappedLogStore(@NonNull final File file) {
+        this(file, true);
+    }
+
+    /**
+     * Creates store.
+     *
+     * @param file        File to keep values in;
+     * @param syncOnStore Flag to flush file to disk on every store. If false then stored values could be lost on power loss but not on process crash.
+     */
+    public MappedLogStore(@NonNull final File file, final boolean syncOnStore) {
+        this.file = file;
+        this.syncOnStore = syncOnStore;
+    }
+
+    /**
+     * Closes file and releases it's mapping. Store will reopen file on next access.
+     *
+     * @throws IOException Exception on file closing.
+     */
+    public synchronized void close() throws IOException {
+        if (buffer != null) {
+            unmap(buffer);
+            buffer = null;
+        }
+        if (randomAccessFile != null) {
+            randomAccessFile.close();
+            randomAccessFile = null;
+        }
+    }
+
+    @NonNull
+    @Override
+    public Single<Boolean> contains(@NonNull final String key) {
+        return Single.fromCallable(() -> {
+            synchronized (this) {
+                open();
+                return index.containsKey(key);
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public Completable storeObject(@NonNull final Type storeObjectType, @NonNull final String key, @Nullable final byte[] storeObject) {
+        return Completable.fromAction(() -> {
+            synchronized (this) {
+                open();
+                if (storeObject == null && !index.containsKey(key)) {
+                    return;
+                }
+                appendRecord(key, storeObject);
+                if (garbageSize > MIN_COMPACTION_GARBAGE_SIZE && garbageSize > writePosition - garbageSize) {
+                    compact();
+                }
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<Optional<byte[]>> loadObject(@NonNull final Type storeObjectType, @NonNull final String key) {
+        return Single.fromCallable(() -> {
+            synchronized (this) {
+                final MappedByteBuffer openedBuffer = open();
+                final Record record = index.get(key);
+                if (record == null) {
+                    return new Optional<>(null);
+                }
+                final byte[] value = new byte[record.valueLength];
+                final ByteBuffer readBuffer = openedBuffer.duplicate();
+                readBuffer.position(record.valuePosition);
+                readBuffer.get(value);
+                return new Optional<>(value);
+            }
+        });
+    }
+
+    @NonNull
+    private MappedByteBuffer open() throws IOException {
+        if (buffer != null) {
+            return buffer;
+        }
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        final int capacity = (int) Math.max(INITIAL_CAPACITY, randomAccessFile.length());
+        buffer = map(capacity);
+        recover(buffer);
+        return buffer;
+    }
+
+    @NonNull
+    private MappedByteBuffer map(final int capacity) throws IOException {
+        if (randomAccessFile == null) {
+            throw new IOException("File is not opened");
+        }
+        if (randomAccessFile.length() < capacity) {
+            randomAccessFile.setLength(capacity);
+        }
+        return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void recover(@NonNull final MappedByteBuffer buffer) {
+        index.clear();
+        garbageSize = 0;
+        int position = 0;
+        final CRC32 crc32 = new CRC32();
+        while (position + RECORD_OVERHEAD <= buffer.capacity()) {
+            final int keyLength = buffer.getInt(position);
+            // lengths are read from possibly torn tail so sizes are calculated in long to not overflow
+            if (keyLength <= 0 || (long) position + RECORD_OVERHEAD + keyLength > buffer.capacity()) {
+                break;
+            }
+            final int valueLengthPosition = position + 4 + keyLength;
+            final int valueLength = buffer.getInt(valueLengthPosition);
+            if (valueLength < REMOVED_VALUE_LENGTH
+                    || (long) position + RECORD_OVERHEAD + keyLength + Math.max(0, valueLength) > buffer.capacity()) {
+                break;
+            }
+            final int recordSize = RECORD_OVERHEAD + keyLength + Math.max(0, valueLength);
+            final byte[] recordBytes = new byte[recordSize - 4];
+            final ByteBuffer readBuffer = buffer.duplicate();
+            readBuffer.position(position);
+            readBuffer.get(recordBytes);
+            crc32.reset();
+            crc32.update(recordBytes, 0, recordBytes.length);
+            if ((int) crc32.getValue() != buffer.getInt(position + recordSize - 4)) {
+                break;
+            }
+            final String key = new String(recordBytes, 4, keyLength, KEY_CHARSET);
+            putToIndex(key, valueLength == REMOVED_VALUE_LENGTH ? null : new Record(valueLengthPosition + 4, valueLength, recordSize), recordSize);
+            position += recordSize;
+        }
+        writePosition = position;
+    }
+
+    private void putToIndex(@NonNull final String key, @Nullable final Record record, final int recordSize) {
+        final Record oldRecord = record != null ? index.put(key, record) : index.remove(key);
+        if (oldRecord != null) {
+            garbageSize += oldRecord.size;
+        }
+        if (record == null) {
+            garbageSize += recordSize;
+        }
+    }
+
+    private void appendRecord(@NonNull final String key, @Nullable final byte[] value) throws IOException {
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Empty key is not supported as it is marking end of records in file");
+        }
+        final byte[] keyBytes = key.getBytes(KEY_CHARSET);
+        final int valueLength = value != null ? value.length : REMOVED_VALUE_LENGTH;
+        final long longRecordSize = (long) RECORD_OVERHEAD + keyBytes.length + (value != null ? value.length : 0);
+        if (writePosition + longRecordSize > Integer.MAX_VALUE) {
+            throw new IOException("Record of '" + key + "' with size " + longRecordSize + " is not fitting into file " + file);
+        }
+        final int recordSize = (int) longRecordSize;
+        final MappedByteBuffer writeBuffer = ensureCapacity(writePosition + recordSize);
+        final int valuePosition = writePosition + 4 + keyBytes.length + 4;
+        final ByteBuffer recordBuffer = ByteBuffer.allocate(recordSize - 4);
+        recordBuffer.putInt(keyBytes.length).put(keyBytes).putInt(valueLength);
+        if (value != null) {
+            recordBuffer.put(value);
+        }
+        final CRC32 crc32 = new CRC32();
+        crc32.update(recordBuffer.array(), 0, recordBuffer.capacity());
+        final ByteBuffer targetBuffer = writeBuffer.duplicate();
+        targetBuffer.position(writePosition);
+        targetBuffer.put(recordBuffer.array());
+        targetBuffer.putInt((int) crc32.getValue());
+        if (syncOnStore) {
+            writeBuffer.force();
+        }
+        putToIndex(key, value != null ? new Record(valuePosition, valueLength, recordSize) : null, recordSize);
+        writePosition += recordSize;
+    }
+
+    @NonNull
+    private MappedByteBuffer ensureCapacity(final int capacity) throws IOException {
+        if (buffer != null && buffer.capacity() >= capacity) {
+            return buffer;
+        }
+        int newCapacity = buffer != null ? buffer.capacity() : INITIAL_CAPACITY;
+        while (newCapacity < capacity) {
+            newCapacity = newCapacity <= Integer.MAX_VALUE / 2 ? newCapacity * 2 : Integer.MAX_VALUE;
+        }
+        final MappedByteBuffer oldBuffer = buffer;
+        buffer = map(newCapacity);
+        if (oldBuffer != null) {
+            unmap(oldBuffer);
+        }
+        return buffer;
+    }
+
+    private void compact() throws IOException {
+        if (buffer == null || randomAccessFile == null) {
+            return;
+        }
+        final File compactedFile = new File(file.getPath() + ".compact");
+        final Map<String, Record> compactedIndex = new HashMap<>();
+        final ByteBuffer sourceBuffer = buffer.duplicate();
+        int position = 0;
+        try (RandomAccessFile compactedRandomAccessFile = new RandomAccessFile(compactedFile, "rw")) {
+            compactedRandomAccessFile.setLength(0);
+            for (final Map.Entry<String, Record> entry : index.entrySet()) {
+                final Record record = entry.getValue();
+                final byte[] recordBytes = new byte[record.size];
+                sourceBuffer.position(record.valuePosition + record.valueLength + 4 - record.size);
+                sourceBuffer.get(recordBytes);
+                compactedRandomAccessFile.write(recordBytes);
+                compactedIndex.put(entry.getKey(), new Record(position + record.size - 4 - record.valueLength, record.valueLength, record.size));
+                position += record.size;
+            }
+            compactedRandomAccessFile.getFD().sync();
+        }
+        close();
+        if (!compactedFile.renameTo(file)) {
+            throw new IOException("Failed to replace " + file + " with compacted file");
+        }
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        buffer = map(Math.max(INITIAL_CAPACITY, position));
+        index.clear();
+        index.putAll(compactedIndex);
+        writePosition = position;
+        garbageSize = 0;
+    }
+
+    /**
+     * Releases mapping without waiting for garbage collection of buffer.
+     * There is no public API for it so private methods of direct buffers are used if they are available.
+     * Otherwise mapping is released by garbage collector.
+     * Note that it is reflection on HotSpot's "cleaner" method: ART's buffers have no such public method
+     * so there call silently does nothing and old mappings stay in address space until garbage collection
+     * (e.g. after every growing of file and every compaction).
+     * Buffer and any of it's duplicates should not be accessed after call.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    //AvoidCatchingGenericException: any reflection problem means that buffer just will be released by garbage collector
+    private static void unmap(@NonNull final MappedByteBuffer buffer) {
+        try {
+            final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            final Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                final Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+        } catch (final Exception exception) {
+            // not available on this platform
+        }
+    }
+
+    private static class Record {
+
+        private final int valuePosition;
+        private final int valueLength;
+        private final int size;
+
+        public Record(final int valuePosition, final int valueLength, final int size) {
+            this.valuePosition = valuePosition;
+            this.valueLength = valueLength;
+            this.size = size;
+        }
+
+    }
+
+}
@@ -58,9 +58,22 @@ public class PreferenceStore<T> implements Store<String, T> {
 
     @NonNull
     private final SharedPreferences preferences;
+    @Nullable
+    private final PreferenceWriteBatcher writeBatcher;
 
     public PreferenceStore(@NonNull final SharedPreferences preferences) {
         this.preferences = preferences;
+        this.writeBatcher = null;
+    }
+
+    /**
+     * Creates store which is merging writes by {@link PreferenceWriteBatcher}.
+     *
+     * @param writeBatcher Batcher of writes to preferences.
+     */
+    public PreferenceStore(@NonNull final PreferenceWriteBatcher writeBatcher) {
+        this.preferences = writeBatcher.getPreferences();
+        this.writeBatcher = writeBatcher;
     }
 
     @NonNull
@@ -72,28 +85,40 @@ public class PreferenceStore<T> implements Store<String, T> {
     @NonNull
     @Override
     public Completable storeObject(@NonNull final Type storeObjectType, @NonNull final String key, @Nullable final T storeObject) {
+        if (writeBatcher != null) {
+            return writeBatcher.write(editor -> putObject(editor, storeObjectType, key, storeObject));
+        }
         return Completable.fromAction(() -> {
-            if (storeObject == null) {
-                preferences.edit().remove(key).apply();
-                return;
-            }
-
-            if (isTypeBoolean(storeObjectType)) {
-                preferences.edit().putBoolean(key, (Boolean) storeObject).apply();
-            } else if (storeObjectType.equals(String.class)) {
-                preferences.edit().putString(key, (String) storeObject).apply();
-            } else if (isTypeInteger(storeObjectType)) {
-                preferences.edit().putInt(key, (Integer) storeObject).apply();
-            } else if (isTypeLong(storeObjectType)) {
-                preferences.edit().putLong(key, (Long) storeObject).apply();
-            } else if (isTypeFloat(storeObjectType)) {
-                preferences.edit().putFloat(key, (Float) storeObject).apply();
-            } else {
-                Lc.assertion("Unsupported type of object " + storeObjectType);
-            }
+            final SharedPreferences.Editor editor = preferences.edit();
+            putObject(editor, storeObjectType, key, storeObject);
+            editor.apply();
         });
     }
 
+    private void putObject(@NonNull final SharedPreferences.Editor editor,
+                           @NonNull final Type storeObjectType,
+                           @NonNull final String key,
+                           @Nullable final T storeObject) {
+        if (storeObject == null) {
+            editor.remove(key);
+            return;
+        }
+
+        if (isTypeBoolean(storeObjectType)) {
+            editor.putBoolean(key, (Boolean) storeObject);
+        } else if (storeObjectType.equals(String.class)) {
+            editor.putString(key, (String) storeObject);
+        } else if (isTypeInteger(storeObjectType)) {
+            editor.putInt(key, (Integer) storeObject);
+        } else if (isTypeLong(storeObjectType)) {
+            editor.putLong(key, (Long) storeObject);
+        } else if (isTypeFloat(storeObjectType)) {
+            editor.putFloat(key, (Float) storeObject);
+        } else {
+            Lc.assertion("Unsupported type of object " + storeObjectType);
+        }
+    }
+
     @NonNull
     @Override
     @SuppressWarnings("unchecked")
@@ -0,0 +1,174 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.components.utils.storables;
+
+import android.content.SharedPreferences;
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableEmitter;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Object that is merging writes to {@link SharedPreferences} into one {@link SharedPreferences.Editor#commit()}.
+ * Writes arriving within window or between {@link #beginTransaction()} and {@link #endTransaction()} are committing together.
+ * Each write completes only after commit of it's batch have finished so value is already on disk.
+ * Pass it into {@link PreferenceStore#PreferenceStore(PreferenceWriteBatcher)} and share between stores of same preferences.
+ */
+public class PreferenceWriteBatcher {
+
+    @NonNull
+    private final SharedPreferences preferences;
+    private final long windowMillis;
+    @NonNull
+    private final List<PendingWrite> pendingWrites = new ArrayList<>();
+    @NonNull
+    private final AtomicLong commitsCount = new AtomicLong();
+    private boolean flushScheduled;
+    private int openedTransactionsCount;
+
+    public PreferenceWriteBatcher(@NonNull final SharedPreferences preferences, final long window, @NonNull final TimeUnit timeUnit) {
+        this.preferences = preferences;
+        this.windowMillis = timeUnit.toMillis(window);
+    }
+
+    /**
+     * Returns preferences to write to.
+     *
+     * @return Preferences.
+     */
+    @NonNull
+    public SharedPreferences getPreferences() {
+        return preferences;
+    }
+
+    /**
+     * Returns count of commits to disk made by this object.
+     *
+     * @return Commits count.
+     */
+    public long getCommitsCount() {
+        return commitsCount.get();
+    }
+
+    /**
+     * Creates {@link Completable} which is adding write to batch on subscription and completes when batch is committed.
+     * Don't wait for it blocking (e.g. by {@link Completable#blockingAwait()} or sync methods of storables) while transaction is opened
+     * by same thread: it completes only after {@link #endTransaction()} so such wait never ends.
+     *
+     * @param editorAction Action to apply to batch's {@link SharedPreferences.Editor};
+     * @return {@link Completable} of writing process.
+     */
+    @NonNull
+    public Completable write(@NonNull final Consumer<SharedPreferences.Editor> editorAction) {
+        return Completable.create(emitter -> {
+            synchronized (this) {
+                pendingWrites.add(new PendingWrite(editorAction, emitter));
+                scheduleFlushIfNeeded(windowMillis);
+            }
+        });
+    }
+
+    /**
+     * Starts transaction. Writes won't be committed until every started transaction is ended by {@link #endTransaction()}.
+     * Writes made inside transaction are completing only after it's end so subscribe to them without blocking waits
+     * and end transaction in finally block.
+     */
+    public void beginTransaction() {
+        synchronized (this) {
+            openedTransactionsCount++;
+        }
+    }
+
+    /**
+     * Ends transaction started by {@link #beginTransaction()}. Writes are committing right after last transaction is ended.
+     */
+    public void endTransaction() {
+        synchronized (this) {
+            if (openedTransactionsCount == 0) {
+                throw new IllegalStateException("No transaction to end");
+            }
+            openedTransactionsCount--;
+            scheduleFlushIfNeeded(0);
+        }
+    }
+
+    private void scheduleFlushIfNeeded(final long delayMillis) {
+        if (!flushScheduled && openedTransactionsCount == 0 && !pendingWrites.isEmpty()) {
+            flushScheduled = true;
+            Schedulers.io().scheduleDirect(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    //AvoidCatchingGenericException: exception of one write shouldn't break others
+    private void flush() {
+        final List<PendingWrite> writes;
+        synchronized (this) {
+            flushScheduled = false;
+            if (openedTransactionsCount > 0) {
+                return;
+            }
+            writes = new ArrayList<>(pendingWrites);
+            pendingWrites.clear();
+        }
+        final SharedPreferences.Editor editor = preferences.edit();
+        final List<PendingWrite> appliedWrites = new ArrayList<>(writes.size());
+        for (final PendingWrite write : writes) {
+            try {
+                write.editorAction.accept(editor);
+                appliedWrites.add(write);
+            } catch (final Exception exception) {
+                write.emitter.onError(exception);
+            }
+        }
+        final boolean committed = editor.commit();
+        commitsCount.incrementAndGet();
+        for (final PendingWrite write : appliedWrites) {
+            if (committed) {
+                write.emitter.onComplete();
+            } else {
+                write.emitter.onError(new IOException("Failed to commit preferences"));
+            }
+        }
+    }
+
+    private static class PendingWrite {
+
+        @NonNull
+        private final Consumer<SharedPreferences.Editor> editorAction;
+        @NonNull
+        private final CompletableEmitter emitter;
+
+        public PendingWrite(@NonNull final Consumer<SharedPreferences.Editor> editorAction, @NonNull final CompletableEmitter emitter) {
+            this.editorAction = editorAction;
+            this.emitter = emitter;
+        }
+
+    }
+
+}
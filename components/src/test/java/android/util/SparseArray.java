@@ -0,0 +1,59 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package android.util;
+
+import java.util.TreeMap;
+
+/**
+ * Simple implementation of {@link SparseArray} for unit tests as android.jar of unit tests contains only stubs of it.
+ * It is found by tests before android.jar so adapters using {@link SparseArray} could be tested without device.
+ *
+ * @param <E> Type of values.
+ */
+public class SparseArray<E> {
+
+    private final TreeMap<Integer, E> values = new TreeMap<>();
+
+    public E get(final int key) {
+        return values.get(key);
+    }
+
+    public E get(final int key, final E valueIfKeyNotFound) {
+        final E value = values.get(key);
+        return value != null ? value : valueIfKeyNotFound;
+    }
+
+    public void put(final int key, final E value) {
+        values.put(key, value);
+    }
+
+    public void remove(final int key) {
+        values.remove(key);
+    }
+
+    public void clear() {
+        values.clear();
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+}
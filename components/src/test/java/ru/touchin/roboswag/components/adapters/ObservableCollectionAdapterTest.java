@@ -0,0 +1,346 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.components.adapters;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.reactivex.android.plugins.RxAndroidPlugins;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+import ru.touchin.roboswag.components.utils.BaseLifecycleBindable;
+import ru.touchin.roboswag.core.observables.collections.ObservableList;
+
+public class ObservableCollectionAdapterTest {
+
+    private static final int SHARED_VIEW_TYPE = 1;
+    private static final int HIGHLIGHTED_VIEW_TYPE = 2;
+    private static final int NORMAL_VIEW_TYPE = 3;
+    private static final long ITEM_ID_BASE = 1000;
+    private static final long POSITION_ID_BASE = 2000;
+
+    @NonNull
+    private final BaseLifecycleBindable lifecycleBindable = new BaseLifecycleBindable();
+    @NonNull
+    private final List<String> bindings = new ArrayList<>();
+    // view types of highlight delegates depend on this state besides items
+    @NonNull
+    private final Set<String> highlightedItems = new HashSet<>();
+    private int viewTypeChecksCount;
+
+    @Before
+    public void setUp() {
+        // items are calculated and applied synchronously so adapter is updated right after setItems()
+        RxAndroidPlugins.setMainThreadSchedulerHandler(scheduler -> Schedulers.trampoline());
+        RxJavaPlugins.setComputationSchedulerHandler(scheduler -> Schedulers.trampoline());
+        lifecycleBindable.onCreate();
+    }
+
+    @After
+    public void tearDown() {
+        lifecycleBindable.onDestroy();
+        RxJavaPlugins.reset();
+        RxAndroidPlugins.reset();
+    }
+
+    @NonNull
+    private BindableViewHolder createViewHolder() {
+        return new BindableViewHolder(lifecycleBindable, new View(null));
+    }
+
+    @Test
+    public void positionDelegateProcessesHeadersAndFootersOfSameViewTypeAsItemDelegate() {
+        final TestAdapter adapter = new TestAdapter(lifecycleBindable, 1, 1);
+        // item delegate is added first so it is first delegate of view type
+        adapter.addDelegate(new TestItemDelegate());
+        adapter.addDelegate(new TestPositionDelegate(adapter));
+        adapter.setItems(Arrays.asList("a", "b"));
+        Assert.assertEquals(4, adapter.getItemCount());
+
+        for (int position = 0; position < adapter.getItemCount(); position++) {
+            Assert.assertEquals(SHARED_VIEW_TYPE, adapter.getItemViewType(position));
+            adapter.onBindViewHolder(createViewHolder(), position);
+        }
+
+        Assert.assertEquals(Arrays.asList("position 0", "item a", "item b", "position 3"), bindings);
+        Assert.assertEquals(POSITION_ID_BASE, adapter.getItemId(0));
+        Assert.assertEquals(ITEM_ID_BASE, adapter.getItemId(1));
+        Assert.assertEquals(ITEM_ID_BASE + 1, adapter.getItemId(2));
+        Assert.assertEquals(POSITION_ID_BASE + 3, adapter.getItemId(3));
+    }
+
+    @Test
+    public void firstAddedDelegateOfViewTypeProcessesItems() {
+        final TestAdapter adapter = new TestAdapter(lifecycleBindable, 1, 0);
+        adapter.addDelegate(new TestPositionDelegate(adapter));
+        adapter.addDelegate(new TestItemDelegate());
+        adapter.setItems(Arrays.asList("a", "b"));
+
+        adapter.onBindViewHolder(createViewHolder(), 0);
+
+        Assert.assertEquals(Arrays.asList("position 0"), bindings);
+        Assert.assertEquals(POSITION_ID_BASE, adapter.getItemId(0));
+    }
+
+    @NonNull
+    private TestAdapter createHighlightingAdapter() {
+        final TestAdapter adapter = new TestAdapter(lifecycleBindable, 0, 0);
+        adapter.addDelegate(new HighlightDelegate(true));
+        adapter.addDelegate(new HighlightDelegate(false));
+        return adapter;
+    }
+
+    @NonNull
+    private List<Integer> getViewTypes(@NonNull final TestAdapter adapter) {
+        final List<Integer> result = new ArrayList<>();
+        for (int position = 0; position < adapter.getItemCount(); position++) {
+            result.add(adapter.getItemViewType(position));
+        }
+        return result;
+    }
+
+    @Test
+    public void dataObserverIsRegisteredOnlyWhileAttachedToAnyRecyclerView() {
+        final TestAdapter adapter = createHighlightingAdapter();
+        final RecyclerView recyclerView1 = Mockito.mock(RecyclerView.class);
+        final RecyclerView recyclerView2 = Mockito.mock(RecyclerView.class);
+        Assert.assertFalse(adapter.hasObservers());
+
+        adapter.onAttachedToRecyclerView(recyclerView1);
+        adapter.onAttachedToRecyclerView(recyclerView2);
+        Assert.assertTrue(adapter.hasObservers());
+        adapter.onDetachedFromRecyclerView(recyclerView1);
+        Assert.assertTrue(adapter.hasObservers());
+        adapter.onDetachedFromRecyclerView(recyclerView2);
+        Assert.assertFalse(adapter.hasObservers());
+
+        // RecyclerView forbids changing stable ids while adapter has observers
+        adapter.setHasStableIds(true);
+        Assert.assertTrue(adapter.hasStableIds());
+        adapter.onAttachedToRecyclerView(recyclerView1);
+        Assert.assertTrue(adapter.hasObservers());
+    }
+
+    @Test
+    public void viewTypesAreRecalculatedOnNotifyWhileAttached() {
+        final TestAdapter adapter = createHighlightingAdapter();
+        adapter.setItems(Arrays.asList("a", "b", "c"));
+        adapter.onAttachedToRecyclerView(Mockito.mock(RecyclerView.class));
+        Assert.assertEquals(Arrays.asList(NORMAL_VIEW_TYPE, NORMAL_VIEW_TYPE, NORMAL_VIEW_TYPE), getViewTypes(adapter));
+
+        highlightedItems.add("b");
+        highlightedItems.add("c");
+        // view types are cached till notify
+        Assert.assertEquals(Arrays.asList(NORMAL_VIEW_TYPE, NORMAL_VIEW_TYPE, NORMAL_VIEW_TYPE), getViewTypes(adapter));
+        adapter.notifyItemChanged(1);
+        Assert.assertEquals(Arrays.asList(NORMAL_VIEW_TYPE, HIGHLIGHTED_VIEW_TYPE, NORMAL_VIEW_TYPE), getViewTypes(adapter));
+        adapter.notifyDataSetChanged();
+        Assert.assertEquals(Arrays.asList(NORMAL_VIEW_TYPE, HIGHLIGHTED_VIEW_TYPE, HIGHLIGHTED_VIEW_TYPE), getViewTypes(adapter));
+    }
+
+    @Test
+    public void viewTypesAreRecalculatedOnAttachAfterNotifyWhileDetached() {
+        final TestAdapter adapter = createHighlightingAdapter();
+        final RecyclerView recyclerView = Mockito.mock(RecyclerView.class);
+        adapter.setItems(Arrays.asList("a", "b", "c"));
+        adapter.onAttachedToRecyclerView(recyclerView);
+        Assert.assertEquals(Arrays.asList(NORMAL_VIEW_TYPE, NORMAL_VIEW_TYPE, NORMAL_VIEW_TYPE), getViewTypes(adapter));
+        adapter.onDetachedFromRecyclerView(recyclerView);
+        Assert.assertEquals(Arrays.asList(NORMAL_VIEW_TYPE, NORMAL_VIEW_TYPE, NORMAL_VIEW_TYPE), getViewTypes(adapter));
+
+        highlightedItems.add("a");
+        adapter.notifyItemChanged(0);
+        adapter.onAttachedToRecyclerView(recyclerView);
+
+        Assert.assertEquals(Arrays.asList(HIGHLIGHTED_VIEW_TYPE, NORMAL_VIEW_TYPE, NORMAL_VIEW_TYPE), getViewTypes(adapter));
+    }
+
+    @Test
+    public void collectionChangesInvalidateOnlyViewTypesOfShiftedPositions() {
+        final TestAdapter adapter = createHighlightingAdapter();
+        final ObservableList<String> list = new ObservableList<>(Arrays.asList("a", "b", "c"));
+        list.enableDiffUtils(false, String::equals, null);
+        adapter.setObservableCollection(list);
+        highlightedItems.add("b");
+        Assert.assertEquals(Arrays.asList(NORMAL_VIEW_TYPE, HIGHLIGHTED_VIEW_TYPE, NORMAL_VIEW_TYPE), getViewTypes(adapter));
+        Assert.assertEquals(3, viewTypeChecksCount);
+
+        list.add("d");
+        Assert.assertEquals(Arrays.asList(NORMAL_VIEW_TYPE, HIGHLIGHTED_VIEW_TYPE, NORMAL_VIEW_TYPE, NORMAL_VIEW_TYPE), getViewTypes(adapter));
+        Assert.assertEquals(4, viewTypeChecksCount);
+
+        list.remove(2);
+        Assert.assertEquals(Arrays.asList(NORMAL_VIEW_TYPE, HIGHLIGHTED_VIEW_TYPE, NORMAL_VIEW_TYPE), getViewTypes(adapter));
+        Assert.assertEquals(5, viewTypeChecksCount);
+
+        list.add(0, "b");
+        Assert.assertEquals(Arrays.asList(HIGHLIGHTED_VIEW_TYPE, NORMAL_VIEW_TYPE, HIGHLIGHTED_VIEW_TYPE, NORMAL_VIEW_TYPE), getViewTypes(adapter));
+        Assert.assertEquals(9, viewTypeChecksCount);
+    }
+
+    private static class TestAdapter extends ObservableCollectionAdapter<String, BindableViewHolder> {
+
+        private final int headersCount;
+        private final int footersCount;
+
+        public TestAdapter(@NonNull final BaseLifecycleBindable lifecycleBindable, final int headersCount, final int footersCount) {
+            super(lifecycleBindable);
+            this.headersCount = headersCount;
+            this.footersCount = footersCount;
+        }
+
+        @Override
+        protected int getHeadersCount() {
+            return headersCount;
+        }
+
+        @Override
+        protected int getFootersCount() {
+            return footersCount;
+        }
+
+    }
+
+    private class TestItemDelegate extends ItemAdapterDelegate<BindableViewHolder, String> {
+
+        public TestItemDelegate() {
+            super(lifecycleBindable);
+        }
+
+        @Override
+        public int getItemViewType() {
+            return SHARED_VIEW_TYPE;
+        }
+
+        @Override
+        public boolean isForViewType(@NonNull final Object item, final int positionInAdapter, final int itemCollectionPosition) {
+            return true;
+        }
+
+        @Override
+        public long getItemId(@NonNull final String item, final int positionInAdapter, final int positionInCollection) {
+            return ITEM_ID_BASE + positionInCollection;
+        }
+
+        @NonNull
+        @Override
+        public BindableViewHolder onCreateViewHolder(@NonNull final ViewGroup parent) {
+            return createViewHolder();
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull final BindableViewHolder holder, @NonNull final String item,
+                                     final int positionInAdapter, final int positionInCollection) {
+            bindings.add("item " + item);
+        }
+
+    }
+
+    // processes highlighted or not highlighted items
+    private class HighlightDelegate extends ItemAdapterDelegate<BindableViewHolder, String> {
+
+        private final boolean highlighted;
+
+        public HighlightDelegate(final boolean highlighted) {
+            super(lifecycleBindable);
+            this.highlighted = highlighted;
+        }
+
+        @Override
+        public int getItemViewType() {
+            return highlighted ? HIGHLIGHTED_VIEW_TYPE : NORMAL_VIEW_TYPE;
+        }
+
+        @Override
+        public boolean isForViewType(@NonNull final Object item, final int positionInAdapter, final int itemCollectionPosition) {
+            if (highlighted) {
+                viewTypeChecksCount++;
+            }
+            return highlightedItems.contains(item) == highlighted;
+        }
+
+        @NonNull
+        @Override
+        public BindableViewHolder onCreateViewHolder(@NonNull final ViewGroup parent) {
+            return createViewHolder();
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull final BindableViewHolder holder, @NonNull final String item,
+                                     final int positionInAdapter, final int positionInCollection) {
+            bindings.add(item);
+        }
+
+    }
+
+    // processes headers and footers
+    private class TestPositionDelegate extends PositionAdapterDelegate<BindableViewHolder> {
+
+        @NonNull
+        private final TestAdapter adapter;
+
+        public TestPositionDelegate(@NonNull final TestAdapter adapter) {
+            super(lifecycleBindable);
+            this.adapter = adapter;
+        }
+
+        @Override
+        public int getItemViewType() {
+            return SHARED_VIEW_TYPE;
+        }
+
+        @Override
+        public boolean isForViewType(final int positionInAdapter) {
+            return positionInAdapter < adapter.getHeadersCount() || positionInAdapter >= adapter.getItemCount() - adapter.getFootersCount();
+        }
+
+        @Override
+        public long getItemId(final int positionInAdapter) {
+            return POSITION_ID_BASE + positionInAdapter;
+        }
+
+        @NonNull
+        @Override
+        public BindableViewHolder onCreateViewHolder(@NonNull final ViewGroup parent) {
+            return createViewHolder();
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull final BindableViewHolder holder, final int positionInAdapter) {
+            bindings.add("position " + positionInAdapter);
+        }
+
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.components.utils.storables;
+
+import android.content.SharedPreferences;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory {@link SharedPreferences} which is counting writes to disk and is spending given time on each of them.
+ * Both {@link Editor#commit()} and {@link Editor#apply()} are writing synchronously as disk work of them is same.
+ * If file is given then all values are rewritten to it and synced on each write like Android's implementation does with it's XML file.
+ */
+class CountingSharedPreferences implements SharedPreferences {
+
+    @NonNull
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    @NonNull
+    private final AtomicInteger diskWritesCount = new AtomicInteger();
+    private final long diskWriteNanos;
+    @Nullable
+    private final File file;
+
+    public CountingSharedPreferences(final long diskWriteTime, @NonNull final TimeUnit timeUnit) {
+        this.diskWriteNanos = timeUnit.toNanos(diskWriteTime);
+        this.file = null;
+    }
+
+    public CountingSharedPreferences(@NonNull final File file) {
+        this.diskWriteNanos = 0;
+        this.file = file;
+    }
+
+    public int getDiskWritesCount() {
+        return diskWritesCount.get();
+    }
+
+    @NonNull
+    @Override
+    public Map<String, ?> getAll() {
+        return new HashMap<>(values);
+    }
+
+    @Nullable
+    @Override
+    public String getString(@NonNull final String key, @Nullable final String defValue) {
+        return values.containsKey(key) ? (String) values.get(key) : defValue;
+    }
+
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    //unchecked: only string sets are stored by that key
+    public Set<String> getStringSet(@NonNull final String key, @Nullable final Set<String> defValues) {
+        return values.containsKey(key) ? (Set<String>) values.get(key) : defValues;
+    }
+
+    @Override
+    public int getInt(@NonNull final String key, final int defValue) {
+        return values.containsKey(key) ? (Integer) values.get(key) : defValue;
+    }
+
+    @Override
+    public long getLong(@NonNull final String key, final long defValue) {
+        return values.containsKey(key) ? (Long) values.get(key) : defValue;
+    }
+
+    @Override
+    public float getFloat(@NonNull final String key, final float defValue) {
+        return values.containsKey(key) ? (Float) values.get(key) : defValue;
+    }
+
+    @Override
+    public boolean getBoolean(@NonNull final String key, final boolean defValue) {
+        return values.containsKey(key) ? (Boolean) values.get(key) : defValue;
+    }
+
+    @Override
+    public boolean contains(@NonNull final String key) {
+        return values.containsKey(key);
+    }
+
+    @NonNull
+    @Override
+    public Editor edit() {
+        return new CountingEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(@NonNull final OnSharedPreferenceChangeListener listener) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(@NonNull final OnSharedPreferenceChangeListener listener) {
+        throw new UnsupportedOperationException();
+    }
+
+    private boolean writeToFile(@NonNull final File file) {
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            final Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            for (final Map.Entry<String, Object> entry : values.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write('=');
+                writer.write(String.valueOf(entry.getValue()));
+                writer.write('\n');
+            }
+            writer.flush();
+            outputStream.getFD().sync();
+            return true;
+        } catch (final IOException exception) {
+            return false;
+        }
+    }
+
+    private class CountingEditor implements Editor {
+
+        @NonNull
+        private final Map<String, Object> changes = new HashMap<>();
+
+        @NonNull
+        private Editor put(@NonNull final String key, @Nullable final Object value) {
+            changes.put(key, value != null ? value : this);
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public Editor putString(@NonNull final String key, @Nullable final String value) {
+            return put(key, value);
+        }
+
+        @NonNull
+        @Override
+        public Editor putStringSet(@NonNull final String key, @Nullable final Set<String> values) {
+            return put(key, values);
+        }
+
+        @NonNull
+        @Override
+        public Editor putInt(@NonNull final String key, final int value) {
+            return put(key, value);
+        }
+
+        @NonNull
+        @Override
+        public Editor putLong(@NonNull final String key, final long value) {
+            return put(key, value);
+        }
+
+        @NonNull
+        @Override
+        public Editor putFloat(@NonNull final String key, final float value) {
+            return put(key, value);
+        }
+
+        @NonNull
+        @Override
+        public Editor putBoolean(@NonNull final String key, final boolean value) {
+            return put(key, value);
+        }
+
+        @NonNull
+        @Override
+        public Editor remove(@NonNull final String key) {
+            // editor itself is marking removed key
+            return put(key, null);
+        }
+
+        @NonNull
+        @Override
+        public Editor clear() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean commit() {
+            synchronized (CountingSharedPreferences.this) {
+                for (final Map.Entry<String, Object> change : changes.entrySet()) {
+                    if (change.getValue() == this) {
+                        values.remove(change.getKey());
+                    } else {
+                        values.put(change.getKey(), change.getValue());
+                    }
+                }
+                diskWritesCount.incrementAndGet();
+                if (file != null) {
+                    return writeToFile(file);
+                }
+                final long deadline = System.nanoTime() + diskWriteNanos;
+                while (System.nanoTime() < deadline) {
+                    Thread.yield();
+                }
+                return true;
+            }
+        }
+
+        @Override
+        public void apply() {
+            commit();
+        }
+
+    }
+
+}
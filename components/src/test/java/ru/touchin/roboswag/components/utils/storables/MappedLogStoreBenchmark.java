@@ -0,0 +1,135 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.components.utils.storables;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+public class MappedLogStoreBenchmark {
+
+    private static final int[] SYNC_VALUE_SIZES = {1024, 100 * 1024, 5 * 1024 * 1024};
+    private static final int SYNC_TOTAL_BYTES = 64 * 1024 * 1024;
+    // first size is warming up
+    private static final int[] COMPARISON_VALUE_SIZES = {10 * 1024, 10 * 1024, 100 * 1024, 1024 * 1024};
+    private static final int COMPARISON_KEYS_COUNT = 4;
+    private static final int COMPARISON_STORES_COUNT = 16;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @NonNull
+    private static String createStringValue(final int size, final int seed) {
+        final Random random = new Random(seed);
+        final char[] result = new char[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(result);
+    }
+
+    @SuppressWarnings("PMD.DoNotCallGarbageCollectionExplicitly")
+    //DoNotCallGarbageCollectionExplicitly: retained heap is measured between collections
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    public void storeDurationWithAndWithoutSync() throws IOException {
+        for (final int valueSize : SYNC_VALUE_SIZES) {
+            final long syncNanos = measureStoreNanos(true, valueSize);
+            final long noSyncNanos = measureStoreNanos(false, valueSize);
+            System.out.println(String.format(Locale.US, "MappedLogStore %d bytes: %.3f ms/store with sync, %.3f ms/store without sync",
+                    valueSize, syncNanos / 1_000_000.0, noSyncNanos / 1_000_000.0));
+        }
+    }
+
+    private long measureStoreNanos(final boolean syncOnStore, final int valueSize) throws IOException {
+        final int storesCount = Math.max(8, Math.min(500, SYNC_TOTAL_BYTES / valueSize));
+        final byte[][] values = {MappedLogStoreTest.createValue(valueSize, 1), MappedLogStoreTest.createValue(valueSize, 2)};
+        final MappedLogStore store = new MappedLogStore(temporaryFolder.newFile(), syncOnStore);
+        MappedLogStoreTest.store(store, "warm-up", values[0]);
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < storesCount; i++) {
+            MappedLogStoreTest.store(store, "key" + (i % 4), values[i % 2]);
+        }
+        final long result = (System.nanoTime() - startTime) / storesCount;
+        Assert.assertTrue(Arrays.equals(values[(storesCount - 1) % 2], MappedLogStoreTest.load(store, "key" + ((storesCount - 1) % 4))));
+        store.close();
+        return result;
+    }
+
+    @Test
+    public void latencyAndHeapComparedToPreferenceStore() throws IOException {
+        for (final int valueSize : COMPARISON_VALUE_SIZES) {
+            final long preferencesHeapBefore = usedHeap();
+            final PreferenceStore<String> preferenceStore = new PreferenceStore<>(new CountingSharedPreferences(temporaryFolder.newFile()));
+            long startTime = System.nanoTime();
+            for (int i = 0; i < COMPARISON_STORES_COUNT; i++) {
+                preferenceStore.storeObject(String.class, "key" + (i % COMPARISON_KEYS_COUNT), createStringValue(valueSize, i)).blockingAwait();
+            }
+            final long preferencesStoreNanos = (System.nanoTime() - startTime) / COMPARISON_STORES_COUNT;
+            startTime = System.nanoTime();
+            for (int i = 0; i < COMPARISON_KEYS_COUNT; i++) {
+                Assert.assertEquals(valueSize, preferenceStore.loadObject(String.class, "key" + i).blockingGet().get().length());
+            }
+            final long preferencesLoadNanos = (System.nanoTime() - startTime) / COMPARISON_KEYS_COUNT;
+            final long preferencesHeap = usedHeap() - preferencesHeapBefore;
+            // keeping store reachable till heap is measured
+            Assert.assertTrue(preferenceStore.contains("key0").blockingGet());
+
+            final long mappedHeapBefore = usedHeap();
+            final MappedLogStore mappedLogStore = new MappedLogStore(temporaryFolder.newFile());
+            startTime = System.nanoTime();
+            for (int i = 0; i < COMPARISON_STORES_COUNT; i++) {
+                MappedLogStoreTest.store(mappedLogStore, "key" + (i % COMPARISON_KEYS_COUNT),
+                        createStringValue(valueSize, i).getBytes(StandardCharsets.UTF_8));
+            }
+            final long mappedStoreNanos = (System.nanoTime() - startTime) / COMPARISON_STORES_COUNT;
+            startTime = System.nanoTime();
+            for (int i = 0; i < COMPARISON_KEYS_COUNT; i++) {
+                Assert.assertEquals(valueSize, new String(MappedLogStoreTest.load(mappedLogStore, "key" + i), StandardCharsets.UTF_8).length());
+            }
+            final long mappedLoadNanos = (System.nanoTime() - startTime) / COMPARISON_KEYS_COUNT;
+            final long mappedHeap = usedHeap() - mappedHeapBefore;
+            Assert.assertTrue(mappedLogStore.contains("key0").blockingGet());
+            mappedLogStore.close();
+
+            System.out.println(String.format(Locale.US, "%d keys of %d bytes: PreferenceStore %.3f ms/store, %.3f ms/load, %d KB heap; "
+                            + "MappedLogStore %.3f ms/store, %.3f ms/load, %d KB heap", COMPARISON_KEYS_COUNT, valueSize,
+                    preferencesStoreNanos / 1_000_000.0, preferencesLoadNanos / 1_000_000.0, preferencesHeap / 1024,
+                    mappedStoreNanos / 1_000_000.0, mappedLoadNanos / 1_000_000.0, mappedHeap / 1024));
+        }
+    }
+
+}
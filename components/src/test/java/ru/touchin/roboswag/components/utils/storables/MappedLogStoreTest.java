@@ -0,0 +1,160 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.components.utils.storables;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+public class MappedLogStoreTest {
+
+    private static final int RECORD_OVERHEAD = 3 * 4;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @NonNull
+    static byte[] createValue(final int size, final int seed) {
+        final byte[] result = new byte[size];
+        new Random(seed).nextBytes(result);
+        return result;
+    }
+
+    @Nullable
+    static byte[] load(@NonNull final MappedLogStore store, @NonNull final String key) {
+        return store.loadObject(byte[].class, key).blockingGet().get();
+    }
+
+    static void store(@NonNull final MappedLogStore store, @NonNull final String key, @Nullable final byte[] value) {
+        store.storeObject(byte[].class, key, value).blockingAwait();
+    }
+
+    @Test
+    public void valuesAreRestoredAfterReopen() throws IOException {
+        final File file = temporaryFolder.newFile();
+        final MappedLogStore store = new MappedLogStore(file);
+        store(store, "first", createValue(10, 1));
+        store(store, "second", createValue(100 * 1024, 2));
+        store(store, "first", createValue(20, 3));
+        store(store, "removed", createValue(30, 4));
+        store(store, "removed", null);
+        store.close();
+
+        final MappedLogStore reopenedStore = new MappedLogStore(file);
+        Assert.assertArrayEquals(createValue(20, 3), load(reopenedStore, "first"));
+        Assert.assertArrayEquals(createValue(100 * 1024, 2), load(reopenedStore, "second"));
+        Assert.assertNull(load(reopenedStore, "removed"));
+        Assert.assertFalse(reopenedStore.contains("removed").blockingGet());
+        reopenedStore.close();
+    }
+
+    @Test
+    public void emptyKeyIsRejected() throws IOException {
+        final MappedLogStore store = new MappedLogStore(temporaryFolder.newFile());
+
+        store.storeObject(byte[].class, "", createValue(10, 1)).test().assertError(IllegalArgumentException.class);
+
+        Assert.assertFalse(store.contains("").blockingGet());
+        store.close();
+    }
+
+    @Test
+    public void tornTailIsDroppedOnRecovery() throws IOException {
+        final File file = temporaryFolder.newFile();
+        final MappedLogStore store = new MappedLogStore(file);
+        store(store, "first", createValue(10, 1));
+        store(store, "second", createValue(10, 2));
+        store.close();
+
+        final int secondRecordPosition = RECORD_OVERHEAD + "first".length() + 10;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            // breaking checksum of second record
+            final int checksumPosition = secondRecordPosition + RECORD_OVERHEAD + "second".length() + 10 - 4;
+            randomAccessFile.seek(checksumPosition);
+            final int checksum = randomAccessFile.readInt();
+            randomAccessFile.seek(checksumPosition);
+            randomAccessFile.writeInt(~checksum);
+        }
+
+        final MappedLogStore reopenedStore = new MappedLogStore(file);
+        Assert.assertArrayEquals(createValue(10, 1), load(reopenedStore, "first"));
+        Assert.assertNull(load(reopenedStore, "second"));
+        store(reopenedStore, "third", createValue(10, 3));
+        reopenedStore.close();
+
+        final MappedLogStore storeAfterRewrite = new MappedLogStore(file);
+        Assert.assertArrayEquals(createValue(10, 1), load(storeAfterRewrite, "first"));
+        Assert.assertArrayEquals(createValue(10, 3), load(storeAfterRewrite, "third"));
+        storeAfterRewrite.close();
+    }
+
+    @Test
+    public void hugeLengthsInTailAreDroppedOnRecovery() throws IOException {
+        final File file = temporaryFolder.newFile();
+        final MappedLogStore store = new MappedLogStore(file);
+        store(store, "first", createValue(10, 1));
+        store.close();
+
+        final int tailPosition = RECORD_OVERHEAD + "first".length() + 10;
+        for (final int[] lengths : new int[][]{{Integer.MAX_VALUE, 0}, {Integer.MAX_VALUE - 8, 0}, {1, Integer.MAX_VALUE - 8}, {1, -5}}) {
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                randomAccessFile.seek(tailPosition);
+                randomAccessFile.writeInt(lengths[0]);
+                if (lengths[0] == 1) {
+                    randomAccessFile.write('k');
+                    randomAccessFile.writeInt(lengths[1]);
+                }
+            }
+
+            final MappedLogStore reopenedStore = new MappedLogStore(file);
+            Assert.assertArrayEquals(createValue(10, 1), load(reopenedStore, "first"));
+            Assert.assertFalse(reopenedStore.contains("k").blockingGet());
+            reopenedStore.close();
+        }
+    }
+
+    @Test
+    public void fileIsGrowingAndCompacting() throws IOException {
+        final File file = temporaryFolder.newFile();
+        final MappedLogStore store = new MappedLogStore(file, false);
+        final int valueSize = 100 * 1024;
+        for (int i = 0; i < 100; i++) {
+            store(store, "key" + (i % 3), createValue(valueSize, i));
+        }
+        store.close();
+
+        Assert.assertTrue(file.length() < 64 * valueSize);
+        final MappedLogStore reopenedStore = new MappedLogStore(file);
+        for (int i = 97; i < 100; i++) {
+            Assert.assertArrayEquals(createValue(valueSize, i), load(reopenedStore, "key" + (i % 3)));
+        }
+        reopenedStore.close();
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.components.utils.storables;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import ru.touchin.roboswag.core.observables.storable.SameTypesConverter;
+import ru.touchin.roboswag.core.observables.storable.Storable;
+
+public class PreferenceWriteBatcherBenchmark {
+
+    private static final int WRITES_COUNT = 1000;
+    private static final long DISK_WRITE_MICROS = 500;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private static long setRapidly(@NonNull final PreferenceStore<String> store) throws InterruptedException {
+        final CountDownLatch completed = new CountDownLatch(WRITES_COUNT);
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < WRITES_COUNT; i++) {
+            new Storable.Builder<String, String, String>("key" + i, String.class, String.class, store, new SameTypesConverter<>())
+                    .build()
+                    .set("value" + i)
+                    .subscribe(completed::countDown);
+        }
+        Assert.assertTrue(completed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        return System.nanoTime() - startTime;
+    }
+
+    @Test
+    public void diskWritesAndTimeOfRapidSets() throws InterruptedException {
+        final CountingSharedPreferences plainPreferences = new CountingSharedPreferences(DISK_WRITE_MICROS, TimeUnit.MICROSECONDS);
+        final long plainNanos = setRapidly(new PreferenceStore<>(plainPreferences));
+
+        final CountingSharedPreferences batchedPreferences = new CountingSharedPreferences(DISK_WRITE_MICROS, TimeUnit.MICROSECONDS);
+        final long batchedNanos = setRapidly(new PreferenceStore<>(new PreferenceWriteBatcher(batchedPreferences, 10, TimeUnit.MILLISECONDS)));
+
+        System.out.println(String.format(Locale.US, "%d rapid Storable.set: PreferenceStore %d disk writes in %d ms, "
+                        + "with PreferenceWriteBatcher %d disk writes in %d ms", WRITES_COUNT,
+                plainPreferences.getDiskWritesCount(), TimeUnit.NANOSECONDS.toMillis(plainNanos),
+                batchedPreferences.getDiskWritesCount(), TimeUnit.NANOSECONDS.toMillis(batchedNanos)));
+    }
+
+}
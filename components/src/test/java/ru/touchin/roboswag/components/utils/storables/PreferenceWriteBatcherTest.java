@@ -0,0 +1,153 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.components.utils.storables;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Completable;
+import ru.touchin.roboswag.core.observables.storable.SameTypesConverter;
+import ru.touchin.roboswag.core.observables.storable.Storable;
+
+public class PreferenceWriteBatcherTest {
+
+    private static final int WRITES_COUNT = 1000;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @NonNull
+    private static Storable<String, String, String> createStorable(@NonNull final PreferenceStore<String> store, @NonNull final String key) {
+        return new Storable.Builder<String, String, String>(key, String.class, String.class, store, new SameTypesConverter<>()).build();
+    }
+
+    private static void awaitAll(@NonNull final List<Completable> writes) throws InterruptedException {
+        final CountDownLatch completed = new CountDownLatch(writes.size());
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        for (final Completable write : writes) {
+            write.subscribe(completed::countDown, throwable -> {
+                error.set(throwable);
+                completed.countDown();
+            });
+        }
+        Assert.assertTrue(completed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertNull(error.get());
+    }
+
+    @Test
+    public void rapidStorableSetsAreCommittedInFewBatches() throws InterruptedException {
+        final CountingSharedPreferences preferences = new CountingSharedPreferences(1, TimeUnit.MILLISECONDS);
+        final PreferenceWriteBatcher batcher = new PreferenceWriteBatcher(preferences, 10, TimeUnit.MILLISECONDS);
+        final PreferenceStore<String> store = new PreferenceStore<>(batcher);
+        final List<Completable> writes = new ArrayList<>();
+        for (int i = 0; i < WRITES_COUNT; i++) {
+            writes.add(createStorable(store, "key" + i).set("value" + i));
+        }
+
+        awaitAll(writes);
+
+        for (int i = 0; i < WRITES_COUNT; i++) {
+            Assert.assertEquals("value" + i, preferences.getString("key" + i, null));
+        }
+        Assert.assertEquals(batcher.getCommitsCount(), preferences.getDiskWritesCount());
+        Assert.assertTrue("Disk writes: " + preferences.getDiskWritesCount(), preferences.getDiskWritesCount() <= WRITES_COUNT / 10);
+    }
+
+    @Test
+    public void writesOfTransactionAreCommittedOnceAfterItsEnd() throws InterruptedException {
+        final CountingSharedPreferences preferences = new CountingSharedPreferences(0, TimeUnit.MILLISECONDS);
+        final PreferenceWriteBatcher batcher = new PreferenceWriteBatcher(preferences, 0, TimeUnit.MILLISECONDS);
+        final PreferenceStore<String> store = new PreferenceStore<>(batcher);
+        final List<Completable> writes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            writes.add(store.storeObject(String.class, "key" + i, "value" + i).cache());
+        }
+
+        batcher.beginTransaction();
+        try {
+            for (final Completable write : writes) {
+                write.subscribe();
+            }
+            Thread.sleep(50);
+            Assert.assertEquals(0, preferences.getDiskWritesCount());
+            Assert.assertFalse(preferences.contains("key0"));
+        } finally {
+            batcher.endTransaction();
+        }
+
+        awaitAll(writes);
+        Assert.assertEquals(1, preferences.getDiskWritesCount());
+        Assert.assertEquals("value99", preferences.getString("key99", null));
+    }
+
+    @Test
+    public void removingIsBatchedWithOtherWrites() throws InterruptedException {
+        final CountingSharedPreferences preferences = new CountingSharedPreferences(0, TimeUnit.MILLISECONDS);
+        final PreferenceWriteBatcher batcher = new PreferenceWriteBatcher(preferences, 0, TimeUnit.MILLISECONDS);
+        final PreferenceStore<String> store = new PreferenceStore<>(batcher);
+        Assert.assertTrue(store.storeObject(String.class, "key", "value").blockingAwait(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        final List<Completable> writes = new ArrayList<>();
+        writes.add(store.storeObject(String.class, "key", null).cache());
+        writes.add(store.storeObject(String.class, "other", "value").cache());
+        batcher.beginTransaction();
+        try {
+            for (final Completable write : writes) {
+                write.subscribe();
+            }
+        } finally {
+            batcher.endTransaction();
+        }
+
+        awaitAll(writes);
+        Assert.assertFalse(preferences.contains("key"));
+        Assert.assertEquals("value", preferences.getString("other", null));
+        Assert.assertEquals(2, preferences.getDiskWritesCount());
+    }
+
+    @Test
+    public void failedEditorActionIsNotBreakingOtherWritesOfBatch() {
+        final CountingSharedPreferences preferences = new CountingSharedPreferences(0, TimeUnit.MILLISECONDS);
+        final PreferenceWriteBatcher batcher = new PreferenceWriteBatcher(preferences, 0, TimeUnit.MILLISECONDS);
+        final Completable failed = batcher.write(editor -> {
+            throw new IllegalStateException("expected");
+        }).cache();
+        final Completable succeeded = batcher.write(editor -> editor.putString("key", "value")).cache();
+        batcher.beginTransaction();
+        try {
+            failed.subscribe(() -> { }, throwable -> { });
+            succeeded.subscribe();
+        } finally {
+            batcher.endTransaction();
+        }
+
+        Assert.assertTrue(succeeded.blockingAwait(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertTrue(failed.blockingGet(TIMEOUT_SECONDS, TimeUnit.SECONDS) instanceof IllegalStateException);
+        Assert.assertEquals("value", preferences.getString("key", null));
+        Assert.assertEquals(1, preferences.getDiskWritesCount());
+    }
+
+}
@@ -0,0 +1,866 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.android.support.v7.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Reusable implementation of {@link DiffUtil} algorithm which is keeping all intermediate data in own int arrays.
+ * Snakes, ranges to solve, item statuses and postponed moves are packed into arrays which are growing on demand and reused by next calculation
+ * so repeated diffs of lists of same size are not allocating anything. Results are dispatching directly into {@link ListUpdateCallback}
+ * in same order and batched same way as {@link DiffUtil.DiffResult#dispatchUpdatesTo(ListUpdateCallback)} does.
+ * If {@link ItemHashes} are passed then moved items are paired by hash instead of scanning all added and removed items for each of them
+ * so move detection takes linear time instead of quadratic.
+ * Engine is not thread-safe and not reentrant so use {@link #forCurrentThread()} to get engine confined to current thread.
+ */
+@SuppressWarnings({"PMD", "checkstyle:all"})
+public final class DiffEngine {
+
+    // buffers bigger than this are dropped after calculation to not keep memory of rare huge diffs in thread forever
+    private static final int MAX_RETAINED_BUFFER_LENGTH = 64 * 1024;
+    private static final int INITIAL_BUFFER_LENGTH = 64;
+
+    private static final int SNAKE_STRIDE = 3;
+    private static final int RANGE_STRIDE = 4;
+
+    private static final int NO_SNAKE = 0;
+    private static final int SNAKE_FOUND = 1;
+    private static final int BUDGET_EXCEEDED = 2;
+
+    // same flags as in DiffUtil.DiffResult
+    private static final int FLAG_NOT_CHANGED = 1;
+    private static final int FLAG_CHANGED = FLAG_NOT_CHANGED << 1;
+    private static final int FLAG_MOVED_CHANGED = FLAG_CHANGED << 1;
+    private static final int FLAG_MOVED_NOT_CHANGED = FLAG_MOVED_CHANGED << 1;
+    private static final int FLAG_IGNORE = FLAG_MOVED_NOT_CHANGED << 1;
+    private static final int FLAG_OFFSET = 5;
+    private static final int FLAG_MASK = (1 << FLAG_OFFSET) - 1;
+
+    private static final int EVENT_NONE = 0;
+    private static final int EVENT_INSERTED = 1;
+    private static final int EVENT_REMOVED = 2;
+    private static final int EVENT_CHANGED = 3;
+
+    @NonNull
+    private static final ThreadLocal<DiffEngine> THREAD_ENGINES = new ThreadLocal<DiffEngine>() {
+        @Override
+        protected DiffEngine initialValue() {
+            return new DiffEngine();
+        }
+    };
+
+    /**
+     * Returns engine which is confined to current thread.
+     *
+     * @return Engine of current thread.
+     */
+    @NonNull
+    public static DiffEngine forCurrentThread() {
+        return THREAD_ENGINES.get();
+    }
+
+    // k-lines of Myers' algorithm; after snakes are found they are reused as statuses of old and new items
+    @NonNull
+    private int[] forward = new int[0];
+    @NonNull
+    private int[] backward = new int[0];
+    // x, y, size of each snake sorted by position
+    @NonNull
+    private int[] snakes = new int[INITIAL_BUFFER_LENGTH * SNAKE_STRIDE];
+    private int snakesCount;
+    // oldListStart, oldListEnd, newListStart, newListEnd of each range to solve;
+    // snake which should be added after left range is solved is stored as ~x, y, size
+    @NonNull
+    private int[] ranges = new int[INITIAL_BUFFER_LENGTH * RANGE_STRIDE];
+    private int rangesCount;
+    // positions of added and removed items grouped by hashes to pair moves
+    @NonNull
+    private final PositionChains oldChains = new PositionChains();
+    @NonNull
+    private final PositionChains newChains = new PositionChains();
+    // postponed updates are kept in order of adding. Current position of update is its initial position plus offset of all updates
+    // plus offsets from removal of earlier added updates. The latter are summed by Fenwick tree so each operation costs O(log n)
+    @NonNull
+    private int[] postponedPositions = new int[INITIAL_BUFFER_LENGTH];
+    @NonNull
+    private int[] postponedBaselines = new int[INITIAL_BUFFER_LENGTH];
+    @NonNull
+    private int[] postponedOffsetsTree = new int[INITIAL_BUFFER_LENGTH + 1];
+    // index of postponed update by position in old list for removals and in new list for additions
+    @NonNull
+    private int[] oldPostponedIndices = new int[INITIAL_BUFFER_LENGTH];
+    @NonNull
+    private int[] newPostponedIndices = new int[INITIAL_BUFFER_LENGTH];
+    private int postponedUpdatesCount;
+    private int postponedUpdatesOffset;
+
+    // result of diffPartial
+    private int snakeX;
+    private int snakeY;
+    private int snakeSize;
+    private boolean snakeRemoval;
+    private boolean snakeReverse;
+
+    // state of batching of dispatched updates
+    @Nullable
+    private ListUpdateCallback updateCallback;
+    private int lastEventType = EVENT_NONE;
+    private int lastEventPosition;
+    private int lastEventCount;
+    @Nullable
+    private Object lastEventPayload;
+
+    /**
+     * Calculates updates which are converting old list into new one and dispatches them into updateCallback.
+     *
+     * @param callback       The callback that acts as a gateway to the backing list data;
+     * @param detectMoves    True if moved items should be detected;
+     * @param updateCallback Callback to receive updates.
+     */
+    public void calculateDiff(@NonNull final DiffUtil.Callback callback, final boolean detectMoves,
+                              @NonNull final ListUpdateCallback updateCallback) {
+        calculateDiff(callback, detectMoves, null, Integer.MAX_VALUE, Long.MAX_VALUE, updateCallback);
+    }
+
+    /**
+     * Calculates updates which are converting old list into new one and dispatches them into updateCallback
+     * but gives up if lists are too different. Nothing is dispatched in that case.
+     *
+     * @param callback         The callback that acts as a gateway to the backing list data;
+     * @param detectMoves      True if moved items should be detected;
+     * @param maxEditDistance  Maximum count of inserted and removed items to search edit sequence for;
+     * @param maxDurationNanos Maximum time to search edit sequence in nanoseconds. Move detection is not limited by it;
+     * @param updateCallback   Callback to receive updates.
+     * @return True if updates were dispatched or false if limits were exceeded.
+     */
+    public boolean calculateDiff(@NonNull final DiffUtil.Callback callback, final boolean detectMoves,
+                                 final int maxEditDistance, final long maxDurationNanos,
+                                 @NonNull final ListUpdateCallback updateCallback) {
+        return calculateDiff(callback, detectMoves, null, maxEditDistance, maxDurationNanos, updateCallback);
+    }
+
+    /**
+     * Calculates updates which are converting old list into new one and dispatches them into updateCallback
+     * but gives up if lists are too different. Nothing is dispatched in that case.
+     *
+     * @param callback         The callback that acts as a gateway to the backing list data;
+     * @param detectMoves      True if moved items should be detected;
+     * @param itemHashes       Hashes of items to pair moved items in linear time or null to search them by scanning;
+     * @param maxEditDistance  Maximum count of inserted and removed items to search edit sequence for;
+     * @param maxDurationNanos Maximum time to search edit sequence in nanoseconds. Move detection is not limited by it;
+     * @param updateCallback   Callback to receive updates.
+     * @return True if updates were dispatched or false if limits were exceeded.
+     */
+    public boolean calculateDiff(@NonNull final DiffUtil.Callback callback, final boolean detectMoves, @Nullable final ItemHashes itemHashes,
+                                 final int maxEditDistance, final long maxDurationNanos,
+                                 @NonNull final ListUpdateCallback updateCallback) {
+        final long startTime = System.nanoTime();
+        final long deadline = maxDurationNanos < Long.MAX_VALUE - startTime ? startTime + maxDurationNanos : Long.MAX_VALUE;
+        final int dMax = maxEditDistance < Integer.MAX_VALUE ? (maxEditDistance + 1) / 2 : Integer.MAX_VALUE;
+        final int oldSize = callback.getOldListSize();
+        final int newSize = callback.getNewListSize();
+        final int max = oldSize + newSize + Math.abs(oldSize - newSize);
+        if (forward.length < max * 2) {
+            forward = new int[max * 2];
+            backward = new int[max * 2];
+        }
+        try {
+            if (!findSnakes(callback, oldSize, newSize, max, dMax, deadline)) {
+                return false;
+            }
+            Arrays.fill(forward, 0, oldSize, 0);
+            Arrays.fill(backward, 0, newSize, 0);
+            if (detectMoves && itemHashes != null) {
+                findMatchingItemsByHashes(callback, itemHashes, oldSize, newSize);
+            } else {
+                findMatchingItems(callback, oldSize, newSize, detectMoves);
+            }
+            this.updateCallback = updateCallback;
+            dispatchUpdates(callback, oldSize, newSize, detectMoves);
+            return true;
+        } finally {
+            this.updateCallback = null;
+            lastEventPayload = null;
+            releaseOversizedBuffers();
+        }
+    }
+
+    private void releaseOversizedBuffers() {
+        if (forward.length > MAX_RETAINED_BUFFER_LENGTH) {
+            forward = new int[0];
+            backward = new int[0];
+        }
+        if (snakes.length > MAX_RETAINED_BUFFER_LENGTH) {
+            snakes = new int[INITIAL_BUFFER_LENGTH * SNAKE_STRIDE];
+        }
+        if (ranges.length > MAX_RETAINED_BUFFER_LENGTH) {
+            ranges = new int[INITIAL_BUFFER_LENGTH * RANGE_STRIDE];
+        }
+        if (postponedPositions.length > MAX_RETAINED_BUFFER_LENGTH) {
+            postponedPositions = new int[INITIAL_BUFFER_LENGTH];
+            postponedBaselines = new int[INITIAL_BUFFER_LENGTH];
+            postponedOffsetsTree = new int[INITIAL_BUFFER_LENGTH + 1];
+        }
+        if (oldPostponedIndices.length > MAX_RETAINED_BUFFER_LENGTH) {
+            oldPostponedIndices = new int[INITIAL_BUFFER_LENGTH];
+        }
+        if (newPostponedIndices.length > MAX_RETAINED_BUFFER_LENGTH) {
+            newPostponedIndices = new int[INITIAL_BUFFER_LENGTH];
+        }
+        oldChains.releaseOversizedBuffers();
+        newChains.releaseOversizedBuffers();
+    }
+
+    private boolean findSnakes(@NonNull final DiffUtil.Callback callback, final int oldSize, final int newSize,
+                               final int max, final int dMax, final long deadline) {
+        snakesCount = 0;
+        rangesCount = 0;
+        // root snake so we can run loops from end to beginning and be done when we run out of snakes
+        addSnake(0, 0, 0);
+        pushRange(0, oldSize, 0, newSize);
+        // ranges are solved in order of their positions so snakes are added already sorted
+        while (rangesCount > 0) {
+            rangesCount--;
+            final int offset = rangesCount * RANGE_STRIDE;
+            final int oldListStart = ranges[offset];
+            final int oldListEnd = ranges[offset + 1];
+            final int newListStart = ranges[offset + 2];
+            final int newListEnd = ranges[offset + 3];
+            if (oldListStart < 0) {
+                addSnake(~oldListStart, oldListEnd, newListStart);
+                continue;
+            }
+            final int result = diffPartial(callback, oldListStart, oldListEnd, newListStart, newListEnd, max, dMax, deadline);
+            if (result == BUDGET_EXCEEDED) {
+                return false;
+            }
+            if (result == NO_SNAKE) {
+                continue;
+            }
+            final int x = snakeX + oldListStart;
+            final int y = snakeY + newListStart;
+            if (snakeReverse) {
+                if (snakeRemoval) {
+                    pushRange(x + snakeSize + 1, oldListEnd, y + snakeSize, newListEnd);
+                } else {
+                    pushRange(x + snakeSize, oldListEnd, y + snakeSize + 1, newListEnd);
+                }
+            } else {
+                pushRange(x + snakeSize, oldListEnd, y + snakeSize, newListEnd);
+            }
+            if (snakeSize > 0) {
+                pushRange(~x, y, snakeSize, 0);
+            }
+            if (snakeReverse) {
+                pushRange(oldListStart, x, newListStart, y);
+            } else if (snakeRemoval) {
+                pushRange(oldListStart, x - 1, newListStart, y);
+            } else {
+                pushRange(oldListStart, x, newListStart, y - 1);
+            }
+        }
+        return true;
+    }
+
+    private void pushRange(final int oldListStart, final int oldListEnd, final int newListStart, final int newListEnd) {
+        final int offset = rangesCount * RANGE_STRIDE;
+        if (offset + RANGE_STRIDE > ranges.length) {
+            ranges = Arrays.copyOf(ranges, ranges.length * 2);
+        }
+        ranges[offset] = oldListStart;
+        ranges[offset + 1] = oldListEnd;
+        ranges[offset + 2] = newListStart;
+        ranges[offset + 3] = newListEnd;
+        rangesCount++;
+    }
+
+    private void addSnake(final int x, final int y, final int size) {
+        final int offset = snakesCount * SNAKE_STRIDE;
+        if (offset + SNAKE_STRIDE > snakes.length) {
+            snakes = Arrays.copyOf(snakes, snakes.length * 2);
+        }
+        snakes[offset] = x;
+        snakes[offset + 1] = y;
+        snakes[offset + 2] = size;
+        snakesCount++;
+    }
+
+    private int diffPartial(@NonNull final DiffUtil.Callback callback, final int startOld, final int endOld,
+                            final int startNew, final int endNew, final int kOffset, final int dMax, final long deadline) {
+        final int oldSize = endOld - startOld;
+        final int newSize = endNew - startNew;
+        if (oldSize < 1 || newSize < 1) {
+            return NO_SNAKE;
+        }
+        final int delta = oldSize - newSize;
+        final int dLimit = (oldSize + newSize + 1) / 2;
+        Arrays.fill(forward, kOffset - dLimit - 1, kOffset + dLimit + 1, 0);
+        Arrays.fill(backward, kOffset - dLimit - 1 + delta, kOffset + dLimit + 1 + delta, oldSize);
+        final boolean checkInFwd = delta % 2 != 0;
+        for (int d = 0; d <= dLimit; d++) {
+            if (d > dMax || (deadline != Long.MAX_VALUE && System.nanoTime() > deadline)) {
+                return BUDGET_EXCEEDED;
+            }
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                final boolean removal;
+                if (k == -d || k != d && forward[kOffset + k - 1] < forward[kOffset + k + 1]) {
+                    x = forward[kOffset + k + 1];
+                    removal = false;
+                } else {
+                    x = forward[kOffset + k - 1] + 1;
+                    removal = true;
+                }
+                // only items from start of the snake are known to match, overlapped part of reverse path before it could contain different items
+                final int snakeStart = x;
+                int y = x - k;
+                while (x < oldSize && y < newSize && callback.areItemsTheSame(startOld + x, startNew + y)) {
+                    x++;
+                    y++;
+                }
+                forward[kOffset + k] = x;
+                if (checkInFwd && k >= delta - d + 1 && k <= delta + d - 1 && forward[kOffset + k] >= backward[kOffset + k]) {
+                    snakeX = snakeStart;
+                    snakeY = snakeX - k;
+                    snakeSize = x - snakeStart;
+                    snakeRemoval = removal;
+                    snakeReverse = false;
+                    return SNAKE_FOUND;
+                }
+            }
+            for (int k = -d; k <= d; k += 2) {
+                final int backwardK = k + delta;
+                int x;
+                final boolean removal;
+                if (backwardK == d + delta || backwardK != -d + delta
+                        && backward[kOffset + backwardK - 1] < backward[kOffset + backwardK + 1]) {
+                    x = backward[kOffset + backwardK - 1];
+                    removal = false;
+                } else {
+                    x = backward[kOffset + backwardK + 1] - 1;
+                    removal = true;
+                }
+                // only items to end of the snake are known to match, overlapped part of forward path after it could contain different items
+                final int snakeEnd = x;
+                int y = x - backwardK;
+                while (x > 0 && y > 0 && callback.areItemsTheSame(startOld + x - 1, startNew + y - 1)) {
+                    x--;
+                    y--;
+                }
+                backward[kOffset + backwardK] = x;
+                if (!checkInFwd && k + delta >= -d && k + delta <= d && forward[kOffset + backwardK] >= backward[kOffset + backwardK]) {
+                    snakeX = x;
+                    snakeY = snakeX - backwardK;
+                    snakeSize = snakeEnd - x;
+                    snakeRemoval = removal;
+                    snakeReverse = true;
+                    return SNAKE_FOUND;
+                }
+            }
+        }
+        throw new IllegalStateException("DiffEngine hit an unexpected case while trying to calculate the optimal path. "
+                + "Please make sure your data is not changing during the diff calculation.");
+    }
+
+    // forward and backward are used as statuses of old and new items from here
+    private void findMatchingItems(@NonNull final DiffUtil.Callback callback, final int oldSize, final int newSize, final boolean detectMoves) {
+        int posOld = oldSize;
+        int posNew = newSize;
+        for (int i = snakesCount - 1; i >= 0; i--) {
+            final int snakeX = snakes[i * SNAKE_STRIDE];
+            final int snakeY = snakes[i * SNAKE_STRIDE + 1];
+            final int snakeSize = snakes[i * SNAKE_STRIDE + 2];
+            final int endX = snakeX + snakeSize;
+            final int endY = snakeY + snakeSize;
+            if (detectMoves) {
+                while (posOld > endX) {
+                    if (forward[posOld - 1] == 0) {
+                        findMatchingItem(callback, posOld, posNew, i, false);
+                    }
+                    posOld--;
+                }
+                while (posNew > endY) {
+                    if (backward[posNew - 1] == 0) {
+                        findMatchingItem(callback, posOld, posNew, i, true);
+                    }
+                    posNew--;
+                }
+            }
+            for (int j = 0; j < snakeSize; j++) {
+                final int oldItemPos = snakeX + j;
+                final int newItemPos = snakeY + j;
+                final int changeFlag = callback.areContentsTheSame(oldItemPos, newItemPos) ? FLAG_NOT_CHANGED : FLAG_CHANGED;
+                forward[oldItemPos] = (newItemPos << FLAG_OFFSET) | changeFlag;
+                backward[newItemPos] = (oldItemPos << FLAG_OFFSET) | changeFlag;
+            }
+            posOld = snakeX;
+            posNew = snakeY;
+        }
+    }
+
+    private void findMatchingItem(@NonNull final DiffUtil.Callback callback, final int x, final int y, final int snakeIndex, final boolean removal) {
+        final int myItemPos = removal ? y - 1 : x - 1;
+        int curX = removal ? x : x - 1;
+        int curY = removal ? y - 1 : y;
+        for (int i = snakeIndex; i >= 0; i--) {
+            final int snakeX = snakes[i * SNAKE_STRIDE];
+            final int snakeY = snakes[i * SNAKE_STRIDE + 1];
+            final int snakeSize = snakes[i * SNAKE_STRIDE + 2];
+            if (removal) {
+                for (int pos = curX - 1; pos >= snakeX + snakeSize; pos--) {
+                    // removed item could be already paired with other added item if items are duplicated
+                    if (forward[pos] == 0 && callback.areItemsTheSame(pos, myItemPos)) {
+                        final int changeFlag = callback.areContentsTheSame(pos, myItemPos) ? FLAG_MOVED_NOT_CHANGED : FLAG_MOVED_CHANGED;
+                        backward[myItemPos] = (pos << FLAG_OFFSET) | FLAG_IGNORE;
+                        forward[pos] = (myItemPos << FLAG_OFFSET) | changeFlag;
+                        return;
+                    }
+                }
+            } else {
+                for (int pos = curY - 1; pos >= snakeY + snakeSize; pos--) {
+                    if (backward[pos] == 0 && callback.areItemsTheSame(myItemPos, pos)) {
+                        final int changeFlag = callback.areContentsTheSame(myItemPos, pos) ? FLAG_MOVED_NOT_CHANGED : FLAG_MOVED_CHANGED;
+                        forward[myItemPos] = (pos << FLAG_OFFSET) | FLAG_IGNORE;
+                        backward[pos] = (myItemPos << FLAG_OFFSET) | changeFlag;
+                        return;
+                    }
+                }
+            }
+            curX = snakeX;
+            curY = snakeY;
+        }
+    }
+
+    // same as findMatchingItems but candidates are taken from chains of same hash instead of scanning all added or removed items
+    private void findMatchingItemsByHashes(@NonNull final DiffUtil.Callback callback, @NonNull final ItemHashes itemHashes,
+                                           final int oldSize, final int newSize) {
+        buildChains(itemHashes, oldSize, newSize);
+        int posOld = oldSize;
+        int posNew = newSize;
+        for (int i = snakesCount - 1; i >= 0; i--) {
+            final int snakeX = snakes[i * SNAKE_STRIDE];
+            final int snakeY = snakes[i * SNAKE_STRIDE + 1];
+            final int snakeSize = snakes[i * SNAKE_STRIDE + 2];
+            while (posOld > snakeX + snakeSize) {
+                if (forward[posOld - 1] == 0) {
+                    matchRemovedItem(callback, itemHashes, posOld - 1, posNew);
+                }
+                posOld--;
+            }
+            while (posNew > snakeY + snakeSize) {
+                if (backward[posNew - 1] == 0) {
+                    matchAddedItem(callback, itemHashes, posNew - 1, posOld);
+                }
+                posNew--;
+            }
+            for (int j = 0; j < snakeSize; j++) {
+                final int oldItemPos = snakeX + j;
+                final int newItemPos = snakeY + j;
+                final int changeFlag = callback.areContentsTheSame(oldItemPos, newItemPos) ? FLAG_NOT_CHANGED : FLAG_CHANGED;
+                forward[oldItemPos] = (newItemPos << FLAG_OFFSET) | changeFlag;
+                backward[newItemPos] = (oldItemPos << FLAG_OFFSET) | changeFlag;
+            }
+            posOld = snakeX;
+            posNew = snakeY;
+        }
+    }
+
+    private void buildChains(@NonNull final ItemHashes itemHashes, final int oldSize, final int newSize) {
+        int matchedCount = 0;
+        for (int i = 0; i < snakesCount; i++) {
+            matchedCount += snakes[i * SNAKE_STRIDE + 2];
+        }
+        oldChains.reset(oldSize, oldSize - matchedCount);
+        newChains.reset(newSize, newSize - matchedCount);
+        int posOld = 0;
+        int posNew = 0;
+        for (int i = 0; i <= snakesCount; i++) {
+            final int gapEndX = i < snakesCount ? snakes[i * SNAKE_STRIDE] : oldSize;
+            final int gapEndY = i < snakesCount ? snakes[i * SNAKE_STRIDE + 1] : newSize;
+            for (; posOld < gapEndX; posOld++) {
+                oldChains.add(itemHashes.getOldItemHash(posOld), posOld);
+            }
+            for (; posNew < gapEndY; posNew++) {
+                newChains.add(itemHashes.getNewItemHash(posNew), posNew);
+            }
+            if (i < snakesCount) {
+                posOld = gapEndX + snakes[i * SNAKE_STRIDE + 2];
+                posNew = gapEndY + snakes[i * SNAKE_STRIDE + 2];
+            }
+        }
+    }
+
+    // pairs removed item with closest added item before newPositionLimit
+    private void matchRemovedItem(@NonNull final DiffUtil.Callback callback, @NonNull final ItemHashes itemHashes,
+                                  final int oldItemPos, final int newPositionLimit) {
+        int pos = newChains.first(itemHashes.getOldItemHash(oldItemPos), newPositionLimit);
+        for (; pos != PositionChains.END; pos = newChains.next(pos)) {
+            if (backward[pos] == 0 && callback.areItemsTheSame(oldItemPos, pos)) {
+                final int changeFlag = callback.areContentsTheSame(oldItemPos, pos) ? FLAG_MOVED_NOT_CHANGED : FLAG_MOVED_CHANGED;
+                forward[oldItemPos] = (pos << FLAG_OFFSET) | FLAG_IGNORE;
+                backward[pos] = (oldItemPos << FLAG_OFFSET) | changeFlag;
+                return;
+            }
+        }
+    }
+
+    // pairs added item with closest removed item before oldPositionLimit
+    private void matchAddedItem(@NonNull final DiffUtil.Callback callback, @NonNull final ItemHashes itemHashes,
+                                final int newItemPos, final int oldPositionLimit) {
+        int pos = oldChains.first(itemHashes.getNewItemHash(newItemPos), oldPositionLimit);
+        for (; pos != PositionChains.END; pos = oldChains.next(pos)) {
+            if (forward[pos] == 0 && callback.areItemsTheSame(pos, newItemPos)) {
+                final int changeFlag = callback.areContentsTheSame(pos, newItemPos) ? FLAG_MOVED_NOT_CHANGED : FLAG_MOVED_CHANGED;
+                backward[newItemPos] = (pos << FLAG_OFFSET) | FLAG_IGNORE;
+                forward[pos] = (newItemPos << FLAG_OFFSET) | changeFlag;
+                return;
+            }
+        }
+    }
+
+    private void dispatchUpdates(@NonNull final DiffUtil.Callback callback, final int oldSize, final int newSize, final boolean detectMoves) {
+        if (detectMoves) {
+            resetPostponedUpdates(oldSize, newSize);
+        }
+        lastEventType = EVENT_NONE;
+        int posOld = oldSize;
+        int posNew = newSize;
+        for (int snakeIndex = snakesCount - 1; snakeIndex >= 0; snakeIndex--) {
+            final int snakeX = snakes[snakeIndex * SNAKE_STRIDE];
+            final int snakeY = snakes[snakeIndex * SNAKE_STRIDE + 1];
+            final int snakeSize = snakes[snakeIndex * SNAKE_STRIDE + 2];
+            final int endX = snakeX + snakeSize;
+            final int endY = snakeY + snakeSize;
+            if (endX < posOld) {
+                dispatchRemovals(callback, endX, posOld - endX, detectMoves);
+            }
+            if (endY < posNew) {
+                dispatchAdditions(callback, endX, posNew - endY, endY, detectMoves);
+            }
+            for (int i = snakeSize - 1; i >= 0; i--) {
+                if ((forward[snakeX + i] & FLAG_MASK) == FLAG_CHANGED) {
+                    onChanged(snakeX + i, 1, callback.getChangePayload(snakeX + i, snakeY + i));
+                }
+            }
+            posOld = snakeX;
+            posNew = snakeY;
+        }
+        dispatchLastEvent();
+    }
+
+    private void dispatchAdditions(@NonNull final DiffUtil.Callback callback, final int start, final int count, final int globalIndex,
+                                   final boolean detectMoves) {
+        if (!detectMoves) {
+            onInserted(start, count);
+            return;
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            final int status = backward[globalIndex + i] & FLAG_MASK;
+            switch (status) {
+                case 0:
+                    onInserted(start, 1);
+                    postponedUpdatesOffset++;
+                    break;
+                case FLAG_MOVED_CHANGED:
+                case FLAG_MOVED_NOT_CHANGED:
+                    final int pos = backward[globalIndex + i] >> FLAG_OFFSET;
+                    final int currentPos = removePostponedUpdate(pos, true);
+                    onMoved(currentPos, start);
+                    if (status == FLAG_MOVED_CHANGED) {
+                        onChanged(start, 1, callback.getChangePayload(pos, globalIndex + i));
+                    }
+                    break;
+                case FLAG_IGNORE:
+                    addPostponedUpdate(globalIndex + i, start, false);
+                    break;
+                default:
+                    throw new IllegalStateException("unknown flag for pos " + (globalIndex + i) + " " + Long.toBinaryString(status));
+            }
+        }
+    }
+
+    private void dispatchRemovals(@NonNull final DiffUtil.Callback callback, final int start, final int count, final boolean detectMoves) {
+        if (!detectMoves) {
+            onRemoved(start, count);
+            return;
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            final int status = forward[start + i] & FLAG_MASK;
+            switch (status) {
+                case 0:
+                    onRemoved(start + i, 1);
+                    postponedUpdatesOffset--;
+                    break;
+                case FLAG_MOVED_CHANGED:
+                case FLAG_MOVED_NOT_CHANGED:
+                    final int pos = forward[start + i] >> FLAG_OFFSET;
+                    final int currentPos = removePostponedUpdate(pos, false);
+                    onMoved(start + i, currentPos - 1);
+                    if (status == FLAG_MOVED_CHANGED) {
+                        onChanged(currentPos - 1, 1, callback.getChangePayload(start + i, pos));
+                    }
+                    break;
+                case FLAG_IGNORE:
+                    addPostponedUpdate(start + i, start + i, true);
+                    break;
+                default:
+                    throw new IllegalStateException("unknown flag for pos " + (start + i) + " " + Long.toBinaryString(status));
+            }
+        }
+    }
+
+    private void resetPostponedUpdates(final int oldSize, final int newSize) {
+        final int maxCount = oldSize + newSize;
+        if (postponedPositions.length < maxCount) {
+            postponedPositions = new int[maxCount];
+            postponedBaselines = new int[maxCount];
+            postponedOffsetsTree = new int[maxCount + 1];
+        }
+        if (oldPostponedIndices.length < oldSize) {
+            oldPostponedIndices = new int[oldSize];
+        }
+        if (newPostponedIndices.length < newSize) {
+            newPostponedIndices = new int[newSize];
+        }
+        Arrays.fill(postponedOffsetsTree, 0, maxCount + 1, 0);
+        postponedUpdatesCount = 0;
+        postponedUpdatesOffset = 0;
+    }
+
+    private void addPostponedUpdate(final int posInOwnerList, final int currentPos, final boolean removal) {
+        final int index = postponedUpdatesCount;
+        postponedPositions[index] = currentPos;
+        postponedBaselines[index] = postponedUpdatesOffset + sumRemovalOffsets(index);
+        if (removal) {
+            oldPostponedIndices[posInOwnerList] = index;
+        } else {
+            newPostponedIndices[posInOwnerList] = index;
+        }
+        postponedUpdatesCount++;
+    }
+
+    // returns current position of removed update
+    private int removePostponedUpdate(final int pos, final boolean removal) {
+        final int index = removal ? oldPostponedIndices[pos] : newPostponedIndices[pos];
+        final int currentPos = postponedPositions[index] + postponedUpdatesOffset + sumRemovalOffsets(index) - postponedBaselines[index];
+        // offset updates which were added later since they swapped positions
+        addRemovalOffset(index + 1, removal ? 1 : -1);
+        return currentPos;
+    }
+
+    private int sumRemovalOffsets(final int index) {
+        int sum = 0;
+        for (int i = index + 1; i > 0; i -= i & -i) {
+            sum += postponedOffsetsTree[i];
+        }
+        return sum;
+    }
+
+    private void addRemovalOffset(final int fromIndex, final int offset) {
+        for (int i = fromIndex + 1; i < postponedOffsetsTree.length; i += i & -i) {
+            postponedOffsetsTree[i] += offset;
+        }
+    }
+
+    // batching below is same as in BatchingListUpdateCallback
+
+    private void dispatchLastEvent() {
+        if (updateCallback == null) {
+            return;
+        }
+        switch (lastEventType) {
+            case EVENT_INSERTED:
+                updateCallback.onInserted(lastEventPosition, lastEventCount);
+                break;
+            case EVENT_REMOVED:
+                updateCallback.onRemoved(lastEventPosition, lastEventCount);
+                break;
+            case EVENT_CHANGED:
+                updateCallback.onChanged(lastEventPosition, lastEventCount, lastEventPayload);
+                break;
+            default:
+                break;
+        }
+        lastEventPayload = null;
+        lastEventType = EVENT_NONE;
+    }
+
+    private void onInserted(final int position, final int count) {
+        if (lastEventType == EVENT_INSERTED && position >= lastEventPosition && position <= lastEventPosition + lastEventCount) {
+            lastEventCount += count;
+            lastEventPosition = Math.min(position, lastEventPosition);
+            return;
+        }
+        dispatchLastEvent();
+        lastEventPosition = position;
+        lastEventCount = count;
+        lastEventType = EVENT_INSERTED;
+    }
+
+    private void onRemoved(final int position, final int count) {
+        if (lastEventType == EVENT_REMOVED && lastEventPosition >= position && lastEventPosition <= position + count) {
+            lastEventCount += count;
+            lastEventPosition = position;
+            return;
+        }
+        dispatchLastEvent();
+        lastEventPosition = position;
+        lastEventCount = count;
+        lastEventType = EVENT_REMOVED;
+    }
+
+    private void onMoved(final int fromPosition, final int toPosition) {
+        dispatchLastEvent();
+        if (updateCallback != null) {
+            updateCallback.onMoved(fromPosition, toPosition);
+        }
+    }
+
+    private void onChanged(final int position, final int count, @Nullable final Object payload) {
+        if (lastEventType == EVENT_CHANGED
+                && !(position > lastEventPosition + lastEventCount || position + count < lastEventPosition || lastEventPayload != payload)) {
+            final int previousEnd = lastEventPosition + lastEventCount;
+            lastEventPosition = Math.min(position, lastEventPosition);
+            lastEventCount = Math.max(previousEnd, position + count) - lastEventPosition;
+            return;
+        }
+        dispatchLastEvent();
+        lastEventPosition = position;
+        lastEventCount = count;
+        lastEventPayload = payload;
+        lastEventType = EVENT_CHANGED;
+    }
+
+    /**
+     * Hashes of items to pair moved items. Items which are same by {@link DiffUtil.Callback#areItemsTheSame(int, int)} should have same hashes.
+     */
+    public interface ItemHashes {
+
+        /**
+         * Returns hash of item of old list.
+         *
+         * @param oldItemPosition Position of item in old list;
+         * @return Hash of item.
+         */
+        int getOldItemHash(int oldItemPosition);
+
+        /**
+         * Returns hash of item of new list.
+         *
+         * @param newItemPosition Position of item in new list;
+         * @return Hash of item.
+         */
+        int getNewItemHash(int newItemPosition);
+
+    }
+
+    /**
+     * Positions of items grouped into chains by hash. Each chain is ordered from last position to first one.
+     */
+    private static final class PositionChains {
+
+        private static final int END = -1;
+        private static final int EMPTY = -2;
+        private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+        @NonNull
+        private int[] hashes = new int[0];
+        // last position of chain, END if chain is exhausted and EMPTY if slot is free
+        @NonNull
+        private int[] heads = new int[0];
+        @NonNull
+        private int[] next = new int[0];
+        private int mask;
+        private int shift;
+
+        void reset(final int listSize, final int chainedCount) {
+            int capacity = 2;
+            int bits = 1;
+            while (capacity < chainedCount * 2) {
+                capacity <<= 1;
+                bits++;
+            }
+            if (heads.length < capacity) {
+                hashes = new int[capacity];
+                heads = new int[capacity];
+            }
+            Arrays.fill(heads, 0, capacity, EMPTY);
+            if (next.length < listSize) {
+                next = new int[listSize];
+            }
+            mask = capacity - 1;
+            shift = Integer.SIZE - bits;
+        }
+
+        void releaseOversizedBuffers() {
+            if (heads.length > MAX_RETAINED_BUFFER_LENGTH) {
+                hashes = new int[0];
+                heads = new int[0];
+            }
+            if (next.length > MAX_RETAINED_BUFFER_LENGTH) {
+                next = new int[0];
+            }
+        }
+
+        private int slotOf(final int hash) {
+            int slot = (hash * HASH_MULTIPLIER) >>> shift;
+            while (heads[slot] != EMPTY && hashes[slot] != hash) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        // positions should be added in ascending order
+        void add(final int hash, final int position) {
+            final int slot = slotOf(hash);
+            if (heads[slot] == EMPTY) {
+                hashes[slot] = hash;
+                next[position] = END;
+            } else {
+                next[position] = heads[slot];
+            }
+            heads[slot] = position;
+        }
+
+        // returns last position before limit in chain of hash;
+        // positions from limit are dropped from chain as limit is only decreasing during matching
+        int first(final int hash, final int limit) {
+            final int slot = slotOf(hash);
+            int position = heads[slot];
+            if (position == EMPTY) {
+                return END;
+            }
+            while (position >= limit) {
+                position = next[position];
+            }
+            heads[slot] = position;
+            return position;
+        }
+
+        int next(final int position) {
+            return next[position];
+        }
+
+    }
+
+}
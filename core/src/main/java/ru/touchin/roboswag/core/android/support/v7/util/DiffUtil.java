@@ -68,6 +68,9 @@ public class DiffUtil {
         // utility class, no instance.
     }
 
+    // marker of exceeding limits of calculateDiff
+    private static final Snake BUDGET_EXCEEDED = new Snake();
+
     private static final Comparator<Snake> SNAKE_COMPARATOR = new Comparator<Snake>() {
         @Override
         public int compare(Snake o1, Snake o2) {
@@ -103,6 +106,33 @@ public class DiffUtil {
      * old list into the new list.
      */
     public static DiffResult calculateDiff(Callback cb, boolean detectMoves) {
+        return calculateDiff(cb, detectMoves, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Calculates the list of update operations that can covert one list into the other one
+     * but gives up if lists are too different.
+     * <p>
+     * Work of Myers' algorithm grows with edit distance between lists so limiting it bounds
+     * time and memory spent on lists which share almost nothing.
+     *
+     * @param cb               The callback that acts as a gateway to the backing list data
+     * @param detectMoves      True if DiffUtil should try to detect moved items, false otherwise.
+     * @param maxEditDistance  Maximum count of inserted and removed items to search edit sequence for.
+     * @param maxDurationNanos Maximum time to search edit sequence in nanoseconds. Move detection is
+     *                         not limited by it.
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list or null if limits were exceeded.
+     */
+    @Nullable
+    public static DiffResult calculateDiff(Callback cb, boolean detectMoves, int maxEditDistance,
+                                           long maxDurationNanos) {
+        final long startTime = System.nanoTime();
+        final long deadline = maxDurationNanos < Long.MAX_VALUE - startTime
+                ? startTime + maxDurationNanos : Long.MAX_VALUE;
+        // edit distance of range is 2 * d or 2 * d - 1 where d is step of finding middle snake
+        // and edit distances of sub-ranges are not bigger than of whole range
+        final int dMax = maxEditDistance < Integer.MAX_VALUE ? (maxEditDistance + 1) / 2 : Integer.MAX_VALUE;
         final int oldSize = cb.getOldListSize();
         final int newSize = cb.getNewListSize();
 
@@ -126,7 +156,10 @@ public class DiffUtil {
         while (!stack.isEmpty()) {
             final Range range = stack.remove(stack.size() - 1);
             final Snake snake = diffPartial(cb, range.oldListStart, range.oldListEnd,
-                    range.newListStart, range.newListEnd, forward, backward, max);
+                    range.newListStart, range.newListEnd, forward, backward, max, dMax, deadline);
+            if (snake == BUDGET_EXCEEDED) {
+                return null;
+            }
             if (snake != null) {
                 if (snake.size > 0) {
                     snakes.add(snake);
@@ -183,7 +216,8 @@ public class DiffUtil {
     }
 
     private static Snake diffPartial(Callback cb, int startOld, int endOld,
-                                     int startNew, int endNew, int[] forward, int[] backward, int kOffset) {
+                                     int startNew, int endNew, int[] forward, int[] backward, int kOffset,
+                                     int dMax, long deadline) {
         final int oldSize = endOld - startOld;
         final int newSize = endNew - startNew;
 
@@ -197,6 +231,9 @@ public class DiffUtil {
         Arrays.fill(backward, kOffset - dLimit - 1 + delta, kOffset + dLimit + 1 + delta, oldSize);
         final boolean checkInFwd = delta % 2 != 0;
         for (int d = 0; d <= dLimit; d++) {
+            if (d > dMax || (deadline != Long.MAX_VALUE && System.nanoTime() > deadline)) {
+                return BUDGET_EXCEEDED;
+            }
             for (int k = -d; k <= d; k += 2) {
                 // find forward path
                 // we can reach k from k - 1 or k + 1. Check which one is further in the graph
@@ -211,6 +248,9 @@ public class DiffUtil {
                 }
                 // set y based on x
                 int y = x - k;
+                // only items from start of the snake are known to match, overlapped part of reverse path
+                // before it could contain different items
+                final int snakeStart = x;
                 // move diagonal as long as items match
                 while (x < oldSize && y < newSize
                         && cb.areItemsTheSame(startOld + x, startNew + y)) {
@@ -221,9 +261,9 @@ public class DiffUtil {
                 if (checkInFwd && k >= delta - d + 1 && k <= delta + d - 1) {
                     if (forward[kOffset + k] >= backward[kOffset + k]) {
                         Snake outSnake = new Snake();
-                        outSnake.x = backward[kOffset + k];
+                        outSnake.x = snakeStart;
                         outSnake.y = outSnake.x - k;
-                        outSnake.size = forward[kOffset + k] - backward[kOffset + k];
+                        outSnake.size = x - snakeStart;
                         outSnake.removal = removal;
                         outSnake.reverse = false;
                         return outSnake;
@@ -246,6 +286,9 @@ public class DiffUtil {
 
                 // set y based on x
                 int y = x - backwardK;
+                // only items to end of the snake are known to match, overlapped part of forward path
+                // after it could contain different items
+                final int snakeEnd = x;
                 // move diagonal as long as items match
                 while (x > 0 && y > 0
                         && cb.areItemsTheSame(startOld + x - 1, startNew + y - 1)) {
@@ -256,10 +299,9 @@ public class DiffUtil {
                 if (!checkInFwd && k + delta >= -d && k + delta <= d) {
                     if (forward[kOffset + backwardK] >= backward[kOffset + backwardK]) {
                         Snake outSnake = new Snake();
-                        outSnake.x = backward[kOffset + backwardK];
+                        outSnake.x = x;
                         outSnake.y = outSnake.x - backwardK;
-                        outSnake.size =
-                                forward[kOffset + backwardK] - backward[kOffset + backwardK];
+                        outSnake.size = snakeEnd - x;
                         outSnake.removal = removal;
                         outSnake.reverse = true;
                         return outSnake;
@@ -580,7 +622,8 @@ public class DiffUtil {
                 if (removal) {
                     // check removals for a match
                     for (int pos = curX - 1; pos >= endX; pos--) {
-                        if (mCallback.areItemsTheSame(pos, myItemPos)) {
+                        // removed item could be already paired with other added item if items are duplicated
+                        if (mOldItemStatuses[pos] == 0 && mCallback.areItemsTheSame(pos, myItemPos)) {
                             // found!
                             final boolean theSame = mCallback.areContentsTheSame(pos, myItemPos);
                             final int changeFlag = theSame ? FLAG_MOVED_NOT_CHANGED
@@ -593,7 +636,8 @@ public class DiffUtil {
                 } else {
                     // check for additions for a match
                     for (int pos = curY - 1; pos >= endY; pos--) {
-                        if (mCallback.areItemsTheSame(myItemPos, pos)) {
+                        // added item could be already paired with other removed item if items are duplicated
+                        if (mNewItemStatuses[pos] == 0 && mCallback.areItemsTheSame(myItemPos, pos)) {
                             // found
                             final boolean theSame = mCallback.areContentsTheSame(myItemPos, pos);
                             final int changeFlag = theSame ? FLAG_MOVED_NOT_CHANGED
@@ -0,0 +1,460 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link LogProcessor} which is moving formatting and delivering of log messages off the calling thread.
+ * {@link LcGroup} is passing raw messages (format, arguments, timestamp, thread name) into bounded lock-free ring buffer
+ * and background thread is formatting them and passing into wrapped processor in batches.
+ * Arguments of messages are formatting later so they shouldn't be modified after logging.
+ * Assertions that should crash application are still thrown on calling thread.
+ * Use {@link #flush(long, TimeUnit)} to wait for delivery of logged messages and {@link #shutdown()} to stop background thread.
+ */
+public class AsyncLogProcessor extends LogProcessor {
+
+    private static final int MAX_BATCH_SIZE = 64;
+    private static final long BLOCKING_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    @NonNull
+    private final LogProcessor logProcessor;
+    @NonNull
+    private final OverflowPolicy overflowPolicy;
+    private final int capacity;
+    @NonNull
+    private final RingBuffer<Record> buffer;
+    // debug and verbose messages are waiting in separate buffer for DROP_DEBUG_FIRST policy so they could be dropped first
+    @Nullable
+    private final RingBuffer<Record> debugBuffer;
+    @NonNull
+    private final AtomicInteger queuedMessagesCount = new AtomicInteger();
+    @NonNull
+    private final AtomicLong nextSequence = new AtomicLong();
+    @NonNull
+    private final AtomicLong offeredMessagesCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong processedMessagesCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong droppedMessagesCount = new AtomicLong();
+    @NonNull
+    private final AtomicBoolean drainerWaiting = new AtomicBoolean();
+    @NonNull
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    @NonNull
+    private final Thread drainerThread;
+    // records taken from buffers by drainer to deliver them in order of logging
+    @Nullable
+    private Record pendingRecord;
+    @Nullable
+    private Record pendingDebugRecord;
+
+    /**
+     * Creates processor that is wrapping other processor.
+     *
+     * @param logProcessor   Processor to pass formatted messages into. It's {@link #getTagStrategy()} is used;
+     * @param capacity       Maximum count of not processed messages. It is rounding up to power of two;
+     * @param overflowPolicy What to do with message if there are capacity messages waiting for processing.
+     */
+    public AsyncLogProcessor(@NonNull final LogProcessor logProcessor, final int capacity, @NonNull final OverflowPolicy overflowPolicy) {
+        super(logProcessor.getMinLogLevel());
+        this.logProcessor = logProcessor;
+        this.overflowPolicy = overflowPolicy;
+        this.capacity = capacity;
+        this.buffer = new RingBuffer<>(capacity);
+        this.debugBuffer = overflowPolicy == OverflowPolicy.DROP_DEBUG_FIRST ? new RingBuffer<>(capacity) : null;
+        this.drainerThread = new Thread(this::drain, "AsyncLogProcessor");
+        drainerThread.setDaemon(true);
+        drainerThread.start();
+    }
+
+    /**
+     * Returns count of messages dropped because of overflow.
+     *
+     * @return Count of dropped messages.
+     */
+    public long getDroppedMessagesCount() {
+        return droppedMessagesCount.get();
+    }
+
+    /**
+     * Waits till all messages logged before call are delivered to wrapped processor or dropped.
+     *
+     * @param timeout Maximum time to wait;
+     * @param unit    Unit of timeout;
+     * @return True if messages are delivered and false if timeout elapsed.
+     */
+    public boolean flush(final long timeout, @NonNull final TimeUnit unit) {
+        final long targetCount = offeredMessagesCount.get();
+        if (Thread.currentThread() == drainerThread) {
+            return processedMessagesCount.get() >= targetCount;
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (processedMessagesCount.get() < targetCount) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            wakeUpDrainer();
+            LockSupport.parkNanos(BLOCKING_WAIT_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Delivers waiting messages and stops background thread.
+     * Messages logged after shutdown are formatting and delivering on calling thread.
+     *
+     * @throws InterruptedException Thrown if calling thread is interrupted while waiting for background thread.
+     */
+    public void shutdown() throws InterruptedException {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        LockSupport.unpark(drainerThread);
+        if (Thread.currentThread() != drainerThread) {
+            drainerThread.join();
+            // messages could be offered concurrently with stopping of background thread
+            deliverAll();
+        }
+    }
+
+    @NonNull
+    @Override
+    public LogTagStrategy getTagStrategy() {
+        return logProcessor.getTagStrategy();
+    }
+
+    @Override
+    public void processLogMessage(@NonNull final LcGroup group, @NonNull final LcLevel level,
+                                  @NonNull final String tag, @NonNull final String message, @Nullable final Throwable throwable) {
+        offer(new Record(group, level, message, null, throwable, tag, null));
+    }
+
+    void enqueue(@NonNull final LcGroup group, @NonNull final LcLevel level, @Nullable final String message, @Nullable final Throwable throwable,
+                 @Nullable final String tag, @Nullable final Throwable callerTrace, @NonNull final Object... args) {
+        offer(new Record(group, level, message, args, throwable, tag, callerTrace));
+    }
+
+    private void offer(@NonNull final Record record) {
+        offeredMessagesCount.incrementAndGet();
+        if (stopped.get()) {
+            deliverSafely(record);
+            processedMessagesCount.incrementAndGet();
+            return;
+        }
+        if (debugBuffer != null) {
+            offerDroppingDebugFirst(record, debugBuffer);
+            wakeUpDrainer();
+            return;
+        }
+        while (!buffer.offer(record)) {
+            if (overflowPolicy == OverflowPolicy.BLOCK && Thread.currentThread() != drainerThread) {
+                wakeUpDrainer();
+                LockSupport.parkNanos(BLOCKING_WAIT_NANOS);
+                continue;
+            }
+            drop(buffer.poll());
+        }
+        wakeUpDrainer();
+    }
+
+    private void offerDroppingDebugFirst(@NonNull final Record record, @NonNull final RingBuffer<Record> debugBuffer) {
+        final boolean isDebug = !LcLevel.DEBUG.lessThan(record.level);
+        record.sequence = nextSequence.getAndIncrement();
+        if (queuedMessagesCount.incrementAndGet() > capacity) {
+            if (isDebug) {
+                queuedMessagesCount.decrementAndGet();
+                drop(record);
+                return;
+            }
+            Record droppedRecord = debugBuffer.poll();
+            if (droppedRecord == null) {
+                droppedRecord = buffer.poll();
+            }
+            if (droppedRecord != null) {
+                queuedMessagesCount.decrementAndGet();
+                drop(droppedRecord);
+            }
+        }
+        // there is always place for counted record but cell could be not released yet by concurrent poll
+        final RingBuffer<Record> targetBuffer = isDebug ? debugBuffer : buffer;
+        while (!targetBuffer.offer(record)) {
+            Thread.yield();
+        }
+    }
+
+    private void drop(@Nullable final Record record) {
+        if (record != null) {
+            droppedMessagesCount.incrementAndGet();
+            processedMessagesCount.incrementAndGet();
+        }
+    }
+
+    @Nullable
+    private Record pollNext() {
+        if (debugBuffer == null) {
+            return buffer.poll();
+        }
+        if (pendingRecord == null) {
+            pendingRecord = pollCounted(buffer);
+        }
+        if (pendingDebugRecord == null) {
+            pendingDebugRecord = pollCounted(debugBuffer);
+        }
+        final Record result;
+        if (pendingRecord != null && (pendingDebugRecord == null || pendingRecord.sequence < pendingDebugRecord.sequence)) {
+            result = pendingRecord;
+            pendingRecord = null;
+        } else {
+            result = pendingDebugRecord;
+            pendingDebugRecord = null;
+        }
+        return result;
+    }
+
+    @Nullable
+    private Record pollCounted(@NonNull final RingBuffer<Record> buffer) {
+        final Record result = buffer.poll();
+        if (result != null) {
+            queuedMessagesCount.decrementAndGet();
+        }
+        return result;
+    }
+
+    private boolean isEmpty() {
+        return buffer.isEmpty() && (debugBuffer == null || debugBuffer.isEmpty()) && pendingRecord == null && pendingDebugRecord == null;
+    }
+
+    private void wakeUpDrainer() {
+        if (drainerWaiting.compareAndSet(true, false)) {
+            LockSupport.unpark(drainerThread);
+        }
+    }
+
+    private void drain() {
+        final List<Record> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (true) {
+            Record record = pollNext();
+            while (record != null && batch.size() < MAX_BATCH_SIZE) {
+                batch.add(record);
+                record = batch.size() < MAX_BATCH_SIZE ? pollNext() : null;
+            }
+            if (batch.isEmpty()) {
+                if (stopped.get()) {
+                    return;
+                }
+                drainerWaiting.set(true);
+                if (isEmpty() && !stopped.get()) {
+                    LockSupport.park(this);
+                }
+                drainerWaiting.set(false);
+                continue;
+            }
+            for (final Record batchRecord : batch) {
+                deliverSafely(batchRecord);
+            }
+            processedMessagesCount.addAndGet(batch.size());
+            batch.clear();
+        }
+    }
+
+    private void deliverAll() {
+        Record record = pollNext();
+        while (record != null) {
+            deliverSafely(record);
+            processedMessagesCount.incrementAndGet();
+            record = pollNext();
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    //AvoidCatchingThrowable: failure of one message shouldn't stop logging
+    private void deliverSafely(@NonNull final Record record) {
+        try {
+            deliver(record);
+        } catch (final Throwable throwable) {
+            logProcessor.processLogMessage(Lc.GENERAL_LC_GROUP, LcLevel.ERROR, AsyncLogProcessor.class.getSimpleName(),
+                    "Failed to process log message: " + throwable, throwable);
+        }
+    }
+
+    private void deliver(@NonNull final Record record) {
+        if (record.args == null) {
+            // message came already formatted via processLogMessage()
+            logProcessor.processLogMessage(record.group, record.level,
+                    record.tag != null ? record.tag : record.group.getName(), record.message != null ? record.message : "", record.throwable);
+            return;
+        }
+        final String formattedMessage = record.group.createFormattedMessage(record.message, record.args);
+        logProcessor.processLogMessage(record.group, record.level, createTag(record),
+                record.group.createLogMessage(formattedMessage, record.timestamp, record.threadName), record.throwable);
+    }
+
+    @NonNull
+    private String createTag(@NonNull final Record record) {
+        if (record.tag != null) {
+            return record.tag;
+        }
+        return record.callerTrace != null
+                ? record.group.createLogTag(getTagStrategy(), record.message, record.callerTrace) : record.group.getName();
+    }
+
+    /**
+     * Policy of what to do with new message if there are too many messages waiting for processing.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Oldest waiting message is dropping.
+         */
+        DROP_OLDEST,
+        /**
+         * New debug and verbose messages are dropping, more important messages are replacing oldest waiting debug or verbose message
+         * or oldest waiting message if there are no such messages.
+         */
+        DROP_DEBUG_FIRST,
+        /**
+         * Logging thread is waiting while there is no space for message.
+         */
+        BLOCK
+    }
+
+    private static class Record {
+
+        @NonNull
+        private final LcGroup group;
+        @NonNull
+        private final LcLevel level;
+        @Nullable
+        private final String message;
+        @Nullable
+        private final Object[] args;
+        @Nullable
+        private final Throwable throwable;
+        @Nullable
+        private final String tag;
+        @Nullable
+        private final Throwable callerTrace;
+        private final long timestamp;
+        @NonNull
+        private final String threadName;
+        private long sequence;
+
+        public Record(@NonNull final LcGroup group, @NonNull final LcLevel level,
+                      @Nullable final String message, @Nullable final Object[] args, @Nullable final Throwable throwable,
+                      @Nullable final String tag, @Nullable final Throwable callerTrace) {
+            this.group = group;
+            this.level = level;
+            this.message = message;
+            this.args = args;
+            this.throwable = throwable;
+            this.tag = tag;
+            this.callerTrace = callerTrace;
+            this.timestamp = System.currentTimeMillis();
+            this.threadName = Thread.currentThread().getName();
+        }
+
+    }
+
+    /**
+     * Bounded multi-producer multi-consumer queue based on sequence numbers of cells.
+     *
+     * @param <T> Type of elements.
+     */
+    private static class RingBuffer<T> {
+
+        private final int mask;
+        @NonNull
+        private final AtomicReferenceArray<T> elements;
+        @NonNull
+        private final AtomicLongArray sequences;
+        @NonNull
+        private final AtomicLong head = new AtomicLong();
+        @NonNull
+        private final AtomicLong tail = new AtomicLong();
+
+        public RingBuffer(final int capacity) {
+            int size = 1;
+            while (size < capacity) {
+                size <<= 1;
+            }
+            mask = size - 1;
+            elements = new AtomicReferenceArray<>(size);
+            sequences = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        public boolean isEmpty() {
+            return head.get() >= tail.get();
+        }
+
+        public boolean offer(@NonNull final T element) {
+            long position = tail.get();
+            while (true) {
+                final int index = (int) (position & mask);
+                final long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        elements.lazySet(index, element);
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                } else if (difference < 0) {
+                    return false;
+                }
+                position = tail.get();
+            }
+        }
+
+        @Nullable
+        public T poll() {
+            long position = head.get();
+            while (true) {
+                final int index = (int) (position & mask);
+                final long difference = sequences.get(index) - (position + 1);
+                if (difference == 0) {
+                    if (head.compareAndSet(position, position + 1)) {
+                        final T element = elements.get(index);
+                        elements.lazySet(index, null);
+                        sequences.set(index, position + mask + 1);
+                        return element;
+                    }
+                } else if (difference < 0) {
+                    return null;
+                }
+                position = head.get();
+            }
+        }
+
+    }
+
+}
@@ -48,6 +48,9 @@ public final class Lc {
 
     public static final int STACK_TRACE_CODE_DEPTH;
 
+    // code point of messages which won't be logged so there is no need to capture stack for them
+    private static final CodePoint FILTERED_CODE_POINT = new CodePoint(null, null, 0);
+
     private static boolean crashOnAssertions = true;
     @NonNull
     private static LogProcessor logProcessor = new ConsoleLogProcessor(LcLevel.ERROR);
@@ -252,7 +255,31 @@ public final class Lc {
      */
     @NonNull
     public static String getCodePoint(@Nullable final Object caller, final int stackShift) {
-        final StackTraceElement traceElement = Thread.currentThread().getStackTrace()[STACK_TRACE_CODE_DEPTH + stackShift];
+        return createCodePoint(caller, Thread.currentThread().getStackTrace()[STACK_TRACE_CODE_DEPTH + stackShift]);
+    }
+
+    /**
+     * Captures line of code from where this method called but resolves it only when {@link CodePoint#toString()} is called.
+     * It is cheaper than {@link #getCodePoint(Object, int)} if code point is passed as argument of log message that may be not logged.
+     * Stack is not captured at all if message of such level won't be logged to group.
+     *
+     * @param group      Group which code point will be logged to;
+     * @param level      Level of message which code point will be logged with;
+     * @param caller     Object who is calling for code point;
+     * @param stackShift caller Shift of stack (e.g. 2 means two elements deeper);
+     * @return {@link CodePoint} which is representing code point by {@link CodePoint#toString()}.
+     */
+    @NonNull
+    public static CodePoint captureCodePoint(@NonNull final LcGroup group, @NonNull final LcLevel level,
+                                             @Nullable final Object caller, final int stackShift) {
+        if (!group.isLoggable(level)) {
+            return FILTERED_CODE_POINT;
+        }
+        return new CodePoint(caller, new Throwable(), stackShift + 1);
+    }
+
+    @NonNull
+    private static String createCodePoint(@Nullable final Object caller, @NonNull final StackTraceElement traceElement) {
         return traceElement.getMethodName() + '(' + traceElement.getFileName() + ':' + traceElement.getLineNumber() + ')'
                 + (caller != null ? " of object " + caller.getClass().getSimpleName() + '(' + Integer.toHexString(caller.hashCode()) + ')' : "");
     }
@@ -274,4 +301,35 @@ public final class Lc {
     private Lc() {
     }
 
+    /**
+     * Line of code captured by {@link #captureCodePoint(Object, int)}. It is resolving on first {@link #toString()} call.
+     */
+    public static final class CodePoint {
+
+        @Nullable
+        private final Object caller;
+        @Nullable
+        private final Throwable trace;
+        private final int traceIndex;
+        @Nullable
+        private String codePoint;
+
+        private CodePoint(@Nullable final Object caller, @Nullable final Throwable trace, final int traceIndex) {
+            this.caller = caller;
+            this.trace = trace;
+            this.traceIndex = traceIndex;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            if (codePoint == null) {
+                final StackTraceElement[] stackTrace = trace != null ? trace.getStackTrace() : new StackTraceElement[0];
+                codePoint = stackTrace.length > traceIndex ? createCodePoint(caller, stackTrace[traceIndex]) : "unknown code point";
+            }
+            return codePoint;
+        }
+
+    }
+
 }
@@ -24,6 +24,7 @@ import android.support.annotation.Nullable;
 
 import java.text.SimpleDateFormat;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import ru.touchin.roboswag.core.utils.ShouldNotHappenException;
 import ru.touchin.roboswag.core.utils.ThreadLocalValue;
@@ -39,15 +40,32 @@ public class LcGroup {
 
     private static final ThreadLocalValue<SimpleDateFormat> DATE_TIME_FORMATTER
             = new ThreadLocalValue<>(() -> new SimpleDateFormat("HH:mm:ss.SSS", Locale.getDefault()));
+    // frame of code which called Lc method in stack captured inside logMessage(): logMessage, LcGroup.x, Lc.x, caller
+    private static final int CALLER_FRAME_INDEX = 3;
+    // power of two
+    private static final int CALL_SITE_TAGS_CACHE_SIZE = 256;
 
     @NonNull
     private final String name;
     private boolean disabled;
+    // tags by identity of format strings which are usually constants; format that is built per call is just replacing other tag
+    @Nullable
+    private volatile AtomicReferenceArray<CallSiteTag> callSiteTags;
 
     public LcGroup(@NonNull final String name) {
         this.name = name;
     }
 
+    /**
+     * Returns name of group.
+     *
+     * @return Name of group.
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
     /**
      * Disables logging of this group.
      */
@@ -62,16 +80,81 @@ public class LcGroup {
         disabled = false;
     }
 
+    /**
+     * Returns if message of such level will be passed to current {@link LogProcessor}.
+     *
+     * @param level Level of message;
+     * @return True if message will be logged.
+     */
+    boolean isLoggable(@NonNull final LcLevel level) {
+        return !disabled && !level.lessThan(Lc.getLogProcessor().getMinLogLevel());
+    }
+
+    /**
+     * Returns tag if it could be created without caller's stack by strategy.
+     *
+     * @param tagStrategy Strategy of tags;
+     * @param message     Format of message;
+     * @return Tag or null if stack should be captured to create tag.
+     */
+    @Nullable
+    String findLogTag(@NonNull final LogTagStrategy tagStrategy, @Nullable final String message) {
+        switch (tagStrategy) {
+            case GROUP_NAME:
+                return name;
+            case CALL_SITE:
+                return message != null ? findCallSiteTag(message) : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Creates tag by captured stack of caller.
+     *
+     * @param tagStrategy Strategy of tags;
+     * @param message     Format of message;
+     * @param callerTrace Stack captured inside {@link #logMessage(LcLevel, String, Throwable, Object...)};
+     * @return Tag of message.
+     */
     @NonNull
-    private String createLogTag() {
-        final StackTraceElement trace = Thread.currentThread().getStackTrace()[Lc.STACK_TRACE_CODE_DEPTH + 3];
-        return trace.getFileName() + ':' + trace.getLineNumber();
+    String createLogTag(@NonNull final LogTagStrategy tagStrategy, @Nullable final String message, @NonNull final Throwable callerTrace) {
+        final StackTraceElement[] trace = callerTrace.getStackTrace();
+        if (trace.length <= CALLER_FRAME_INDEX) {
+            return name;
+        }
+        final String tag = trace[CALLER_FRAME_INDEX].getFileName() + ':' + trace[CALLER_FRAME_INDEX].getLineNumber();
+        if (tagStrategy == LogTagStrategy.CALL_SITE && message != null) {
+            AtomicReferenceArray<CallSiteTag> tags = callSiteTags;
+            if (tags == null) {
+                tags = new AtomicReferenceArray<>(CALL_SITE_TAGS_CACHE_SIZE);
+                callSiteTags = tags;
+            }
+            tags.set(getCallSiteTagIndex(message), new CallSiteTag(message, tag));
+        }
+        return tag;
+    }
+
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    //CompareObjectsWithEquals: tags are cached by instance of format
+    @Nullable
+    private String findCallSiteTag(@NonNull final String message) {
+        final AtomicReferenceArray<CallSiteTag> tags = callSiteTags;
+        if (tags == null) {
+            return null;
+        }
+        final CallSiteTag callSiteTag = tags.get(getCallSiteTagIndex(message));
+        return callSiteTag != null && callSiteTag.format == message ? callSiteTag.tag : null;
+    }
+
+    private int getCallSiteTagIndex(@NonNull final String message) {
+        return System.identityHashCode(message) & (CALL_SITE_TAGS_CACHE_SIZE - 1);
     }
 
     @SuppressWarnings("PMD.AvoidCatchingThrowable")
     //AvoidCatchingThrowable: it is needed to safety format message
     @Nullable
-    private String createFormattedMessage(@Nullable final String message, @NonNull final Object... args) {
+    String createFormattedMessage(@Nullable final String message, @NonNull final Object... args) {
         try {
             if (args.length > 0 && message == null) {
                 throw new ShouldNotHappenException("Args are not empty but format message is null");
@@ -84,16 +167,17 @@ public class LcGroup {
     }
 
     @NonNull
-    private String createLogMessage(@Nullable final String formattedMessage) {
-        return DATE_TIME_FORMATTER.get().format(System.currentTimeMillis())
-                + ' ' + Thread.currentThread().getName()
+    String createLogMessage(@Nullable final String formattedMessage, final long timestamp, @NonNull final String threadName) {
+        return DATE_TIME_FORMATTER.get().format(timestamp)
+                + ' ' + threadName
                 + ' ' + name
                 + (formattedMessage != null ? (' ' + formattedMessage) : "");
     }
 
     private void logMessage(@NonNull final LcLevel logLevel, @Nullable final String message,
                             @Nullable final Throwable throwable, @NonNull final Object... args) {
-        if (disabled || logLevel.lessThan(Lc.getLogProcessor().getMinLogLevel())) {
+        final LogProcessor logProcessor = Lc.getLogProcessor();
+        if (disabled || logLevel.lessThan(logProcessor.getMinLogLevel())) {
             return;
         }
 
@@ -101,12 +185,22 @@ public class LcGroup {
             Lc.w("Maybe you've misplaced exception with first format arg? format: %s; arg: %s", message, args[0]);
         }
 
-        final String formattedMessage = createFormattedMessage(message, args);
         if (logLevel == LcLevel.ASSERT && Lc.isCrashOnAssertions()) {
-            throw createAssertion(formattedMessage, throwable);
+            throw createAssertion(createFormattedMessage(message, args), throwable);
         }
 
-        Lc.getLogProcessor().processLogMessage(this, logLevel, createLogTag(), createLogMessage(formattedMessage), throwable);
+        final LogTagStrategy tagStrategy = logProcessor.getTagStrategy();
+        final String tag = findLogTag(tagStrategy, message);
+        final Throwable callerTrace = tag == null ? new Throwable() : null;
+
+        if (logProcessor instanceof AsyncLogProcessor) {
+            ((AsyncLogProcessor) logProcessor).enqueue(this, logLevel, message, throwable, tag, callerTrace, args);
+            return;
+        }
+
+        final String formattedMessage = createFormattedMessage(message, args);
+        logProcessor.processLogMessage(this, logLevel, tag != null ? tag : createLogTag(tagStrategy, message, callerTrace),
+                createLogMessage(formattedMessage, System.currentTimeMillis(), Thread.currentThread().getName()), throwable);
     }
 
     @NonNull
@@ -210,7 +304,8 @@ public class LcGroup {
      * @param message Message that is describing assertion.
      */
     public void assertion(@NonNull final String message) {
-        logMessage(LcLevel.ASSERT, "Assertion appears at %s with message: %s", null, Lc.getCodePoint(null, 2), message);
+        logMessage(LcLevel.ASSERT, "Assertion appears at %s with message: %s", null,
+                Lc.captureCodePoint(this, LcLevel.ASSERT, null, 2), message);
     }
 
     /**
@@ -222,7 +317,21 @@ public class LcGroup {
      * @param throwable Exception that is describing assertion.
      */
     public void assertion(@NonNull final Throwable throwable) {
-        logMessage(LcLevel.ASSERT, "Assertion appears at %s", throwable, Lc.getCodePoint(null, 2));
+        logMessage(LcLevel.ASSERT, "Assertion appears at %s", throwable, Lc.captureCodePoint(this, LcLevel.ASSERT, null, 2));
+    }
+
+    private static class CallSiteTag {
+
+        @NonNull
+        private final String format;
+        @NonNull
+        private final String tag;
+
+        public CallSiteTag(@NonNull final String format, @NonNull final String tag) {
+            this.format = format;
+            this.tag = tag;
+        }
+
     }
 
 }
@@ -46,6 +46,17 @@ public abstract class LogProcessor {
         return minLogLevel;
     }
 
+    /**
+     * Returns strategy of creating tags passed into {@link #processLogMessage(LcGroup, LcLevel, String, String, Throwable)}.
+     * By default location of code is used as tag so stack is captured on each log call.
+     *
+     * @return {@link LogTagStrategy} of tags.
+     */
+    @NonNull
+    public LogTagStrategy getTagStrategy() {
+        return LogTagStrategy.STACK_TRACE;
+    }
+
     /**
      * Core method to process any incoming log messages from {@link LcGroup} and {@link Lc} with level higher or equals {@link #getMinLogLevel()}.
      *
@@ -0,0 +1,44 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+/**
+ * Strategy of creating tags of log messages. It is specified by {@link LogProcessor#getTagStrategy()}.
+ * Stack of calling thread is captured only if strategy needs location of code which is logging message.
+ */
+public enum LogTagStrategy {
+
+    /**
+     * Name of {@link LcGroup} is used as tag. Stack is never captured.
+     */
+    GROUP_NAME,
+    /**
+     * Location of code (file and line) is used as tag and it is cached in {@link LcGroup} by instance of format of message.
+     * Stack is captured only first time message with such format is logged to group or if cached tag is replaced by other format.
+     * Messages logged to same group with same format constant from different places will have tag of first captured place
+     * until it is evicted from cache by other format.
+     */
+    CALL_SITE,
+    /**
+     * Location of code (file and line) is used as tag. Stack is captured on each log call.
+     */
+    STACK_TRACE
+
+}
@@ -0,0 +1,175 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+import ru.touchin.roboswag.core.observables.collections.changes.ChangesLog;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionsChangesCalculator;
+
+/**
+ * Changes of {@link ObservableCollection} which are merged into one compound change set till it is taken by subscriber.
+ * Changes are appended one after another so they are still valid when applied in order.
+ * Inserted and removed items are not copied on producer thread: merged changes are kept as is
+ * and their items are collecting only when subscriber requests them from taken changes.
+ *
+ * @param <TItem> Type of collection's items.
+ */
+final class ChangesBatch<TItem> {
+
+    @NonNull
+    private final ChangesLog changes = new ChangesLog();
+    @NonNull
+    private List<CollectionChanges<TItem>> mergedChanges = new ArrayList<>();
+    // actual items of collection if batch was collapsed; they are inserted before items of changes merged after collapse
+    @Nullable
+    private Collection<TItem> collapsedItems;
+    private int number;
+    // size of collection before first change of batch
+    private int initialSize;
+
+    /**
+     * Merges changes into batch.
+     *
+     * @param collectionChanges Changes to merge;
+     * @param size              Size of collection after changes;
+     * @return Count of changes in batch.
+     */
+    public int add(@NonNull final CollectionChanges<TItem> collectionChanges, final int size) {
+        synchronized (this) {
+            if (changes.isEmpty()) {
+                initialSize = size - collectionChanges.getChangesLog().getSizeDelta();
+            }
+            number = collectionChanges.getNumber();
+            collectionChanges.getChangesLog().dispatchTo(changes);
+            mergedChanges.add(collectionChanges);
+            return changes.size();
+        }
+    }
+
+    /**
+     * Replaces all changes of batch with removing of all initial items and inserting of all actual items.
+     * Removed items are not kept as there could be too many of them.
+     *
+     * @param items Actual items of collection. It should be immutable snapshot like {@link ObservableCollection#getItems()}.
+     */
+    public void collapse(@NonNull final Collection<TItem> items) {
+        synchronized (this) {
+            changes.clear();
+            mergedChanges.clear();
+            if (initialSize > 0) {
+                changes.onRemoved(0, initialSize);
+            }
+            if (!items.isEmpty()) {
+                changes.onInserted(0, items.size());
+            }
+            collapsedItems = items;
+        }
+    }
+
+    /**
+     * Returns if there are changes to take.
+     *
+     * @return True if batch is not empty.
+     */
+    public boolean hasChanges() {
+        synchronized (this) {
+            return !changes.isEmpty();
+        }
+    }
+
+    /**
+     * Returns all merged changes and clears batch.
+     * Number of returned changes is number of last merged changes so it is consistent with {@link ObservableCollection#getChangesCount()}.
+     *
+     * @return Merged changes.
+     */
+    @NonNull
+    public CollectionChanges<TItem> take() {
+        synchronized (this) {
+            final ChangesLog takenChanges = new ChangesLog(changes);
+            final CollectionChanges<TItem> result = new CollectionChanges<>(number,
+                    new MergedItemsCalculator<>(takenChanges, collapsedItems, mergedChanges), takenChanges);
+            changes.clear();
+            mergedChanges = new ArrayList<>();
+            collapsedItems = null;
+            return result;
+        }
+    }
+
+    /**
+     * Calculator which is collecting inserted and removed items of taken changes in order of merging.
+     *
+     * @param <TItem> Type of collection's items.
+     */
+    private static final class MergedItemsCalculator<TItem> implements CollectionsChangesCalculator<TItem> {
+
+        @NonNull
+        private final List<Change> changes;
+        @Nullable
+        private final Collection<TItem> collapsedItems;
+        @NonNull
+        private final List<CollectionChanges<TItem>> mergedChanges;
+
+        public MergedItemsCalculator(@NonNull final List<Change> changes,
+                                     @Nullable final Collection<TItem> collapsedItems,
+                                     @NonNull final List<CollectionChanges<TItem>> mergedChanges) {
+            this.changes = changes;
+            this.collapsedItems = collapsedItems;
+            this.mergedChanges = mergedChanges;
+        }
+
+        @NonNull
+        @Override
+        public List<Change> calculateChanges() {
+            return new ArrayList<>(changes);
+        }
+
+        @NonNull
+        @Override
+        public List<TItem> calculateInsertedItems() {
+            final List<TItem> result = collapsedItems != null ? new ArrayList<>(collapsedItems) : new ArrayList<>();
+            for (final CollectionChanges<TItem> collectionChanges : mergedChanges) {
+                result.addAll(collectionChanges.getInsertedItems());
+            }
+            return result;
+        }
+
+        @NonNull
+        @Override
+        public List<TItem> calculateRemovedItems() {
+            final List<TItem> result = new ArrayList<>();
+            for (final CollectionChanges<TItem> collectionChanges : mergedChanges) {
+                result.addAll(collectionChanges.getRemovedItems());
+            }
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionsChangesCalculator;
+import ru.touchin.roboswag.core.observables.collections.changes.ItemKeyExtractor;
+
+/**
+ * {@link ObservableList} which is keeping hash index of positions by keys of items.
+ * So {@link #indexOfKey(Object)}, {@link #containsKey(Object)}, {@link #indexOf(Object)} and {@link #remove(Object)} are taking O(1) time.
+ * Index is updating in place on adding items to the end of list and removing items from the end of list,
+ * other changes are invalidating it and it is rebuilding on next lookup.
+ * If there are several items with same key then index is pointing to the first of them.
+ * Keys are compared in {@link java.util.HashMap} so they should have {@link Object#hashCode()} consistent with {@link Object#equals(Object)}
+ * and should not change while item is in list.
+ *
+ * @param <TItem> Type of collection's items;
+ * @param <TKey>  Type of keys of items.
+ */
+public class IndexedObservableList<TItem, TKey> extends ObservableList<TItem> {
+
+    private static final long serialVersionUID = 1L;
+
+    @NonNull
+    private final ItemKeyExtractor<TItem, TKey> keyExtractor;
+    @Nullable
+    private transient Map<TKey, Integer> positionsByKey;
+
+    public IndexedObservableList(@NonNull final ItemKeyExtractor<TItem, TKey> keyExtractor) {
+        super();
+        this.keyExtractor = keyExtractor;
+    }
+
+    public IndexedObservableList(@NonNull final Collection<TItem> initialItems, @NonNull final ItemKeyExtractor<TItem, TKey> keyExtractor) {
+        super(initialItems);
+        this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * Returns position of first item with such key.
+     *
+     * @param key Key of item;
+     * @return Position of item in list or -1 if there is no item with such key.
+     */
+    public int indexOfKey(@NonNull final TKey key) {
+        synchronized (this) {
+            final Integer position = getPositionsByKey().get(key);
+            return position != null ? position : -1;
+        }
+    }
+
+    /**
+     * Returns if there is item with such key in list.
+     *
+     * @param key Key of item;
+     * @return True if list contains item with such key.
+     */
+    public boolean containsKey(@NonNull final TKey key) {
+        synchronized (this) {
+            return getPositionsByKey().containsKey(key);
+        }
+    }
+
+    @Override
+    public int indexOf(@NonNull final TItem item) {
+        synchronized (this) {
+            final int position = indexOfKey(keyExtractor.getKey(item));
+            if (position < 0 || item.equals(get(position))) {
+                return position;
+            }
+            // first item with same key is not equal to item so looking for it among others
+            return super.indexOf(item);
+        }
+    }
+
+    @NonNull
+    private Map<TKey, Integer> getPositionsByKey() {
+        if (positionsByKey == null) {
+            final int size = size();
+            positionsByKey = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                putIfAbsent(positionsByKey, i);
+            }
+        }
+        return positionsByKey;
+    }
+
+    private void putIfAbsent(@NonNull final Map<TKey, Integer> positionsByKey, final int position) {
+        final TKey key = keyExtractor.getKey(get(position));
+        if (!positionsByKey.containsKey(key)) {
+            positionsByKey.put(key, position);
+        }
+    }
+
+    @Override
+    protected void notifyAboutChanges(@NonNull final List<TItem> insertedItems,
+                                      @NonNull final List<TItem> removedItems,
+                                      @NonNull final Collection<Change> changes) {
+        synchronized (this) {
+            updatePositionsByKey(removedItems, changes);
+        }
+        super.notifyAboutChanges(insertedItems, removedItems, changes);
+    }
+
+    @Override
+    protected void notifyAboutChanges(@NonNull final CollectionsChangesCalculator<TItem> itemsCalculator,
+                                      @NonNull final Collection<Change> changes) {
+        // removed items are not calculated yet so index is just rebuilding on next lookup
+        synchronized (this) {
+            positionsByKey = null;
+        }
+        super.notifyAboutChanges(itemsCalculator, changes);
+    }
+
+    private void updatePositionsByKey(@NonNull final List<TItem> removedItems, @NonNull final Collection<Change> changes) {
+        if (positionsByKey == null) {
+            return;
+        }
+        final Change change = changes.size() == 1 ? changes.iterator().next() : null;
+        final int size = size();
+        if (change instanceof Change.Inserted
+                && ((Change.Inserted) change).getPosition() + ((Change.Inserted) change).getCount() == size) {
+            for (int i = ((Change.Inserted) change).getPosition(); i < size; i++) {
+                putIfAbsent(positionsByKey, i);
+            }
+        } else if (change instanceof Change.Removed && ((Change.Removed) change).getPosition() == size
+                && removedItems.size() == ((Change.Removed) change).getCount()) {
+            // items with same keys but lower positions are not removed so only entries pointing to removed tail are outdated
+            for (int i = 0; i < removedItems.size(); i++) {
+                final TKey key = keyExtractor.getKey(removedItems.get(i));
+                final Integer position = positionsByKey.get(key);
+                if (position != null && position == size + i) {
+                    positionsByKey.remove(key);
+                }
+            }
+        } else {
+            positionsByKey = null;
+        }
+    }
+
+}
@@ -28,22 +28,37 @@ import java.io.ObjectOutputStream;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import ru.touchin.roboswag.core.observables.collections.changes.Change;
 import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionsChangesCalculator;
+import io.reactivex.BackpressureStrategy;
 import io.reactivex.Emitter;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * Created by Gavriil Sitnikov on 23/05/16.
  * Class to represent collection which is providing it's inner changes in Rx observable way.
  * Use {@link #observeChanges()} and {@link #observeItems()} to observe collection changes.
+ * Use {@link #observeChangesBatched(long, TimeUnit)} to observe changes by slow subscriber without slowing down changes producer.
  * Methods {@link #size()} and {@link #get(int)} will return only already loaded items info.
  *
  * @param <TItem> Type of collection's items.
  */
 public abstract class ObservableCollection<TItem> {
 
+    private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    private static final int DEFAULT_MAX_BUFFERED_CHANGES = 4096;
+
     private int changesCount;
     @NonNull
     private transient Observable<CollectionChanges<TItem>> changesObservable;
@@ -83,6 +98,17 @@ public abstract class ObservableCollection<TItem> {
         return changesCount;
     }
 
+    /**
+     * Returns object which is locked while items of collection and {@link #getChangesCount()} are changing.
+     * Items taken under that lock are consistent with changes count so later changes could be applied to them by numbers.
+     *
+     * @return Lock of collection changes.
+     */
+    @NonNull
+    protected Object getChangesLock() {
+        return this;
+    }
+
     /**
      * Method to notify that collection have changed.
      *
@@ -113,6 +139,24 @@ public abstract class ObservableCollection<TItem> {
         }
     }
 
+    /**
+     * Method to notify that collection have changed.
+     * Inserted and removed items will be calculated by calculator only if some subscriber will request them.
+     *
+     * @param itemsCalculator Calculator of inserted and removed items. It should not depend on collection's state after calling that method;
+     * @param changes         Changes of collection.
+     */
+    protected void notifyAboutChanges(@NonNull final CollectionsChangesCalculator<TItem> itemsCalculator,
+                                      @NonNull final Collection<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        changesCount++;
+        if (changesEmitter != null) {
+            changesEmitter.onNext(new CollectionChanges<>(changesCount, itemsCalculator, changes));
+        }
+    }
+
     /**
      * Observes changes so it can be used to update UI based on changes etc.
      *
@@ -123,6 +167,73 @@ public abstract class ObservableCollection<TItem> {
         return changesObservable;
     }
 
+    /**
+     * Observes changes merged into batches by time window or by count of changes.
+     * Producer of changes is never blocked by subscriber: changes are merging while subscriber is busy.
+     * If more than 4096 changes are pending then they are replaced by removing and inserting of all items.
+     *
+     * @param window   Time to collect changes after first change of batch;
+     * @param timeUnit Unit of window;
+     * @return Batches of changes applied to collection.
+     */
+    @NonNull
+    public Flowable<CollectionChanges<TItem>> observeChangesBatched(final long window, @NonNull final TimeUnit timeUnit) {
+        return observeChangesBatched(window, timeUnit, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_BUFFERED_CHANGES,
+                BatchOverflowStrategy.COLLAPSE, Schedulers.computation());
+    }
+
+    /**
+     * Observes changes merged into batches by time window or by count of changes.
+     * Producer of changes is never blocked by subscriber: changes are merging while subscriber is busy.
+     * Number of batch is number of last merged changes so it is consistent with {@link #getChangesCount()}.
+     *
+     * @param window             Time to collect changes after first change of batch;
+     * @param timeUnit           Unit of window;
+     * @param maxBatchSize       Count of changes after which batch is emitting without waiting for window end;
+     * @param maxBufferedChanges Count of pending changes after which overflow strategy is applying;
+     * @param overflowStrategy   What to do if subscriber is too slow and pending changes are exceeding maxBufferedChanges;
+     * @param scheduler          Scheduler to wait window and to emit batches on;
+     * @return Batches of changes applied to collection.
+     */
+    @NonNull
+    public Flowable<CollectionChanges<TItem>> observeChangesBatched(final long window,
+                                                                   @NonNull final TimeUnit timeUnit,
+                                                                   final int maxBatchSize,
+                                                                   final int maxBufferedChanges,
+                                                                   @NonNull final BatchOverflowStrategy overflowStrategy,
+                                                                   @NonNull final Scheduler scheduler) {
+        return Flowable
+                .<ChangesBatch<TItem>>create(emitter -> {
+                    final FlowableEmitter<ChangesBatch<TItem>> serializedEmitter = emitter.serialize();
+                    final ChangesBatch<TItem> batch = new ChangesBatch<>();
+                    final Scheduler.Worker worker = scheduler.createWorker();
+                    final AtomicBoolean flushScheduled = new AtomicBoolean();
+                    final Disposable changesDisposable = observeChanges().subscribe(changes -> {
+                        final int pendingChangesCount = batch.add(changes, size());
+                        if (pendingChangesCount > maxBufferedChanges) {
+                            if (overflowStrategy == BatchOverflowStrategy.ERROR) {
+                                serializedEmitter.onError(new MissingBackpressureException("More than " + maxBufferedChanges + " changes pending"));
+                                return;
+                            }
+                            batch.collapse(getItems());
+                        }
+                        if (pendingChangesCount >= maxBatchSize) {
+                            serializedEmitter.onNext(batch);
+                        } else if (flushScheduled.compareAndSet(false, true)) {
+                            worker.schedule(() -> {
+                                flushScheduled.set(false);
+                                serializedEmitter.onNext(batch);
+                            }, window, timeUnit);
+                        }
+                    }, serializedEmitter::onError, serializedEmitter::onComplete);
+                    serializedEmitter.setDisposable(new CompositeDisposable(changesDisposable, worker));
+                }, BackpressureStrategy.LATEST)
+                //batch is same object every time so it is enough to keep only one of them in queue
+                .observeOn(scheduler, false, 1)
+                .filter(ChangesBatch::hasChanges)
+                .map(ChangesBatch::take);
+    }
+
     /**
      * Returns already loaded item by position.
      * Use it carefully for collections which are loading asynchronously.
@@ -179,4 +290,22 @@ public abstract class ObservableCollection<TItem> {
         this.itemsObservable = createItemsObservable();
     }
 
+    /**
+     * What to do if subscriber of {@link #observeChangesBatched(long, TimeUnit, int, int, BatchOverflowStrategy, Scheduler)}
+     * is too slow to process changes.
+     */
+    public enum BatchOverflowStrategy {
+
+        /**
+         * Replaces pending changes with removing of all items and inserting of all actual items.
+         * Subscriber will get consistent changes but removed items of that batch will be empty.
+         */
+        COLLAPSE,
+        /**
+         * Emits {@link MissingBackpressureException}.
+         */
+        ERROR
+
+    }
+
 }
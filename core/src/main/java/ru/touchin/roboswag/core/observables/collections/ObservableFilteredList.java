@@ -4,12 +4,17 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executors;
 
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
 import ru.touchin.roboswag.core.observables.collections.changes.DefaultCollectionsChangesCalculator;
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
 import io.reactivex.Scheduler;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.functions.Function;
@@ -20,6 +25,10 @@ import ru.touchin.roboswag.core.log.Lc;
  * Created by Gavriil Sitnikov on 02/06/2016.
  * {@link ObservableCollection} based on simple collection with filter inside.
  * Changing filter or collection will provide changes from {@link #observeChanges()}.
+ * Single changes of source collection are translating into changes of filtered list incrementally,
+ * whole source collection is filtering again only on {@link #setFilter(Function)}, {@link #update()}, on complex changes of source
+ * or if some changes of source have been missed.
+ * Use {@link #setParallelFiltering(boolean)} to filter big source collections by chunks concurrently.
  *
  * @param <TItem> Type of collection's items.
  */
@@ -27,34 +36,65 @@ public class ObservableFilteredList<TItem> extends ObservableCollection<TItem> {
 
     // we need to filter on 1 thread to prevent parallel filtering
     private static final Scheduler FILTER_SCHEDULER = Schedulers.from(Executors.newSingleThreadExecutor());
+    private static final int MIN_PARALLEL_FILTERING_SIZE = 2048;
+    private static final int MIN_PARALLEL_FILTERING_CHUNK_SIZE = 512;
+    private static final int PARALLEL_FILTERING_CHUNKS_PER_PROCESSOR = 4;
 
-    @NonNull
-    private static <TItem> List<TItem> filterCollection(@NonNull final Collection<TItem> sourceCollection,
-                                                        @Nullable final Function<TItem, Boolean> filter) {
+    private static <TItem> boolean isPassing(@NonNull final TItem item, @Nullable final Function<TItem, Boolean> filter) {
+        return isPassing(item, filter, null);
+    }
+
+    private static <TItem> boolean isPassing(@NonNull final TItem item, @Nullable final Function<TItem, Boolean> filter,
+                                             @Nullable final ObservableEmitter<?> cancellationEmitter) {
         if (filter == null) {
-            return new ArrayList<>(sourceCollection);
+            return true;
         }
-        final List<TItem> result = new ArrayList<>(sourceCollection.size());
         try {
-            for (final TItem item : sourceCollection) {
-                if (filter.apply(item)) {
-                    result.add(item);
-                }
-            }
+            return filter.apply(item);
         } catch (final Exception exception) {
-            Lc.assertion(exception);
+            // filter of cancelled filtering could be interrupted so it's exception is expected
+            if (cancellationEmitter == null || !cancellationEmitter.isDisposed()) {
+                Lc.assertion(exception);
+            }
+            return false;
+        }
+    }
+
+    @NonNull
+    private static <TItem> FilterResult<TItem> filterItems(@NonNull final List<TItem> sourceItems, final int from, final int to,
+                                                           @Nullable final Function<TItem, Boolean> filter,
+                                                           @Nullable final ObservableEmitter<?> cancellationEmitter) {
+        final FilterResult<TItem> result = new FilterResult<>(to - from);
+        for (int i = from; i < to; i++) {
+            if (cancellationEmitter != null && cancellationEmitter.isDisposed()) {
+                break;
+            }
+            final TItem item = sourceItems.get(i);
+            if (isPassing(item, filter, cancellationEmitter)) {
+                result.sourcePositions[result.items.size()] = i;
+                result.items.add(item);
+            }
         }
         return result;
     }
 
+    // persistent so single changes are applying in place without copying of all filtered items; it is modifying only on FILTER_SCHEDULER
     @NonNull
-    private List<TItem> filteredList;
+    private final PersistentVector<TItem> filteredItems;
+    // published after each change so reading methods could be called from any thread
+    @NonNull
+    private volatile PersistentVector.Snapshot<TItem> filteredSnapshot;
+    // positions in source collection of items from filteredItems; it is modifying only on FILTER_SCHEDULER
+    @NonNull
+    private int[] sourcePositions;
+    private int sourcePositionsCount;
     @NonNull
     private ObservableCollection<TItem> sourceCollection;
     @Nullable
     private Function<TItem, Boolean> filter;
     @Nullable
     private Disposable sourceCollectionSubscription;
+    private boolean parallelFiltering;
 
     public ObservableFilteredList() {
         this(new ArrayList<>(), null);
@@ -72,7 +112,11 @@ public class ObservableFilteredList<TItem> extends ObservableCollection<TItem> {
         super();
         this.filter = filter;
         this.sourceCollection = sourceCollection;
-        this.filteredList = filterCollection(this.sourceCollection.getItems(), this.filter);
+        this.filteredItems = new PersistentVector<>();
+        this.sourcePositions = new int[0];
+        final List<TItem> sourceItems = new ArrayList<>(this.sourceCollection.getItems());
+        applyFilterResult(filterItems(sourceItems, 0, sourceItems.size(), filter, null));
+        this.filteredSnapshot = filteredItems.snapshot();
         updateInternal();
     }
 
@@ -106,20 +150,247 @@ public class ObservableFilteredList<TItem> extends ObservableCollection<TItem> {
         updateInternal();
     }
 
+    /**
+     * Sets if whole source collection should be filtered by chunks concurrently on {@link Schedulers#computation()}.
+     * It makes sense for big collections and expensive filters. Filtering by previous filter is cancelling on {@link #setFilter(Function)}.
+     * Changes are still applying and emitting one by one in order of source changes.
+     *
+     * @param parallelFiltering True to enable parallel filtering.
+     */
+    public void setParallelFiltering(final boolean parallelFiltering) {
+        this.parallelFiltering = parallelFiltering;
+    }
+
     private void updateInternal() {
         if (sourceCollectionSubscription != null) {
             sourceCollectionSubscription.dispose();
             sourceCollectionSubscription = null;
         }
-        sourceCollectionSubscription = sourceCollection.observeItems()
+        final ObservableCollection<TItem> source = sourceCollection;
+        final Function<TItem, Boolean> actualFilter = filter;
+        final boolean actualParallelFiltering = parallelFiltering;
+        final AppliedSourceState appliedSourceState = new AppliedSourceState();
+        sourceCollectionSubscription = Observable
+                .<SourceChange<TItem>>create(emitter -> {
+                    final ObservableEmitter<SourceChange<TItem>> serializedEmitter = emitter.serialize();
+                    // subscribing to changes before taking items of source so no change is lost between them;
+                    // changes which are already included into taken items are skipping by their numbers
+                    serializedEmitter.setDisposable(source.observeChanges()
+                            .subscribe(changes -> serializedEmitter.onNext(new SourceChange<>(source, changes))));
+                    serializedEmitter.onNext(SourceChange.takeSourceItems(source));
+                })
+                .concatMap(sourceChange -> actualParallelFiltering ? filterInParallel(sourceChange, actualFilter) : Observable.just(sourceChange))
                 .observeOn(FILTER_SCHEDULER)
-                .subscribe(items -> {
-                    final List<TItem> oldFilteredList = filteredList;
-                    filteredList = filterCollection(items, filter);
-                    final DefaultCollectionsChangesCalculator<TItem> calculator
-                            = new DefaultCollectionsChangesCalculator<>(oldFilteredList, filteredList, false);
-                    notifyAboutChanges(calculator.calculateInsertedItems(), calculator.calculateRemovedItems(), calculator.calculateChanges());
-                });
+                .subscribe(sourceChange -> applySourceChange(source, sourceChange, appliedSourceState));
+    }
+
+    private void applySourceChange(@NonNull final ObservableCollection<TItem> source, @NonNull final SourceChange<TItem> sourceChange,
+                                   @NonNull final AppliedSourceState appliedSourceState) {
+        if (appliedSourceState.sourceItemsTaken && sourceChange.number <= appliedSourceState.number) {
+            return;
+        }
+        SourceChange<TItem> actualSourceChange = sourceChange;
+        if (sourceChange.change != null && (!appliedSourceState.sourceItemsTaken || sourceChange.number != appliedSourceState.number + 1)) {
+            // some changes have been missed (e.g. they happened before items of source were taken) so whole source is filtering again
+            actualSourceChange = SourceChange.takeSourceItems(source);
+        }
+        appliedSourceState.sourceItemsTaken = true;
+        appliedSourceState.number = actualSourceChange.number;
+        synchronized (this) {
+            if (actualSourceChange.change == null) {
+                applySourceItems(actualSourceChange);
+            } else {
+                applySingleChange(actualSourceChange);
+            }
+        }
+    }
+
+    private void applySourceItems(@NonNull final SourceChange<TItem> sourceChange) {
+        final PersistentVector.Snapshot<TItem> oldFilteredSnapshot = filteredSnapshot;
+        applyFilterResult(sourceChange.filterResult != null
+                ? sourceChange.filterResult : filterItems(sourceChange.items, 0, sourceChange.items.size(), filter, null));
+        filteredSnapshot = filteredItems.snapshot();
+        if (oldFilteredSnapshot.equals(filteredSnapshot)) {
+            // usual case of taking items of source on subscription so there is no need to calculate changes
+            return;
+        }
+        final DefaultCollectionsChangesCalculator<TItem> calculator
+                = new DefaultCollectionsChangesCalculator<>(oldFilteredSnapshot, filteredSnapshot, false);
+        notifyAboutChanges(calculator, calculator.calculateChanges());
+    }
+
+    private void applySingleChange(@NonNull final SourceChange<TItem> sourceChange) {
+        final List<TItem> insertedItems = new ArrayList<>();
+        final List<TItem> removedItems = new ArrayList<>();
+        final List<Change> changes = new ArrayList<>();
+        if (sourceChange.change instanceof Change.Inserted) {
+            applyInserted(filteredItems, ((Change.Inserted) sourceChange.change).getPosition(), sourceChange.items, insertedItems, changes);
+        } else if (sourceChange.change instanceof Change.Removed) {
+            final Change.Removed removed = (Change.Removed) sourceChange.change;
+            applyRemoved(filteredItems, removed.getPosition(), removed.getCount(), removedItems, changes);
+        } else if (sourceChange.change instanceof Change.Moved) {
+            final Change.Moved moved = (Change.Moved) sourceChange.change;
+            applyMoved(filteredItems, moved.getFromPosition(), moved.getToPosition(), changes);
+        } else if (sourceChange.change instanceof Change.Changed) {
+            final Change.Changed changed = (Change.Changed) sourceChange.change;
+            applyChanged(filteredItems, changed.getPosition(), changed.getPayload(), sourceChange.items, insertedItems, removedItems, changes);
+        }
+        filteredSnapshot = filteredItems.snapshot();
+        notifyAboutChanges(insertedItems, removedItems, changes);
+    }
+
+    private void applyInserted(@NonNull final PersistentVector<TItem> filteredList, final int position, @NonNull final List<TItem> items,
+                               @NonNull final List<TItem> insertedItems, @NonNull final List<Change> changes) {
+        final int filteredPosition = findFilteredPosition(position);
+        shiftSourcePositions(filteredPosition, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (isPassing(items.get(i), filter)) {
+                insertSourcePosition(filteredPosition + insertedItems.size(), position + i);
+                insertedItems.add(items.get(i));
+            }
+        }
+        if (!insertedItems.isEmpty()) {
+            for (int i = 0; i < insertedItems.size(); i++) {
+                filteredList.add(filteredPosition + i, insertedItems.get(i));
+            }
+            changes.add(new Change.Inserted(filteredPosition, insertedItems.size()));
+        }
+    }
+
+    private void applyRemoved(@NonNull final PersistentVector<TItem> filteredList, final int position, final int count,
+                              @NonNull final List<TItem> removedItems, @NonNull final List<Change> changes) {
+        final int filteredPosition = findFilteredPosition(position);
+        final int filteredEndPosition = findFilteredPosition(position + count);
+        final int filteredCount = filteredEndPosition - filteredPosition;
+        if (filteredCount > 0) {
+            for (int i = 0; i < filteredCount; i++) {
+                removedItems.add(filteredList.remove(filteredPosition));
+            }
+            removeSourcePositions(filteredPosition, filteredCount);
+            changes.add(new Change.Removed(filteredPosition, filteredCount));
+        }
+        shiftSourcePositions(filteredPosition, -count);
+    }
+
+    private void applyMoved(@NonNull final PersistentVector<TItem> filteredList, final int fromPosition, final int toPosition,
+                            @NonNull final List<Change> changes) {
+        final int filteredFromPosition = findFilteredPosition(fromPosition);
+        final boolean passing = filteredFromPosition < filteredList.size() && sourcePositions[filteredFromPosition] == fromPosition;
+        final TItem item = passing ? filteredList.remove(filteredFromPosition) : null;
+        if (passing) {
+            removeSourcePositions(filteredFromPosition, 1);
+        }
+        shiftSourcePositions(findFilteredPosition(fromPosition + 1), -1);
+        final int filteredToPosition = findFilteredPosition(toPosition);
+        shiftSourcePositions(filteredToPosition, 1);
+        if (item != null) {
+            filteredList.add(filteredToPosition, item);
+            insertSourcePosition(filteredToPosition, toPosition);
+            if (filteredFromPosition != filteredToPosition) {
+                changes.add(new Change.Moved(filteredFromPosition, filteredToPosition));
+            }
+        }
+    }
+
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    //ExcessiveParameterList: it is simpler to collect results into passed lists
+    private void applyChanged(@NonNull final PersistentVector<TItem> filteredList, final int position, @Nullable final Object payload,
+                              @NonNull final List<TItem> items, @NonNull final List<TItem> insertedItems, @NonNull final List<TItem> removedItems,
+                              @NonNull final List<Change> changes) {
+        for (int i = 0; i < items.size(); i++) {
+            final int sourcePosition = position + i;
+            final TItem item = items.get(i);
+            final int filteredPosition = findFilteredPosition(sourcePosition);
+            final boolean wasPassing = filteredPosition < filteredList.size() && sourcePositions[filteredPosition] == sourcePosition;
+            final boolean passing = isPassing(item, filter);
+            if (wasPassing && passing) {
+                filteredList.set(filteredPosition, item);
+                changes.add(new Change.Changed(filteredPosition, 1, payload));
+            } else if (wasPassing) {
+                removedItems.add(filteredList.remove(filteredPosition));
+                removeSourcePositions(filteredPosition, 1);
+                changes.add(new Change.Removed(filteredPosition, 1));
+            } else if (passing) {
+                filteredList.add(filteredPosition, item);
+                insertSourcePosition(filteredPosition, sourcePosition);
+                insertedItems.add(item);
+                changes.add(new Change.Inserted(filteredPosition, 1));
+            }
+        }
+    }
+
+    @NonNull
+    private Observable<SourceChange<TItem>> filterInParallel(@NonNull final SourceChange<TItem> sourceChange,
+                                                             @Nullable final Function<TItem, Boolean> filter) {
+        final List<TItem> items = sourceChange.items;
+        if (sourceChange.change != null || filter == null || items.size() < MIN_PARALLEL_FILTERING_SIZE) {
+            return Observable.just(sourceChange);
+        }
+        final int chunksCount = PARALLEL_FILTERING_CHUNKS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+        final int chunkSize = Math.max(MIN_PARALLEL_FILTERING_CHUNK_SIZE, (items.size() + chunksCount - 1) / chunksCount);
+        return Observable.range(0, (items.size() + chunkSize - 1) / chunkSize)
+                .concatMapEager(chunk -> Observable
+                        .<FilterResult<TItem>>create(emitter -> {
+                            final FilterResult<TItem> result
+                                    = filterItems(items, chunk * chunkSize, Math.min(items.size(), (chunk + 1) * chunkSize), filter, emitter);
+                            if (!emitter.isDisposed()) {
+                                emitter.onNext(result);
+                                emitter.onComplete();
+                            }
+                        })
+                        .subscribeOn(Schedulers.computation()))
+                .toList()
+                .map(results -> {
+                    sourceChange.filterResult = FilterResult.concat(results, items.size());
+                    return sourceChange;
+                })
+                .toObservable();
+    }
+
+    private void applyFilterResult(@NonNull final FilterResult<TItem> filterResult) {
+        sourcePositions = filterResult.sourcePositions;
+        sourcePositionsCount = filterResult.items.size();
+        filteredItems.setAll(filterResult.items);
+    }
+
+    /**
+     * Returns position in filtered list of first item which source position is greater or equal to sourcePosition.
+     */
+    private int findFilteredPosition(final int sourcePosition) {
+        int low = 0;
+        int high = sourcePositionsCount;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (sourcePositions[middle] < sourcePosition) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void shiftSourcePositions(final int fromFilteredPosition, final int shift) {
+        final int size = sourcePositionsCount;
+        for (int i = fromFilteredPosition; i < size; i++) {
+            sourcePositions[i] += shift;
+        }
+    }
+
+    private void insertSourcePosition(final int filteredPosition, final int sourcePosition) {
+        final int size = sourcePositionsCount;
+        if (size == sourcePositions.length) {
+            sourcePositions = Arrays.copyOf(sourcePositions, Math.max(16, size * 2));
+        }
+        System.arraycopy(sourcePositions, filteredPosition, sourcePositions, filteredPosition + 1, size - filteredPosition);
+        sourcePositions[filteredPosition] = sourcePosition;
+        sourcePositionsCount++;
+    }
+
+    private void removeSourcePositions(final int filteredPosition, final int count) {
+        final int size = sourcePositionsCount;
+        System.arraycopy(sourcePositions, filteredPosition + count, sourcePositions, filteredPosition, size - filteredPosition - count);
+        sourcePositionsCount -= count;
     }
 
     /**
@@ -131,19 +402,19 @@ public class ObservableFilteredList<TItem> extends ObservableCollection<TItem> {
 
     @Override
     public int size() {
-        return filteredList.size();
+        return filteredSnapshot.size();
     }
 
     @NonNull
     @Override
     public TItem get(final int position) {
-        return filteredList.get(position);
+        return filteredSnapshot.get(position);
     }
 
     @NonNull
     @Override
     public Collection<TItem> getItems() {
-        return Collections.unmodifiableCollection(filteredList);
+        return filteredSnapshot;
     }
 
     /**
@@ -156,4 +427,104 @@ public class ObservableFilteredList<TItem> extends ObservableCollection<TItem> {
         return sourceCollection;
     }
 
+    /**
+     * Change of source collection with items which are needed to apply it to filtered list.
+     * It is creating on thread of change so items are taken from source collection right after change.
+     *
+     * @param <TItem> Type of collection's items.
+     */
+    private static class SourceChange<TItem> {
+
+        @NonNull
+        private static <TItem> SourceChange<TItem> takeSourceItems(@NonNull final ObservableCollection<TItem> source) {
+            synchronized (source.getChangesLock()) {
+                return new SourceChange<>(source.getChangesCount(), source.getItems());
+            }
+        }
+
+        // number of source changes which are included into that change
+        private final int number;
+        // null means that whole source collection should be filtered
+        @Nullable
+        private final Change change;
+        @NonNull
+        private final List<TItem> items;
+        // result of filtering whole source collection if it have done before applying
+        @Nullable
+        private FilterResult<TItem> filterResult;
+
+        public SourceChange(final int number, @NonNull final Collection<TItem> sourceItems) {
+            this.number = number;
+            this.change = null;
+            this.items = new ArrayList<>(sourceItems);
+        }
+
+        public SourceChange(@NonNull final ObservableCollection<TItem> source, @NonNull final CollectionChanges<TItem> changes) {
+            this.number = changes.getNumber();
+            if (changes.getChanges().size() != 1) {
+                this.change = null;
+                this.items = new ArrayList<>(source.getItems());
+                return;
+            }
+            this.change = changes.getChanges().iterator().next();
+            if (change instanceof Change.Inserted) {
+                this.items = getItems(source, ((Change.Inserted) change).getPosition(), ((Change.Inserted) change).getCount());
+            } else if (change instanceof Change.Changed) {
+                this.items = getItems(source, ((Change.Changed) change).getPosition(), ((Change.Changed) change).getCount());
+            } else {
+                this.items = Collections.emptyList();
+            }
+        }
+
+        @NonNull
+        private static <TItem> List<TItem> getItems(@NonNull final ObservableCollection<TItem> source, final int position, final int count) {
+            final List<TItem> result = new ArrayList<>(count);
+            for (int i = position; i < position + count; i++) {
+                result.add(source.get(i));
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Number of last source change which is applied to filtered list by one subscription to source.
+     * It is accessing only on FILTER_SCHEDULER.
+     */
+    private static class AppliedSourceState {
+
+        private boolean sourceItemsTaken;
+        private int number;
+
+    }
+
+    /**
+     * Items which passed filter and their positions in source collection.
+     *
+     * @param <TItem> Type of collection's items.
+     */
+    private static class FilterResult<TItem> {
+
+        @NonNull
+        private static <TItem> FilterResult<TItem> concat(@NonNull final List<FilterResult<TItem>> results, final int capacity) {
+            final FilterResult<TItem> result = new FilterResult<>(capacity);
+            for (final FilterResult<TItem> chunkResult : results) {
+                System.arraycopy(chunkResult.sourcePositions, 0, result.sourcePositions, result.items.size(), chunkResult.items.size());
+                result.items.addAll(chunkResult.items);
+            }
+            return result;
+        }
+
+        @NonNull
+        private final List<TItem> items;
+        @NonNull
+        private final int[] sourcePositions;
+
+        public FilterResult(final int capacity) {
+            this.items = new ArrayList<>(capacity);
+            this.sourcePositions = new int[capacity];
+        }
+
+    }
+
 }
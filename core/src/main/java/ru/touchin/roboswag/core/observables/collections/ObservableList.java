@@ -30,13 +30,21 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
 import ru.touchin.roboswag.core.log.Lc;
 import ru.touchin.roboswag.core.observables.collections.changes.Change;
 import ru.touchin.roboswag.core.observables.collections.changes.ChangePayloadProducer;
 import ru.touchin.roboswag.core.observables.collections.changes.CollectionsChangesCalculator;
 import ru.touchin.roboswag.core.observables.collections.changes.DefaultCollectionsChangesCalculator;
 import ru.touchin.roboswag.core.observables.collections.changes.DiffCollectionsChangesCalculator;
+import ru.touchin.roboswag.core.observables.collections.changes.IdDiffCollectionsChangesCalculator;
+import ru.touchin.roboswag.core.observables.collections.changes.ItemIdExtractor;
+import ru.touchin.roboswag.core.observables.collections.changes.ItemKeyExtractor;
 import ru.touchin.roboswag.core.observables.collections.changes.SameItemsPredicate;
 
 /**
@@ -44,6 +52,8 @@ import ru.touchin.roboswag.core.observables.collections.changes.SameItemsPredica
  * {@link ObservableCollection} that is based on list.
  * So it is providing similar List's methods like adding/removing/clearing etc.
  * But! You can observe it's changes.
+ * Changes are serialized by lock but reading methods like {@link #get(int)} or {@link #getItems()} are not taking it
+ * and are working with last published immutable snapshot of items so they are never waiting for long changes like {@link #set(Collection)}.
  *
  * @param <TItem> Type of collection's items.
  */
@@ -51,24 +61,37 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
 
     private static final long serialVersionUID = 1L;
 
+    // persistent so getItems() is taking snapshot in O(1) time instead of copying
     @NonNull
-    private List<TItem> items;
+    private transient PersistentVector<TItem> items;
+    // published after each change so reading methods are not waiting for lock held by writers
+    @NonNull
+    private transient volatile PersistentVector.Snapshot<TItem> itemsSnapshot;
     private boolean detectMoves;
     @Nullable
     private SameItemsPredicate<TItem> sameItemsPredicate;
     @Nullable
     private ChangePayloadProducer<TItem> changePayloadProducer;
     @Nullable
+    private ItemKeyExtractor<TItem, ?> itemKeyExtractor;
+    @Nullable
+    private ItemIdExtractor<TItem> itemIdExtractor;
+    private int diffMaxEditDistance = Integer.MAX_VALUE;
+    private long diffMaxDurationNanos = Long.MAX_VALUE;
+    @Nullable
     private ObservableList<TItem> diffUtilsSource;
+    private int lastAsyncSetNumber;
 
     public ObservableList() {
         super();
-        items = new ArrayList<>();
+        items = new PersistentVector<>();
+        itemsSnapshot = items.snapshot();
     }
 
     public ObservableList(@NonNull final Collection<TItem> initialItems) {
         super();
-        items = new ArrayList<>(initialItems);
+        items = new PersistentVector<>(initialItems);
+        itemsSnapshot = items.snapshot();
     }
 
     /**
@@ -77,7 +100,7 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
      * @param item Item to add.
      */
     public void add(@NonNull final TItem item) {
-        add(items.size(), item);
+        add(size(), item);
     }
 
     /**
@@ -89,6 +112,7 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
     public void add(final int position, @NonNull final TItem item) {
         synchronized (this) {
             items.add(position, item);
+            itemsSnapshot = items.snapshot();
             notifyAboutChange(Collections.singletonList(item), Collections.emptyList(), new Change.Inserted(position, 1));
         }
     }
@@ -99,7 +123,7 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
      * @param itemsToAdd Items to add.
      */
     public void addAll(@NonNull final Collection<TItem> itemsToAdd) {
-        addAll(items.size(), itemsToAdd);
+        addAll(size(), itemsToAdd);
     }
 
     /**
@@ -111,7 +135,12 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
     public void addAll(final int position, @NonNull final Collection<TItem> itemsToAdd) {
         synchronized (this) {
             if (!itemsToAdd.isEmpty()) {
-                items.addAll(position, itemsToAdd);
+                int index = position;
+                for (final TItem item : itemsToAdd) {
+                    items.add(index, item);
+                    index++;
+                }
+                itemsSnapshot = items.snapshot();
                 notifyAboutChange(new ArrayList<>(itemsToAdd), Collections.emptyList(), new Change.Inserted(position, itemsToAdd.size()));
             }
         }
@@ -157,6 +186,7 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
             for (int i = 0; i < count; i++) {
                 removedItems.add(items.remove(position));
             }
+            itemsSnapshot = items.snapshot();
             notifyAboutChange(Collections.emptyList(), removedItems, new Change.Removed(position, count));
         }
     }
@@ -166,9 +196,10 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
      */
     public void clear() {
         synchronized (this) {
-            if (!items.isEmpty()) {
-                final List<TItem> removedItems = new ArrayList<>(items);
+            if (items.size() > 0) {
+                final List<TItem> removedItems = itemsSnapshot;
                 items.clear();
+                itemsSnapshot = items.snapshot();
                 notifyAboutChange(Collections.emptyList(), removedItems, new Change.Removed(0, removedItems.size()));
             }
         }
@@ -177,17 +208,13 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
     @NonNull
     @Override
     public TItem get(final int position) {
-        synchronized (this) {
-            return items.get(position);
-        }
+        return itemsSnapshot.get(position);
     }
 
     @NonNull
     @Override
     public Collection<TItem> getItems() {
-        synchronized (this) {
-            return Collections.unmodifiableCollection(new ArrayList<>(items));
-        }
+        return itemsSnapshot;
     }
 
     /**
@@ -216,6 +243,7 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
                 items.set(index, item);
                 index++;
             }
+            itemsSnapshot = items.snapshot();
             notifyAboutChange(Collections.emptyList(), Collections.emptyList(), new Change.Changed(position, updatedItems.size(), null));
         }
     }
@@ -227,32 +255,109 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
      */
     public void set(@NonNull final Collection<TItem> newItems) {
         synchronized (this) {
-            final List<TItem> oldList = new ArrayList<>(items);
-            final List<TItem> newList = new ArrayList<>(newItems);
-            final CollectionsChangesCalculator<TItem> calculator;
-            if (diffUtilsSource != null) {
-                if (diffUtilsSource.sameItemsPredicate != null) {
-                    calculator = new DiffCollectionsChangesCalculator<>(oldList, newList,
-                            diffUtilsSource.detectMoves, diffUtilsSource.sameItemsPredicate, diffUtilsSource.changePayloadProducer);
-                } else {
-                    calculator = new DefaultCollectionsChangesCalculator<>(oldList, newList, false);
-                }
-            } else if (sameItemsPredicate != null) {
-                calculator = new DiffCollectionsChangesCalculator<>(oldList, newList, detectMoves, sameItemsPredicate, changePayloadProducer);
-            } else {
-                calculator = new DefaultCollectionsChangesCalculator<>(oldList, newList, false);
+            lastAsyncSetNumber++;
+            final CollectionsChangesCalculator<TItem> calculator = captureDiffSettings()
+                    .createCalculator(new ArrayList<>(itemsSnapshot), new ArrayList<>(newItems));
+            items.setAll(newItems);
+            itemsSnapshot = items.snapshot();
+            notifyAboutChanges(calculator, calculator.calculateChanges());
+        }
+    }
+
+    /**
+     * Resetting all items in list to new ones asynchronously.
+     * Only snapshot of items is taking on subscription thread. Items are copying and changes are calculating on {@link Schedulers#computation()}
+     * and then new items are applying on applyScheduler.
+     * If other {@link #set(Collection)} or {@link #setAsync(Collection, Scheduler)} called during calculation then result will be dropped.
+     * If list have modified in other way during calculation then changes will be recalculated on {@link Schedulers#computation()} again.
+     * New items shouldn't be modified till setting process completes.
+     *
+     * @param newItems       New items to set;
+     * @param applyScheduler Scheduler to apply new items and to notify about changes on;
+     * @return {@link Completable} of setting process.
+     */
+    @NonNull
+    public Completable setAsync(@NonNull final Collection<TItem> newItems, @NonNull final Scheduler applyScheduler) {
+        return Single
+                .fromCallable(() -> {
+                    synchronized (this) {
+                        lastAsyncSetNumber++;
+                        return lastAsyncSetNumber;
+                    }
+                })
+                .flatMapCompletable(number -> calculateAndApplyAsyncSet(number, newItems, applyScheduler));
+    }
+
+    @NonNull
+    private Completable calculateAndApplyAsyncSet(final int number,
+                                                  @NonNull final Collection<TItem> newItems,
+                                                  @NonNull final Scheduler applyScheduler) {
+        return Single
+                .fromCallable(() -> {
+                    synchronized (this) {
+                        return new AsyncSetRequest<>(number, getChangesCount(), itemsSnapshot, newItems, captureDiffSettings());
+                    }
+                })
+                .observeOn(Schedulers.computation())
+                .doOnSuccess(request -> {
+                    if (isActualAsyncSet(request)) {
+                        request.calculate();
+                    }
+                })
+                .observeOn(applyScheduler)
+                .flatMapCompletable(request -> applyAsyncSet(request)
+                        ? Completable.complete()
+                        // list have changed during calculation so changes are recalculating against actual items
+                        : calculateAndApplyAsyncSet(number, request.newItems, applyScheduler));
+    }
+
+    private boolean isActualAsyncSet(@NonNull final AsyncSetRequest<TItem> request) {
+        synchronized (this) {
+            return request.number == lastAsyncSetNumber;
+        }
+    }
+
+    /**
+     * Applies calculated changes of {@link #setAsync(Collection, Scheduler)}.
+     *
+     * @param request Request to apply;
+     * @return False if list have changed during calculation so changes should be recalculated.
+     */
+    private boolean applyAsyncSet(@NonNull final AsyncSetRequest<TItem> request) {
+        synchronized (this) {
+            if (request.number != lastAsyncSetNumber || request.newList == null || request.calculator == null || request.changes == null) {
+                return true;
+            }
+            if (request.changesCount != getChangesCount()) {
+                return false;
             }
-            items.clear();
-            items.addAll(newItems);
-            notifyAboutChanges(calculator.calculateInsertedItems(), calculator.calculateRemovedItems(), calculator.calculateChanges());
+            items.setAll(request.newList);
+            itemsSnapshot = items.snapshot();
+            notifyAboutChanges(request.calculator, request.changes);
+            return true;
         }
     }
 
-    @Override
-    public int size() {
+    /**
+     * Takes current diff utils parameters under lock so changes could be calculated with them on any thread.
+     *
+     * @return Parameters of changes calculation.
+     */
+    @NonNull
+    private DiffSettings<TItem> captureDiffSettings() {
+        final ObservableList<TItem> source;
         synchronized (this) {
-            return items.size();
+            if (diffUtilsSource == null) {
+                return new DiffSettings<>(this);
+            }
+            source = diffUtilsSource;
         }
+        return source.captureDiffSettings();
+    }
+
+    @Override
+    public int size() {
+        return itemsSnapshot.size();
     }
 
     /**
@@ -265,16 +370,76 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
     public void enableDiffUtils(final boolean detectMoves,
                                 @NonNull final SameItemsPredicate<TItem> sameItemsPredicate,
                                 @Nullable final ChangePayloadProducer<TItem> changePayloadProducer) {
-        this.detectMoves = detectMoves;
-        this.sameItemsPredicate = sameItemsPredicate;
-        this.changePayloadProducer = changePayloadProducer;
+        enableDiffUtils(detectMoves, sameItemsPredicate, changePayloadProducer, null);
+    }
+
+    /**
+     * Enable diff utils algorithm in collection changes.
+     *
+     * @param detectMoves           The flag that determines whether the {@link Change.Moved} changes will be generated or not;
+     * @param sameItemsPredicate    Predicate for the determination of the same elements;
+     * @param changePayloadProducer Function that calculate change payload when items the same but contents are different;
+     * @param itemKeyExtractor      Function to get key of item which is consistent with sameItemsPredicate.
+     *                              It allows to calculate inserted, removed and moved items in linear time.
+     */
+    public void enableDiffUtils(final boolean detectMoves,
+                                @NonNull final SameItemsPredicate<TItem> sameItemsPredicate,
+                                @Nullable final ChangePayloadProducer<TItem> changePayloadProducer,
+                                @Nullable final ItemKeyExtractor<TItem, ?> itemKeyExtractor) {
+        synchronized (this) {
+            this.detectMoves = detectMoves;
+            this.sameItemsPredicate = sameItemsPredicate;
+            this.changePayloadProducer = changePayloadProducer;
+            this.itemKeyExtractor = itemKeyExtractor;
+            this.itemIdExtractor = null;
+        }
+    }
+
+    /**
+     * Enable diff utils algorithm in collection changes for items which are same only if they have same primitive ids.
+     * Ids are compared as primitives so it is much faster than {@link #enableDiffUtils(boolean, SameItemsPredicate, ChangePayloadProducer)}
+     * on big lists.
+     *
+     * @param detectMoves           The flag that determines whether the {@link Change.Moved} changes will be generated or not;
+     * @param itemIdExtractor       Function to get id of item;
+     * @param changePayloadProducer Function that calculate change payload when items the same but contents are different.
+     */
+    public void enableIdDiff(final boolean detectMoves,
+                             @NonNull final ItemIdExtractor<TItem> itemIdExtractor,
+                             @Nullable final ChangePayloadProducer<TItem> changePayloadProducer) {
+        synchronized (this) {
+            this.detectMoves = detectMoves;
+            this.itemIdExtractor = itemIdExtractor;
+            this.changePayloadProducer = changePayloadProducer;
+            this.sameItemsPredicate = null;
+            this.itemKeyExtractor = null;
+        }
+    }
+
+    /**
+     * Limits work of diff utils algorithm. If lists are too different to fit limits then coarse changes are produced:
+     * all common positions are changed and the rest are inserted or removed.
+     *
+     * @param maxEditDistance Maximum count of inserted and removed items to search changes for;
+     * @param maxDuration     Maximum time of searching changes;
+     * @param timeUnit        Time unit of maxDuration.
+     */
+    public void setDiffUtilsBudget(final int maxEditDistance, final long maxDuration, @NonNull final TimeUnit timeUnit) {
+        synchronized (this) {
+            this.diffMaxEditDistance = maxEditDistance;
+            this.diffMaxDurationNanos = timeUnit.toNanos(maxDuration);
+        }
     }
 
     /**
      * Disable diff utils algorithm.
      */
     public void disableDiffUtils() {
-        this.sameItemsPredicate = null;
+        synchronized (this) {
+            this.sameItemsPredicate = null;
+            this.itemKeyExtractor = null;
+            this.itemIdExtractor = null;
+        }
     }
 
     /**
@@ -283,7 +448,7 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
      * @return true if diff utils is enabled.
      */
     public boolean diffUtilsIsEnabled() {
-        return diffUtilsSource != null ? diffUtilsSource.diffUtilsIsEnabled() : sameItemsPredicate != null;
+        return captureDiffSettings().isEnabled();
     }
 
     /**
@@ -292,7 +457,9 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
      * @param diffUtilsSource Source of diff utils parameters.
      */
     public void setDiffUtilsSource(@Nullable final ObservableList<TItem> diffUtilsSource) {
-        this.diffUtilsSource = diffUtilsSource;
+        synchronized (this) {
+            this.diffUtilsSource = diffUtilsSource;
+        }
     }
 
     /**
@@ -302,18 +469,107 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
      * @return Position of item in list or -1 if item not found.
      */
     public int indexOf(@NonNull final TItem item) {
-        synchronized (this) {
-            return items.indexOf(item);
-        }
+        return itemsSnapshot.indexOf(item);
     }
 
     private void writeObject(@NonNull final ObjectOutputStream outputStream) throws IOException {
-        outputStream.writeObject(items);
+        outputStream.writeObject(new ArrayList<>(itemsSnapshot));
     }
 
     @SuppressWarnings("unchecked")
     private void readObject(@NonNull final ObjectInputStream inputStream) throws IOException, ClassNotFoundException {
-        items = (List<TItem>) inputStream.readObject();
+        items = new PersistentVector<>((List<TItem>) inputStream.readObject());
+        itemsSnapshot = items.snapshot();
+    }
+
+    /**
+     * Snapshot of list state and new items to calculate changes of {@link #setAsync(Collection, Scheduler)} in background.
+     *
+     * @param <TItem> Type of collection's items.
+     */
+    private static class AsyncSetRequest<TItem> {
+
+        private final int number;
+        private final int changesCount;
+        @NonNull
+        private final List<TItem> oldItems;
+        @NonNull
+        private final Collection<TItem> newItems;
+        @NonNull
+        private final DiffSettings<TItem> diffSettings;
+        @Nullable
+        private List<TItem> newList;
+        @Nullable
+        private CollectionsChangesCalculator<TItem> calculator;
+        @Nullable
+        private List<Change> changes;
+
+        public AsyncSetRequest(final int number, final int changesCount,
+                               @NonNull final List<TItem> oldItems, @NonNull final Collection<TItem> newItems,
+                               @NonNull final DiffSettings<TItem> diffSettings) {
+            this.number = number;
+            this.changesCount = changesCount;
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+            this.diffSettings = diffSettings;
+        }
+
+        public void calculate() {
+            newList = new ArrayList<>(newItems);
+            calculator = diffSettings.createCalculator(new ArrayList<>(oldItems), newList);
+            changes = calculator.calculateChanges();
+        }
+
+    }
+
+    /**
+     * Immutable copy of diff utils parameters of list which is taken under lock of list.
+     *
+     * @param <TItem> Type of collection's items.
+     */
+    private static class DiffSettings<TItem> {
+
+        private final boolean detectMoves;
+        @Nullable
+        private final SameItemsPredicate<TItem> sameItemsPredicate;
+        @Nullable
+        private final ChangePayloadProducer<TItem> changePayloadProducer;
+        @Nullable
+        private final ItemKeyExtractor<TItem, ?> itemKeyExtractor;
+        @Nullable
+        private final ItemIdExtractor<TItem> itemIdExtractor;
+        private final int diffMaxEditDistance;
+        private final long diffMaxDurationNanos;
+
+        public DiffSettings(@NonNull final ObservableList<TItem> list) {
+            this.detectMoves = list.detectMoves;
+            this.sameItemsPredicate = list.sameItemsPredicate;
+            this.changePayloadProducer = list.changePayloadProducer;
+            this.itemKeyExtractor = list.itemKeyExtractor;
+            this.itemIdExtractor = list.itemIdExtractor;
+            this.diffMaxEditDistance = list.diffMaxEditDistance;
+            this.diffMaxDurationNanos = list.diffMaxDurationNanos;
+        }
+
+        public boolean isEnabled() {
+            return sameItemsPredicate != null || itemIdExtractor != null;
+        }
+
+        @NonNull
+        public CollectionsChangesCalculator<TItem> createCalculator(@NonNull final List<TItem> oldList, @NonNull final List<TItem> newList) {
+            final DiffCollectionsChangesCalculator<TItem> calculator;
+            if (itemIdExtractor != null) {
+                calculator = new IdDiffCollectionsChangesCalculator<>(oldList, newList, detectMoves, itemIdExtractor, changePayloadProducer);
+            } else if (sameItemsPredicate != null) {
+                calculator = new DiffCollectionsChangesCalculator<>(oldList, newList,
+                        detectMoves, sameItemsPredicate, changePayloadProducer, itemKeyExtractor);
+            } else {
+                return new DefaultCollectionsChangesCalculator<>(oldList, newList, false);
+            }
+            calculator.setBudget(diffMaxEditDistance, diffMaxDurationNanos);
+            return calculator;
+        }
+
     }
 
 }
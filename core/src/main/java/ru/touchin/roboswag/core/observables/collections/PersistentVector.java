@@ -0,0 +1,525 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * List of items which is persistent B-tree with items in leaves so it allows to take immutable snapshot of it in O(1) time.
+ * Snapshot and list are sharing nodes so only path to changed leaf is copying on first change after snapshot
+ * and all other changes till next snapshot are applying in place. So adding, removing and replacing of items takes O(log n) time.
+ * Nodes are owned by edit token of list and taking snapshot is just replacing of that token so all existing nodes become immutable.
+ * It is not thread-safe so access to it should be synchronized by owner but snapshots could be read from any thread.
+ *
+ * @param <TItem> Type of items.
+ */
+final class PersistentVector<TItem> {
+
+    private static final int NODE_CAPACITY = 32;
+    private static final int MIN_LEAF_SIZE = NODE_CAPACITY / 4;
+
+    @NonNull
+    private Object editToken = new Object();
+    @NonNull
+    private Node root = new Leaf(editToken, new Object[NODE_CAPACITY], 0);
+
+    PersistentVector() {
+        // empty vector
+    }
+
+    PersistentVector(@NonNull final Collection<TItem> items) {
+        setAll(items);
+    }
+
+    /**
+     * Returns count of items.
+     *
+     * @return Count of items.
+     */
+    public int size() {
+        return root.size;
+    }
+
+    /**
+     * Returns item by position.
+     *
+     * @param position Position of item;
+     * @return Item.
+     */
+    @NonNull
+    public TItem get(final int position) {
+        checkPosition(position, root.size);
+        return getItem(root, position);
+    }
+
+    /**
+     * Inserts item at position.
+     *
+     * @param position Position to insert item to;
+     * @param item     Item to insert.
+     */
+    public void add(final int position, @NonNull final TItem item) {
+        checkPosition(position, root.size + 1);
+        root = editable(root);
+        final Node splitNode = insert(root, position, item);
+        if (splitNode != null) {
+            final Node[] children = new Node[NODE_CAPACITY];
+            children[0] = root;
+            children[1] = splitNode;
+            root = new Branch(editToken, children, 2, root.size + splitNode.size);
+        }
+    }
+
+    /**
+     * Removes item at position.
+     *
+     * @param position Position of item to remove;
+     * @return Removed item.
+     */
+    @NonNull
+    public TItem remove(final int position) {
+        checkPosition(position, root.size);
+        root = editable(root);
+        final TItem removedItem = delete(root, position);
+        while (root instanceof Branch && ((Branch) root).count <= 1) {
+            root = ((Branch) root).count == 0 ? new Leaf(editToken, new Object[NODE_CAPACITY], 0) : ((Branch) root).children[0];
+        }
+        return removedItem;
+    }
+
+    /**
+     * Replaces item at position.
+     *
+     * @param position Position of item to replace;
+     * @param item     New item.
+     */
+    public void set(final int position, @NonNull final TItem item) {
+        checkPosition(position, root.size);
+        root = editable(root);
+        Node node = root;
+        int positionInNode = position;
+        while (node instanceof Branch) {
+            final Branch branch = (Branch) node;
+            int childIndex = 0;
+            while (positionInNode >= branch.children[childIndex].size) {
+                positionInNode -= branch.children[childIndex].size;
+                childIndex++;
+            }
+            branch.children[childIndex] = editable(branch.children[childIndex]);
+            node = branch.children[childIndex];
+        }
+        ((Leaf) node).items[positionInNode] = item;
+    }
+
+    /**
+     * Replaces all items with new ones. It takes O(n) time as tree is building from bottom.
+     *
+     * @param items New items.
+     */
+    public void setAll(@NonNull final Collection<TItem> items) {
+        editToken = new Object();
+        final Object[] itemsArray = items.toArray();
+        int nodesCount = Math.max(1, (itemsArray.length + NODE_CAPACITY - 1) / NODE_CAPACITY);
+        Node[] nodes = new Node[nodesCount];
+        for (int i = 0; i < nodesCount; i++) {
+            final int count = Math.min(NODE_CAPACITY, itemsArray.length - i * NODE_CAPACITY);
+            final Object[] leafItems = new Object[NODE_CAPACITY];
+            System.arraycopy(itemsArray, i * NODE_CAPACITY, leafItems, 0, count);
+            nodes[i] = new Leaf(editToken, leafItems, count);
+        }
+        while (nodesCount > 1) {
+            final int parentsCount = (nodesCount + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            final Node[] parents = new Node[parentsCount];
+            for (int i = 0; i < parentsCount; i++) {
+                final int count = Math.min(NODE_CAPACITY, nodesCount - i * NODE_CAPACITY);
+                final Node[] children = new Node[NODE_CAPACITY];
+                System.arraycopy(nodes, i * NODE_CAPACITY, children, 0, count);
+                parents[i] = new Branch(editToken, children, count, sumSizes(children, count));
+            }
+            nodes = parents;
+            nodesCount = parentsCount;
+        }
+        root = nodes[0];
+    }
+
+    /**
+     * Removes all items.
+     */
+    public void clear() {
+        editToken = new Object();
+        root = new Leaf(editToken, new Object[NODE_CAPACITY], 0);
+    }
+
+    /**
+     * Returns immutable list of current items in O(1) time.
+     *
+     * @return Snapshot of items.
+     */
+    @NonNull
+    public Snapshot<TItem> snapshot() {
+        editToken = new Object();
+        return new Snapshot<>(root);
+    }
+
+    @NonNull
+    private Node editable(@NonNull final Node node) {
+        if (node.editToken == editToken) {
+            return node;
+        }
+        if (node instanceof Leaf) {
+            return new Leaf(editToken, ((Leaf) node).items.clone(), ((Leaf) node).size);
+        }
+        return new Branch(editToken, ((Branch) node).children.clone(), ((Branch) node).count, node.size);
+    }
+
+    /**
+     * Inserts item into editable node.
+     *
+     * @return New right sibling of node if it have been split or null.
+     */
+    @Nullable
+    private Node insert(@NonNull final Node node, final int position, @NonNull final TItem item) {
+        node.size++;
+        if (node instanceof Leaf) {
+            final Leaf leaf = (Leaf) node;
+            if (leaf.size <= NODE_CAPACITY) {
+                System.arraycopy(leaf.items, position, leaf.items, position + 1, leaf.size - 1 - position);
+                leaf.items[position] = item;
+                return null;
+            }
+            final Object[] items = new Object[NODE_CAPACITY + 1];
+            System.arraycopy(leaf.items, 0, items, 0, position);
+            items[position] = item;
+            System.arraycopy(leaf.items, position, items, position + 1, NODE_CAPACITY - position);
+            final int leftCount = items.length / 2;
+            final Object[] rightItems = new Object[NODE_CAPACITY];
+            System.arraycopy(items, leftCount, rightItems, 0, items.length - leftCount);
+            System.arraycopy(items, 0, leaf.items, 0, leftCount);
+            Arrays.fill(leaf.items, leftCount, NODE_CAPACITY, null);
+            leaf.size = leftCount;
+            return new Leaf(editToken, rightItems, items.length - leftCount);
+        }
+        final Branch branch = (Branch) node;
+        int childIndex = 0;
+        int positionInChild = position;
+        while (childIndex < branch.count - 1 && positionInChild >= branch.children[childIndex].size) {
+            positionInChild -= branch.children[childIndex].size;
+            childIndex++;
+        }
+        branch.children[childIndex] = editable(branch.children[childIndex]);
+        final Node splitChild = insert(branch.children[childIndex], positionInChild, item);
+        if (splitChild == null) {
+            return null;
+        }
+        if (branch.count < NODE_CAPACITY) {
+            System.arraycopy(branch.children, childIndex + 1, branch.children, childIndex + 2, branch.count - childIndex - 1);
+            branch.children[childIndex + 1] = splitChild;
+            branch.count++;
+            return null;
+        }
+        final Node[] children = new Node[NODE_CAPACITY + 1];
+        System.arraycopy(branch.children, 0, children, 0, childIndex + 1);
+        children[childIndex + 1] = splitChild;
+        System.arraycopy(branch.children, childIndex + 1, children, childIndex + 2, branch.count - childIndex - 1);
+        final int leftCount = children.length / 2;
+        final Node[] rightChildren = new Node[NODE_CAPACITY];
+        System.arraycopy(children, leftCount, rightChildren, 0, children.length - leftCount);
+        System.arraycopy(children, 0, branch.children, 0, leftCount);
+        Arrays.fill(branch.children, leftCount, NODE_CAPACITY, null);
+        branch.count = leftCount;
+        branch.size = sumSizes(branch.children, leftCount);
+        return new Branch(editToken, rightChildren, children.length - leftCount, sumSizes(rightChildren, children.length - leftCount));
+    }
+
+    /**
+     * Removes item from editable node. Empty children are removing and small leaves are merging with neighbours.
+     *
+     * @return Removed item.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    //unchecked: leaves are containing only items
+    private TItem delete(@NonNull final Node node, final int position) {
+        node.size--;
+        if (node instanceof Leaf) {
+            final Leaf leaf = (Leaf) node;
+            final TItem removedItem = (TItem) leaf.items[position];
+            System.arraycopy(leaf.items, position + 1, leaf.items, position, leaf.size - position);
+            leaf.items[leaf.size] = null;
+            return removedItem;
+        }
+        final Branch branch = (Branch) node;
+        int childIndex = 0;
+        int positionInChild = position;
+        while (positionInChild >= branch.children[childIndex].size) {
+            positionInChild -= branch.children[childIndex].size;
+            childIndex++;
+        }
+        branch.children[childIndex] = editable(branch.children[childIndex]);
+        final TItem removedItem = delete(branch.children[childIndex], positionInChild);
+        final Node child = branch.children[childIndex];
+        if (child.size == 0) {
+            removeChild(branch, childIndex);
+        } else if (child instanceof Leaf && child.size < MIN_LEAF_SIZE) {
+            tryMergeLeaves(branch, childIndex > 0 ? childIndex - 1 : childIndex);
+        }
+        return removedItem;
+    }
+
+    private void tryMergeLeaves(@NonNull final Branch branch, final int leftIndex) {
+        if (leftIndex + 1 >= branch.count
+                || !(branch.children[leftIndex] instanceof Leaf) || !(branch.children[leftIndex + 1] instanceof Leaf)) {
+            return;
+        }
+        final Leaf right = (Leaf) branch.children[leftIndex + 1];
+        if (branch.children[leftIndex].size + right.size > NODE_CAPACITY) {
+            return;
+        }
+        final Leaf left = (Leaf) editable(branch.children[leftIndex]);
+        System.arraycopy(right.items, 0, left.items, left.size, right.size);
+        left.size += right.size;
+        branch.children[leftIndex] = left;
+        removeChild(branch, leftIndex + 1);
+    }
+
+    private static void removeChild(@NonNull final Branch branch, final int childIndex) {
+        System.arraycopy(branch.children, childIndex + 1, branch.children, childIndex, branch.count - childIndex - 1);
+        branch.count--;
+        branch.children[branch.count] = null;
+    }
+
+    private static int sumSizes(@NonNull final Node[] nodes, final int count) {
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            result += nodes[i].size;
+        }
+        return result;
+    }
+
+    private static void checkPosition(final int position, final int size) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + " is out of size " + size);
+        }
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    //unchecked: leaves are containing only items
+    private static <TItem> TItem getItem(@NonNull final Node root, final int position) {
+        Node node = root;
+        int positionInNode = position;
+        while (node instanceof Branch) {
+            final Branch branch = (Branch) node;
+            int childIndex = 0;
+            while (positionInNode >= branch.children[childIndex].size) {
+                positionInNode -= branch.children[childIndex].size;
+                childIndex++;
+            }
+            node = branch.children[childIndex];
+        }
+        return (TItem) ((Leaf) node).items[positionInNode];
+    }
+
+    private abstract static class Node {
+
+        @NonNull
+        protected final Object editToken;
+        protected int size;
+
+        protected Node(@NonNull final Object editToken, final int size) {
+            this.editToken = editToken;
+            this.size = size;
+        }
+
+    }
+
+    private static final class Leaf extends Node {
+
+        @NonNull
+        private final Object[] items;
+
+        public Leaf(@NonNull final Object editToken, @NonNull final Object[] items, final int size) {
+            super(editToken, size);
+            this.items = items;
+        }
+
+    }
+
+    private static final class Branch extends Node {
+
+        @NonNull
+        private final Node[] children;
+        private int count;
+
+        public Branch(@NonNull final Object editToken, @NonNull final Node[] children, final int count, final int size) {
+            super(editToken, size);
+            this.children = children;
+            this.count = count;
+        }
+
+    }
+
+    /**
+     * Immutable list of items of {@link PersistentVector} at some moment.
+     *
+     * @param <TItem> Type of items.
+     */
+    public static final class Snapshot<TItem> extends AbstractList<TItem> {
+
+        @NonNull
+        private final Node root;
+
+        private Snapshot(@NonNull final Node root) {
+            super();
+            this.root = root;
+        }
+
+        @NonNull
+        @Override
+        public TItem get(final int position) {
+            checkPosition(position, root.size);
+            return getItem(root, position);
+        }
+
+        @Override
+        public int size() {
+            return root.size;
+        }
+
+        @NonNull
+        @Override
+        public Object[] toArray() {
+            final Object[] result = new Object[root.size];
+            copyItems(root, result, 0);
+            return result;
+        }
+
+        private static int copyItems(@NonNull final Node node, @NonNull final Object[] result, final int offset) {
+            if (node instanceof Leaf) {
+                System.arraycopy(((Leaf) node).items, 0, result, offset, ((Leaf) node).size);
+                return offset + ((Leaf) node).size;
+            }
+            int childOffset = offset;
+            for (int i = 0; i < ((Branch) node).count; i++) {
+                childOffset = copyItems(((Branch) node).children[i], result, childOffset);
+            }
+            return childOffset;
+        }
+
+        @NonNull
+        @Override
+        public Iterator<TItem> iterator() {
+            return new LeavesIterator<>(root);
+        }
+
+        @Override
+        public int indexOf(@Nullable final Object item) {
+            int position = 0;
+            for (final TItem listItem : this) {
+                if (listItem.equals(item)) {
+                    return position;
+                }
+                position++;
+            }
+            return -1;
+        }
+
+    }
+
+    /**
+     * Iterator which is walking through leaves keeping path to current leaf. All leaves of tree are at same depth.
+     *
+     * @param <TItem> Type of items.
+     */
+    private static final class LeavesIterator<TItem> implements Iterator<TItem> {
+
+        @NonNull
+        private final Branch[] path;
+        @NonNull
+        private final int[] pathChildIndices;
+        @NonNull
+        private Leaf leaf;
+        private int indexInLeaf;
+        private int remainingCount;
+
+        public LeavesIterator(@NonNull final Node root) {
+            int depth = 0;
+            for (Node node = root; node instanceof Branch; node = ((Branch) node).children[0]) {
+                depth++;
+            }
+            path = new Branch[depth];
+            pathChildIndices = new int[depth];
+            leaf = descendToFirstLeaf(root, 0);
+            remainingCount = root.size;
+        }
+
+        @NonNull
+        private Leaf descendToFirstLeaf(@NonNull final Node node, final int level) {
+            Node current = node;
+            for (int i = level; i < path.length; i++) {
+                path[i] = (Branch) current;
+                pathChildIndices[i] = 0;
+                current = path[i].children[0];
+            }
+            return (Leaf) current;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remainingCount > 0;
+        }
+
+        @NonNull
+        @Override
+        @SuppressWarnings("unchecked")
+        //unchecked: leaves are containing only items
+        public TItem next() {
+            if (remainingCount == 0) {
+                throw new NoSuchElementException();
+            }
+            if (indexInLeaf == leaf.size) {
+                int level = path.length - 1;
+                while (pathChildIndices[level] + 1 == path[level].count) {
+                    level--;
+                }
+                pathChildIndices[level]++;
+                leaf = descendToFirstLeaf(path[level].children[pathChildIndices[level]], level + 1);
+                indexInLeaf = 0;
+            }
+            remainingCount--;
+            return (TItem) leaf.items[indexInLeaf++];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
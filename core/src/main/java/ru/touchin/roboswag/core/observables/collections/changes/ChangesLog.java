@@ -0,0 +1,326 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import ru.touchin.roboswag.core.android.support.v7.util.ListUpdateCallback;
+
+/**
+ * List of changes which is keeping them packed into int array instead of {@link Change} objects.
+ * Changes are appending by {@link ListUpdateCallback} methods and could be read without allocations by {@link #cursor()}
+ * or by {@link #dispatchTo(ListUpdateCallback)}. {@link Change} objects are creating only on {@link #get(int)} for compatibility.
+ * Log is not thread-safe so it becomes read-only after it is passed to {@link CollectionChanges}:
+ * appending to it or clearing it throws {@link UnsupportedOperationException}. Use {@link #ChangesLog(Collection)} to get modifiable copy.
+ */
+public class ChangesLog extends AbstractList<Change> implements ListUpdateCallback {
+
+    private static final int INITIAL_CAPACITY = 8;
+    // type, position (or from position) and count (or to position) of each change
+    private static final int INTS_PER_CHANGE = 3;
+    private static final Type[] TYPES = Type.values();
+
+    @NonNull
+    private int[] operations;
+    // payloads of changes by index of change; allocating only when first non-null payload appears
+    @Nullable
+    private Object[] payloads;
+    private int size;
+    private boolean readOnly;
+
+    public ChangesLog() {
+        super();
+        operations = new int[INITIAL_CAPACITY * INTS_PER_CHANGE];
+    }
+
+    public ChangesLog(@NonNull final Collection<Change> changes) {
+        super();
+        if (changes instanceof ChangesLog) {
+            final ChangesLog changesLog = (ChangesLog) changes;
+            operations = Arrays.copyOf(changesLog.operations, Math.max(changesLog.size, 1) * INTS_PER_CHANGE);
+            payloads = changesLog.payloads != null ? Arrays.copyOf(changesLog.payloads, Math.max(changesLog.size, 1)) : null;
+            size = changesLog.size;
+            return;
+        }
+        operations = new int[Math.max(changes.size(), 1) * INTS_PER_CHANGE];
+        for (final Change change : changes) {
+            if (change instanceof Change.Inserted) {
+                onInserted(((Change.Inserted) change).getPosition(), ((Change.Inserted) change).getCount());
+            } else if (change instanceof Change.Removed) {
+                onRemoved(((Change.Removed) change).getPosition(), ((Change.Removed) change).getCount());
+            } else if (change instanceof Change.Moved) {
+                onMoved(((Change.Moved) change).getFromPosition(), ((Change.Moved) change).getToPosition());
+            } else if (change instanceof Change.Changed) {
+                final Change.Changed castedChange = (Change.Changed) change;
+                onChanged(castedChange.getPosition(), castedChange.getCount(), castedChange.getPayload());
+            } else {
+                throw new IllegalArgumentException("Not supported " + change);
+            }
+        }
+    }
+
+    @Override
+    public void onInserted(final int position, final int count) {
+        append(Type.INSERTED, position, count, null);
+    }
+
+    @Override
+    public void onRemoved(final int position, final int count) {
+        append(Type.REMOVED, position, count, null);
+    }
+
+    @Override
+    public void onMoved(final int fromPosition, final int toPosition) {
+        append(Type.MOVED, fromPosition, toPosition, null);
+    }
+
+    @Override
+    public void onChanged(final int position, final int count, @Nullable final Object payload) {
+        append(Type.CHANGED, position, count, payload);
+    }
+
+    /**
+     * Makes log read-only so it could be shared between subscribers of {@link CollectionChanges}.
+     */
+    void setReadOnly() {
+        readOnly = true;
+    }
+
+    private void checkModifiable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Changes log is read-only");
+        }
+    }
+
+    private void append(@NonNull final Type type, final int first, final int second, @Nullable final Object payload) {
+        checkModifiable();
+        final int offset = size * INTS_PER_CHANGE;
+        if (offset == operations.length) {
+            operations = Arrays.copyOf(operations, operations.length * 2);
+        }
+        operations[offset] = type.ordinal();
+        operations[offset + 1] = first;
+        operations[offset + 2] = second;
+        if (payload != null) {
+            if (payloads == null) {
+                payloads = new Object[operations.length / INTS_PER_CHANGE];
+            } else if (payloads.length <= size) {
+                payloads = Arrays.copyOf(payloads, operations.length / INTS_PER_CHANGE);
+            }
+            payloads[size] = payload;
+        }
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        checkModifiable();
+        if (payloads != null) {
+            Arrays.fill(payloads, 0, Math.min(size, payloads.length), null);
+        }
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Creates {@link Change} object of change by index. Use {@link #cursor()} to read changes without allocations.
+     *
+     * @param index Index of change;
+     * @return Change object.
+     */
+    @NonNull
+    @Override
+    public Change get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+        final int offset = index * INTS_PER_CHANGE;
+        switch (TYPES[operations[offset]]) {
+            case INSERTED:
+                return new Change.Inserted(operations[offset + 1], operations[offset + 2]);
+            case REMOVED:
+                return new Change.Removed(operations[offset + 1], operations[offset + 2]);
+            case MOVED:
+                return new Change.Moved(operations[offset + 1], operations[offset + 2]);
+            case CHANGED:
+                return new Change.Changed(operations[offset + 1], operations[offset + 2], getPayload(index));
+            default:
+                throw new IllegalStateException("Unexpected type " + operations[offset]);
+        }
+    }
+
+    @Nullable
+    private Object getPayload(final int index) {
+        return payloads != null && index < payloads.length ? payloads[index] : null;
+    }
+
+    /**
+     * Passes all changes to callback in order.
+     *
+     * @param callback Callback to pass changes to.
+     */
+    public void dispatchTo(@NonNull final ListUpdateCallback callback) {
+        for (int index = 0; index < size; index++) {
+            final int offset = index * INTS_PER_CHANGE;
+            switch (TYPES[operations[offset]]) {
+                case INSERTED:
+                    callback.onInserted(operations[offset + 1], operations[offset + 2]);
+                    break;
+                case REMOVED:
+                    callback.onRemoved(operations[offset + 1], operations[offset + 2]);
+                    break;
+                case MOVED:
+                    callback.onMoved(operations[offset + 1], operations[offset + 2]);
+                    break;
+                case CHANGED:
+                    callback.onChanged(operations[offset + 1], operations[offset + 2], getPayload(index));
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected type " + operations[offset]);
+            }
+        }
+    }
+
+    /**
+     * Returns difference between size of collection after changes and size before them.
+     *
+     * @return Size difference.
+     */
+    public int getSizeDelta() {
+        int result = 0;
+        for (int offset = 0; offset < size * INTS_PER_CHANGE; offset += INTS_PER_CHANGE) {
+            if (operations[offset] == Type.INSERTED.ordinal()) {
+                result += operations[offset + 2];
+            } else if (operations[offset] == Type.REMOVED.ordinal()) {
+                result -= operations[offset + 2];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates cursor to read changes one by one without creating {@link Change} objects.
+     *
+     * @return Cursor positioned before first change.
+     */
+    @NonNull
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Type of change.
+     */
+    public enum Type {
+        INSERTED,
+        REMOVED,
+        MOVED,
+        CHANGED
+    }
+
+    /**
+     * Cursor over changes of log. Call {@link #moveToNext()} before reading each change.
+     */
+    public class Cursor {
+
+        private int index = -1;
+
+        /**
+         * Moves cursor to next change.
+         *
+         * @return False if there are no more changes.
+         */
+        public boolean moveToNext() {
+            if (index + 1 >= size) {
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        /**
+         * Moves cursor before first change so it could be reused.
+         */
+        public void moveToStart() {
+            index = -1;
+        }
+
+        /**
+         * Returns type of current change.
+         *
+         * @return Type.
+         */
+        @NonNull
+        public Type getType() {
+            return TYPES[operations[index * INTS_PER_CHANGE]];
+        }
+
+        /**
+         * Returns position of current change or from position if it is {@link Type#MOVED}.
+         *
+         * @return Position.
+         */
+        public int getPosition() {
+            return operations[index * INTS_PER_CHANGE + 1];
+        }
+
+        /**
+         * Returns count of items of current change or 1 if it is {@link Type#MOVED}.
+         *
+         * @return Count of items.
+         */
+        public int getCount() {
+            return getType() == Type.MOVED ? 1 : operations[index * INTS_PER_CHANGE + 2];
+        }
+
+        /**
+         * Returns to position of current {@link Type#MOVED} change.
+         *
+         * @return To position.
+         */
+        public int getToPosition() {
+            return operations[index * INTS_PER_CHANGE + 2];
+        }
+
+        /**
+         * Returns payload of current {@link Type#CHANGED} change.
+         *
+         * @return Payload.
+         */
+        @Nullable
+        public Object getPayload() {
+            return ChangesLog.this.getPayload(index);
+        }
+
+    }
+
+}
@@ -20,6 +20,7 @@
 package ru.touchin.roboswag.core.observables.collections.changes;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -27,17 +28,33 @@ import java.util.List;
 
 /**
  * Class which is representing change of collection. There could be multiple changes applied to collection.
+ * Inserted and removed items could be calculated lazily on first request as most of subscribers are using only changes.
  */
 public class CollectionChanges<TItem> {
 
     private final int number;
-    @NonNull
-    private final List<TItem> insertedItems;
-    @NonNull
-    private final List<TItem> removedItems;
+    @Nullable
+    private List<TItem> insertedItems;
+    @Nullable
+    private List<TItem> removedItems;
     @NonNull
     private final Collection<Change> changes;
+    @Nullable
+    private ChangesLog changesLog;
+    // calculator of inserted and removed items; releasing after both of them are calculated
+    @Nullable
+    private CollectionsChangesCalculator<TItem> itemsCalculator;
 
+    /**
+     * Creates changes with already calculated items.
+     * If changes are passed as {@link ChangesLog} then this log is not copied but shared with subscribers and becomes read-only,
+     * so caller should pass new log for each changes object.
+     *
+     * @param number        Number of change;
+     * @param insertedItems Inserted items;
+     * @param removedItems  Removed items;
+     * @param changes       Changes of collection.
+     */
     public CollectionChanges(final int number,
                              @NonNull final List<TItem> insertedItems,
                              @NonNull final List<TItem> removedItems,
@@ -46,6 +63,31 @@ public class CollectionChanges<TItem> {
         this.insertedItems = Collections.unmodifiableList(insertedItems);
         this.removedItems = Collections.unmodifiableList(removedItems);
         this.changes = Collections.unmodifiableCollection(changes);
+        this.changesLog = changes instanceof ChangesLog ? readOnly((ChangesLog) changes) : null;
+    }
+
+    /**
+     * Creates changes with items calculating lazily on first request.
+     * If changes are passed as {@link ChangesLog} then this log is not copied but shared with subscribers and becomes read-only,
+     * so caller should pass new log for each changes object.
+     *
+     * @param number          Number of change;
+     * @param itemsCalculator Calculator of inserted and removed items. Lists it is using shouldn't be modified later;
+     * @param changes         Changes of collection.
+     */
+    public CollectionChanges(final int number,
+                             @NonNull final CollectionsChangesCalculator<TItem> itemsCalculator,
+                             @NonNull final Collection<Change> changes) {
+        this.number = number;
+        this.itemsCalculator = itemsCalculator;
+        this.changes = Collections.unmodifiableCollection(changes);
+        this.changesLog = changes instanceof ChangesLog ? readOnly((ChangesLog) changes) : null;
+    }
+
+    @NonNull
+    private static ChangesLog readOnly(@NonNull final ChangesLog changesLog) {
+        changesLog.setReadOnly();
+        return changesLog;
     }
 
     /**
@@ -67,6 +109,22 @@ public class CollectionChanges<TItem> {
         return changes;
     }
 
+    /**
+     * Returns changes packed into read-only {@link ChangesLog} to read them without allocations.
+     * Returned log is shared between all subscribers so modifying of it throws {@link UnsupportedOperationException}.
+     *
+     * @return Log of changes.
+     */
+    @NonNull
+    public ChangesLog getChangesLog() {
+        synchronized (this) {
+            if (changesLog == null) {
+                changesLog = readOnly(new ChangesLog(changes));
+            }
+            return changesLog;
+        }
+    }
+
     /**
      * Returns inserted items in change.
      *
@@ -74,7 +132,13 @@ public class CollectionChanges<TItem> {
      */
     @NonNull
     public List<TItem> getInsertedItems() {
-        return insertedItems;
+        synchronized (this) {
+            if (insertedItems == null && itemsCalculator != null) {
+                insertedItems = Collections.unmodifiableList(itemsCalculator.calculateInsertedItems());
+                releaseCalculatorIfNeeded();
+            }
+            return insertedItems != null ? insertedItems : Collections.emptyList();
+        }
     }
 
     /**
@@ -84,7 +148,19 @@ public class CollectionChanges<TItem> {
      */
     @NonNull
     public List<TItem> getRemovedItems() {
-        return removedItems;
+        synchronized (this) {
+            if (removedItems == null && itemsCalculator != null) {
+                removedItems = Collections.unmodifiableList(itemsCalculator.calculateRemovedItems());
+                releaseCalculatorIfNeeded();
+            }
+            return removedItems != null ? removedItems : Collections.emptyList();
+        }
+    }
+
+    private void releaseCalculatorIfNeeded() {
+        if (insertedItems != null && removedItems != null) {
+            itemsCalculator = null;
+        }
     }
 
 }
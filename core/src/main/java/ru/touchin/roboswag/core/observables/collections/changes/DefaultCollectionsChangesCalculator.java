@@ -23,7 +23,9 @@ import android.support.annotation.NonNull;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Default calculator between two collections that use equals function.
@@ -100,8 +102,9 @@ public class DefaultCollectionsChangesCalculator<TItem> implements CollectionsCh
     @Override
     public List<TItem> calculateInsertedItems() {
         final List<TItem> insertedItems = new ArrayList<>();
+        final Set<TItem> initialItems = new HashSet<>(initialCollection);
         for (final TItem newItem : modifiedCollection) {
-            if (!initialCollection.contains(newItem)) {
+            if (!initialItems.contains(newItem)) {
                 insertedItems.add(newItem);
             }
         }
@@ -112,8 +115,9 @@ public class DefaultCollectionsChangesCalculator<TItem> implements CollectionsCh
     @Override
     public List<TItem> calculateRemovedItems() {
         final List<TItem> removedItems = new ArrayList<>();
+        final Set<TItem> modifiedItems = new HashSet<>(modifiedCollection);
         for (final TItem oldItem : initialCollection) {
-            if (!modifiedCollection.contains(oldItem)) {
+            if (!modifiedItems.contains(oldItem)) {
                 removedItems.add(oldItem);
             }
         }
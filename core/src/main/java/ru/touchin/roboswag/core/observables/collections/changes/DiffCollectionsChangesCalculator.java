@@ -23,16 +23,46 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+import ru.touchin.roboswag.core.android.support.v7.util.DiffEngine;
 import ru.touchin.roboswag.core.android.support.v7.util.DiffUtil;
-import ru.touchin.roboswag.core.android.support.v7.util.ListUpdateCallback;
 
 /**
  * Implementation of {@link CollectionsChangesCalculator} based on DiffUtils from support library.
+ * Calculation is made by {@link DiffEngine} of current thread so buffers of algorithm are reused between calculations.
+ * Use {@link #setBudget(int, long)} to limit work on too different lists.
+ * If budget exceeded then coarse changes are calculating: all common positions are changed and the rest are inserted or removed.
+ * Changes are returning as {@link ChangesLog} so no object is created per change.
  */
 public class DiffCollectionsChangesCalculator<TItem> extends DiffUtil.Callback implements CollectionsChangesCalculator<TItem> {
 
+    @NonNull
+    private static final AtomicLong CALCULATIONS_COUNT = new AtomicLong();
+    @NonNull
+    private static final AtomicLong BUDGET_EXCEEDED_COUNT = new AtomicLong();
+
+    /**
+     * Returns count of changes calculations made by all calculators.
+     *
+     * @return Count of calculations.
+     */
+    public static long getCalculationsCount() {
+        return CALCULATIONS_COUNT.get();
+    }
+
+    /**
+     * Returns count of calculations which exceeded budget and fell back to coarse changes.
+     *
+     * @return Count of calculations exceeded budget.
+     */
+    public static long getBudgetExceededCount() {
+        return BUDGET_EXCEEDED_COUNT.get();
+    }
+
     @NonNull
     private final List<TItem> oldList;
     @NonNull
@@ -42,54 +72,114 @@ public class DiffCollectionsChangesCalculator<TItem> extends DiffUtil.Callback i
     private final SameItemsPredicate<TItem> sameItemsPredicate;
     @Nullable
     private final ChangePayloadProducer<TItem> changePayloadProducer;
+    @Nullable
+    private final ItemKeyExtractor<TItem, ?> itemKeyExtractor;
+    private int maxEditDistance = Integer.MAX_VALUE;
+    private long maxDurationNanos = Long.MAX_VALUE;
 
     public DiffCollectionsChangesCalculator(@NonNull final List<TItem> oldList,
                                             @NonNull final List<TItem> newList,
                                             final boolean detectMoves,
                                             @NonNull final SameItemsPredicate<TItem> sameItemsPredicate,
                                             @Nullable final ChangePayloadProducer<TItem> changePayloadProducer) {
+        this(oldList, newList, detectMoves, sameItemsPredicate, changePayloadProducer, null);
+    }
+
+    /**
+     * Calculator of changes between two lists.
+     *
+     * @param oldList               Initial list;
+     * @param newList               Changed list;
+     * @param detectMoves           The flag that determines whether the {@link Change.Moved} changes will be generated or not;
+     * @param sameItemsPredicate    Predicate for the determination of the same elements;
+     * @param changePayloadProducer Function that calculate change payload when items the same but contents are different;
+     * @param itemKeyExtractor      Function to get key of item. Items should have equal keys only if they are same by sameItemsPredicate.
+     *                              If it is set then inserted, removed and moved items are calculating by hash of keys in linear time.
+     */
+    public DiffCollectionsChangesCalculator(@NonNull final List<TItem> oldList,
+                                            @NonNull final List<TItem> newList,
+                                            final boolean detectMoves,
+                                            @NonNull final SameItemsPredicate<TItem> sameItemsPredicate,
+                                            @Nullable final ChangePayloadProducer<TItem> changePayloadProducer,
+                                            @Nullable final ItemKeyExtractor<TItem, ?> itemKeyExtractor) {
         super();
         this.oldList = oldList;
         this.newList = newList;
         this.detectMoves = detectMoves;
         this.sameItemsPredicate = sameItemsPredicate;
         this.changePayloadProducer = changePayloadProducer;
+        this.itemKeyExtractor = itemKeyExtractor;
+    }
+
+    /**
+     * Sets limits of diff calculation.
+     *
+     * @param maxEditDistance  Maximum count of inserted and removed items to search changes for;
+     * @param maxDurationNanos Maximum time of searching changes in nanoseconds.
+     */
+    public void setBudget(final int maxEditDistance, final long maxDurationNanos) {
+        this.maxEditDistance = maxEditDistance;
+        this.maxDurationNanos = maxDurationNanos;
     }
 
     @NonNull
     @Override
     public List<Change> calculateChanges() {
-        final List<Change> changes = new ArrayList<>();
-        DiffUtil.calculateDiff(this, detectMoves).dispatchUpdatesTo(new ListUpdateCallback() {
-            @Override
-            public void onInserted(final int position, final int count) {
-                changes.add(new Change.Inserted(position, count));
-            }
+        final ChangesLog changes = new ChangesLog();
+        CALCULATIONS_COUNT.incrementAndGet();
+        final boolean calculated = DiffEngine.forCurrentThread().calculateDiff(this, detectMoves,
+                detectMoves ? createItemHashes() : null, maxEditDistance, maxDurationNanos, changes);
+        if (!calculated) {
+            BUDGET_EXCEEDED_COUNT.incrementAndGet();
+            addCoarseChanges(changes);
+        }
+        return changes;
+    }
 
+    /**
+     * Creates hashes of items to detect moved items in linear time.
+     * Items which are same by {@link #areItemsTheSame(int, int)} should have same hashes.
+     *
+     * @return Hashes of items by their keys or null if there is no {@link ItemKeyExtractor}.
+     */
+    @Nullable
+    protected DiffEngine.ItemHashes createItemHashes() {
+        if (itemKeyExtractor == null) {
+            return null;
+        }
+        final ItemKeyExtractor<TItem, ?> keyExtractor = itemKeyExtractor;
+        return new DiffEngine.ItemHashes() {
             @Override
-            public void onRemoved(final int position, final int count) {
-                changes.add(new Change.Removed(position, count));
+            public int getOldItemHash(final int oldItemPosition) {
+                return keyExtractor.getKey(oldList.get(oldItemPosition)).hashCode();
             }
 
             @Override
-            public void onMoved(final int fromPosition, final int toPosition) {
-                changes.add(new Change.Moved(fromPosition, toPosition));
+            public int getNewItemHash(final int newItemPosition) {
+                return keyExtractor.getKey(newList.get(newItemPosition)).hashCode();
             }
+        };
+    }
 
-            @Override
-            public void onChanged(final int position, final int count, @Nullable final Object payload) {
-                changes.add(new Change.Changed(position, count, payload));
-            }
-        });
-        return changes;
+    private void addCoarseChanges(@NonNull final ChangesLog changes) {
+        final int commonSize = Math.min(oldList.size(), newList.size());
+        if (commonSize > 0) {
+            changes.onChanged(0, commonSize, null);
+        }
+        if (newList.size() > commonSize) {
+            changes.onInserted(commonSize, newList.size() - commonSize);
+        } else if (oldList.size() > commonSize) {
+            changes.onRemoved(commonSize, oldList.size() - commonSize);
+        }
     }
 
     @NonNull
     @Override
     public List<TItem> calculateInsertedItems() {
         final List<TItem> insertedItems = new ArrayList<>();
+        final Set<Object> oldKeys = itemKeyExtractor != null ? collectKeys(itemKeyExtractor, oldList) : null;
         for (final TItem newItem : newList) {
-            if (!containsByPredicate(newItem, oldList)) {
+            if (oldKeys != null ? !oldKeys.contains(itemKeyExtractor.getKey(newItem)) : !containsByPredicate(newItem, oldList)) {
                 insertedItems.add(newItem);
             }
         }
@@ -100,8 +190,9 @@ public class DiffCollectionsChangesCalculator<TItem> extends DiffUtil.Callback i
     @Override
     public List<TItem> calculateRemovedItems() {
         final List<TItem> removedItems = new ArrayList<>();
+        final Set<Object> newKeys = itemKeyExtractor != null ? collectKeys(itemKeyExtractor, newList) : null;
         for (final TItem oldItem : oldList) {
-            if (!containsByPredicate(oldItem, newList)) {
+            if (newKeys != null ? !newKeys.contains(itemKeyExtractor.getKey(oldItem)) : !containsByPredicate(oldItem, newList)) {
                 removedItems.add(oldItem);
             }
         }
@@ -135,6 +226,15 @@ public class DiffCollectionsChangesCalculator<TItem> extends DiffUtil.Callback i
                 ? changePayloadProducer.getChangePayload(oldList.get(oldItemPosition), newList.get(newItemPosition)) : null;
     }
 
+    @NonNull
+    private Set<Object> collectKeys(@NonNull final ItemKeyExtractor<TItem, ?> itemKeyExtractor, @NonNull final List<TItem> items) {
+        final Set<Object> keys = new HashSet<>(items.size() * 2);
+        for (final TItem item : items) {
+            keys.add(itemKeyExtractor.getKey(item));
+        }
+        return keys;
+    }
+
     private boolean containsByPredicate(@NonNull final TItem searchedItem, @NonNull final List<TItem> items) {
         for (final TItem item : items) {
             if (sameItemsPredicate.areSame(item, searchedItem)) {
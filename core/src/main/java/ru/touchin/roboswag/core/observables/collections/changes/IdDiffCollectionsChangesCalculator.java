@@ -0,0 +1,130 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ru.touchin.roboswag.core.android.support.v7.util.DiffEngine;
+
+/**
+ * Implementation of {@link DiffCollectionsChangesCalculator} for items which are same only if they have same primitive ids.
+ * Ids are extracted once into long arrays so diff algorithm compares primitives instead of calling predicate on items,
+ * and inserted, removed and moved items are calculating by hashes of ids in linear time.
+ * Contents of items are compared by {@link Object#equals(Object)} only for items with same ids.
+ */
+public class IdDiffCollectionsChangesCalculator<TItem> extends DiffCollectionsChangesCalculator<TItem> {
+
+    @NonNull
+    private final List<TItem> oldList;
+    @NonNull
+    private final List<TItem> newList;
+    @NonNull
+    private final ItemIdExtractor<TItem> itemIdExtractor;
+    @NonNull
+    private final long[] oldIds;
+    @NonNull
+    private final long[] newIds;
+
+    /**
+     * Calculator of changes between two lists.
+     *
+     * @param oldList               Initial list;
+     * @param newList               Changed list;
+     * @param detectMoves           The flag that determines whether the {@link Change.Moved} changes will be generated or not;
+     * @param itemIdExtractor       Function to get id of item;
+     * @param changePayloadProducer Function that calculate change payload when items the same but contents are different.
+     */
+    public IdDiffCollectionsChangesCalculator(@NonNull final List<TItem> oldList,
+                                              @NonNull final List<TItem> newList,
+                                              final boolean detectMoves,
+                                              @NonNull final ItemIdExtractor<TItem> itemIdExtractor,
+                                              @Nullable final ChangePayloadProducer<TItem> changePayloadProducer) {
+        super(oldList, newList, detectMoves, (item1, item2) -> itemIdExtractor.getId(item1) == itemIdExtractor.getId(item2),
+                changePayloadProducer);
+        this.oldList = oldList;
+        this.newList = newList;
+        this.itemIdExtractor = itemIdExtractor;
+        oldIds = extractIds(oldList);
+        newIds = extractIds(newList);
+    }
+
+    @NonNull
+    private long[] extractIds(@NonNull final List<TItem> items) {
+        final long[] ids = new long[items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = itemIdExtractor.getId(items.get(i));
+        }
+        return ids;
+    }
+
+    @NonNull
+    @Override
+    public List<TItem> calculateInsertedItems() {
+        return collectMissingItems(newList, newIds, new LongIdSet(oldIds));
+    }
+
+    @NonNull
+    @Override
+    public List<TItem> calculateRemovedItems() {
+        return collectMissingItems(oldList, oldIds, new LongIdSet(newIds));
+    }
+
+    @NonNull
+    private List<TItem> collectMissingItems(@NonNull final List<TItem> items, @NonNull final long[] ids, @NonNull final LongIdSet otherIds) {
+        final List<TItem> missingItems = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (!otherIds.contains(ids[i])) {
+                missingItems.add(items.get(i));
+            }
+        }
+        return missingItems;
+    }
+
+    @NonNull
+    @Override
+    protected DiffEngine.ItemHashes createItemHashes() {
+        return new DiffEngine.ItemHashes() {
+            @Override
+            public int getOldItemHash(final int oldItemPosition) {
+                return hashOf(oldIds[oldItemPosition]);
+            }
+
+            @Override
+            public int getNewItemHash(final int newItemPosition) {
+                return hashOf(newIds[newItemPosition]);
+            }
+        };
+    }
+
+    private static int hashOf(final long id) {
+        return (int) (id ^ (id >>> 32));
+    }
+
+    @Override
+    public boolean areItemsTheSame(final int oldItemPosition, final int newItemPosition) {
+        return oldIds[oldItemPosition] == newIds[newItemPosition];
+    }
+
+}
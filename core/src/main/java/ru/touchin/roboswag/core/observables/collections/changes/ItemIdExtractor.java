@@ -0,0 +1,41 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Functional interface for extracting primitive id of item.
+ * Items are same only if they have same ids.
+ *
+ * @param <TItem> Type of items.
+ */
+public interface ItemIdExtractor<TItem> {
+
+    /**
+     * Function to extract id of item.
+     *
+     * @param item Item to extract id from;
+     * @return Id of item.
+     */
+    long getId(@NonNull TItem item);
+
+}
@@ -0,0 +1,43 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Functional interface for extracting key of item. Usually this is just the id of item.
+ * Keys are used in hash-based lookups so they should have consistent {@link Object#equals(Object)} and {@link Object#hashCode()}.
+ * Equal items should have equal keys.
+ *
+ * @param <TItem> Type of items;
+ * @param <TKey>  Type of keys.
+ */
+public interface ItemKeyExtractor<TItem, TKey> {
+
+    /**
+     * Function to extract key of item.
+     *
+     * @param item Item to extract key from;
+     * @return Key of item.
+     */
+    @NonNull
+    TKey getKey(@NonNull TItem item);
+
+}
@@ -0,0 +1,75 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Open addressing hash set of primitive ids which is checking ids without boxing.
+ */
+final class LongIdSet {
+
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    @NonNull
+    private final long[] keys;
+    @NonNull
+    private final boolean[] used;
+    private final int mask;
+    private final int shift;
+
+    LongIdSet(@NonNull final long[] ids) {
+        int capacity = 2;
+        int bits = 1;
+        while (capacity < ids.length * 2) {
+            capacity <<= 1;
+            bits++;
+        }
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        shift = Long.SIZE - bits;
+        for (final long id : ids) {
+            final int slot = slotOf(id);
+            keys[slot] = id;
+            used[slot] = true;
+        }
+    }
+
+    private int slotOf(final long id) {
+        int slot = (int) ((id * HASH_MULTIPLIER) >>> shift);
+        while (used[slot] && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns if set contains id.
+     *
+     * @param id Id to find;
+     * @return True if id is in set.
+     */
+    public boolean contains(final long id) {
+        return used[slotOf(id)];
+    }
+
+}
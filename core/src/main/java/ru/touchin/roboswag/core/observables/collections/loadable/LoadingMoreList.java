@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 
+import io.reactivex.Completable;
 import io.reactivex.Observable;
 import io.reactivex.Scheduler;
 import io.reactivex.Single;
@@ -36,6 +37,7 @@ import io.reactivex.functions.Function;
 import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.BehaviorSubject;
 import ru.touchin.roboswag.core.log.Lc;
+import ru.touchin.roboswag.core.observables.collections.IndexedObservableList;
 import ru.touchin.roboswag.core.observables.collections.ObservableCollection;
 import ru.touchin.roboswag.core.observables.collections.ObservableList;
 import ru.touchin.roboswag.core.observables.collections.changes.Change;
@@ -68,7 +70,7 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
     @NonNull
     private final BehaviorSubject<Integer> moreItemsCount = BehaviorSubject.createDefault(LoadedItems.UNKNOWN_ITEMS_COUNT);
     @NonNull
-    private final ObservableList<TItem> innerList = new ObservableList<>();
+    private final IndexedObservableList<TItem, TItem> innerList = new IndexedObservableList<>(item -> item);
     @Nullable
     private LoadedItemsFilter<TItem> loadedItemsFilter;
     @Nullable
@@ -133,6 +135,17 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
         return innerList.observeChanges();
     }
 
+    @Override
+    public int getChangesCount() {
+        return innerList.getChangesCount();
+    }
+
+    @NonNull
+    @Override
+    protected Object getChangesLock() {
+        return innerList;
+    }
+
     @Override
     protected void notifyAboutChanges(@NonNull final List<TItem> insertedItems,
                                       @NonNull final List<TItem> removedItems,
@@ -181,6 +194,8 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
 
     /**
      * Sets if duplicates (compared by {@link #equals(Object)}) should be removed from loaded part of items right after loading.
+     * Duplicates are looked up in hash index of loaded items so items should have {@link #hashCode()} consistent with {@link #equals(Object)},
+     * otherwise equal items with different hash codes are not treated as duplicates.
      *
      * @param removeDuplicates True if duplicates should be removed.
      */
@@ -236,6 +251,10 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
     }
 
     private void filterList(@NonNull final List<TItem> items, @NonNull final LoadedItemsFilter<TItem> loadedItemsFilter) {
+        if (loadedItemsFilter == DUPLICATES_REMOVER) {
+            removeDuplicates(items);
+            return;
+        }
         for (int i = items.size() - 1; i >= 0; i--) {
             for (int j = innerList.size() - 1; j >= 0; j--) {
                 final FilterAction filterAction = loadedItemsFilter.decideFilterAction(innerList.get(j), items.get(i));
@@ -255,6 +274,19 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
         }
     }
 
+    private void removeDuplicates(@NonNull final List<TItem> items) {
+        final List<TItem> uniqueItems = new ArrayList<>(items.size());
+        for (final TItem item : items) {
+            if (!innerList.containsKey(item)) {
+                uniqueItems.add(item);
+            }
+        }
+        if (uniqueItems.size() != items.size()) {
+            items.clear();
+            items.addAll(uniqueItems);
+        }
+    }
+
     @Override
     public int size() {
         return innerList.size();
@@ -291,48 +323,55 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
      */
     @NonNull
     public Single<Optional<TItem>> loadItem(final int position) {
-        return Observable.switchOnNext(Observable
-                .fromCallable(() -> {
-                    if (position < size()) {
-                        return Observable.just(new Optional<>(get(position)));
-                    } else if (moreItemsCount.getValue() == 0) {
-                        return Observable.just(new Optional<TItem>(null));
-                    } else {
-                        return loadingMoreObservable.switchMap(ignored -> Observable.<Optional<TItem>>error(new NotLoadedYetException()));
-                    }
-                }))
-                .subscribeOn(loaderScheduler)
-                .retry((number, throwable) -> throwable instanceof NotLoadedYetException)
-                .firstOrError();
+        return loadTill(position)
+                .andThen(Single.fromCallable(() -> new Optional<>(position < size() ? get(position) : null)))
+                .subscribeOn(loaderScheduler);
     }
 
     /**
      * Returns {@link Observable} which is loading item by range.
      * It will return collection of loaded items in onNext callback.
+     * Parts of items are loading one by one only till last position is loaded or there are no more items.
      *
      * @param first First position of item to load;
      * @param last  Last position of item to load;
      * @return {@link Observable} to load items.
      */
     @NonNull
-    @SuppressWarnings("unchecked")
-    //unchecked: it's OK for such zip operator
     public Single<Collection<TItem>> loadRange(final int first, final int last) {
-        final List<Single<Optional<TItem>>> itemsRequests = new ArrayList<>();
-        for (int i = first; i <= last; i++) {
-            itemsRequests.add(loadItem(i));
-        }
-        return Single.zip(itemsRequests,
-                items -> {
-                    final List<TItem> result = new ArrayList<>();
-                    for (final Object item : items) {
-                        final Optional<TItem> optional = (Optional<TItem>) item;
-                        if (optional.get() != null) {
-                            result.add(optional.get());
-                        }
+        return loadTill(last)
+                .andThen(Single.fromCallable(() -> {
+                    final int lastLoaded = Math.min(last, size() - 1);
+                    final List<TItem> result = new ArrayList<>(Math.max(0, lastLoaded - first + 1));
+                    for (int i = Math.max(0, first); i <= lastLoaded; i++) {
+                        result.add(get(i));
                     }
                     return Collections.unmodifiableCollection(result);
-                });
+                }))
+                .subscribeOn(loaderScheduler);
+    }
+
+    /**
+     * Returns {@link Completable} which is loading parts of items till item at position is loaded or there are no more items.
+     * Should be subscribed on {@link #getLoaderScheduler()} as loaded items are applying on it.
+     *
+     * @param position Position of item to load;
+     * @return {@link Completable} of loading.
+     */
+    @NonNull
+    private Completable loadTill(final int position) {
+        return Completable.defer(() -> {
+            if (position < size() || moreItemsCount.getValue() == 0) {
+                return Completable.complete();
+            }
+            final MoreLoadRequest<TMoreReference> request = createActualRequest();
+            // loading observable is replaying last loaded part so waiting for part which changed state of collection
+            return loadingMoreObservable
+                    .filter(ignored -> moreItemsCount.getValue() == 0 || !createActualRequest().equals(request))
+                    .take(1)
+                    .ignoreElements()
+                    .andThen(loadTill(position));
+        });
     }
 
     /**
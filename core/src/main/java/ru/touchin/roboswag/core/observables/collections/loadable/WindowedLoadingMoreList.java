@@ -0,0 +1,519 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package ru.touchin.roboswag.core.observables.collections.loadable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.BehaviorSubject;
+import ru.touchin.roboswag.core.observables.collections.ObservableCollection;
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import ru.touchin.roboswag.core.utils.Optional;
+
+/**
+ * {@link ObservableCollection} which is loading items by parts like {@link LoadingMoreList} but keeps in memory only parts near requested range.
+ * Each loaded part is a page of sparse page table. Pages far from last requested range are evicted and their items are replaced
+ * with placeholders created by {@link PlaceholderFactory}, but {@link MoreLoadRequest} of page is kept
+ * so it is reloaded on next request of it's items.
+ * Positions of items and size of collection are not changing on eviction and reloading, only changes of items are emitted.
+ * Use {@link #loadRange(int, int)} with positions that are shown now to load items and to move window of loaded pages.
+ * Note that reloaded page is keeping it's size so if loader returns more items for same request then they are ignored.
+ *
+ * @param <TItem>          Type of collection's items;
+ * @param <TMoreReference> Type of reference object to help rightly loading next block of items;
+ * @param <TLoadedItems>   Type of loading block of items.
+ */
+public class WindowedLoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedItems<TItem, TMoreReference>>
+        extends ObservableCollection<TItem> {
+
+    @NonNull
+    private final Scheduler loaderScheduler = Schedulers.from(Executors.newSingleThreadExecutor());
+    @NonNull
+    private final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> moreItemsLoader;
+    @NonNull
+    private final PlaceholderFactory<TItem> placeholderFactory;
+    private final int windowSize;
+    private final int evictionDistance;
+    @NonNull
+    private final Observable<TLoadedItems> loadingMoreObservable;
+    @NonNull
+    private final BehaviorSubject<Integer> moreItemsCount = BehaviorSubject.createDefault(LoadedItems.UNKNOWN_ITEMS_COUNT);
+    // pages are sorted by start position and are following each other without gaps
+    @NonNull
+    private final List<Page<TItem, TMoreReference>> pages = new ArrayList<>();
+    private int loadedItemsCount;
+
+    /**
+     * Creates windowed collection.
+     *
+     * @param moreItemsLoader    Loader of parts of items;
+     * @param placeholderFactory Factory of items to show instead of not loaded ones;
+     * @param windowSize         Maximum count of loaded items to keep. Pages of last requested range are kept even if there are more items;
+     * @param evictionDistance   Distance from last requested range after which pages are evicted even if window is not full.
+     */
+    public WindowedLoadingMoreList(@NonNull final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> moreItemsLoader,
+                                   @NonNull final PlaceholderFactory<TItem> placeholderFactory,
+                                   final int windowSize,
+                                   final int evictionDistance) {
+        super();
+        this.moreItemsLoader = moreItemsLoader;
+        this.placeholderFactory = placeholderFactory;
+        this.windowSize = windowSize;
+        this.evictionDistance = evictionDistance;
+        this.loadingMoreObservable = Observable
+                .switchOnNext(Observable.fromCallable(() -> {
+                    final MoreLoadRequest<TMoreReference> request = createNextRequest();
+                    return loadPart(request).doOnSuccess(loadedItems -> onPartLoaded(request, loadedItems)).toObservable();
+                }))
+                .share();
+    }
+
+    @NonNull
+    private Single<TLoadedItems> loadPart(@NonNull final MoreLoadRequest<TMoreReference> request) {
+        return moreItemsLoader.load(request)
+                .subscribeOn(Schedulers.io())
+                .observeOn(loaderScheduler);
+    }
+
+    @NonNull
+    private MoreLoadRequest<TMoreReference> createNextRequest() {
+        synchronized (this) {
+            if (pages.isEmpty()) {
+                return new MoreLoadRequest<>(null, 0);
+            }
+            final Page<TItem, TMoreReference> lastPage = pages.get(pages.size() - 1);
+            return new MoreLoadRequest<>(lastPage.nextReference, lastPage.start + lastPage.count);
+        }
+    }
+
+    @NonNull
+    protected final Scheduler getLoaderScheduler() {
+        return loaderScheduler;
+    }
+
+    /**
+     * Returns if there are more items to load.
+     *
+     * @return True if there are more items to load.
+     */
+    public boolean hasMoreItems() {
+        return moreItemsCount.getValue() != 0;
+    }
+
+    /**
+     * Returns {@link Observable} which is providing status of if is there are more items to load or not.
+     *
+     * @return {@link Observable} of more items availability status.
+     */
+    @NonNull
+    public Observable<Boolean> observeHasMoreItems() {
+        return moreItemsCount.map(count -> count != 0).distinctUntilChanged();
+    }
+
+    /**
+     * Returns {@link Observable} which is providing count of more items to load.
+     *
+     * @return {@link Observable} of more items availability status.
+     */
+    @NonNull
+    public Observable<Integer> observeMoreItemsCount() {
+        return moreItemsCount.distinctUntilChanged();
+    }
+
+    /**
+     * Returns count of items which are loaded now and not replaced with placeholders.
+     *
+     * @return Count of loaded items.
+     */
+    public int getLoadedItemsCount() {
+        synchronized (this) {
+            return loadedItemsCount;
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (this) {
+            if (pages.isEmpty()) {
+                return 0;
+            }
+            final Page<TItem, TMoreReference> lastPage = pages.get(pages.size() - 1);
+            return lastPage.start + lastPage.count;
+        }
+    }
+
+    @NonNull
+    @Override
+    public TItem get(final int position) {
+        synchronized (this) {
+            final int pageIndex = findPageIndex(position);
+            if (position < 0 || pageIndex >= pages.size()) {
+                throw new IndexOutOfBoundsException("Position " + position + " is out of size " + size());
+            }
+            return pages.get(pageIndex).getItem(position, placeholderFactory);
+        }
+    }
+
+    /**
+     * Returns snapshot of items where not loaded items are replaced with placeholders.
+     * It is copying only page table so it is not depending on count of items.
+     *
+     * @return Snapshot of items.
+     */
+    @NonNull
+    @Override
+    public Collection<TItem> getItems() {
+        return createSnapshot();
+    }
+
+    @NonNull
+    private List<TItem> createSnapshot() {
+        synchronized (this) {
+            return new Snapshot<>(new ArrayList<>(pages), size(), placeholderFactory);
+        }
+    }
+
+    /**
+     * Returns {@link Observable} of changes which starts from change inserting all current items.
+     * It allows to mirror collection by applying changes without copying of all items on each change like {@link #observeItems()} does.
+     * Inserted items of every change are items of it's range after change.
+     *
+     * @return {@link Observable} of changes.
+     */
+    @NonNull
+    public Observable<CollectionChanges<TItem>> observeChangesFromStart() {
+        return Observable.create(emitter -> {
+            // changes are emitting under same lock so no change could happen between snapshot and subscription
+            synchronized (this) {
+                final List<TItem> items = createSnapshot();
+                emitter.onNext(new CollectionChanges<>(getChangesCount(), items, Collections.emptyList(),
+                        items.isEmpty() ? Collections.emptyList() : Collections.singletonList(new Change.Inserted(0, items.size()))));
+                emitter.setDisposable(observeChanges().subscribe(emitter::onNext, emitter::onError, emitter::onComplete));
+            }
+        });
+    }
+
+    /**
+     * Returns {@link Single} which is loading item by position.
+     * It could return null in onSuccess callback if there is no item to load for such position.
+     *
+     * @param position Position to load item;
+     * @return {@link Single} to load item.
+     */
+    @NonNull
+    public Single<Optional<TItem>> loadItem(final int position) {
+        return loadRange(position, position)
+                .map(items -> new Optional<>(items.isEmpty() ? null : items.iterator().next()));
+    }
+
+    /**
+     * Returns {@link Single} which is loading items by range.
+     * It is loading more parts till last position is loaded, reloads evicted pages of range and evicts pages far from range.
+     * It will return collection of loaded items of range in onSuccess callback.
+     *
+     * @param first First position of item to load;
+     * @param last  Last position of item to load;
+     * @return {@link Single} to load items.
+     */
+    @NonNull
+    public Single<Collection<TItem>> loadRange(final int first, final int last) {
+        return loadTill(last)
+                .andThen(Completable.defer(() -> reloadEvictedPages(first, last)))
+                .andThen(Single.fromCallable(() -> {
+                    synchronized (this) {
+                        evictPages(first, last);
+                        final List<TItem> result = new ArrayList<>();
+                        for (int index = findPageIndex(first); index < pages.size() && pages.get(index).start <= last; index++) {
+                            pages.get(index).addLoadedItems(first, last, result);
+                        }
+                        return Collections.unmodifiableCollection(result);
+                    }
+                }))
+                .subscribeOn(loaderScheduler);
+    }
+
+    @NonNull
+    private Completable loadTill(final int position) {
+        return Completable.defer(() -> {
+            if (position < size() || moreItemsCount.getValue() == 0) {
+                return Completable.complete();
+            }
+            return loadingMoreObservable.ignoreElements().andThen(loadTill(position));
+        });
+    }
+
+    private void onPartLoaded(@NonNull final MoreLoadRequest<TMoreReference> request, @NonNull final TLoadedItems loadedItems) {
+        synchronized (this) {
+            if (!createNextRequest().equals(request)) {
+                return;
+            }
+            final List<TItem> items = new ArrayList<>(loadedItems.getItems());
+            // empty part can't be a page so it is considering as end of collection to not load it again and again
+            moreItemsCount.onNext(items.isEmpty() ? 0 : loadedItems.getMoreItemsCount());
+            if (items.isEmpty()) {
+                return;
+            }
+            final int start = request.getNextPosition();
+            pages.add(new Page<>(request, start, items.size(), items, loadedItems.getReference()));
+            loadedItemsCount += items.size();
+            notifyAboutChange(items, Collections.emptyList(), new Change.Inserted(start, items.size()));
+        }
+    }
+
+    @NonNull
+    private Completable reloadEvictedPages(final int first, final int last) {
+        final List<Completable> reloads = new ArrayList<>();
+        synchronized (this) {
+            for (int index = findPageIndex(first); index < pages.size() && pages.get(index).start <= last; index++) {
+                final Page<TItem, TMoreReference> page = pages.get(index);
+                if (page.items == null) {
+                    reloads.add(loadPart(page.request).doOnSuccess(loadedItems -> onPageReloaded(page, loadedItems)).toCompletable());
+                }
+            }
+        }
+        return Completable.merge(reloads);
+    }
+
+    private void onPageReloaded(@NonNull final Page<TItem, TMoreReference> page, @NonNull final TLoadedItems loadedItems) {
+        synchronized (this) {
+            final int pageIndex = findPageIndex(page.start);
+            if (pageIndex >= pages.size() || pages.get(pageIndex) != page) {
+                return;
+            }
+            final List<TItem> items = new ArrayList<>(loadedItems.getItems());
+            final Page<TItem, TMoreReference> reloadedPage = new Page<>(page.request, page.start, page.count,
+                    items.size() > page.count ? new ArrayList<>(items.subList(0, page.count)) : items, page.nextReference);
+            pages.set(pageIndex, reloadedPage);
+            loadedItemsCount += reloadedPage.getLoadedCount();
+            notifyAboutChange(reloadedPage.getItems(placeholderFactory), Collections.emptyList(), new Change.Changed(page.start, page.count, null));
+        }
+    }
+
+    private void evictPages(final int first, final int last) {
+        for (int index = 0; index < pages.size(); index++) {
+            if (pages.get(index).items != null && pages.get(index).getDistance(first, last) > evictionDistance) {
+                evictPage(index);
+            }
+        }
+        while (loadedItemsCount > windowSize) {
+            int farthestPageIndex = -1;
+            int farthestPageDistance = 0;
+            for (int index = 0; index < pages.size(); index++) {
+                final int distance = pages.get(index).getDistance(first, last);
+                if (pages.get(index).items != null && distance > farthestPageDistance) {
+                    farthestPageIndex = index;
+                    farthestPageDistance = distance;
+                }
+            }
+            if (farthestPageIndex < 0) {
+                return;
+            }
+            evictPage(farthestPageIndex);
+        }
+    }
+
+    private void evictPage(final int pageIndex) {
+        final Page<TItem, TMoreReference> page = pages.get(pageIndex);
+        final Page<TItem, TMoreReference> evictedPage = new Page<>(page.request, page.start, page.count, null, page.nextReference);
+        pages.set(pageIndex, evictedPage);
+        loadedItemsCount -= page.getLoadedCount();
+        notifyAboutChange(evictedPage.getItems(placeholderFactory), page.items != null ? page.items : Collections.emptyList(),
+                new Change.Changed(page.start, page.count, null));
+    }
+
+    /**
+     * Returns index of page containing item at position.
+     * Returns 0 for negative positions and count of pages for positions after last item.
+     *
+     * @param position Position of item;
+     * @return Index of page.
+     */
+    private int findPageIndex(final int position) {
+        int low = 0;
+        int high = pages.size() - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final Page<TItem, TMoreReference> page = pages.get(middle);
+            if (position < page.start) {
+                high = middle - 1;
+            } else if (position >= page.start + page.count) {
+                low = middle + 1;
+            } else {
+                return middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Remove all pages and resets collection's state.
+     */
+    public void reset() {
+        synchronized (this) {
+            final int size = size();
+            pages.clear();
+            loadedItemsCount = 0;
+            moreItemsCount.onNext(LoadedItems.UNKNOWN_ITEMS_COUNT);
+            if (size > 0) {
+                notifyAboutChange(Collections.emptyList(), Collections.emptyList(), new Change.Removed(0, size));
+            }
+        }
+    }
+
+    /**
+     * Factory of items which are shown instead of items of evicted or not loaded yet pages.
+     * It could return same object for all positions.
+     *
+     * @param <TItem> Type of collection's items.
+     */
+    public interface PlaceholderFactory<TItem> {
+
+        /**
+         * Returns placeholder of item at position.
+         *
+         * @param position Position of item;
+         * @return Placeholder item.
+         */
+        @NonNull
+        TItem createPlaceholder(int position);
+
+    }
+
+    private static class Page<TItem, TMoreReference> {
+
+        @NonNull
+        private final MoreLoadRequest<TMoreReference> request;
+        private final int start;
+        private final int count;
+        // null if page is evicted; could be shorter than count if page is reloaded with less items
+        @Nullable
+        private final List<TItem> items;
+        @Nullable
+        private final TMoreReference nextReference;
+
+        public Page(@NonNull final MoreLoadRequest<TMoreReference> request, final int start, final int count,
+                    @Nullable final List<TItem> items, @Nullable final TMoreReference nextReference) {
+            this.request = request;
+            this.start = start;
+            this.count = count;
+            this.items = items;
+            this.nextReference = nextReference;
+        }
+
+        public int getLoadedCount() {
+            return items != null ? items.size() : 0;
+        }
+
+        public int getDistance(final int first, final int last) {
+            if (start + count - 1 < first) {
+                return first - (start + count - 1);
+            }
+            return start > last ? start - last : 0;
+        }
+
+        @NonNull
+        public TItem getItem(final int position, @NonNull final PlaceholderFactory<TItem> placeholderFactory) {
+            final int index = position - start;
+            return items != null && index < items.size() ? items.get(index) : placeholderFactory.createPlaceholder(position);
+        }
+
+        @NonNull
+        public List<TItem> getItems(@NonNull final PlaceholderFactory<TItem> placeholderFactory) {
+            final List<TItem> result = new ArrayList<>(count);
+            for (int position = start; position < start + count; position++) {
+                result.add(getItem(position, placeholderFactory));
+            }
+            return result;
+        }
+
+        public void addLoadedItems(final int first, final int last, @NonNull final List<TItem> result) {
+            if (items == null) {
+                return;
+            }
+            for (int index = Math.max(0, first - start); index < items.size() && start + index <= last; index++) {
+                result.add(items.get(index));
+            }
+        }
+
+    }
+
+    private static class Snapshot<TItem, TMoreReference> extends AbstractList<TItem> {
+
+        @NonNull
+        private final List<Page<TItem, TMoreReference>> pages;
+        private final int size;
+        @NonNull
+        private final PlaceholderFactory<TItem> placeholderFactory;
+        private int lastPageIndex;
+
+        public Snapshot(@NonNull final List<Page<TItem, TMoreReference>> pages, final int size,
+                        @NonNull final PlaceholderFactory<TItem> placeholderFactory) {
+            super();
+            this.pages = pages;
+            this.size = size;
+            this.placeholderFactory = placeholderFactory;
+        }
+
+        @NonNull
+        @Override
+        public TItem get(final int position) {
+            if (position < 0 || position >= size) {
+                throw new IndexOutOfBoundsException("Position " + position + " is out of size " + size);
+            }
+            // items are mostly accessed sequentially so checking page of previous access first
+            int pageIndex = lastPageIndex;
+            Page<TItem, TMoreReference> page = pages.get(pageIndex);
+            int low = 0;
+            int high = pages.size() - 1;
+            while (position < page.start || position >= page.start + page.count) {
+                if (position < page.start) {
+                    high = pageIndex - 1;
+                } else {
+                    low = pageIndex + 1;
+                }
+                pageIndex = (low + high) >>> 1;
+                page = pages.get(pageIndex);
+            }
+            lastPageIndex = pageIndex;
+            return page.getItem(position, placeholderFactory);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+    }
+
+}
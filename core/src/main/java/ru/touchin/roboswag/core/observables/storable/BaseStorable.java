@@ -23,7 +23,6 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.lang.reflect.Type;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Completable;
@@ -31,7 +30,6 @@ import io.reactivex.Observable;
 import io.reactivex.Scheduler;
 import io.reactivex.Single;
 import io.reactivex.plugins.RxJavaPlugins;
-import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.PublishSubject;
 import ru.touchin.roboswag.core.log.LcGroup;
 import ru.touchin.roboswag.core.observables.ObservableRefCountWithCacheTime;
@@ -45,7 +43,7 @@ import ru.touchin.roboswag.core.utils.Optional;
  * Supports migration from specific version to latest by {@link Migration} object.
  * Allows to set default value which will be returned if actual value is null.
  * Allows to declare specific {@link ObserveStrategy}.
- * Also specific {@link Scheduler} could be specified to not create new scheduler per storable.
+ * Also specific {@link Scheduler} could be specified. By default shared {@link StoreSchedulers} are used.
  *
  * @param <TKey>          Type of key to identify object;
  * @param <TObject>       Type of actual object;
@@ -114,7 +112,7 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
 
         final ObserveStrategy nonNullObserveStrategy
                 = observeStrategy != null ? observeStrategy : getDefaultObserveStrategyFor(objectType, storeObjectType);
-        scheduler = storeScheduler != null ? storeScheduler : Schedulers.from(Executors.newSingleThreadExecutor());
+        scheduler = storeScheduler != null ? storeScheduler : StoreSchedulers.forKey(store, key);
         storeValueObservable
                 = createStoreValueObservable(nonNullObserveStrategy, migration, defaultValue, cacheTimeMillis);
         valueObservable = createValueObservable(storeValueObservable, nonNullObserveStrategy, cacheTimeMillis);
@@ -142,7 +140,6 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
                 .doOnError(throwable -> STORABLE_LC_GROUP.w(throwable, "Exception while trying to load value of '%s' from store %s", key, store));
         return (migration != null ? migration.migrateToLatestVersion(key).andThen(loadObservable) : loadObservable)
                 .subscribeOn(scheduler)
-                .observeOn(scheduler)
                 .toObservable()
                 .replay(1)
                 .refCount()
@@ -157,6 +154,8 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
         final Observable<Optional<TStoreObject>> storeInitialLoadingObservable = createStoreInitialLoadingObservable(migration);
         final Observable<Optional<TStoreObject>> result = storeInitialLoadingObservable
                 .concatWith(newStoreValueEvent)
+                // delivering values out of store scheduler so subscribers are not blocking store operations of other values
+                .observeOn(StoreSchedulers.getDeliveryScheduler())
                 .map(storeObject -> returnDefaultValueIfNull(storeObject, defaultValue));
         return observeStrategy == ObserveStrategy.CACHE_STORE_VALUE || observeStrategy == ObserveStrategy.CACHE_STORE_AND_ACTUAL_VALUE
                 ? RxJavaPlugins.onAssembly(new ObservableRefCountWithCacheTime<>(result.replay(1), cacheTimeMillis, TimeUnit.MILLISECONDS))
@@ -261,7 +260,8 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
                                     STORABLE_LC_GROUP.i("Value of '%s' force changed to '%s'", key, newStoreValue);
                                 }
                             }));
-                });
+                })
+                .observeOn(StoreSchedulers.getDeliveryScheduler());
     }
 
     /**
@@ -295,12 +295,14 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
 
     /**
      * Sets value synchronously. You should NOT use this method normally. Use {@link #set(Object)} asynchronously instead.
+     * It is throwing {@link IllegalStateException} if called from thread of {@link StoreSchedulers} as it could lead to deadlock.
      *
      * @param newValue Value to set;
      */
     @Deprecated
     //deprecation: it should be used for debug only and in very rare cases.
     public void setSync(@Nullable final TObject newValue) {
+        checkNotOnStripeThread();
         set(newValue).blockingAwait();
     }
 
@@ -331,6 +333,7 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
 
     /**
      * Gets value synchronously. You should NOT use this method normally. Use {@link #get()} or {@link #observe()} asynchronously instead.
+     * It is throwing {@link IllegalStateException} if called from thread of {@link StoreSchedulers} as it could lead to deadlock.
      *
      * @return Returns value;
      */
@@ -338,9 +341,17 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
     //deprecation: it should be used for debug only and in very rare cases.
     @Nullable
     public TReturnObject getSync() {
+        checkNotOnStripeThread();
         return get().blockingGet();
     }
 
+    private void checkNotOnStripeThread() {
+        if (StoreSchedulers.isStripeThread()) {
+            throw new IllegalStateException("Synchronous access to '" + key + "' from " + Thread.currentThread().getName()
+                    + " could wait for stripe forever. Use async methods from converters, migrations and stores instead");
+        }
+    }
+
     /**
      * Enum that is representing strategy of observing item from store.
      */
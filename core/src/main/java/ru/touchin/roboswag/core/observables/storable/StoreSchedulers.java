@@ -0,0 +1,194 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.storable;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Shared schedulers of {@link BaseStorable} which are used if no specific store scheduler passed into builder.
+ * There is fixed count of single-threaded stripes and each pair of {@link Store} and key is always served by same stripe
+ * so operations with one value are executing serially but count of threads is bounded for any count of storables.
+ * Threads of idle stripes are stopping after timeout.
+ * Stripes are only loading, converting and storing values; values and completion events are delivered to subscribers
+ * on {@link #getDeliveryScheduler()} so slow subscriber is not blocking other storables of it's stripe.
+ * Delivery threads are also bounded: if all of them are busy with slow subscribers then deliveries are waiting in queue.
+ */
+public final class StoreSchedulers {
+
+    private static final int STRIPES_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final int DELIVERY_THREADS_COUNT = STRIPES_COUNT * 2;
+    private static final long STRIPE_THREAD_KEEP_ALIVE_SECONDS = 30;
+    private static final long DELIVERY_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    @NonNull
+    private static final AtomicLong QUEUED_TASKS_COUNT = new AtomicLong();
+    @NonNull
+    private static final AtomicLong COMPLETED_TASKS_COUNT = new AtomicLong();
+    @NonNull
+    private static final AtomicLong COMPLETED_TASKS_LATENCY_NANOS = new AtomicLong();
+    @NonNull
+    private static final Scheduler[] STRIPES = createStripes();
+    @NonNull
+    private static final Scheduler DELIVERY_SCHEDULER = createDeliveryScheduler();
+
+    @NonNull
+    private static Scheduler[] createStripes() {
+        final Scheduler[] result = new Scheduler[STRIPES_COUNT];
+        for (int i = 0; i < STRIPES_COUNT; i++) {
+            final String threadName = "StoreScheduler-" + i;
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, STRIPE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                final Thread thread = new StripeThread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            result[i] = Schedulers.from(new MeasuredExecutor(executor));
+        }
+        return result;
+    }
+
+    @NonNull
+    private static Scheduler createDeliveryScheduler() {
+        final AtomicInteger threadsCount = new AtomicInteger();
+        // fixed pool is used instead of computation() or io() as their workers are interrupting subscriber
+        // if subscription is disposed during delivery (e.g. by firstOrError()) and io() is creating thread for each busy worker
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(DELIVERY_THREADS_COUNT, DELIVERY_THREADS_COUNT,
+                DELIVERY_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "StoreDelivery-" + threadsCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return Schedulers.from(executor);
+    }
+
+    /**
+     * Returns scheduler to deliver loaded values and results of store operations to subscribers.
+     * Each subscription is served serially by one thread at a time.
+     * Count of threads is bounded by twice count of stripes and idle threads are stopping after timeout.
+     *
+     * @return Scheduler to deliver values.
+     */
+    @NonNull
+    public static Scheduler getDeliveryScheduler() {
+        return DELIVERY_SCHEDULER;
+    }
+
+    /**
+     * Returns scheduler to access value of key in store.
+     * Same scheduler is returned for same pair of store and key.
+     *
+     * @param store Store of value;
+     * @param key   Key of value;
+     * @return Scheduler to serially access value.
+     */
+    @NonNull
+    public static Scheduler forKey(@NonNull final Store<?, ?> store, @NonNull final Object key) {
+        final int hash = 31 * System.identityHashCode(store) + key.hashCode();
+        return STRIPES[(hash & Integer.MAX_VALUE) % STRIPES_COUNT];
+    }
+
+    /**
+     * Returns if current thread is thread of one of stripes.
+     * Blocking wait of any storable operation on such thread could wait for task queued behind current one on same stripe forever.
+     *
+     * @return True if current thread is stripe thread.
+     */
+    public static boolean isStripeThread() {
+        return Thread.currentThread() instanceof StripeThread;
+    }
+
+    /**
+     * Returns count of tasks which are waiting for execution or executing now on all stripes.
+     *
+     * @return Queue depth.
+     */
+    public static long getQueuedTasksCount() {
+        return QUEUED_TASKS_COUNT.get();
+    }
+
+    /**
+     * Returns count of completed tasks.
+     *
+     * @return Count of tasks.
+     */
+    public static long getCompletedTasksCount() {
+        return COMPLETED_TASKS_COUNT.get();
+    }
+
+    /**
+     * Returns average time from task submission till it's completion.
+     *
+     * @return Average latency in nanoseconds or 0 if no tasks completed.
+     */
+    public static long getAverageTaskLatencyNanos() {
+        final long completedTasksCount = COMPLETED_TASKS_COUNT.get();
+        return completedTasksCount > 0 ? COMPLETED_TASKS_LATENCY_NANOS.get() / completedTasksCount : 0;
+    }
+
+    private StoreSchedulers() {
+    }
+
+    private static class StripeThread extends Thread {
+
+        public StripeThread(@NonNull final Runnable runnable, @NonNull final String name) {
+            super(runnable, name);
+        }
+
+    }
+
+    private static class MeasuredExecutor implements Executor {
+
+        @NonNull
+        private final Executor executor;
+
+        public MeasuredExecutor(@NonNull final Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            final long submitTime = System.nanoTime();
+            QUEUED_TASKS_COUNT.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    QUEUED_TASKS_COUNT.decrementAndGet();
+                    COMPLETED_TASKS_LATENCY_NANOS.addAndGet(System.nanoTime() - submitTime);
+                    COMPLETED_TASKS_COUNT.incrementAndGet();
+                }
+            });
+        }
+
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.android.support.v7.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import ru.touchin.roboswag.core.android.support.v7.util.DiffEngineTest.Item;
+import ru.touchin.roboswag.core.android.support.v7.util.DiffEngineTest.ItemsCallback;
+import ru.touchin.roboswag.core.android.support.v7.util.DiffEngineTest.KeyHashes;
+
+public class DiffEngineBenchmark {
+
+    private static final int[] SIZES = {5000, 50000};
+    private static final double MOVED_PART = 0.05;
+
+    @Test
+    public void permutedLists() {
+        final Random random = new Random(23);
+        for (final int size : SIZES) {
+            final List<Item> oldList = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                oldList.add(new Item(i, 0));
+            }
+            final List<Item> newList = new ArrayList<>(oldList);
+            for (int i = (int) (size * MOVED_PART); i > 0; i--) {
+                newList.add(random.nextInt(size), newList.remove(random.nextInt(size)));
+            }
+            Collections.swap(newList, 0, size - 1);
+            final ItemsCallback callback = new ItemsCallback(oldList, newList);
+            final KeyHashes keyHashes = new KeyHashes(oldList, newList, Integer.MAX_VALUE);
+
+            long startTime = System.nanoTime();
+            final List<String> expected = DiffEngineTest.calculateByDiffUtil(callback, true);
+            final long diffUtilNanos = System.nanoTime() - startTime;
+            startTime = System.nanoTime();
+            final List<String> byScan = DiffEngineTest.calculateByDiffEngine(callback, true, null);
+            final long scanNanos = System.nanoTime() - startTime;
+            startTime = System.nanoTime();
+            final List<String> byHashes = DiffEngineTest.calculateByDiffEngine(callback, true, keyHashes);
+            final long hashesNanos = System.nanoTime() - startTime;
+
+            DiffEngineTest.assertUpdatesConvertList(oldList, newList, expected);
+            Assert.assertEquals(expected, byScan);
+            Assert.assertEquals(expected, byHashes);
+            System.out.println(String.format(Locale.US, "Diff of %d items with %d updates: DiffUtil %d ms, DiffEngine %d ms, "
+                            + "DiffEngine with hashes %d ms", size, expected.size(), diffUtilNanos / 1000000, scanNanos / 1000000, hashesNanos / 1000000));
+        }
+    }
+
+}
@@ -0,0 +1,298 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.android.support.v7.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class DiffEngineTest {
+
+    private static final int RANDOM_CASES_COUNT = 3000;
+    private static final int MAX_RANDOM_SIZE = 40;
+
+    @NonNull
+    private static List<Item> createRandomList(@NonNull final Random random, final int size, final int keysCount) {
+        final List<Item> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new Item(random.nextInt(keysCount), random.nextInt(3)));
+        }
+        return result;
+    }
+
+    @NonNull
+    private static List<Item> editRandomly(@NonNull final Random random, @NonNull final List<Item> oldList, final int keysCount) {
+        final List<Item> result = new ArrayList<>(oldList);
+        for (int edits = random.nextInt(8); edits > 0; edits--) {
+            final int size = result.size();
+            switch (random.nextInt(4)) {
+                case 0:
+                    result.add(random.nextInt(size + 1), new Item(random.nextInt(keysCount), random.nextInt(3)));
+                    break;
+                case 1:
+                    if (size > 0) {
+                        result.remove(random.nextInt(size));
+                    }
+                    break;
+                case 2:
+                    if (size > 0) {
+                        result.add(random.nextInt(size), result.remove(random.nextInt(size)));
+                    }
+                    break;
+                default:
+                    if (size > 0) {
+                        final int position = random.nextInt(size);
+                        result.set(position, new Item(result.get(position).key, random.nextInt(3)));
+                    }
+                    break;
+            }
+        }
+        return result;
+    }
+
+    @NonNull
+    static List<String> calculateByDiffUtil(@NonNull final ItemsCallback callback, final boolean detectMoves) {
+        final RecordingCallback recordingCallback = new RecordingCallback();
+        DiffUtil.calculateDiff(callback, detectMoves).dispatchUpdatesTo(recordingCallback);
+        return recordingCallback.events;
+    }
+
+    @NonNull
+    static List<String> calculateByDiffEngine(@NonNull final ItemsCallback callback, final boolean detectMoves,
+                                              @Nullable final DiffEngine.ItemHashes itemHashes) {
+        final RecordingCallback recordingCallback = new RecordingCallback();
+        Assert.assertTrue(DiffEngine.forCurrentThread()
+                .calculateDiff(callback, detectMoves, itemHashes, Integer.MAX_VALUE, Long.MAX_VALUE, recordingCallback));
+        return recordingCallback.events;
+    }
+
+    static void assertUpdatesConvertList(@NonNull final List<Item> oldList, @NonNull final List<Item> newList,
+                                         @NonNull final List<String> events) {
+        final ApplyingCallback applyingCallback = new ApplyingCallback(oldList);
+        for (final String event : events) {
+            applyingCallback.apply(event);
+        }
+        if (!applyingCallback.isConvertedTo(newList)) {
+            Assert.fail(oldList + " is not converted into " + newList + " by " + events);
+        }
+    }
+
+    private static void checkRandomCases(final int keysCountMultiplier) {
+        final Random random = new Random(17 + keysCountMultiplier);
+        for (int i = 0; i < RANDOM_CASES_COUNT; i++) {
+            final int size = random.nextInt(MAX_RANDOM_SIZE);
+            final int keysCount = 1 + size * keysCountMultiplier;
+            final List<Item> oldList = createRandomList(random, size, keysCount);
+            final List<Item> newList = random.nextInt(10) == 0
+                    ? createRandomList(random, random.nextInt(MAX_RANDOM_SIZE), keysCount) : editRandomly(random, oldList, keysCount);
+            final ItemsCallback callback = new ItemsCallback(oldList, newList);
+            for (final boolean detectMoves : new boolean[]{false, true}) {
+                final List<String> expected = calculateByDiffUtil(callback, detectMoves);
+                assertUpdatesConvertList(oldList, newList, expected);
+                Assert.assertEquals(expected, calculateByDiffEngine(callback, detectMoves, null));
+                Assert.assertEquals(expected, calculateByDiffEngine(callback, detectMoves, new KeyHashes(oldList, newList, Integer.MAX_VALUE)));
+                // hashes of different items are colliding
+                Assert.assertEquals(expected, calculateByDiffEngine(callback, detectMoves, new KeyHashes(oldList, newList, 3)));
+            }
+        }
+    }
+
+    @Test
+    public void updatesAreSameAsDiffUtilForUniqueKeys() {
+        checkRandomCases(10);
+    }
+
+    @Test
+    public void updatesAreSameAsDiffUtilForDuplicatedKeys() {
+        checkRandomCases(1);
+    }
+
+    static final class Item {
+
+        private final int key;
+        private final int content;
+
+        public Item(final int key, final int content) {
+            this.key = key;
+            this.content = content;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return key + ":" + content;
+        }
+
+    }
+
+    static final class ItemsCallback extends DiffUtil.Callback {
+
+        @NonNull
+        private final List<Item> oldList;
+        @NonNull
+        private final List<Item> newList;
+
+        public ItemsCallback(@NonNull final List<Item> oldList, @NonNull final List<Item> newList) {
+            super();
+            this.oldList = oldList;
+            this.newList = newList;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldList.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newList.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(final int oldItemPosition, final int newItemPosition) {
+            return oldList.get(oldItemPosition).key == newList.get(newItemPosition).key;
+        }
+
+        @Override
+        public boolean areContentsTheSame(final int oldItemPosition, final int newItemPosition) {
+            return oldList.get(oldItemPosition).content == newList.get(newItemPosition).content;
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(final int oldItemPosition, final int newItemPosition) {
+            return newList.get(newItemPosition).content;
+        }
+
+    }
+
+    static final class KeyHashes implements DiffEngine.ItemHashes {
+
+        @NonNull
+        private final List<Item> oldList;
+        @NonNull
+        private final List<Item> newList;
+        private final int hashesCount;
+
+        public KeyHashes(@NonNull final List<Item> oldList, @NonNull final List<Item> newList, final int hashesCount) {
+            this.oldList = oldList;
+            this.newList = newList;
+            this.hashesCount = hashesCount;
+        }
+
+        @Override
+        public int getOldItemHash(final int oldItemPosition) {
+            return oldList.get(oldItemPosition).key % hashesCount;
+        }
+
+        @Override
+        public int getNewItemHash(final int newItemPosition) {
+            return newList.get(newItemPosition).key % hashesCount;
+        }
+
+    }
+
+    private static final class RecordingCallback implements ListUpdateCallback {
+
+        @NonNull
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onInserted(final int position, final int count) {
+            events.add("inserted " + position + " " + count);
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            events.add("removed " + position + " " + count);
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            events.add("moved " + fromPosition + " " + toPosition);
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, @Nullable final Object payload) {
+            events.add("changed " + position + " " + count + " " + payload);
+        }
+
+    }
+
+    // applies recorded updates to copy of old list; inserted items are nulls as updates do not contain items
+    private static final class ApplyingCallback {
+
+        @NonNull
+        private final List<Item> items;
+        @NonNull
+        private final List<Boolean> changed = new ArrayList<>();
+
+        public ApplyingCallback(@NonNull final List<Item> oldList) {
+            items = new ArrayList<>(oldList);
+            changed.addAll(Collections.nCopies(oldList.size(), false));
+        }
+
+        public boolean isConvertedTo(@NonNull final List<Item> newList) {
+            if (items.size() != newList.size()) {
+                return false;
+            }
+            for (int i = 0; i < newList.size(); i++) {
+                final Item item = items.get(i);
+                // inserted items are nulls, not changed items should have same contents
+                if (item != null && (item.key != newList.get(i).key || !changed.get(i) && item.content != newList.get(i).content)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public void apply(@NonNull final String event) {
+            final String[] parts = event.split(" ");
+            final int first = Integer.parseInt(parts[1]);
+            final int second = Integer.parseInt(parts[2]);
+            switch (parts[0]) {
+                case "inserted":
+                    items.addAll(first, Collections.nCopies(second, null));
+                    changed.addAll(first, Collections.nCopies(second, false));
+                    break;
+                case "removed":
+                    items.subList(first, first + second).clear();
+                    changed.subList(first, first + second).clear();
+                    break;
+                case "moved":
+                    items.add(second, items.remove(first));
+                    changed.add(second, changed.remove(first));
+                    break;
+                default:
+                    Collections.fill(changed.subList(first, first + second), true);
+                    break;
+            }
+        }
+
+    }
+
+}
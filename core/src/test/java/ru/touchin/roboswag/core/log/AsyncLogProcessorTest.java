@@ -0,0 +1,230 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncLogProcessorTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final LcGroup GROUP = new LcGroup("TEST");
+    private static final int SLOW_MESSAGES_COUNT = 200;
+    private static final long SLOW_DELIVERY_MILLIS = 1;
+
+    @NonNull
+    private static RecordingLogProcessor fillBehindBlockedDrainer(@NonNull final AsyncLogProcessor processor,
+                                                                  @NonNull final RecordingLogProcessor recorder,
+                                                                  @NonNull final String... messages) throws InterruptedException {
+        processor.processLogMessage(GROUP, LcLevel.INFO, "tag", "blocking", null);
+        Assert.assertTrue(recorder.deliveryStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        for (final String message : messages) {
+            processor.processLogMessage(GROUP, message.startsWith("d") ? LcLevel.DEBUG : LcLevel.INFO, "tag", message, null);
+        }
+        return recorder;
+    }
+
+    @After
+    public void restoreLogProcessor() {
+        Lc.initialize(new ConsoleLogProcessor(LcLevel.ERROR), true);
+    }
+
+    @Test
+    public void callerSideLoggingIsNotWaitingForSlowProcessor() throws InterruptedException {
+        final SlowLogProcessor slowProcessor = new SlowLogProcessor();
+        final AsyncLogProcessor processor = new AsyncLogProcessor(slowProcessor, 1024, AsyncLogProcessor.OverflowPolicy.DROP_OLDEST);
+        Lc.initialize(processor, false);
+
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < SLOW_MESSAGES_COUNT; i++) {
+            GROUP.i("Message %d", i);
+        }
+        final long callerMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        // synchronous delivery would take at least SLOW_MESSAGES_COUNT * SLOW_DELIVERY_MILLIS
+        Assert.assertTrue("Logging took " + callerMillis + " ms", callerMillis < SLOW_MESSAGES_COUNT * SLOW_DELIVERY_MILLIS / 4);
+        Assert.assertTrue(processor.flush(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertEquals(SLOW_MESSAGES_COUNT, slowProcessor.deliveredCount.get());
+        Assert.assertEquals(0, processor.getDroppedMessagesCount());
+        processor.shutdown();
+    }
+
+    @Test
+    public void dropDebugFirstEvictsWaitingDebugMessages() throws InterruptedException {
+        final RecordingLogProcessor recorder = new RecordingLogProcessor(true);
+        final AsyncLogProcessor processor = new AsyncLogProcessor(recorder, 4, AsyncLogProcessor.OverflowPolicy.DROP_DEBUG_FIRST);
+        fillBehindBlockedDrainer(processor, recorder, "d1", "i1", "d2", "i2", "i3", "d3", "i4");
+
+        recorder.releaseDelivery.countDown();
+        Assert.assertTrue(processor.flush(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        Assert.assertEquals(Arrays.asList("blocking", "i1", "i2", "i3", "i4"), recorder.messages);
+        Assert.assertEquals(3, processor.getDroppedMessagesCount());
+        processor.shutdown();
+    }
+
+    @Test
+    public void dropDebugFirstKeepsOrderOfMessages() throws InterruptedException {
+        final RecordingLogProcessor recorder = new RecordingLogProcessor(false);
+        final AsyncLogProcessor processor = new AsyncLogProcessor(recorder, 1024, AsyncLogProcessor.OverflowPolicy.DROP_DEBUG_FIRST);
+        final List<String> expectedMessages = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            final String message = (i % 3 == 0 ? "i" : "d") + i;
+            expectedMessages.add(message);
+            processor.processLogMessage(GROUP, message.startsWith("d") ? LcLevel.DEBUG : LcLevel.INFO, "tag", message, null);
+        }
+
+        Assert.assertTrue(processor.flush(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        Assert.assertEquals(expectedMessages, recorder.messages);
+        processor.shutdown();
+    }
+
+    @Test
+    public void dropOldestEvictsOldestMessages() throws InterruptedException {
+        final RecordingLogProcessor recorder = new RecordingLogProcessor(true);
+        final AsyncLogProcessor processor = new AsyncLogProcessor(recorder, 4, AsyncLogProcessor.OverflowPolicy.DROP_OLDEST);
+        fillBehindBlockedDrainer(processor, recorder, "d1", "i1", "d2", "i2", "i3", "d3");
+
+        recorder.releaseDelivery.countDown();
+        Assert.assertTrue(processor.flush(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        Assert.assertEquals(Arrays.asList("blocking", "d2", "i2", "i3", "d3"), recorder.messages);
+        Assert.assertEquals(2, processor.getDroppedMessagesCount());
+        processor.shutdown();
+    }
+
+    @Test
+    public void blockPolicyDeliversAllMessages() throws InterruptedException {
+        final RecordingLogProcessor recorder = new RecordingLogProcessor(false);
+        final AsyncLogProcessor processor = new AsyncLogProcessor(recorder, 8, AsyncLogProcessor.OverflowPolicy.BLOCK);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final Thread thread = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    processor.processLogMessage(GROUP, LcLevel.DEBUG, "tag", "message", null);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertTrue(processor.flush(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        Assert.assertEquals(4000, recorder.messages.size());
+        Assert.assertEquals(0, processor.getDroppedMessagesCount());
+        processor.shutdown();
+    }
+
+    @Test
+    public void shutdownDeliversWaitingMessagesAndStopsThread() throws InterruptedException {
+        final RecordingLogProcessor recorder = new RecordingLogProcessor(false);
+        final AsyncLogProcessor processor = new AsyncLogProcessor(recorder, 1024, AsyncLogProcessor.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 100; i++) {
+            processor.processLogMessage(GROUP, LcLevel.INFO, "tag", "message" + i, null);
+        }
+
+        processor.shutdown();
+
+        Assert.assertEquals(100, recorder.messages.size());
+        Assert.assertFalse(getDrainerThreadIsAlive());
+        processor.processLogMessage(GROUP, LcLevel.INFO, "tag", "after shutdown", null);
+        Assert.assertEquals("after shutdown", recorder.messages.get(100));
+        Assert.assertEquals(Thread.currentThread().getName(), recorder.lastThreadName);
+    }
+
+    private static boolean getDrainerThreadIsAlive() {
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("AsyncLogProcessor".equals(thread.getName()) && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class SlowLogProcessor extends LogProcessor {
+
+        @NonNull
+        private final AtomicInteger deliveredCount = new AtomicInteger();
+
+        public SlowLogProcessor() {
+            super(LcLevel.VERBOSE);
+        }
+
+        @Override
+        public void processLogMessage(@NonNull final LcGroup group, @NonNull final LcLevel level,
+                                      @NonNull final String tag, @NonNull final String message, @Nullable final Throwable throwable) {
+            try {
+                Thread.sleep(SLOW_DELIVERY_MILLIS);
+            } catch (final InterruptedException exception) {
+                throw new IllegalStateException(exception);
+            }
+            deliveredCount.incrementAndGet();
+        }
+
+    }
+
+    private static class RecordingLogProcessor extends LogProcessor {
+
+        @NonNull
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        @NonNull
+        private final CountDownLatch deliveryStarted = new CountDownLatch(1);
+        @NonNull
+        private final CountDownLatch releaseDelivery;
+        @Nullable
+        private volatile String lastThreadName;
+
+        public RecordingLogProcessor(final boolean blockFirstDelivery) {
+            super(LcLevel.VERBOSE);
+            releaseDelivery = new CountDownLatch(blockFirstDelivery ? 1 : 0);
+        }
+
+        @Override
+        public void processLogMessage(@NonNull final LcGroup group, @NonNull final LcLevel level,
+                                      @NonNull final String tag, @NonNull final String message, @Nullable final Throwable throwable) {
+            deliveryStarted.countDown();
+            try {
+                Assert.assertTrue(releaseDelivery.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            } catch (final InterruptedException exception) {
+                throw new IllegalStateException(exception);
+            }
+            lastThreadName = Thread.currentThread().getName();
+            messages.add(message);
+        }
+
+    }
+
+}
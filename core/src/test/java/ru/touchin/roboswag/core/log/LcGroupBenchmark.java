@@ -0,0 +1,85 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+public class LcGroupBenchmark {
+
+    private static final int CALLS_COUNT = 100_000;
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @After
+    public void restoreLogProcessor() {
+        Lc.initialize(new ConsoleLogProcessor(LcLevel.ERROR), true);
+    }
+
+    @Test
+    public void logCallDurationAndAllocationsByTagStrategy() {
+        final LcGroup group = new LcGroup("BENCHMARK");
+        for (final LogTagStrategy tagStrategy : LogTagStrategy.values()) {
+            LcGroupTest.initializeRecorder(tagStrategy);
+            for (int i = 0; i < CALLS_COUNT; i++) {
+                group.d("Benchmark message");
+            }
+        }
+        final long[] bytesPerCallByStrategy = new long[LogTagStrategy.values().length];
+        for (final LogTagStrategy tagStrategy : LogTagStrategy.values()) {
+            LcGroupTest.initializeRecorder(tagStrategy);
+            final long allocatedBytesBefore = getAllocatedBytes();
+            final long startTime = System.nanoTime();
+            for (int i = 0; i < CALLS_COUNT; i++) {
+                group.d("Benchmark message");
+            }
+            final long nanosPerCall = (System.nanoTime() - startTime) / CALLS_COUNT;
+            final long bytesPerCall = (getAllocatedBytes() - allocatedBytesBefore) / CALLS_COUNT;
+            System.out.println(String.format(Locale.US, "LcGroup log call with %s tags: %d ns, %d bytes", tagStrategy, nanosPerCall, bytesPerCall));
+            bytesPerCallByStrategy[tagStrategy.ordinal()] = bytesPerCall;
+        }
+        Assert.assertTrue(bytesPerCallByStrategy[LogTagStrategy.CALL_SITE.ordinal()] < bytesPerCallByStrategy[LogTagStrategy.STACK_TRACE.ordinal()]);
+    }
+
+    @Test
+    public void captureCodePointDurationAndAllocationsOfFilteredAndLoggedMessages() {
+        final LcGroup group = new LcGroup("BENCHMARK");
+        Lc.initialize(new ConsoleLogProcessor(LcLevel.INFO), false);
+        // first level is warming up
+        for (final LcLevel level : new LcLevel[]{LcLevel.DEBUG, LcLevel.DEBUG, LcLevel.INFO}) {
+            final long allocatedBytesBefore = getAllocatedBytes();
+            final long startTime = System.nanoTime();
+            for (int i = 0; i < CALLS_COUNT; i++) {
+                Assert.assertNotNull(Lc.captureCodePoint(group, level, null, 0));
+            }
+            final long nanosPerCall = (System.nanoTime() - startTime) / CALLS_COUNT;
+            final long bytesPerCall = (getAllocatedBytes() - allocatedBytesBefore) / CALLS_COUNT;
+            System.out.println(String.format(Locale.US, "Lc.captureCodePoint of %s message with INFO minimal level: %d ns, %d bytes",
+                    level, nanosPerCall, bytesPerCall));
+        }
+    }
+
+}
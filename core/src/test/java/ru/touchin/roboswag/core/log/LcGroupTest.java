@@ -0,0 +1,136 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LcGroupTest {
+
+    private static final String FORMAT = "Message %d";
+
+    @NonNull
+    static TagRecorder initializeRecorder(@NonNull final LogTagStrategy tagStrategy) {
+        final TagRecorder recorder = new TagRecorder(tagStrategy);
+        Lc.initialize(recorder, false);
+        return recorder;
+    }
+
+    private static void logFirst(@NonNull final LcGroup group) {
+        group.d(FORMAT, 1);
+    }
+
+    private static void logSecond(@NonNull final LcGroup group) {
+        group.d(FORMAT, 2);
+    }
+
+    private static void logBuiltFormat(@NonNull final LcGroup group, final int number) {
+        group.d(new StringBuilder("Message ").append(number).toString());
+    }
+
+    @After
+    public void restoreLogProcessor() {
+        Lc.initialize(new ConsoleLogProcessor(LcLevel.ERROR), true);
+    }
+
+    @Test
+    public void callSiteTagsAreCachedPerGroup() {
+        final LcGroup firstGroup = new LcGroup("FIRST");
+        final LcGroup secondGroup = new LcGroup("SECOND");
+        final TagRecorder stackTraceRecorder = initializeRecorder(LogTagStrategy.STACK_TRACE);
+        logFirst(firstGroup);
+        final String firstTag = stackTraceRecorder.lastTag;
+        logSecond(secondGroup);
+        final String secondTag = stackTraceRecorder.lastTag;
+        Assert.assertNotEquals(firstTag, secondTag);
+
+        final TagRecorder callSiteRecorder = initializeRecorder(LogTagStrategy.CALL_SITE);
+        logFirst(firstGroup);
+        Assert.assertEquals(firstTag.replaceAll(":\\d+", ""), callSiteRecorder.lastTag.replaceAll(":\\d+", ""));
+        final String cachedFirstTag = callSiteRecorder.lastTag;
+        logSecond(secondGroup);
+        Assert.assertNotEquals(cachedFirstTag, callSiteRecorder.lastTag);
+        final String cachedSecondTag = callSiteRecorder.lastTag;
+
+        logSecond(firstGroup);
+        Assert.assertEquals(cachedFirstTag, callSiteRecorder.lastTag);
+        logFirst(secondGroup);
+        Assert.assertEquals(cachedSecondTag, callSiteRecorder.lastTag);
+    }
+
+    @Test
+    public void callSiteTagsOfBuiltFormatsAreCapturedEachTime() {
+        final LcGroup group = new LcGroup("GROUP");
+        final TagRecorder recorder = initializeRecorder(LogTagStrategy.CALL_SITE);
+        for (int i = 0; i < 10_000; i++) {
+            logBuiltFormat(group, i % 10);
+            Assert.assertEquals("LcGroupTest.java", recorder.lastTag.substring(0, recorder.lastTag.indexOf(':')));
+        }
+        Assert.assertEquals(10_000, recorder.messagesCount);
+    }
+
+    @Test
+    public void codePointIsCapturedOnlyForLoggableMessages() {
+        final LcGroup group = new LcGroup("GROUP");
+        Lc.initialize(new ConsoleLogProcessor(LcLevel.ERROR), false);
+        final Lc.CodePoint filteredCodePoint = Lc.captureCodePoint(group, LcLevel.DEBUG, null, 0);
+        Assert.assertSame(filteredCodePoint, Lc.captureCodePoint(group, LcLevel.INFO, this, 0));
+
+        final Lc.CodePoint codePoint = Lc.captureCodePoint(group, LcLevel.ERROR, null, 0);
+        Assert.assertNotSame(filteredCodePoint, codePoint);
+        Assert.assertTrue(codePoint.toString(), codePoint.toString().contains("LcGroupTest.java"));
+
+        group.disable();
+        Assert.assertSame(filteredCodePoint, Lc.captureCodePoint(group, LcLevel.ERROR, null, 0));
+    }
+
+    static class TagRecorder extends LogProcessor {
+
+        @NonNull
+        private final LogTagStrategy tagStrategy;
+        @Nullable
+        private String lastTag;
+        private int messagesCount;
+
+        public TagRecorder(@NonNull final LogTagStrategy tagStrategy) {
+            super(LcLevel.VERBOSE);
+            this.tagStrategy = tagStrategy;
+        }
+
+        @NonNull
+        @Override
+        public LogTagStrategy getTagStrategy() {
+            return tagStrategy;
+        }
+
+        @Override
+        public void processLogMessage(@NonNull final LcGroup group, @NonNull final LcLevel level,
+                                      @NonNull final String tag, @NonNull final String message, @Nullable final Throwable throwable) {
+            lastTag = tag;
+            messagesCount++;
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionsChangesCalculator;
+
+public class ChangesBatchTest {
+
+    private static final int CHANGES_COUNT = 100;
+
+    @Test
+    public void itemsAreCalculatedOnlyWhenTakenChangesAreRead() {
+        final ChangesBatch<Integer> batch = new ChangesBatch<>();
+        final List<CountingCalculator> calculators = new ArrayList<>();
+        final List<Integer> expectedInsertedItems = new ArrayList<>();
+        for (int i = 0; i < CHANGES_COUNT; i++) {
+            final CountingCalculator calculator = new CountingCalculator(i);
+            calculators.add(calculator);
+            expectedInsertedItems.add(i);
+            batch.add(new CollectionChanges<>(i + 1, calculator, Collections.singletonList(new Change.Inserted(i, 1))), i + 1);
+        }
+        final CollectionChanges<Integer> taken = batch.take();
+        Assert.assertFalse(batch.hasChanges());
+        for (final CountingCalculator calculator : calculators) {
+            Assert.assertEquals(0, calculator.calculationsCount);
+        }
+
+        Assert.assertEquals(CHANGES_COUNT, taken.getNumber());
+        Assert.assertEquals(expectedInsertedItems, taken.getInsertedItems());
+        Assert.assertEquals(Collections.emptyList(), taken.getRemovedItems());
+        for (final CountingCalculator calculator : calculators) {
+            Assert.assertEquals(2, calculator.calculationsCount);
+        }
+    }
+
+    @Test
+    public void collapsedItemsArePrependedToLaterInsertedItems() {
+        final ChangesBatch<Integer> batch = new ChangesBatch<>();
+        batch.add(new CollectionChanges<>(1, Arrays.asList(1, 2), Collections.singletonList(0),
+                Arrays.asList(new Change.Removed(0, 1), new Change.Inserted(0, 2))), 2);
+        batch.collapse(Arrays.asList(1, 2));
+        batch.add(new CollectionChanges<>(2, Collections.singletonList(3), Collections.emptyList(),
+                Collections.singletonList(new Change.Inserted(2, 1))), 3);
+
+        final CollectionChanges<Integer> taken = batch.take();
+        Assert.assertEquals(2, taken.getNumber());
+        Assert.assertEquals(Arrays.asList(1, 2, 3), taken.getInsertedItems());
+        Assert.assertEquals(Collections.emptyList(), taken.getRemovedItems());
+        //collapsed batch is removing single initial item and inserting collapsed items followed by later change
+        Assert.assertEquals(3, taken.getChanges().size());
+        Assert.assertEquals(2, taken.getChangesLog().getSizeDelta());
+
+        batch.add(new CollectionChanges<>(3, Collections.emptyList(), Collections.singletonList(3),
+                Collections.singletonList(new Change.Removed(2, 1))), 2);
+        final CollectionChanges<Integer> nextTaken = batch.take();
+        Assert.assertEquals(Collections.emptyList(), nextTaken.getInsertedItems());
+        Assert.assertEquals(Collections.singletonList(3), nextTaken.getRemovedItems());
+    }
+
+    // calculator of single inserted item which is counting calls
+    private static class CountingCalculator implements CollectionsChangesCalculator<Integer> {
+
+        private final int item;
+        private int calculationsCount;
+
+        public CountingCalculator(final int item) {
+            this.item = item;
+        }
+
+        @NonNull
+        @Override
+        public List<Change> calculateChanges() {
+            return Collections.singletonList(new Change.Inserted(item, 1));
+        }
+
+        @NonNull
+        @Override
+        public List<Integer> calculateInsertedItems() {
+            calculationsCount++;
+            return Collections.singletonList(item);
+        }
+
+        @NonNull
+        @Override
+        public List<Integer> calculateRemovedItems() {
+            calculationsCount++;
+            return Collections.emptyList();
+        }
+
+    }
+
+}
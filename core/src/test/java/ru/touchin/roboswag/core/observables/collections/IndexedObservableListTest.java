@@ -0,0 +1,129 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.Schedulers;
+
+public class IndexedObservableListTest {
+
+    private static final int OPERATIONS_COUNT = 5000;
+    private static final int KEYS_COUNT = 30;
+
+    private static void assertIndexIsActual(@NonNull final IndexedObservableList<String, String> list) {
+        final List<String> items = new ArrayList<>(list.getItems());
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            final String key = "key" + i;
+            Assert.assertEquals(key, items.indexOf(key), list.indexOfKey(key));
+            Assert.assertEquals(key, items.contains(key), list.containsKey(key));
+        }
+    }
+
+    @Test
+    public void indexIsUpdatedOnSet() {
+        final IndexedObservableList<String, String> list = new IndexedObservableList<>(Arrays.asList("a", "b"), item -> item);
+        Assert.assertEquals(1, list.indexOfKey("b"));
+
+        list.set(Arrays.asList("x", "y"));
+
+        Assert.assertFalse(list.containsKey("a"));
+        Assert.assertTrue(list.containsKey("x"));
+        Assert.assertEquals(-1, list.indexOfKey("b"));
+        Assert.assertEquals(1, list.indexOfKey("y"));
+    }
+
+    @Test
+    public void indexIsUpdatedOnSetWithDiff() {
+        final IndexedObservableList<String, String> list = new IndexedObservableList<>(Arrays.asList("a", "b", "c"), item -> item);
+        list.enableDiffUtils(true, String::equals, null);
+        Assert.assertEquals(2, list.indexOfKey("c"));
+
+        list.set(Arrays.asList("c", "a", "d"));
+
+        Assert.assertEquals(0, list.indexOfKey("c"));
+        Assert.assertEquals(2, list.indexOfKey("d"));
+        Assert.assertFalse(list.containsKey("b"));
+    }
+
+    @Test
+    public void indexIsUpdatedOnSetAsync() {
+        final IndexedObservableList<String, String> list = new IndexedObservableList<>(Arrays.asList("a", "b"), item -> item);
+        Assert.assertTrue(list.containsKey("a"));
+
+        Assert.assertTrue(list.setAsync(Arrays.asList("x", "y"), Schedulers.single()).blockingAwait(10, TimeUnit.SECONDS));
+
+        Assert.assertFalse(list.containsKey("a"));
+        Assert.assertEquals(0, list.indexOfKey("x"));
+    }
+
+    @Test
+    public void indexMatchesItemsAfterRandomChanges() {
+        final Random random = new Random(7);
+        final IndexedObservableList<String, String> list = new IndexedObservableList<>(item -> item);
+        for (int i = 0; i < OPERATIONS_COUNT; i++) {
+            final String item = "key" + random.nextInt(KEYS_COUNT);
+            switch (random.nextInt(7)) {
+                case 0:
+                    list.add(item);
+                    break;
+                case 1:
+                    list.addAll(Arrays.asList(item, "key" + random.nextInt(KEYS_COUNT)));
+                    break;
+                case 2:
+                    list.add(random.nextInt(list.size() + 1), item);
+                    break;
+                case 3:
+                    if (list.size() > 0) {
+                        list.remove(list.size() - 1);
+                    }
+                    break;
+                case 4:
+                    if (list.size() > 0) {
+                        list.remove(random.nextInt(list.size()));
+                    }
+                    break;
+                case 5:
+                    if (list.size() > 0) {
+                        list.update(random.nextInt(list.size()), item);
+                    }
+                    break;
+                default:
+                    final List<String> newItems = new ArrayList<>();
+                    for (int j = random.nextInt(10); j > 0; j--) {
+                        newItems.add("key" + random.nextInt(KEYS_COUNT));
+                    }
+                    list.set(newItems);
+                    break;
+            }
+            assertIndexIsActual(list);
+        }
+    }
+
+}
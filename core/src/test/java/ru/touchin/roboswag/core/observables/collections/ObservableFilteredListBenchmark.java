@@ -0,0 +1,143 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+
+public class ObservableFilteredListBenchmark {
+
+    private static final int BENCHMARK_CHANGES_COUNT = 1000;
+    private static final int PARALLEL_FILTERING_SIZE = 100000;
+    private static final int[] THREADS_COUNTS = {1, 2, 4, 8};
+    private static final int FILTER_ITERATIONS = 200;
+    private static final int REPEATS_COUNT = 3;
+    private static final long TIMEOUT_MILLIS = 60000;
+
+    private static boolean isPassingExpensively(@NonNull final Integer item) {
+        int hash = item;
+        for (int i = 0; i < FILTER_ITERATIONS; i++) {
+            hash = hash * 31 + i;
+        }
+        return (hash & 1) == 0;
+    }
+
+    private static long measureFiltering(@NonNull final ObservableFilteredList<Integer> filteredList,
+                                         @NonNull final Function<Integer, Boolean> filter,
+                                         final int expectedSize) throws InterruptedException {
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < REPEATS_COUNT; i++) {
+            // filtering from empty result so measured time is not including changes calculation
+            filteredList.setFilter(item -> false);
+            waitSize(filteredList, 0);
+            final long startTime = System.nanoTime();
+            filteredList.setFilter(filter);
+            waitSize(filteredList, expectedSize);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - startTime);
+        }
+        return bestNanos;
+    }
+
+    private static void waitSize(@NonNull final ObservableFilteredList<Integer> filteredList, final int size) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (filteredList.size() != size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(size, filteredList.size());
+    }
+
+    @Test
+    public void singleChangeCostDoesNotDependOnFilteredSize() throws InterruptedException {
+        final Random random = new Random(5);
+        for (final int size : new int[]{1000, 10000, 100000}) {
+            final List<Integer> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(random.nextInt(1000));
+            }
+            final ObservableList<Integer> source = new ObservableList<>(items);
+            final ObservableFilteredList<Integer> filteredList = new ObservableFilteredList<>(source, ObservableFilteredListTest::isEven);
+            // first change is applied after taking items of source on subscription
+            source.add(0);
+            ObservableFilteredListTest.awaitFiltered(filteredList, source);
+
+            final long startTime = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_CHANGES_COUNT; i++) {
+                source.add(random.nextInt(source.size() + 1), random.nextInt(1000) * 2);
+            }
+            ObservableFilteredListTest.awaitFiltered(filteredList, source);
+            final long elapsedNanos = System.nanoTime() - startTime;
+            System.out.println(String.format("ObservableFilteredList single insert into %d items: %.1f us per change",
+                    size, elapsedNanos / 1000.0 / BENCHMARK_CHANGES_COUNT));
+        }
+    }
+
+    @Test
+    public void parallelFilteringOfBigCollection() throws InterruptedException {
+        final Random random = new Random(7);
+        final List<Integer> items = new ArrayList<>(PARALLEL_FILTERING_SIZE);
+        int expectedSize = 0;
+        for (int i = 0; i < PARALLEL_FILTERING_SIZE; i++) {
+            final int item = random.nextInt();
+            items.add(item);
+            if (isPassingExpensively(item)) {
+                expectedSize++;
+            }
+        }
+        final ObservableFilteredList<Integer> filteredList = new ObservableFilteredList<>(new ObservableList<>(items), null);
+        final long sequentialNanos = measureFiltering(filteredList, ObservableFilteredListBenchmark::isPassingExpensively, expectedSize);
+        System.out.println(String.format("ObservableFilteredList of %d items: sequential filtering %.1f ms (%d processors available)",
+                PARALLEL_FILTERING_SIZE, sequentialNanos / 1000000.0, Runtime.getRuntime().availableProcessors()));
+
+        filteredList.setParallelFiltering(true);
+        for (final int threadsCount : THREADS_COUNTS) {
+            final ExecutorService executor = Executors.newFixedThreadPool(threadsCount, runnable -> {
+                final Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            });
+            final Scheduler computationScheduler = Schedulers.from(executor);
+            RxJavaPlugins.setComputationSchedulerHandler(scheduler -> computationScheduler);
+            try {
+                final long parallelNanos = measureFiltering(filteredList, ObservableFilteredListBenchmark::isPassingExpensively, expectedSize);
+                System.out.println(String.format("ObservableFilteredList of %d items: parallel filtering on %d threads %.1f ms",
+                        PARALLEL_FILTERING_SIZE, threadsCount, parallelNanos / 1000000.0));
+            } finally {
+                RxJavaPlugins.setComputationSchedulerHandler(null);
+                executor.shutdown();
+                executor.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,371 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.plugins.RxJavaPlugins;
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+
+public class ObservableFilteredListTest {
+
+    private static final long AWAIT_TIMEOUT_MILLIS = 10000;
+    private static final int OPERATIONS_COUNT = 5000;
+
+    static boolean isEven(@NonNull final Integer item) {
+        return item % 2 == 0;
+    }
+
+    @NonNull
+    static List<Integer> filterEven(@NonNull final Iterable<Integer> items) {
+        final List<Integer> result = new ArrayList<>();
+        for (final Integer item : items) {
+            if (isEven(item)) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    static void awaitFiltered(@NonNull final ObservableFilteredList<Integer> filteredList, @NonNull final ObservableList<Integer> source)
+            throws InterruptedException {
+        final List<Integer> expected = filterEven(source.getItems());
+        final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MILLIS;
+        while (!expected.equals(new ArrayList<>(filteredList.getItems())) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(expected, new ArrayList<>(filteredList.getItems()));
+        Assert.assertEquals(expected.size(), filteredList.size());
+    }
+
+    private static void applyRandomChange(@NonNull final Random random, @NonNull final ObservableList<Integer> source) {
+        final int size = source.size();
+        final Integer item = random.nextInt(1000);
+        switch (random.nextInt(7)) {
+            case 0:
+                source.add(random.nextInt(size + 1), item);
+                break;
+            case 1:
+                final List<Integer> items = new ArrayList<>();
+                for (int i = random.nextInt(5); i >= 0; i--) {
+                    items.add(random.nextInt(1000));
+                }
+                source.addAll(random.nextInt(size + 1), items);
+                break;
+            case 2:
+                if (size > 0) {
+                    source.remove(random.nextInt(size));
+                }
+                break;
+            case 3:
+                if (size > 0) {
+                    final int position = random.nextInt(size);
+                    source.remove(position, 1 + random.nextInt(Math.min(5, size - position)));
+                }
+                break;
+            case 4:
+                if (size > 0) {
+                    source.update(random.nextInt(size), item);
+                }
+                break;
+            case 5:
+                if (size > 1) {
+                    // diff of single moved item is single Moved change
+                    final List<Integer> movedItems = new ArrayList<>(source.getItems());
+                    movedItems.add(random.nextInt(size), movedItems.remove(random.nextInt(size)));
+                    source.set(movedItems);
+                }
+                break;
+            default:
+                if (size > 1) {
+                    final List<Integer> shuffledItems = new ArrayList<>(source.getItems());
+                    Collections.shuffle(shuffledItems, random);
+                    source.set(shuffledItems);
+                }
+                break;
+        }
+    }
+
+    @Test
+    public void filteredItemsMatchFilteredSourceAfterRandomChanges() throws InterruptedException {
+        final Random random = new Random(11);
+        final ObservableList<Integer> source = new ObservableList<>();
+        source.enableDiffUtils(true, Integer::equals, null);
+        final ObservableFilteredList<Integer> filteredList = new ObservableFilteredList<>(source, ObservableFilteredListTest::isEven);
+        for (int i = 0; i < OPERATIONS_COUNT; i++) {
+            applyRandomChange(random, source);
+            if (i % 500 == 0) {
+                awaitFiltered(filteredList, source);
+            }
+        }
+        awaitFiltered(filteredList, source);
+    }
+
+    @Test
+    public void changeBeforeSubscriptionToSourceIsNotLost() throws InterruptedException {
+        final ChangingOnSubscribeList source = new ChangingOnSubscribeList();
+        source.addAll(Arrays.asList(1, 2, 3));
+        final ObservableFilteredList<Integer> filteredList = new ObservableFilteredList<>(source, ObservableFilteredListTest::isEven);
+        awaitFiltered(filteredList, source);
+
+        source.changeOnSubscribe.set(true);
+        filteredList.setFilter(ObservableFilteredListTest::isEven);
+
+        Assert.assertFalse(source.changeOnSubscribe.get());
+        awaitFiltered(filteredList, source);
+        Assert.assertEquals(Arrays.asList(4, 2), new ArrayList<>(filteredList.getItems()));
+    }
+
+    @Test
+    public void changesDuringResubscriptionAreNotLost() throws InterruptedException {
+        final ObservableList<Integer> source = new ObservableList<>();
+        final ObservableFilteredList<Integer> filteredList = new ObservableFilteredList<>(source, ObservableFilteredListTest::isEven);
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final Thread producer = new Thread(() -> {
+            final Random random = new Random(3);
+            while (!stopped.get()) {
+                applyRandomChange(random, source);
+                if (source.size() > 200) {
+                    source.remove(0, 100);
+                }
+            }
+        });
+        producer.start();
+        try {
+            for (int i = 0; i < OPERATIONS_COUNT; i++) {
+                // every resubscription takes items of source while source is changing on other thread
+                filteredList.setFilter(ObservableFilteredListTest::isEven);
+            }
+        } finally {
+            stopped.set(true);
+            producer.join();
+        }
+        awaitFiltered(filteredList, source);
+    }
+
+    @Test
+    public void filteredMappingIsConsistentAfterInsertRemoveAndMove() throws InterruptedException {
+        // unique items so item at wrong source position is noticed
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            items.add(i);
+        }
+        final ObservableList<Integer> source = new ObservableList<>(items);
+        source.enableDiffUtils(true, Integer::equals, null);
+        final ObservableFilteredList<Integer> filteredList = new ObservableFilteredList<>(source, ObservableFilteredListTest::isEven);
+        awaitFiltered(filteredList, source);
+        final FilteredMirror mirror = new FilteredMirror(filteredList);
+        final Disposable mirroring = filteredList.observeChanges().subscribe(mirror::apply);
+        int nextItem = 100;
+
+        // insertions at start, in the middle between passing and not passing items and at the end
+        for (final int position : new int[]{0, 1, 7, 20, source.size()}) {
+            source.addAll(position, Arrays.asList(nextItem++, nextItem++, nextItem++));
+            mirror.await(source);
+        }
+        // removals of single items and ranges starting from passing and not passing items
+        for (final int[] removal : new int[][]{{0, 1}, {1, 1}, {3, 4}, {10, 7}}) {
+            source.remove(removal[0], removal[1]);
+            mirror.await(source);
+        }
+        source.remove(source.size() - 2, 2);
+        mirror.await(source);
+        // moves of passing and not passing items forward and backward
+        for (final int[] move : new int[][]{{0, 5}, {1, 6}, {10, 2}, {11, 3}, {4, 5}, {source.size() - 1, 0}, {0, source.size() - 1}}) {
+            final List<Integer> movedItems = new ArrayList<>(source.getItems());
+            movedItems.add(move[1], movedItems.remove(move[0]));
+            source.set(movedItems);
+            mirror.await(source);
+        }
+        // updates which are making items passing, not passing or keeping them
+        source.update(0, Arrays.asList(1001, 1002, 1003, 1004));
+        mirror.await(source);
+        source.update(source.size() - 1, 2000);
+        mirror.await(source);
+
+        mirroring.dispose();
+    }
+
+    @Test
+    public void parallelFilteringMatchesSequentialFiltering() throws InterruptedException {
+        final Random random = new Random(12);
+        final List<Integer> items = new ArrayList<>();
+        // big enough to be filtered by several chunks
+        for (int i = 0; i < 5000; i++) {
+            items.add(random.nextInt(1000));
+        }
+        final ObservableList<Integer> source = new ObservableList<>(items);
+        final ObservableFilteredList<Integer> filteredList = new ObservableFilteredList<>(source, null);
+        filteredList.setParallelFiltering(true);
+        filteredList.setFilter(item -> item % 3 == 0);
+        final List<Integer> expected = new ArrayList<>();
+        for (final Integer item : source.getItems()) {
+            if (item % 3 == 0) {
+                expected.add(item);
+            }
+        }
+        final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MILLIS;
+        while (!expected.equals(new ArrayList<>(filteredList.getItems())) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(expected, new ArrayList<>(filteredList.getItems()));
+
+        // single changes after parallel filtering are using source positions concatenated from chunks
+        filteredList.setFilter(ObservableFilteredListTest::isEven);
+        awaitFiltered(filteredList, source);
+        for (int i = 0; i < 500; i++) {
+            final Integer item = random.nextInt(1000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    source.add(random.nextInt(source.size() + 1), item);
+                    break;
+                case 1:
+                    source.remove(random.nextInt(source.size()));
+                    break;
+                default:
+                    source.update(random.nextInt(source.size()), item);
+                    break;
+            }
+        }
+        awaitFiltered(filteredList, source);
+    }
+
+    @Test
+    public void parallelFilteringIsCancelledBySettingOtherFilter() throws InterruptedException {
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            items.add(i);
+        }
+        final ObservableList<Integer> source = new ObservableList<>(items);
+        final ObservableFilteredList<Integer> filteredList = new ObservableFilteredList<>(source, null);
+        filteredList.setParallelFiltering(true);
+        final CountDownLatch slowFilteringStarted = new CountDownLatch(1);
+        final AtomicInteger slowFilterCallsCount = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        RxJavaPlugins.setErrorHandler(error::set);
+        try {
+            filteredList.setFilter(item -> {
+                slowFilteringStarted.countDown();
+                slowFilterCallsCount.incrementAndGet();
+                // cancelled filtering is interrupting filter
+                Thread.sleep(1);
+                return true;
+            });
+            Assert.assertTrue(slowFilteringStarted.await(AWAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+            filteredList.setFilter(ObservableFilteredListTest::isEven);
+            awaitFiltered(filteredList, source);
+            final int callsAfterCancel = slowFilterCallsCount.get();
+            Thread.sleep(100);
+            // chunks which have been started are stopping on next item and others are not started at all
+            Assert.assertEquals(callsAfterCancel, slowFilterCallsCount.get());
+            Assert.assertTrue("Slow filter calls: " + callsAfterCancel, callsAfterCancel < items.size() / 2);
+            Assert.assertNull(error.get());
+        } finally {
+            RxJavaPlugins.setErrorHandler(null);
+        }
+    }
+
+    // changes itself right before actual subscription to its changes so subscriber could miss that change
+    private static class ChangingOnSubscribeList extends ObservableList<Integer> {
+
+        @NonNull
+        private final AtomicBoolean changeOnSubscribe = new AtomicBoolean();
+
+        @NonNull
+        @Override
+        public Observable<CollectionChanges<Integer>> observeChanges() {
+            return Observable.defer(() -> {
+                if (changeOnSubscribe.compareAndSet(true, false)) {
+                    add(0, 4);
+                }
+                return super.observeChanges();
+            });
+        }
+
+    }
+
+    // applies changes of filtered list to own items; it is subscribed on filtering thread so filtered list is not changing while applying
+    private static class FilteredMirror {
+
+        @NonNull
+        private final ObservableFilteredList<Integer> filteredList;
+        @NonNull
+        private final List<Integer> items;
+
+        public FilteredMirror(@NonNull final ObservableFilteredList<Integer> filteredList) {
+            this.filteredList = filteredList;
+            this.items = Collections.synchronizedList(new ArrayList<>(filteredList.getItems()));
+        }
+
+        public void apply(@NonNull final CollectionChanges<Integer> changes) {
+            final Iterator<Integer> insertedItems = changes.getInsertedItems().iterator();
+            for (final Change change : changes.getChanges()) {
+                if (change instanceof Change.Inserted) {
+                    for (int i = 0; i < ((Change.Inserted) change).getCount(); i++) {
+                        items.add(((Change.Inserted) change).getPosition() + i, insertedItems.next());
+                    }
+                } else if (change instanceof Change.Removed) {
+                    final Change.Removed removed = (Change.Removed) change;
+                    items.subList(removed.getPosition(), removed.getPosition() + removed.getCount()).clear();
+                } else if (change instanceof Change.Moved) {
+                    final Change.Moved moved = (Change.Moved) change;
+                    items.add(moved.getToPosition(), items.remove(moved.getFromPosition()));
+                } else if (change instanceof Change.Changed) {
+                    final Change.Changed changed = (Change.Changed) change;
+                    for (int i = 0; i < changed.getCount(); i++) {
+                        items.set(changed.getPosition() + i, filteredList.get(changed.getPosition() + i));
+                    }
+                }
+            }
+            Assert.assertFalse(insertedItems.hasNext());
+        }
+
+        public void await(@NonNull final ObservableList<Integer> source) throws InterruptedException {
+            awaitFiltered(filteredList, source);
+            final List<Integer> expected = filterEven(source.getItems());
+            final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MILLIS;
+            while (!expected.equals(new ArrayList<>(items)) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            Assert.assertEquals(expected, new ArrayList<>(items));
+        }
+
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ObservableListConcurrentReadTest {
+
+    private static final int READERS_COUNT = 4;
+    private static final int WRITES_COUNT = 20000;
+    private static final int MIN_SIZE = 10;
+    private static final int MAX_SIZE = 200;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    @NonNull
+    private static List<Integer> createRange(final int first, final int size) {
+        final List<Integer> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(first + i);
+        }
+        return result;
+    }
+
+    // every state of list is range of consecutive numbers so readers could check that they see whole state
+    private static void writeRandomly(@NonNull final ObservableList<Integer> list, @NonNull final Random random) {
+        final int first = list.get(0);
+        final int size = list.size();
+        switch (random.nextInt(6)) {
+            case 0:
+                if (size < MAX_SIZE) {
+                    list.add(first + size);
+                }
+                break;
+            case 1:
+                if (size < MAX_SIZE) {
+                    list.addAll(createRange(first + size, random.nextInt(MAX_SIZE - size) + 1));
+                }
+                break;
+            case 2:
+                if (size > MIN_SIZE) {
+                    list.remove(0);
+                }
+                break;
+            case 3:
+                if (size > MIN_SIZE) {
+                    final int count = random.nextInt(size - MIN_SIZE) + 1;
+                    list.remove(size - count, count);
+                }
+                break;
+            case 4:
+                final int position = random.nextInt(size);
+                list.update(position, first + position);
+                break;
+            default:
+                list.set(createRange(random.nextInt(MAX_SIZE), MIN_SIZE + random.nextInt(MAX_SIZE - MIN_SIZE)));
+                break;
+        }
+    }
+
+    private static void assertConsistent(@NonNull final Collection<Integer> items) {
+        // items are returned as immutable snapshot list
+        final List<Integer> snapshot = (List<Integer>) items;
+        final int size = snapshot.size();
+        Assert.assertTrue(size >= MIN_SIZE && size <= MAX_SIZE);
+        final int first = snapshot.get(0);
+        int iteratedCount = 0;
+        for (final Integer item : snapshot) {
+            Assert.assertEquals(first + iteratedCount, item.intValue());
+            iteratedCount++;
+        }
+        Assert.assertEquals(size, iteratedCount);
+        Assert.assertEquals(first + size - 1, snapshot.get(size - 1).intValue());
+        Assert.assertEquals(size / 2, snapshot.indexOf(first + size / 2));
+        Assert.assertEquals(-1, snapshot.indexOf(first + size));
+    }
+
+    private static void readRandomly(@NonNull final ObservableList<Integer> list, @NonNull final Random random) {
+        assertConsistent(list.getItems());
+        // separate reads could see different states but each of them should be consistent
+        final int size = list.size();
+        Assert.assertTrue(size >= MIN_SIZE && size <= MAX_SIZE);
+        final Integer item = list.get(random.nextInt(MIN_SIZE));
+        Assert.assertNotNull(item);
+        final int position = list.indexOf(item);
+        Assert.assertTrue(position >= -1 && position < MAX_SIZE);
+    }
+
+    @Test
+    public void readersSeeOnlyConsistentStatesWhileWriting() throws Exception {
+        final ObservableList<Integer> list = new ObservableList<>(createRange(0, MIN_SIZE));
+        list.enableDiffUtils(false, Integer::equals, null);
+        final ExecutorService executor = Executors.newFixedThreadPool(READERS_COUNT);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final CountDownLatch readersStarted = new CountDownLatch(READERS_COUNT);
+        final List<Future<Integer>> readers = new ArrayList<>();
+        try {
+            for (int i = 0; i < READERS_COUNT; i++) {
+                final Random random = new Random(i);
+                readers.add(executor.submit(() -> {
+                    readersStarted.countDown();
+                    int readsCount = 0;
+                    while (writing.get()) {
+                        readRandomly(list, random);
+                        readsCount++;
+                    }
+                    return readsCount;
+                }));
+            }
+            Assert.assertTrue(readersStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            final Random random = new Random(READERS_COUNT);
+            for (int i = 0; i < WRITES_COUNT; i++) {
+                writeRandomly(list, random);
+                // gives readers a chance to run between writes on few cores
+                if (i % 100 == 0) {
+                    Thread.yield();
+                }
+            }
+            writing.set(false);
+            for (final Future<Integer> reader : readers) {
+                Assert.assertTrue(reader.get(TIMEOUT_SECONDS, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            writing.set(false);
+            executor.shutdownNow();
+        }
+        assertConsistent(list.getItems());
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+public class ObservableListSetAsyncBenchmark {
+
+    // first size is warming up
+    private static final int[] SIZES = {1000, 1000, 10000, 100000};
+    private static final int ITERATIONS_COUNT = 5;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    @NonNull
+    private static List<Integer> createItems(final int size) {
+        final List<Integer> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    @NonNull
+    private static List<Integer> modify(@NonNull final Random random, @NonNull final List<Integer> items) {
+        final List<Integer> result = new ArrayList<>(items);
+        for (int i = items.size() / 20; i > 0; i--) {
+            result.remove(random.nextInt(result.size()));
+            result.add(random.nextInt(result.size() + 1), -random.nextInt(Integer.MAX_VALUE));
+        }
+        return result;
+    }
+
+    @Test
+    public void mainThreadTimeOfSetAndSetAsync() throws Exception {
+        final AtomicLong mainThreadNanos = new AtomicLong();
+        // single thread which is measuring how long it was busy as main thread does
+        final ExecutorService mainThread = Executors.newSingleThreadExecutor();
+        final Scheduler mainScheduler = Schedulers.from(command -> mainThread.execute(() -> {
+            final long startTime = System.nanoTime();
+            command.run();
+            mainThreadNanos.addAndGet(System.nanoTime() - startTime);
+        }));
+        try {
+            for (final int size : SIZES) {
+                final Random random = new Random(size);
+                final ObservableList<Integer> list = new ObservableList<>(createItems(size));
+                list.enableDiffUtils(false, Integer::equals, null, item -> item);
+
+                mainThreadNanos.set(0);
+                for (int i = 0; i < ITERATIONS_COUNT; i++) {
+                    final List<Integer> newItems = modify(random, new ArrayList<>(list.getItems()));
+                    mainThread.submit(() -> {
+                        final long startTime = System.nanoTime();
+                        list.set(newItems);
+                        mainThreadNanos.addAndGet(System.nanoTime() - startTime);
+                    }).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+                final long setNanos = mainThreadNanos.getAndSet(0);
+
+                for (int i = 0; i < ITERATIONS_COUNT; i++) {
+                    final List<Integer> newItems = modify(random, new ArrayList<>(list.getItems()));
+                    mainThread.submit(() -> {
+                        final long startTime = System.nanoTime();
+                        list.setAsync(newItems, mainScheduler).subscribe();
+                        mainThreadNanos.addAndGet(System.nanoTime() - startTime);
+                    });
+                    final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+                    while (!list.getItems().equals(newItems) && System.currentTimeMillis() < deadline) {
+                        Thread.sleep(1);
+                    }
+                    Assert.assertEquals(newItems, new ArrayList<>(list.getItems()));
+                }
+
+                System.out.println(String.format("ObservableList of %d items: set() blocks main thread for %.2f ms, setAsync() for %.2f ms",
+                        size, setNanos / 1000000.0 / ITERATIONS_COUNT, mainThreadNanos.get() / 1000000.0 / ITERATIONS_COUNT));
+            }
+        } finally {
+            mainThread.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Completable;
+import io.reactivex.schedulers.Schedulers;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+
+public class ObservableListSetAsyncTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Test
+    public void setAsyncAppliesItemsWithOneChange() {
+        final ObservableList<Integer> list = new ObservableList<>(Arrays.asList(1, 2, 3));
+        list.enableDiffUtils(false, Integer::equals, null);
+        final List<CollectionChanges<Integer>> changes = Collections.synchronizedList(new ArrayList<>());
+        list.observeChanges().subscribe(changes::add);
+
+        Assert.assertTrue(list.setAsync(Arrays.asList(0, 1, 3, 4), Schedulers.single()).blockingAwait(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        Assert.assertEquals(Arrays.asList(0, 1, 3, 4), new ArrayList<>(list.getItems()));
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(list.getChangesCount(), changes.get(0).getNumber());
+    }
+
+    @Test
+    public void setAsyncRecalculatesChangesIfListChangedDuringCalculation() throws InterruptedException {
+        final ObservableList<Integer> list = new ObservableList<>(Arrays.asList(1, 2, 3));
+        final CountDownLatch calculationStarted = new CountDownLatch(1);
+        final CountDownLatch listChanged = new CountDownLatch(1);
+        final List<String> calculationThreads = Collections.synchronizedList(new ArrayList<>());
+        list.enableDiffUtils(false, (item1, item2) -> {
+            calculationThreads.add(Thread.currentThread().getName());
+            calculationStarted.countDown();
+            try {
+                listChanged.await();
+            } catch (final InterruptedException exception) {
+                throw new IllegalStateException(exception);
+            }
+            return item1.equals(item2);
+        }, null);
+        final List<CollectionChanges<Integer>> changes = Collections.synchronizedList(new ArrayList<>());
+        list.observeChanges().subscribe(changes::add);
+
+        final Completable setting = list.setAsync(Arrays.asList(3, 4, 5), Schedulers.single()).cache();
+        setting.subscribe();
+        Assert.assertTrue(calculationStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        list.add(0, 0);
+        listChanged.countDown();
+
+        Assert.assertTrue(setting.blockingAwait(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(3, 4, 5), new ArrayList<>(list.getItems()));
+        Assert.assertEquals(2, changes.size());
+        Assert.assertEquals(list.getChangesCount(), changes.get(1).getNumber());
+        for (final String threadName : calculationThreads) {
+            Assert.assertTrue(threadName, threadName.startsWith("RxComputationThreadPool"));
+        }
+    }
+
+    @Test
+    public void setAsyncCalculatesWithDiffSettingsTakenOnRequest() throws InterruptedException {
+        final ObservableList<Integer> list = new ObservableList<>(Arrays.asList(1, 2, 3));
+        final CountDownLatch calculationStarted = new CountDownLatch(1);
+        final CountDownLatch settingsChanged = new CountDownLatch(1);
+        final AtomicBoolean newPredicateCalled = new AtomicBoolean();
+        list.enableDiffUtils(false, (item1, item2) -> {
+            calculationStarted.countDown();
+            try {
+                settingsChanged.await();
+            } catch (final InterruptedException exception) {
+                throw new IllegalStateException(exception);
+            }
+            return item1.equals(item2);
+        }, null);
+
+        final Completable setting = list.setAsync(Arrays.asList(2, 3, 4), Schedulers.single()).cache();
+        setting.subscribe();
+        Assert.assertTrue(calculationStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        list.enableDiffUtils(true, (item1, item2) -> {
+            newPredicateCalled.set(true);
+            return item1.equals(item2);
+        }, null);
+        settingsChanged.countDown();
+
+        Assert.assertTrue(setting.blockingAwait(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(2, 3, 4), new ArrayList<>(list.getItems()));
+        Assert.assertFalse(newPredicateCalled.get());
+    }
+
+    @Test
+    public void setAsyncDropsResultOfOutdatedSetting() {
+        final ObservableList<Integer> list = new ObservableList<>(Arrays.asList(1, 2, 3));
+        final Completable first = list.setAsync(Arrays.asList(4, 5), Schedulers.single()).cache();
+        first.subscribe();
+        list.set(Arrays.asList(6, 7));
+
+        Assert.assertTrue(first.blockingAwait(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(6, 7), new ArrayList<>(list.getItems()));
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import io.reactivex.disposables.Disposable;
+
+public class ObservableListSetBenchmark {
+
+    private static final int SIZE = 10_000;
+    private static final int REPLACED_ITEMS_COUNT = 20;
+    // first repeat is warming up
+    private static final int REPEATS_COUNT = 3;
+    private static final int SETS_COUNT = 10;
+
+    @NonNull
+    private static List<Integer> replaceRandomly(@NonNull final Random random, @NonNull final List<Integer> items) {
+        final List<Integer> result = new ArrayList<>(items);
+        for (int i = 0; i < REPLACED_ITEMS_COUNT; i++) {
+            result.set(random.nextInt(result.size()), -random.nextInt(Integer.MAX_VALUE));
+        }
+        return result;
+    }
+
+    private static long measureSetNanos(final boolean readItems, final boolean idDiff) {
+        final Random random = new Random(SIZE);
+        final List<Integer> initialItems = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            initialItems.add(i);
+        }
+        final ObservableList<Integer> list = new ObservableList<>(initialItems);
+        if (idDiff) {
+            list.enableIdDiff(false, item -> item, null);
+        } else {
+            list.enableDiffUtils(false, Integer::equals, null);
+        }
+        final int[] itemsCount = new int[1];
+        final Disposable disposable = list.observeChanges().subscribe(changes -> {
+            itemsCount[0] += changes.getChanges().size();
+            if (readItems) {
+                itemsCount[0] += changes.getInsertedItems().size() + changes.getRemovedItems().size();
+            }
+        });
+        long totalNanos = 0;
+        List<Integer> items = initialItems;
+        for (int i = 0; i < SETS_COUNT; i++) {
+            items = replaceRandomly(random, items);
+            final long startTime = System.nanoTime();
+            list.set(items);
+            totalNanos += System.nanoTime() - startTime;
+        }
+        disposable.dispose();
+        Assert.assertTrue(itemsCount[0] > 0);
+        return totalNanos / SETS_COUNT;
+    }
+
+    @Test
+    public void setDurationWithAndWithoutReadingItems() {
+        for (int i = 0; i < REPEATS_COUNT; i++) {
+            for (final boolean idDiff : new boolean[]{false, true}) {
+                final long changesOnlyNanos = measureSetNanos(false, idDiff);
+                final long withItemsNanos = measureSetNanos(true, idDiff);
+                System.out.println(String.format(Locale.US, "ObservableList.set of %d items with %d replaced by %s diff: "
+                                + "%.3f ms if subscriber reads only changes, %.3f ms if it reads inserted and removed items",
+                        SIZE, REPLACED_ITEMS_COUNT, idDiff ? "id" : "predicate",
+                        changesOnlyNanos / 1_000_000.0, withItemsNanos / 1_000_000.0));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class PersistentVectorBenchmark {
+
+    private static final int SIZE = 100000;
+    private static final int CHANGES_COUNT = 100000;
+
+    @Test
+    public void randomInsertsWithSnapshots() {
+        final Random random = new Random(1);
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            items.add(i);
+        }
+        final PersistentVector<Integer> vector = new PersistentVector<>(items);
+        final List<Integer> arrayList = new ArrayList<>(items);
+        long checksum = 0;
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < CHANGES_COUNT; i++) {
+            vector.add(random.nextInt(vector.size() + 1), i);
+            checksum += vector.snapshot().size();
+        }
+        final long vectorTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        for (int i = 0; i < CHANGES_COUNT / 100; i++) {
+            arrayList.add(random.nextInt(arrayList.size() + 1), i);
+            checksum += new ArrayList<>(arrayList).size();
+        }
+        final long arrayListTime = (System.nanoTime() - startTime) * 100;
+
+        System.out.println(String.format(Locale.US, "PersistentVector insert+snapshot on %d items: %.2f us per change, "
+                        + "ArrayList insert+copy: %.2f us per change (%d)", SIZE,
+                vectorTime / 1000.0 / CHANGES_COUNT, arrayListTime / 1000.0 / CHANGES_COUNT, checksum));
+        Assert.assertEquals(SIZE + CHANGES_COUNT, vector.size());
+    }
+
+}
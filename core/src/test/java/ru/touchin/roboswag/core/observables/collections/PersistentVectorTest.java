@@ -0,0 +1,171 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class PersistentVectorTest {
+
+    private static final int OPERATIONS_COUNT = 200000;
+    private static final int SNAPSHOT_PERIOD = 997;
+
+    private static void assertSameItems(@NonNull final List<Integer> expected, @NonNull final PersistentVector<Integer> vector) {
+        Assert.assertEquals(expected.size(), vector.size());
+        for (int i = 0; i < expected.size(); i++) {
+            if (!expected.get(i).equals(vector.get(i))) {
+                Assert.fail("Item at " + i + " is " + vector.get(i) + " but expected " + expected.get(i));
+            }
+        }
+    }
+
+    private static void assertSameItems(@NonNull final List<Integer> expected, @NonNull final PersistentVector.Snapshot<Integer> snapshot) {
+        Assert.assertEquals(expected.size(), snapshot.size());
+        Assert.assertArrayEquals(expected.toArray(), snapshot.toArray());
+        final Iterator<Integer> iterator = snapshot.iterator();
+        for (final Integer item : expected) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertEquals(item, iterator.next());
+        }
+        Assert.assertFalse(iterator.hasNext());
+        for (int i = 0; i < expected.size(); i++) {
+            if (!expected.get(i).equals(snapshot.get(i))) {
+                Assert.fail("Snapshot item at " + i + " is " + snapshot.get(i) + " but expected " + expected.get(i));
+            }
+        }
+    }
+
+    private static void applyRandomOperation(@NonNull final Random random,
+                                             @NonNull final List<Integer> expected,
+                                             @NonNull final PersistentVector<Integer> vector,
+                                             final int targetSize) {
+        final Integer item = random.nextInt();
+        final int operation = random.nextInt(expected.size() < targetSize ? 6 : 4);
+        if (expected.isEmpty() || operation >= 3) {
+            final int position = random.nextInt(expected.size() + 1);
+            expected.add(position, item);
+            vector.add(position, item);
+        } else if (operation == 0 || operation == 1) {
+            final int position = random.nextInt(expected.size());
+            Assert.assertEquals(expected.remove(position), vector.remove(position));
+        } else {
+            final int position = random.nextInt(expected.size());
+            expected.set(position, item);
+            vector.set(position, item);
+        }
+    }
+
+    @Test
+    public void randomOperationsMatchArrayList() {
+        final Random random = new Random(21);
+        final List<Integer> expected = new ArrayList<>();
+        final PersistentVector<Integer> vector = new PersistentVector<>();
+        for (int i = 0; i < OPERATIONS_COUNT; i++) {
+            //target size is changing to grow tree to several levels and to shrink it back to single leaf
+            final int targetSize = (i / 20000) % 2 == 0 ? 5000 : 10;
+            applyRandomOperation(random, expected, vector, targetSize);
+            if (i % SNAPSHOT_PERIOD == 0) {
+                assertSameItems(expected, vector);
+            }
+        }
+        assertSameItems(expected, vector);
+        assertSameItems(expected, vector.snapshot());
+    }
+
+    @Test
+    public void snapshotsAreNotChangedByLaterOperations() {
+        final Random random = new Random(42);
+        final List<Integer> expected = new ArrayList<>();
+        final PersistentVector<Integer> vector = new PersistentVector<>();
+        final List<PersistentVector.Snapshot<Integer>> snapshots = new ArrayList<>();
+        final List<List<Integer>> snapshotsItems = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS_COUNT / 4; i++) {
+            applyRandomOperation(random, expected, vector, 3000);
+            if (i % SNAPSHOT_PERIOD == 0) {
+                snapshots.add(vector.snapshot());
+                snapshotsItems.add(new ArrayList<>(expected));
+            }
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertSameItems(snapshotsItems.get(i), snapshots.get(i));
+        }
+        assertSameItems(expected, vector);
+    }
+
+    @Test
+    public void snapshotIsNotChangedBySetAllAndClear() {
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            items.add(i);
+        }
+        final PersistentVector<Integer> vector = new PersistentVector<>(items);
+        final PersistentVector.Snapshot<Integer> snapshot = vector.snapshot();
+        vector.setAll(Arrays.asList(1, 2, 3));
+        assertSameItems(items, snapshot);
+        assertSameItems(Arrays.asList(1, 2, 3), vector);
+        final PersistentVector.Snapshot<Integer> shortSnapshot = vector.snapshot();
+        vector.clear();
+        vector.add(0, 4);
+        assertSameItems(Arrays.asList(1, 2, 3), shortSnapshot);
+        assertSameItems(items, snapshot);
+        assertSameItems(Arrays.asList(4), vector);
+        Assert.assertEquals(1999, snapshot.indexOf(1999));
+        Assert.assertEquals(-1, snapshot.indexOf(2000));
+    }
+
+    @Test
+    public void setAllMatchesArrayListOnTreeBoundaries() {
+        final Random random = new Random(7);
+        for (final int size : new int[]{0, 1, 31, 32, 33, 1023, 1024, 1025, 32 * 32 * 32 + 1}) {
+            final List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                expected.add(i);
+            }
+            final PersistentVector<Integer> vector = new PersistentVector<>(expected);
+            assertSameItems(expected, vector.snapshot());
+            for (int i = 0; i < 3000; i++) {
+                applyRandomOperation(random, expected, vector, size);
+            }
+            assertSameItems(expected, vector.snapshot());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getOutOfBoundsThrows() {
+        new PersistentVector<>(Arrays.asList(1, 2, 3)).get(3);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void iteratorAfterEndThrows() {
+        final Iterator<Integer> iterator = new PersistentVector<>(Arrays.asList(1)).snapshot().iterator();
+        iterator.next();
+        iterator.next();
+    }
+
+}
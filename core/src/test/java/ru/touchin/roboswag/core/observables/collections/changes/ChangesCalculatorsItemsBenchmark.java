@@ -0,0 +1,62 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import ru.touchin.roboswag.core.observables.collections.changes.ChangesCalculatorsItemsTest.Item;
+
+public class ChangesCalculatorsItemsBenchmark {
+
+    private static final int SIZE = 10_000;
+
+    @Test
+    public void itemsCalculationDurationOn10kItems() {
+        final Random random = new Random(3);
+        final List<Item> oldItems = ChangesCalculatorsItemsTest.createItems(random, SIZE, SIZE * 2);
+        final List<Item> newItems = ChangesCalculatorsItemsTest.createItems(random, SIZE, SIZE * 2);
+        final SameItemsPredicate<Item> sameIds = (item1, item2) -> item1.getId() == item2.getId();
+
+        long startTime = System.nanoTime();
+        final List<Item> expectedInsertedItems = ChangesCalculatorsItemsTest.naiveDifference(newItems, oldItems, sameIds);
+        final long naiveNanos = System.nanoTime() - startTime;
+
+        final DefaultCollectionsChangesCalculator<Item> defaultCalculator = new DefaultCollectionsChangesCalculator<>(oldItems, newItems, false);
+        startTime = System.nanoTime();
+        defaultCalculator.calculateInsertedItems();
+        final long defaultNanos = System.nanoTime() - startTime;
+
+        final DiffCollectionsChangesCalculator<Item> diffCalculator
+                = new DiffCollectionsChangesCalculator<>(oldItems, newItems, false, sameIds, null, Item::getId);
+        startTime = System.nanoTime();
+        final List<Item> insertedItems = diffCalculator.calculateInsertedItems();
+        final long keyNanos = System.nanoTime() - startTime;
+
+        Assert.assertEquals(expectedInsertedItems, insertedItems);
+        System.out.println(String.format(Locale.US, "Inserted items of %d items: %.2f ms by scan, %.2f ms by equals hash, %.2f ms by key hash",
+                SIZE, naiveNanos / 1_000_000.0, defaultNanos / 1_000_000.0, keyNanos / 1_000_000.0));
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ChangesCalculatorsItemsTest {
+
+    private static final int ITERATIONS_COUNT = 500;
+
+    @NonNull
+    static List<Item> createItems(@NonNull final Random random, final int size, final int idsCount) {
+        final List<Item> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new Item(random.nextInt(idsCount), random.nextInt(2)));
+        }
+        return result;
+    }
+
+    @NonNull
+    static List<Item> naiveDifference(@NonNull final List<Item> items, @NonNull final List<Item> itemsToExclude,
+                                              @NonNull final SameItemsPredicate<Item> predicate) {
+        final List<Item> result = new ArrayList<>();
+        for (final Item item : items) {
+            boolean found = false;
+            for (final Item itemToExclude : itemsToExclude) {
+                if (predicate.areSame(itemToExclude, item)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void defaultCalculatorItemsMatchNaiveDifference() {
+        final Random random = new Random(1);
+        for (int i = 0; i < ITERATIONS_COUNT; i++) {
+            final List<Item> oldItems = createItems(random, random.nextInt(30), 20);
+            final List<Item> newItems = createItems(random, random.nextInt(30), 20);
+            final DefaultCollectionsChangesCalculator<Item> calculator = new DefaultCollectionsChangesCalculator<>(oldItems, newItems, false);
+
+            Assert.assertEquals(naiveDifference(newItems, oldItems, Item::equals), calculator.calculateInsertedItems());
+            Assert.assertEquals(naiveDifference(oldItems, newItems, Item::equals), calculator.calculateRemovedItems());
+        }
+    }
+
+    @Test
+    public void diffCalculatorItemsByKeyMatchItemsByPredicate() {
+        final Random random = new Random(2);
+        final SameItemsPredicate<Item> sameIds = (item1, item2) -> item1.id == item2.id;
+        for (int i = 0; i < ITERATIONS_COUNT; i++) {
+            final List<Item> oldItems = createItems(random, random.nextInt(30), 20);
+            final List<Item> newItems = createItems(random, random.nextInt(30), 20);
+            final DiffCollectionsChangesCalculator<Item> byPredicate
+                    = new DiffCollectionsChangesCalculator<>(oldItems, newItems, false, sameIds, null);
+            final DiffCollectionsChangesCalculator<Item> byKey
+                    = new DiffCollectionsChangesCalculator<>(oldItems, newItems, false, sameIds, null, item -> item.id);
+
+            Assert.assertEquals(naiveDifference(newItems, oldItems, sameIds), byPredicate.calculateInsertedItems());
+            Assert.assertEquals(naiveDifference(oldItems, newItems, sameIds), byPredicate.calculateRemovedItems());
+            Assert.assertEquals(byPredicate.calculateInsertedItems(), byKey.calculateInsertedItems());
+            Assert.assertEquals(byPredicate.calculateRemovedItems(), byKey.calculateRemovedItems());
+        }
+    }
+
+    static class Item {
+
+        private final int id;
+        private final int version;
+
+        public Item(final int id, final int version) {
+            this.id = id;
+            this.version = version;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            return object instanceof Item && ((Item) object).id == id && ((Item) object).version == version;
+        }
+
+        @Override
+        public int hashCode() {
+            return id * 31 + version;
+        }
+
+        @Override
+        public String toString() {
+            return id + "v" + version;
+        }
+
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import ru.touchin.roboswag.core.android.support.v7.util.ListUpdateCallback;
+
+public class ChangesLogBenchmark {
+
+    private static final int CHANGES_COUNT = 20_000;
+    // first repeat is warming up
+    private static final int REPEATS_COUNT = 3;
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void produceChanges(@NonNull final ListUpdateCallback callback) {
+        for (int i = 0; i < CHANGES_COUNT; i++) {
+            switch (i % 4) {
+                case 0:
+                    callback.onInserted(i, 1);
+                    break;
+                case 1:
+                    callback.onRemoved(i, 2);
+                    break;
+                case 2:
+                    callback.onMoved(i, i + 1);
+                    break;
+                default:
+                    callback.onChanged(i, 1, null);
+                    break;
+            }
+        }
+    }
+
+    // dispatching of change objects like it was made before ChangesLog
+    private static void dispatchObjects(@NonNull final List<Change> changes, @NonNull final ListUpdateCallback callback) {
+        for (final Change change : changes) {
+            if (change instanceof Change.Inserted) {
+                callback.onInserted(((Change.Inserted) change).getPosition(), ((Change.Inserted) change).getCount());
+            } else if (change instanceof Change.Removed) {
+                callback.onRemoved(((Change.Removed) change).getPosition(), ((Change.Removed) change).getCount());
+            } else if (change instanceof Change.Moved) {
+                callback.onMoved(((Change.Moved) change).getFromPosition(), ((Change.Moved) change).getToPosition());
+            } else if (change instanceof Change.Changed) {
+                callback.onChanged(((Change.Changed) change).getPosition(), ((Change.Changed) change).getCount(),
+                        ((Change.Changed) change).getPayload());
+            }
+        }
+    }
+
+    @Test
+    public void allocationsAndDurationOfProducingAndDispatching() {
+        for (int repeat = 0; repeat < REPEATS_COUNT; repeat++) {
+            long allocatedBytes = getAllocatedBytes();
+            long startTime = System.nanoTime();
+            final List<Change> objects = new ArrayList<>();
+            produceChanges(new ObjectsCollector(objects));
+            final long objectsProduceNanos = System.nanoTime() - startTime;
+            final long objectsProduceBytes = getAllocatedBytes() - allocatedBytes;
+
+            allocatedBytes = getAllocatedBytes();
+            startTime = System.nanoTime();
+            final ChangesLog changesLog = new ChangesLog();
+            produceChanges(changesLog);
+            final long logProduceNanos = System.nanoTime() - startTime;
+            final long logProduceBytes = getAllocatedBytes() - allocatedBytes;
+
+            final SizeCounter objectsCounter = new SizeCounter();
+            allocatedBytes = getAllocatedBytes();
+            startTime = System.nanoTime();
+            dispatchObjects(objects, objectsCounter);
+            final long objectsDispatchNanos = System.nanoTime() - startTime;
+            final long objectsDispatchBytes = getAllocatedBytes() - allocatedBytes;
+
+            final SizeCounter logCounter = new SizeCounter();
+            allocatedBytes = getAllocatedBytes();
+            startTime = System.nanoTime();
+            changesLog.dispatchTo(logCounter);
+            final long logDispatchNanos = System.nanoTime() - startTime;
+            final long logDispatchBytes = getAllocatedBytes() - allocatedBytes;
+
+            Assert.assertEquals(objectsCounter.sizeDelta, logCounter.sizeDelta);
+            Assert.assertEquals(changesLog.getSizeDelta(), logCounter.sizeDelta);
+            System.out.println(String.format(Locale.US, "%d changes: Change objects produced in %.3f ms with %d KB, "
+                            + "dispatched in %.3f ms with %d KB; ChangesLog produced in %.3f ms with %d KB, "
+                            + "dispatched in %.3f ms with %d KB", CHANGES_COUNT,
+                    objectsProduceNanos / 1_000_000.0, objectsProduceBytes / 1024, objectsDispatchNanos / 1_000_000.0, objectsDispatchBytes / 1024,
+                    logProduceNanos / 1_000_000.0, logProduceBytes / 1024, logDispatchNanos / 1_000_000.0, logDispatchBytes / 1024));
+        }
+    }
+
+    private static class ObjectsCollector implements ListUpdateCallback {
+
+        @NonNull
+        private final List<Change> changes;
+
+        public ObjectsCollector(@NonNull final List<Change> changes) {
+            this.changes = changes;
+        }
+
+        @Override
+        public void onInserted(final int position, final int count) {
+            changes.add(new Change.Inserted(position, count));
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            changes.add(new Change.Removed(position, count));
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            changes.add(new Change.Moved(fromPosition, toPosition));
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, @Nullable final Object payload) {
+            changes.add(new Change.Changed(position, count, payload));
+        }
+
+    }
+
+    private static class SizeCounter implements ListUpdateCallback {
+
+        private int sizeDelta;
+
+        @Override
+        public void onInserted(final int position, final int count) {
+            sizeDelta += count;
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            sizeDelta -= count;
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            // size is not changing
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, @Nullable final Object payload) {
+            // size is not changing
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import ru.touchin.roboswag.core.observables.collections.ObservableList;
+
+public class CollectionChangesTest {
+
+    private static final int RANDOM_CASES_COUNT = 200;
+
+    @NonNull
+    private static List<Integer> createRandomItems(@NonNull final Random random) {
+        final int size = random.nextInt(30);
+        final List<Integer> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            // narrow range of values gives duplicates
+            result.add(random.nextInt(20));
+        }
+        return result;
+    }
+
+    @NonNull
+    private static List<CalculatorFactory> createCalculatorFactories() {
+        return Arrays.asList(
+                (oldList, newList) -> new DefaultCollectionsChangesCalculator<>(oldList, newList, false),
+                (oldList, newList) -> new DiffCollectionsChangesCalculator<>(oldList, newList, true, Integer::equals, null),
+                (oldList, newList) -> new DiffCollectionsChangesCalculator<>(oldList, newList, false, Integer::equals, null, item -> item),
+                (oldList, newList) -> new IdDiffCollectionsChangesCalculator<>(oldList, newList, true, item -> item, null));
+    }
+
+    private static void assertSameItems(@NonNull final CollectionChanges<Integer> expected, @NonNull final CollectionChanges<Integer> actual) {
+        Assert.assertEquals(expected.getInsertedItems(), actual.getInsertedItems());
+        Assert.assertEquals(expected.getRemovedItems(), actual.getRemovedItems());
+    }
+
+    @Test
+    public void changesLogIsReadOnly() {
+        final CollectionChanges<Integer> changes = new CollectionChanges<>(1, Collections.singletonList(1), Collections.emptyList(),
+                Arrays.asList(new Change.Inserted(0, 1), new Change.Changed(0, 1, null)));
+        final ChangesLog changesLog = changes.getChangesLog();
+        try {
+            changesLog.onRemoved(0, 1);
+            Assert.fail("Changes log should be read-only");
+        } catch (final UnsupportedOperationException exception) {
+            // expected
+        }
+        try {
+            changesLog.clear();
+            Assert.fail("Changes log should be read-only");
+        } catch (final UnsupportedOperationException exception) {
+            // expected
+        }
+        Assert.assertEquals(2, changesLog.size());
+        Assert.assertSame(changesLog, changes.getChangesLog());
+    }
+
+    @Test
+    public void passedChangesLogBecomesReadOnlyAndItsCopyIsModifiable() {
+        final ChangesLog passedLog = new ChangesLog();
+        passedLog.onInserted(0, 2);
+        final CollectionChanges<Integer> changes = new CollectionChanges<>(1, Arrays.asList(1, 2), Collections.emptyList(), passedLog);
+        try {
+            passedLog.onInserted(2, 1);
+            Assert.fail("Changes log passed to changes should be read-only");
+        } catch (final UnsupportedOperationException exception) {
+            // expected
+        }
+
+        final ChangesLog copy = new ChangesLog(changes.getChangesLog());
+        copy.onRemoved(0, 1);
+        changes.getChangesLog().dispatchTo(copy);
+        Assert.assertEquals(3, copy.size());
+        Assert.assertEquals(3, copy.getSizeDelta());
+        Assert.assertEquals(1, changes.getChangesLog().size());
+    }
+
+    @Test
+    public void lazyItemsAreSameAsEagerItems() {
+        final Random random = new Random(24);
+        for (int i = 0; i < RANDOM_CASES_COUNT; i++) {
+            final List<Integer> oldList = createRandomItems(random);
+            final List<Integer> newList = createRandomItems(random);
+            for (final CalculatorFactory factory : createCalculatorFactories()) {
+                final CollectionsChangesCalculator<Integer> eagerCalculator = factory.create(oldList, newList);
+                final CollectionChanges<Integer> eagerChanges = new CollectionChanges<>(0, eagerCalculator.calculateInsertedItems(),
+                        eagerCalculator.calculateRemovedItems(), eagerCalculator.calculateChanges());
+                final CollectionsChangesCalculator<Integer> lazyCalculator = factory.create(oldList, newList);
+                final CollectionChanges<Integer> lazyChanges = new CollectionChanges<>(0, lazyCalculator, lazyCalculator.calculateChanges());
+
+                // removed items are requested first to check that order of requests doesn't matter
+                Assert.assertEquals(eagerChanges.getRemovedItems(), lazyChanges.getRemovedItems());
+                assertSameItems(eagerChanges, lazyChanges);
+                Assert.assertEquals(eagerChanges.getChanges().size(), lazyChanges.getChanges().size());
+            }
+        }
+    }
+
+    @Test
+    public void lazyItemsOfListChangesAreCalculatedForStateOfTheirChange() {
+        final Random random = new Random(42);
+        final ObservableList<Integer> list = new ObservableList<>();
+        list.enableDiffUtils(true, Integer::equals, null);
+        final List<CollectionChanges<Integer>> receivedChanges = new ArrayList<>();
+        list.observeChanges().subscribe(receivedChanges::add);
+        final List<List<Integer>> states = new ArrayList<>();
+        states.add(new ArrayList<>());
+        for (int i = 0; i < RANDOM_CASES_COUNT; i++) {
+            final List<Integer> newItems = createRandomItems(random);
+            list.set(newItems);
+            states.add(newItems);
+        }
+
+        // items are requested only after all later sets are applied
+        Assert.assertEquals(RANDOM_CASES_COUNT, receivedChanges.size());
+        for (int i = 0; i < RANDOM_CASES_COUNT; i++) {
+            final CollectionsChangesCalculator<Integer> eagerCalculator
+                    = new DiffCollectionsChangesCalculator<>(states.get(i), states.get(i + 1), true, Integer::equals, null);
+            final CollectionChanges<Integer> eagerChanges = new CollectionChanges<>(0, eagerCalculator.calculateInsertedItems(),
+                    eagerCalculator.calculateRemovedItems(), eagerCalculator.calculateChanges());
+            assertSameItems(eagerChanges, receivedChanges.get(i));
+        }
+    }
+
+    private interface CalculatorFactory {
+
+        @NonNull
+        CollectionsChangesCalculator<Integer> create(@NonNull List<Integer> oldList, @NonNull List<Integer> newList);
+
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+public class DiffCollectionsChangesCalculatorBenchmark {
+
+    // first size is warming up
+    private static final int[] SIZES = {1000, 1000, 5000, 10000};
+    private static final int BUDGET_EDIT_DISTANCE = 200;
+    private static final long BUDGET_DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+    @NonNull
+    private static List<Integer> createRange(final int from, final int size) {
+        final List<Integer> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(from + i);
+        }
+        return result;
+    }
+
+    private static long measureCalculation(@NonNull final List<Integer> oldList, @NonNull final List<Integer> newList,
+                                           final int maxEditDistance, final long maxDurationNanos) {
+        final DiffCollectionsChangesCalculator<Integer> calculator
+                = new DiffCollectionsChangesCalculator<>(oldList, newList, false, Integer::equals, null, item -> item);
+        calculator.setBudget(maxEditDistance, maxDurationNanos);
+        final long startTime = System.nanoTime();
+        Assert.assertFalse(calculator.calculateChanges().isEmpty());
+        return System.nanoTime() - startTime;
+    }
+
+    @Test
+    public void worstCaseDiffWithAndWithoutBudget() {
+        for (final int size : SIZES) {
+            // lists without common items are the worst case of Myers' algorithm
+            final List<Integer> oldList = createRange(0, size);
+            final List<Integer> newList = createRange(size, size);
+            final long budgetExceededCount = DiffCollectionsChangesCalculator.getBudgetExceededCount();
+
+            final long unlimitedNanos = measureCalculation(oldList, newList, Integer.MAX_VALUE, Long.MAX_VALUE);
+            final long editDistanceNanos = measureCalculation(oldList, newList, BUDGET_EDIT_DISTANCE, Long.MAX_VALUE);
+            final long durationNanos = measureCalculation(oldList, newList, Integer.MAX_VALUE, BUDGET_DURATION_NANOS);
+
+            Assert.assertEquals(budgetExceededCount + 2, DiffCollectionsChangesCalculator.getBudgetExceededCount());
+            System.out.println(String.format(Locale.US,
+                    "Diff of %d totally different items: %.2f ms without budget, %.2f ms with %d edit distance, %.2f ms with %d ms duration",
+                    size, unlimitedNanos / 1_000_000.0, editDistanceNanos / 1_000_000.0, BUDGET_EDIT_DISTANCE,
+                    durationNanos / 1_000_000.0, TimeUnit.NANOSECONDS.toMillis(BUDGET_DURATION_NANOS)));
+        }
+    }
+
+}
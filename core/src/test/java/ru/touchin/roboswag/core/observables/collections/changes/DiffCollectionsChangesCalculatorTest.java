@@ -0,0 +1,174 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import ru.touchin.roboswag.core.observables.collections.ObservableList;
+
+public class DiffCollectionsChangesCalculatorTest {
+
+    private static final int ITERATIONS_COUNT = 300;
+    private static final int MAX_SIZE = 60;
+    private static final int BIG_SIZE = 2000;
+
+    @NonNull
+    private static List<Integer> createRandomList(@NonNull final Random random, final int size, final int valuesCount) {
+        final List<Integer> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(random.nextInt(valuesCount));
+        }
+        return result;
+    }
+
+    @NonNull
+    private static List<Integer> createRange(final int from, final int size) {
+        final List<Integer> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(from + i);
+        }
+        return result;
+    }
+
+    @NonNull
+    private static DiffCollectionsChangesCalculator<Integer> createCalculator(@NonNull final List<Integer> oldList,
+                                                                              @NonNull final List<Integer> newList,
+                                                                              final boolean detectMoves) {
+        return new DiffCollectionsChangesCalculator<>(oldList, newList, detectMoves, Integer::equals, null, item -> item);
+    }
+
+    @Test
+    public void changesWithinBudgetConvertList() {
+        final Random random = new Random(1);
+        for (int i = 0; i < ITERATIONS_COUNT; i++) {
+            final List<Integer> oldList = createRandomList(random, random.nextInt(MAX_SIZE), MAX_SIZE);
+            final List<Integer> newList = new ArrayList<>(oldList);
+            newList.add(random.nextInt(newList.size() + 1), MAX_SIZE);
+            final DiffCollectionsChangesCalculator<Integer> calculator = createCalculator(oldList, newList, random.nextBoolean());
+            calculator.setBudget(2, Long.MAX_VALUE);
+            final long budgetExceededCount = DiffCollectionsChangesCalculator.getBudgetExceededCount();
+
+            final List<Change> changes = calculator.calculateChanges();
+
+            Assert.assertEquals(budgetExceededCount, DiffCollectionsChangesCalculator.getBudgetExceededCount());
+            Assert.assertEquals(newList, applyChanges(oldList, newList, changes));
+        }
+    }
+
+    @Test
+    public void exceedingEditDistanceFallsBackToChangesConvertingList() {
+        final Random random = new Random(2);
+        for (int i = 0; i < ITERATIONS_COUNT; i++) {
+            final List<Integer> oldList = createRandomList(random, random.nextInt(MAX_SIZE), MAX_SIZE);
+            final List<Integer> newList = createRandomList(random, random.nextInt(MAX_SIZE), MAX_SIZE);
+            final DiffCollectionsChangesCalculator<Integer> calculator = createCalculator(oldList, newList, random.nextBoolean());
+            calculator.setBudget(random.nextInt(4), Long.MAX_VALUE);
+
+            Assert.assertEquals(newList, applyChanges(oldList, newList, calculator.calculateChanges()));
+        }
+    }
+
+    @Test
+    public void exceedingEditDistanceProducesCoarseChanges() {
+        checkCoarseChanges(createRange(0, 10), createRange(100, 15), 2, Long.MAX_VALUE);
+        checkCoarseChanges(createRange(0, 15), createRange(100, 10), 2, Long.MAX_VALUE);
+        checkCoarseChanges(createRange(0, 10), createRange(100, 10), 2, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void exceedingDurationProducesCoarseChanges() {
+        checkCoarseChanges(createRange(0, BIG_SIZE), createRange(BIG_SIZE, BIG_SIZE / 2), Integer.MAX_VALUE, 1);
+        checkCoarseChanges(createRange(0, BIG_SIZE / 2), createRange(BIG_SIZE, BIG_SIZE), Integer.MAX_VALUE, 1);
+    }
+
+    @Test
+    public void observableListFallsBackToChangesConvertingListOnExceedingBudget() {
+        final List<Integer> oldItems = createRange(0, 10);
+        final List<Integer> newItems = createRange(5, 20);
+        final ObservableList<Integer> list = new ObservableList<>(oldItems);
+        list.enableDiffUtils(true, Integer::equals, null, item -> item);
+        list.setDiffUtilsBudget(2, 1, TimeUnit.MINUTES);
+        final List<CollectionChanges<Integer>> changes = new ArrayList<>();
+        list.observeChanges().subscribe(changes::add);
+        final long budgetExceededCount = DiffCollectionsChangesCalculator.getBudgetExceededCount();
+
+        list.set(newItems);
+
+        Assert.assertEquals(budgetExceededCount + 1, DiffCollectionsChangesCalculator.getBudgetExceededCount());
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(newItems, applyChanges(oldItems, newItems, changes.get(0).getChanges()));
+    }
+
+    private static void checkCoarseChanges(@NonNull final List<Integer> oldList, @NonNull final List<Integer> newList,
+                                           final int maxEditDistance, final long maxDurationNanos) {
+        final DiffCollectionsChangesCalculator<Integer> calculator = createCalculator(oldList, newList, true);
+        calculator.setBudget(maxEditDistance, maxDurationNanos);
+        final long budgetExceededCount = DiffCollectionsChangesCalculator.getBudgetExceededCount();
+
+        final List<Change> changes = calculator.calculateChanges();
+
+        Assert.assertEquals(budgetExceededCount + 1, DiffCollectionsChangesCalculator.getBudgetExceededCount());
+        final int commonSize = Math.min(oldList.size(), newList.size());
+        Assert.assertEquals(commonSize > 0 && oldList.size() != newList.size() ? 2 : 1, changes.size());
+        Assert.assertEquals(newList, applyChanges(oldList, newList, changes));
+    }
+
+    // applies changes to copy of old list: inserted and changed items are taken from new list at the end,
+    // all other items should stay in their new positions
+    @NonNull
+    static <T> List<T> applyChanges(@NonNull final List<T> oldList, @NonNull final List<T> newList, @NonNull final Collection<Change> changes) {
+        final List<T> items = new ArrayList<>(oldList);
+        for (final Change change : changes) {
+            if (change instanceof Change.Inserted) {
+                final Change.Inserted inserted = (Change.Inserted) change;
+                items.addAll(inserted.getPosition(), Collections.nCopies(inserted.getCount(), null));
+            } else if (change instanceof Change.Removed) {
+                final Change.Removed removed = (Change.Removed) change;
+                items.subList(removed.getPosition(), removed.getPosition() + removed.getCount()).clear();
+            } else if (change instanceof Change.Moved) {
+                final Change.Moved moved = (Change.Moved) change;
+                items.add(moved.getToPosition(), items.remove(moved.getFromPosition()));
+            } else {
+                final Change.Changed changed = (Change.Changed) change;
+                Collections.fill(items.subList(changed.getPosition(), changed.getPosition() + changed.getCount()), null);
+            }
+        }
+        if (items.size() != newList.size()) {
+            return items;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == null) {
+                items.set(i, newList.get(i));
+            }
+        }
+        return items;
+    }
+
+}
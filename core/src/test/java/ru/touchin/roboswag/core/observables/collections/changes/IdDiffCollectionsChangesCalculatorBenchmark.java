@@ -0,0 +1,66 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import ru.touchin.roboswag.core.observables.collections.changes.IdDiffCollectionsChangesCalculatorTest.Item;
+
+public class IdDiffCollectionsChangesCalculatorBenchmark {
+
+    // first size is warming up
+    private static final int[] SIZES = {10000, 10000, 100000};
+    private static final int EDITS_COUNT = 20;
+
+    private static long measureCalculation(@NonNull final DiffCollectionsChangesCalculator<Item> calculator) {
+        final long startTime = System.nanoTime();
+        Assert.assertFalse(calculator.calculateChanges().isEmpty());
+        calculator.calculateInsertedItems();
+        calculator.calculateRemovedItems();
+        return System.nanoTime() - startTime;
+    }
+
+    @Test
+    public void idDiffComparedToObjectDiff() {
+        final Random random = new Random(1);
+        for (final int size : SIZES) {
+            final List<Item> oldItems = IdDiffCollectionsChangesCalculatorTest.createItems(random, size, Integer.MAX_VALUE);
+            List<Item> newItems = oldItems;
+            for (int i = 0; i < EDITS_COUNT; i++) {
+                newItems = IdDiffCollectionsChangesCalculatorTest.editRandomly(random, newItems, Integer.MAX_VALUE);
+            }
+
+            final long objectNanos = measureCalculation(new DiffCollectionsChangesCalculator<>(oldItems, newItems, true,
+                    (item1, item2) -> item1.getId() == item2.getId(), null, Item::getId));
+            final long idNanos = measureCalculation(new IdDiffCollectionsChangesCalculator<>(oldItems, newItems, true, Item::getId, null));
+
+            System.out.println(String.format(Locale.US, "Changes and items of %d items: %.2f ms by predicate and key, %.2f ms by primitive ids",
+                    size, objectNanos / 1_000_000.0, idNanos / 1_000_000.0));
+        }
+    }
+
+}
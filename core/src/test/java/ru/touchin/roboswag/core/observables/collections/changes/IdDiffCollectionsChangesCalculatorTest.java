@@ -0,0 +1,178 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class IdDiffCollectionsChangesCalculatorTest {
+
+    private static final int ITERATIONS_COUNT = 1000;
+    private static final int MAX_SIZE = 40;
+
+    @NonNull
+    static List<Item> createItems(@NonNull final Random random, final int size, final int idsCount) {
+        final List<Item> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            // ids are spread over whole long range to check their hashing
+            result.add(new Item(random.nextInt(idsCount) * 0x100000001L - idsCount / 2, random.nextInt(2)));
+        }
+        return result;
+    }
+
+    @NonNull
+    static List<Item> editRandomly(@NonNull final Random random, @NonNull final List<Item> oldItems, final int idsCount) {
+        final List<Item> result = new ArrayList<>(oldItems);
+        final int editsCount = random.nextInt(5);
+        for (int i = 0; i < editsCount; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    result.addAll(random.nextInt(result.size() + 1), createItems(random, random.nextInt(3) + 1, idsCount));
+                    break;
+                case 1:
+                    if (!result.isEmpty()) {
+                        result.remove(random.nextInt(result.size()));
+                    }
+                    break;
+                case 2:
+                    if (!result.isEmpty()) {
+                        result.add(random.nextInt(result.size()), result.remove(random.nextInt(result.size())));
+                    }
+                    break;
+                default:
+                    if (!result.isEmpty()) {
+                        final int position = random.nextInt(result.size());
+                        result.set(position, new Item(result.get(position).id, 1 - result.get(position).version));
+                    }
+                    break;
+            }
+        }
+        return result;
+    }
+
+    @NonNull
+    private static List<String> describe(@NonNull final List<Change> changes) {
+        final List<String> result = new ArrayList<>(changes.size());
+        for (final Change change : changes) {
+            if (change instanceof Change.Inserted) {
+                result.add("inserted " + ((Change.Inserted) change).getPosition() + " " + ((Change.Inserted) change).getCount());
+            } else if (change instanceof Change.Removed) {
+                result.add("removed " + ((Change.Removed) change).getPosition() + " " + ((Change.Removed) change).getCount());
+            } else if (change instanceof Change.Moved) {
+                result.add("moved " + ((Change.Moved) change).getFromPosition() + " " + ((Change.Moved) change).getToPosition());
+            } else {
+                result.add("changed " + ((Change.Changed) change).getPosition() + " " + ((Change.Changed) change).getCount());
+            }
+        }
+        return result;
+    }
+
+    private static void checkRandomCases(final boolean uniqueIds) {
+        final Random random = new Random(uniqueIds ? 1 : 2);
+        for (int i = 0; i < ITERATIONS_COUNT; i++) {
+            final int idsCount = uniqueIds ? Integer.MAX_VALUE : MAX_SIZE / 4;
+            final List<Item> oldItems = createItems(random, random.nextInt(MAX_SIZE), idsCount);
+            final List<Item> newItems = random.nextBoolean()
+                    ? editRandomly(random, oldItems, idsCount)
+                    : createItems(random, random.nextInt(MAX_SIZE), idsCount);
+            final boolean detectMoves = random.nextBoolean();
+            final IdDiffCollectionsChangesCalculator<Item> byIds
+                    = new IdDiffCollectionsChangesCalculator<>(oldItems, newItems, detectMoves, Item::getId, null);
+            final DiffCollectionsChangesCalculator<Item> byPredicate = new DiffCollectionsChangesCalculator<>(oldItems, newItems, detectMoves,
+                    (item1, item2) -> item1.id == item2.id, null, Item::getId);
+
+            final List<Change> changes = byIds.calculateChanges();
+
+            Assert.assertEquals(newItems, DiffCollectionsChangesCalculatorTest.applyChanges(oldItems, newItems, changes));
+            Assert.assertEquals(describe(byPredicate.calculateChanges()), describe(changes));
+            Assert.assertEquals(byPredicate.calculateInsertedItems(), byIds.calculateInsertedItems());
+            Assert.assertEquals(byPredicate.calculateRemovedItems(), byIds.calculateRemovedItems());
+        }
+    }
+
+    @Test
+    public void changesConvertListAndMatchPredicateDiffForUniqueIds() {
+        checkRandomCases(true);
+    }
+
+    @Test
+    public void changesConvertListAndMatchPredicateDiffForDuplicatedIds() {
+        checkRandomCases(false);
+    }
+
+    @Test
+    public void onlyChangedContentsProduceChangedItems() {
+        final List<Item> oldItems = new ArrayList<>();
+        for (int i = 0; i < MAX_SIZE; i++) {
+            oldItems.add(new Item(i, 0));
+        }
+        final List<Item> newItems = new ArrayList<>(oldItems);
+        newItems.set(3, new Item(3, 1));
+        final IdDiffCollectionsChangesCalculator<Item> calculator
+                = new IdDiffCollectionsChangesCalculator<>(oldItems, newItems, true, Item::getId, null);
+
+        final List<Change> changes = calculator.calculateChanges();
+
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(3, ((Change.Changed) changes.get(0)).getPosition());
+        Assert.assertEquals(1, ((Change.Changed) changes.get(0)).getCount());
+        Assert.assertEquals(Collections.emptyList(), calculator.calculateInsertedItems());
+        Assert.assertEquals(Collections.emptyList(), calculator.calculateRemovedItems());
+    }
+
+    static final class Item {
+
+        private final long id;
+        private final int version;
+
+        Item(final long id, final int version) {
+            this.id = id;
+            this.version = version;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            return object instanceof Item && ((Item) object).id == id && ((Item) object).version == version;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (id ^ (id >>> 32)) * 31 + version;
+        }
+
+        @Override
+        public String toString() {
+            return id + "v" + version;
+        }
+
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class LongIdSetTest {
+
+    private static final int ITERATIONS_COUNT = 200;
+    private static final int MAX_SIZE = 3000;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private static void assertSameContents(final long[] ids, final Set<Long> expectedIds, final long[] idsToCheck) {
+        final LongIdSet set = new LongIdSet(ids);
+        for (final long id : idsToCheck) {
+            Assert.assertEquals(expectedIds.contains(id), set.contains(id));
+        }
+    }
+
+    @Test
+    public void containsSameIdsAsHashSetForAnySize() {
+        final Random random = new Random(1);
+        for (int i = 0; i < ITERATIONS_COUNT; i++) {
+            // sizes around powers of two check capacity boundaries
+            final int size = random.nextBoolean() ? random.nextInt(MAX_SIZE) : (1 << random.nextInt(11)) + random.nextInt(3) - 1;
+            final long[] ids = new long[size];
+            final Set<Long> expectedIds = new HashSet<>();
+            for (int j = 0; j < size; j++) {
+                // duplicated ids should be added once
+                ids[j] = j > 0 && random.nextInt(4) == 0 ? ids[random.nextInt(j)] : random.nextLong();
+                expectedIds.add(ids[j]);
+            }
+            final long[] idsToCheck = new long[size * 2];
+            for (int j = 0; j < idsToCheck.length; j++) {
+                idsToCheck[j] = j < size ? ids[j] : random.nextLong();
+            }
+            assertSameContents(ids, expectedIds, idsToCheck);
+        }
+    }
+
+    @Test
+    public void containsIdsWithCollidingSlots() {
+        // ids which are multiples of inverse multiplier have same high bits of hash and fall into same slots
+        final long inverseMultiplier = inverse(HASH_MULTIPLIER);
+        final long[] ids = new long[1000];
+        final Set<Long> expectedIds = new HashSet<>();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = inverseMultiplier * i;
+            expectedIds.add(ids[i]);
+        }
+        final long[] idsToCheck = new long[ids.length * 2 + 4];
+        for (int i = 0; i < ids.length * 2; i++) {
+            idsToCheck[i] = inverseMultiplier * i;
+        }
+        idsToCheck[ids.length * 2] = Long.MIN_VALUE;
+        idsToCheck[ids.length * 2 + 1] = Long.MAX_VALUE;
+        idsToCheck[ids.length * 2 + 2] = -1;
+        idsToCheck[ids.length * 2 + 3] = 0;
+        assertSameContents(ids, expectedIds, idsToCheck);
+    }
+
+    @Test
+    public void emptySetContainsNothing() {
+        final LongIdSet set = new LongIdSet(new long[0]);
+
+        Assert.assertFalse(set.contains(0));
+        Assert.assertFalse(set.contains(Long.MIN_VALUE));
+    }
+
+    // multiplicative inverse of odd number modulo 2^64 by Newton's iterations
+    private static long inverse(final long value) {
+        long result = value;
+        for (int i = 0; i < 5; i++) {
+            result *= 2 - value * result;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.loadable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import io.reactivex.Single;
+
+public class LoadingMoreListBenchmark {
+
+    private static final int PAGES_COUNT = 100;
+    private static final int PAGE_SIZE = 50;
+    private static final int PAGE_OVERLAP = 5;
+    private static final int PAGE_STEP = PAGE_SIZE - PAGE_OVERLAP;
+    private static final int UNIQUE_ITEMS_COUNT = PAGE_STEP * (PAGES_COUNT - 1) + PAGE_SIZE;
+    // first repeat is warming up
+    private static final int REPEATS_COUNT = 3;
+
+    private static long measureLoadingAllPages(final boolean hashDuplicatesRemover) {
+        final MoreItemsLoader<String, Integer, OverlappingPage> loader = request ->
+                Single.fromCallable(() -> new OverlappingPage(request.getReference() != null ? request.getReference() : 0));
+        final LoadingMoreList<String, Integer, OverlappingPage> list = new LoadingMoreList<>(loader);
+        if (hashDuplicatesRemover) {
+            list.setRemoveDuplicates(true);
+        } else {
+            // any custom filter is processed by pairwise comparison with every loaded item
+            list.setLoadedItemsFilter((collectionObject, loadedItemsObject) -> collectionObject.equals(loadedItemsObject)
+                    ? LoadingMoreList.FilterAction.REMOVE_FROM_LOADED_ITEMS : LoadingMoreList.FilterAction.DO_NOTHING);
+        }
+        final long startTime = System.nanoTime();
+        list.loadItem(UNIQUE_ITEMS_COUNT).blockingGet();
+        final long result = System.nanoTime() - startTime;
+        Assert.assertEquals(UNIQUE_ITEMS_COUNT, list.size());
+        Assert.assertEquals("item" + (UNIQUE_ITEMS_COUNT - 1), list.get(UNIQUE_ITEMS_COUNT - 1));
+        return result;
+    }
+
+    @Test
+    public void duplicatesRemovingOnLoadingPages() {
+        for (int i = 0; i < REPEATS_COUNT; i++) {
+            final long pairwiseNanos = measureLoadingAllPages(false);
+            final long hashNanos = measureLoadingAllPages(true);
+            System.out.println(String.format(Locale.US, "LoadingMoreList %d pages of %d items with %d duplicates each: "
+                            + "pairwise filter %.3f ms, hash duplicates remover %.3f ms", PAGES_COUNT, PAGE_SIZE, PAGE_OVERLAP,
+                    pairwiseNanos / 1_000_000.0, hashNanos / 1_000_000.0));
+        }
+    }
+
+    private static class OverlappingPage implements LoadedItems<String, Integer> {
+
+        @NonNull
+        private final List<String> items = new ArrayList<>(PAGE_SIZE);
+        private final int pageIndex;
+
+        public OverlappingPage(final int pageIndex) {
+            this.pageIndex = pageIndex;
+            // each page is starting with last items of previous page like feeds shifted by new items do
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                items.add("item" + (pageIndex * PAGE_STEP + i));
+            }
+        }
+
+        @Override
+        public int getMoreItemsCount() {
+            return pageIndex < PAGES_COUNT - 1 ? LoadedItems.UNKNOWN_ITEMS_COUNT : 0;
+        }
+
+        @NonNull
+        @Override
+        public Collection<String> getItems() {
+            return items;
+        }
+
+        @Nullable
+        @Override
+        public Integer getReference() {
+            return pageIndex + 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.loadable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Single;
+import ru.touchin.roboswag.core.utils.Optional;
+
+public class LoadingMoreListTest {
+
+    private static final int ITEMS_COUNT = 95;
+    private static final int PAGE_SIZE = 10;
+    private static final int PAGES_COUNT = (ITEMS_COUNT + PAGE_SIZE - 1) / PAGE_SIZE;
+    private static final int CALLERS_COUNT = 16;
+    private static final int CALLS_PER_CALLER = 20;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @NonNull
+    private static List<Integer> createRange(final int first, final int last) {
+        final List<Integer> result = new ArrayList<>();
+        for (int i = first; i <= last; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    @Test
+    public void loadRangeLoadsOnlyPagesTillLastPosition() {
+        final PagedLoader loader = new PagedLoader();
+        final LoadingMoreList<Integer, Integer, Page> list = new LoadingMoreList<>(loader);
+
+        final Collection<Integer> items = list.loadRange(5, 42).blockingGet();
+
+        Assert.assertEquals(createRange(5, 42), new ArrayList<>(items));
+        Assert.assertEquals(5 * PAGE_SIZE, list.size());
+        Assert.assertEquals(5, loader.getTotalLoadsCount());
+        Assert.assertTrue(list.hasMoreItems());
+
+        // already loaded range is returned without loading
+        Assert.assertEquals(createRange(0, 49), new ArrayList<>(list.loadRange(0, 49).blockingGet()));
+        Assert.assertEquals(5, loader.getTotalLoadsCount());
+
+        Assert.assertEquals(createRange(45, 61), new ArrayList<>(list.loadRange(45, 61).blockingGet()));
+        Assert.assertEquals(7, loader.getTotalLoadsCount());
+    }
+
+    @Test
+    public void loadingBeyondEndStopsOnLastPage() {
+        final PagedLoader loader = new PagedLoader();
+        final LoadingMoreList<Integer, Integer, Page> list = new LoadingMoreList<>(loader);
+
+        Assert.assertNull(list.loadItem(ITEMS_COUNT * 2).blockingGet().get());
+
+        Assert.assertEquals(ITEMS_COUNT, list.size());
+        Assert.assertFalse(list.hasMoreItems());
+        Assert.assertEquals(PAGES_COUNT, loader.getTotalLoadsCount());
+        Assert.assertEquals(createRange(90, ITEMS_COUNT - 1), new ArrayList<>(list.loadRange(90, ITEMS_COUNT * 2).blockingGet()));
+        Assert.assertEquals(Integer.valueOf(ITEMS_COUNT - 1), list.loadItem(ITEMS_COUNT - 1).blockingGet().get());
+        Assert.assertEquals(PAGES_COUNT, loader.getTotalLoadsCount());
+    }
+
+    @Test
+    public void concurrentLoadItemCallersLoadEachPageOnce() throws Exception {
+        final PagedLoader loader = new PagedLoader();
+        final LoadingMoreList<Integer, Integer, Page> list = new LoadingMoreList<>(loader);
+        final ExecutorService executor = Executors.newFixedThreadPool(CALLERS_COUNT);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Future<?>> calls = new ArrayList<>();
+        try {
+            for (int i = 0; i < CALLERS_COUNT; i++) {
+                final Random random = new Random(i);
+                calls.add(executor.submit(() -> {
+                    startLatch.await();
+                    for (int j = 0; j < CALLS_PER_CALLER; j++) {
+                        final int position = random.nextInt(ITEMS_COUNT + PAGE_SIZE);
+                        final Optional<Integer> item = list.loadItem(position).timeout(TIMEOUT_SECONDS, TimeUnit.SECONDS).blockingGet();
+                        Assert.assertEquals(position < ITEMS_COUNT ? Integer.valueOf(position) : null, item.get());
+                    }
+                    return null;
+                }));
+            }
+            startLatch.countDown();
+            for (final Future<?> call : calls) {
+                call.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals(createRange(0, list.size() - 1), new ArrayList<>(list.getItems()));
+        for (int start = 0; start < list.size(); start += PAGE_SIZE) {
+            Assert.assertEquals(1, loader.getLoadsCount(start));
+        }
+    }
+
+    private static class Page implements LoadedItems<Integer, Integer> {
+
+        @NonNull
+        private final List<Integer> items;
+        private final int end;
+
+        public Page(final int start) {
+            end = Math.min(ITEMS_COUNT, start + PAGE_SIZE);
+            items = createRange(start, end - 1);
+        }
+
+        @Override
+        public int getMoreItemsCount() {
+            return ITEMS_COUNT - end;
+        }
+
+        @NonNull
+        @Override
+        public Collection<Integer> getItems() {
+            return items;
+        }
+
+        @Nullable
+        @Override
+        public Integer getReference() {
+            return end;
+        }
+
+    }
+
+    private static class PagedLoader implements MoreItemsLoader<Integer, Integer, Page> {
+
+        @NonNull
+        private final Map<Integer, AtomicInteger> loadsCounts = new ConcurrentHashMap<>();
+        @NonNull
+        private final AtomicInteger totalLoadsCount = new AtomicInteger();
+
+        @NonNull
+        @Override
+        public Single<Page> load(@NonNull final MoreLoadRequest<Integer> moreLoadRequest) {
+            return Single.fromCallable(() -> {
+                final int start = moreLoadRequest.getReference() != null ? moreLoadRequest.getReference() : 0;
+                Assert.assertEquals(moreLoadRequest.getNextPosition(), start);
+                loadsCounts.computeIfAbsent(start, ignored -> new AtomicInteger()).incrementAndGet();
+                totalLoadsCount.incrementAndGet();
+                // slow loading lets concurrent callers wait for same page
+                Thread.sleep(1);
+                return new Page(start);
+            });
+        }
+
+        public int getLoadsCount(final int start) {
+            final AtomicInteger count = loadsCounts.get(start);
+            return count != null ? count.get() : 0;
+        }
+
+        public int getTotalLoadsCount() {
+            return totalLoadsCount.get();
+        }
+
+    }
+
+}
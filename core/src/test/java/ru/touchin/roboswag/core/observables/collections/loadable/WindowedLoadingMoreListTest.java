@@ -0,0 +1,168 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.loadable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+
+public class WindowedLoadingMoreListTest {
+
+    private static final int ITEMS_COUNT = 1000000;
+    private static final int PAGE_SIZE = 50;
+    private static final int WINDOW_SIZE = 500;
+    private static final int EVICTION_DISTANCE = 1000;
+    private static final int CHECKPOINTS_COUNT = 10;
+    private static final Integer PLACEHOLDER = -1;
+
+    private static void applyChanges(@NonNull final List<Integer> mirror, @NonNull final CollectionChanges<Integer> changes) {
+        final List<Integer> insertedItems = changes.getInsertedItems();
+        for (final Change change : changes.getChanges()) {
+            if (change instanceof Change.Inserted) {
+                mirror.addAll(((Change.Inserted) change).getPosition(), insertedItems);
+            } else if (change instanceof Change.Removed) {
+                final Change.Removed removed = (Change.Removed) change;
+                mirror.subList(removed.getPosition(), removed.getPosition() + removed.getCount()).clear();
+            } else if (change instanceof Change.Changed) {
+                final Change.Changed changed = (Change.Changed) change;
+                for (int i = 0; i < changed.getCount(); i++) {
+                    mirror.set(changed.getPosition() + i, insertedItems.get(i));
+                }
+            } else {
+                Assert.fail("Unexpected change " + change);
+            }
+        }
+    }
+
+    @Test
+    public void scrollingThroughMillionItemsKeepsOnlyWindowLoaded() {
+        final SyntheticLoader loader = new SyntheticLoader();
+        final WindowedLoadingMoreList<Integer, Integer, SyntheticPart> list
+                = new WindowedLoadingMoreList<>(loader, position -> PLACEHOLDER, WINDOW_SIZE, EVICTION_DISTANCE);
+        final List<Integer> mirror = new ArrayList<>();
+        final Disposable mirroring = list.observeChangesFromStart().subscribe(changes -> applyChanges(mirror, changes));
+        int maxLoadedItemsCount = 0;
+        for (int first = 0; first < ITEMS_COUNT; first += PAGE_SIZE) {
+            final int last = first + PAGE_SIZE - 1;
+            final Collection<Integer> items = list.loadRange(first, last).blockingGet();
+            Assert.assertEquals(PAGE_SIZE, items.size());
+            Assert.assertEquals(Integer.valueOf(first), items.iterator().next());
+            maxLoadedItemsCount = Math.max(maxLoadedItemsCount, list.getLoadedItemsCount());
+            if (first % (ITEMS_COUNT / CHECKPOINTS_COUNT) == 0) {
+                Assert.assertEquals(new ArrayList<>(list.getItems()), mirror);
+            }
+        }
+        Assert.assertEquals(ITEMS_COUNT, list.size());
+        Assert.assertFalse(list.hasMoreItems());
+        Assert.assertTrue(maxLoadedItemsCount <= WINDOW_SIZE);
+        Assert.assertEquals(PLACEHOLDER, list.get(0));
+        Assert.assertEquals(Integer.valueOf(ITEMS_COUNT - 1), list.get(ITEMS_COUNT - 1));
+
+        // jumping back reloads only requested evicted page by it's stored request
+        final int reloadsBeforeJump = loader.getLoadsCount(0);
+        Assert.assertEquals(Integer.valueOf(10), list.loadItem(10).blockingGet().get());
+        Assert.assertEquals(reloadsBeforeJump + 1, loader.getLoadsCount(0));
+        Assert.assertEquals(ITEMS_COUNT / PAGE_SIZE + 1, loader.getTotalLoadsCount());
+        Assert.assertEquals(ITEMS_COUNT, list.size());
+        Assert.assertTrue(list.getLoadedItemsCount() <= WINDOW_SIZE);
+
+        Assert.assertEquals(new ArrayList<>(list.getItems()), mirror);
+        mirroring.dispose();
+    }
+
+    private static class SyntheticPart implements LoadedItems<Integer, Integer> {
+
+        @NonNull
+        private final List<Integer> items;
+        private final int end;
+
+        public SyntheticPart(final int start) {
+            end = Math.min(ITEMS_COUNT, start + PAGE_SIZE);
+            items = new ArrayList<>(end - start);
+            for (int position = start; position < end; position++) {
+                items.add(position);
+            }
+        }
+
+        @Override
+        public int getMoreItemsCount() {
+            return ITEMS_COUNT - end;
+        }
+
+        @NonNull
+        @Override
+        public Collection<Integer> getItems() {
+            return items;
+        }
+
+        @Nullable
+        @Override
+        public Integer getReference() {
+            return end;
+        }
+
+    }
+
+    private static class SyntheticLoader implements MoreItemsLoader<Integer, Integer, SyntheticPart> {
+
+        @NonNull
+        private final Map<Integer, AtomicInteger> loadsCounts = new ConcurrentHashMap<>();
+        @NonNull
+        private final AtomicInteger totalLoadsCount = new AtomicInteger();
+
+        @NonNull
+        @Override
+        public Single<SyntheticPart> load(@NonNull final MoreLoadRequest<Integer> moreLoadRequest) {
+            return Single.fromCallable(() -> {
+                // reference is position of next part so it should be consistent with next position
+                final int start = moreLoadRequest.getReference() != null ? moreLoadRequest.getReference() : 0;
+                Assert.assertEquals(moreLoadRequest.getNextPosition(), start);
+                loadsCounts.computeIfAbsent(start, ignored -> new AtomicInteger()).incrementAndGet();
+                totalLoadsCount.incrementAndGet();
+                return new SyntheticPart(start);
+            });
+        }
+
+        public int getLoadsCount(final int start) {
+            final AtomicInteger count = loadsCounts.get(start);
+            return count != null ? count.get() : 0;
+        }
+
+        public int getTotalLoadsCount() {
+            return totalLoadsCount.get();
+        }
+
+    }
+
+}
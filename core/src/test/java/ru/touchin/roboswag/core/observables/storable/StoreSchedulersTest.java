@@ -0,0 +1,238 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.storable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import ru.touchin.roboswag.core.utils.Optional;
+
+public class StoreSchedulersTest {
+
+    private static final int STORABLES_COUNT = 1000;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @NonNull
+    private static Storable<String, String, String> createStorable(@NonNull final MemoryStore store, @NonNull final String key) {
+        return new Storable.Builder<String, String, String>(key, String.class, String.class, store, new SameTypesConverter<>())
+                .setObserveStrategy(BaseStorable.ObserveStrategy.NO_CACHE)
+                .build();
+    }
+
+    @NonNull
+    private static Set<Thread> getThreads(@NonNull final String namePrefix) {
+        final Set<Thread> result = new HashSet<>();
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(namePrefix)) {
+                result.add(thread);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void threadsCountIsBoundedForManyConcurrentStorables() throws InterruptedException {
+        final MemoryStore store = new MemoryStore();
+        final int stripesCount = Math.max(2, Runtime.getRuntime().availableProcessors());
+        final CountDownLatch completed = new CountDownLatch(STORABLES_COUNT);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final AtomicInteger maxThreadsCount = new AtomicInteger();
+        final Set<Disposable> disposables = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        for (int i = 0; i < STORABLES_COUNT; i++) {
+            final Storable<String, String, String> storable = createStorable(store, "key" + i);
+            final String value = "value" + i;
+            disposables.add(storable.set(value)
+                    .andThen(storable.get())
+                    .subscribe(result -> {
+                        //slow subscriber is keeping delivery thread busy so each next delivery needs other thread
+                        Thread.sleep(1);
+                        if (!value.equals(result.get())) {
+                            error.set(new AssertionError("Unexpected value " + result.get() + " of " + value));
+                        }
+                        maxThreadsCount.accumulateAndGet(getThreads("StoreDelivery-").size(), Math::max);
+                        completed.countDown();
+                    }, throwable -> {
+                        error.set(throwable);
+                        completed.countDown();
+                    }));
+        }
+
+        Assert.assertTrue(completed.await(TIMEOUT_SECONDS * 3, TimeUnit.SECONDS));
+        for (final Disposable disposable : disposables) {
+            disposable.dispose();
+        }
+        Assert.assertNull(error.get());
+        Assert.assertTrue(getThreads("StoreScheduler-").size() <= stripesCount);
+        Assert.assertTrue("Delivery threads: " + maxThreadsCount.get(), maxThreadsCount.get() <= stripesCount * 2);
+        Assert.assertTrue(getThreads("StoreDelivery-").size() <= stripesCount * 2);
+    }
+
+    @Test
+    public void operationsWithKeyAreBoundToOneStripe() {
+        final MemoryStore store = new MemoryStore();
+        final Storable<String, String, String> storable = createStorable(store, "key");
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(storable.forceSet("value" + i).blockingAwait(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            storable.get().blockingGet();
+        }
+
+        Assert.assertEquals(1, store.getThreads("key").size());
+        Assert.assertSame(StoreSchedulers.forKey(store, "key"), StoreSchedulers.forKey(store, "key"));
+    }
+
+    @Test
+    public void slowSubscriberIsNotBlockingOtherValuesOfStripe() throws InterruptedException {
+        final MemoryStore store = new MemoryStore();
+        final String slowKey = "slow";
+        String otherKey = null;
+        for (int i = 0; otherKey == null; i++) {
+            if (StoreSchedulers.forKey(store, "other" + i) == StoreSchedulers.forKey(store, slowKey)) {
+                otherKey = "other" + i;
+            }
+        }
+        final CountDownLatch slowSubscriberStarted = new CountDownLatch(1);
+        final CountDownLatch releaseSlowSubscriber = new CountDownLatch(1);
+        final Disposable disposable = createStorable(store, slowKey).observe().subscribe(value -> {
+            slowSubscriberStarted.countDown();
+            releaseSlowSubscriber.await();
+        });
+        try {
+            Assert.assertTrue(slowSubscriberStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+            final Storable<String, String, String> other = createStorable(store, otherKey);
+            Assert.assertTrue(other.set("value").blockingAwait(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            Assert.assertEquals("value", other.get().timeout(TIMEOUT_SECONDS, TimeUnit.SECONDS).blockingGet().get());
+        } finally {
+            releaseSlowSubscriber.countDown();
+            disposable.dispose();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    //deprecation: testing sync methods
+    public void syncAccessFromSubscriberIsNotDeadlocking() {
+        final MemoryStore store = new MemoryStore();
+        final Storable<String, String, String> storable = createStorable(store, "key");
+        storable.setSync("value");
+
+        final String result = storable.get()
+                .map(value -> {
+                    Assert.assertFalse(StoreSchedulers.isStripeThread());
+                    return value.get() + storable.getSync().get();
+                })
+                .timeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .blockingGet();
+
+        Assert.assertEquals("valuevalue", result);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    //deprecation: testing sync methods
+    public void syncAccessFromStripeThreadIsRejected() throws InterruptedException {
+        final MemoryStore store = new MemoryStore();
+        final Storable<String, String, String> storable = createStorable(store, "key");
+        final Scheduler stripe = StoreSchedulers.forKey(store, "key");
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        stripe.scheduleDirect(() -> {
+            try {
+                storable.getSync();
+            } catch (final IllegalStateException exception) {
+                error.set(exception);
+            }
+            done.countDown();
+        });
+
+        Assert.assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertNotNull(error.get());
+        Assert.assertFalse(StoreSchedulers.isStripeThread());
+    }
+
+    private static class MemoryStore implements Store<String, String> {
+
+        @NonNull
+        private final Map<String, Optional<String>> values = new ConcurrentHashMap<>();
+        @NonNull
+        private final Map<String, Set<String>> threads = new ConcurrentHashMap<>();
+
+        @NonNull
+        public Set<String> getThreads(@NonNull final String key) {
+            final Set<String> result = threads.get(key);
+            return result != null ? result : Collections.emptySet();
+        }
+
+        private void onAccess(@NonNull final String key) {
+            Assert.assertTrue(StoreSchedulers.isStripeThread());
+            Set<String> keyThreads = threads.get(key);
+            if (keyThreads == null) {
+                keyThreads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+                threads.put(key, keyThreads);
+            }
+            keyThreads.add(Thread.currentThread().getName());
+        }
+
+        @NonNull
+        @Override
+        public Single<Boolean> contains(@NonNull final String key) {
+            return Single.fromCallable(() -> values.containsKey(key));
+        }
+
+        @NonNull
+        @Override
+        public Completable storeObject(@NonNull final Type storeObjectType, @NonNull final String key, @Nullable final String storeObject) {
+            return Completable.fromAction(() -> {
+                onAccess(key);
+                values.put(key, new Optional<>(storeObject));
+            });
+        }
+
+        @NonNull
+        @Override
+        public Single<Optional<String>> loadObject(@NonNull final Type storeObjectType, @NonNull final String key) {
+            return Single.fromCallable(() -> {
+                onAccess(key);
+                final Optional<String> value = values.get(key);
+                return value != null ? value : new Optional<>(null);
+            });
+        }
+
+    }
+
+}
@@ -29,6 +29,7 @@ import java.util.Iterator;
 
 import ru.touchin.roboswag.core.log.Lc;
 import ru.touchin.roboswag.core.log.LcGroup;
+import ru.touchin.roboswag.core.log.LcLevel;
 
 /**
  * Created by Gavriil Sitnikov on 11/08/2016.
@@ -76,14 +77,16 @@ public abstract class ApiModel implements Serializable {
                         throw exception;
                     case EXCEPTION_IF_ALL_INVALID:
                         iterator.remove();
-                        API_VALIDATION_LC_GROUP.e(exception, "Item %s is invalid at " + Lc.getCodePoint(null, 1), position);
+                        API_VALIDATION_LC_GROUP.e(exception, "Item %s is invalid at %s", position,
+                                Lc.captureCodePoint(API_VALIDATION_LC_GROUP, LcLevel.ERROR, null, 1));
                         if (!iterator.hasNext() && !haveValidItem) {
                             throw new ValidationException("Whole list is invalid at " + Lc.getCodePoint(null, 1));
                         }
                         break;
                     case REMOVE_INVALID_ITEMS:
                         iterator.remove();
-                        API_VALIDATION_LC_GROUP.e(exception, "Item %s is invalid at " + Lc.getCodePoint(null, 1), position);
+                        API_VALIDATION_LC_GROUP.e(exception, "Item %s is invalid at %s", position,
+                                Lc.captureCodePoint(API_VALIDATION_LC_GROUP, LcLevel.ERROR, null, 1));
                         break;
                     default:
                         Lc.assertion("Unexpected rule " + collectionValidationRule);
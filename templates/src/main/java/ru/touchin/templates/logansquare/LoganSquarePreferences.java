@@ -25,10 +25,13 @@ import android.support.annotation.Nullable;
 
 import com.bluelinelabs.logansquare.LoganSquare;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.List;
 
+import ru.touchin.roboswag.components.utils.storables.MappedLogStore;
 import ru.touchin.roboswag.components.utils.storables.PreferenceStore;
 import ru.touchin.roboswag.core.observables.storable.Converter;
 import ru.touchin.roboswag.core.observables.storable.Storable;
@@ -83,6 +86,24 @@ public final class LoganSquarePreferences {
                 .build();
     }
 
+    @NonNull
+    public static <T> Storable<String, T, byte[]> jsonStorable(@NonNull final String name,
+                                                               @NonNull final Class<T> jsonClass,
+                                                               @NonNull final MappedLogStore store) {
+        return new Storable.Builder<String, T, byte[]>(name, jsonClass, byte[].class, store, new JsonBytesConverter<>())
+                .setObserveStrategy(Storable.ObserveStrategy.CACHE_ACTUAL_VALUE)
+                .build();
+    }
+
+    @NonNull
+    public static <T> Storable<String, List<T>, byte[]> jsonListStorable(@NonNull final String name,
+                                                                         @NonNull final Class<T> jsonListItemClass,
+                                                                         @NonNull final MappedLogStore store) {
+        return new Storable.Builder<>(name, List.class, byte[].class, store, new JsonListBytesConverter<>(jsonListItemClass))
+                .setObserveStrategy(Storable.ObserveStrategy.CACHE_ACTUAL_VALUE)
+                .build();
+    }
+
     private LoganSquarePreferences() {
     }
 
@@ -155,4 +176,76 @@ public final class LoganSquarePreferences {
 
     }
 
+    public static class JsonBytesConverter<TJsonObject> implements Converter<TJsonObject, byte[]> {
+
+        @Nullable
+        @Override
+        public byte[] toStoreObject(@NonNull final Type jsonObjectType, @NonNull final Type bytesType, @Nullable final TJsonObject object) {
+            if (object == null) {
+                return null;
+            }
+            try {
+                final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                LoganSquare.serialize(object, outputStream);
+                return outputStream.toByteArray();
+            } catch (final IOException exception) {
+                throw new ShouldNotHappenException(exception);
+            }
+        }
+
+        @Nullable
+        @Override
+        @SuppressWarnings("unchecked")
+        public TJsonObject toObject(@NonNull final Type jsonObjectClass, @NonNull final Type bytesType, @Nullable final byte[] storeValue) {
+            if (storeValue == null) {
+                return null;
+            }
+            try {
+                return LoganSquare.parse(new ByteArrayInputStream(storeValue), (Class<TJsonObject>) jsonObjectClass);
+            } catch (final IOException exception) {
+                throw new ShouldNotHappenException(exception);
+            }
+        }
+
+    }
+
+    public static class JsonListBytesConverter<T> implements Converter<List<T>, byte[]> {
+
+        @NonNull
+        private final Class<T> itemClass;
+
+        public JsonListBytesConverter(@NonNull final Class<T> itemClass) {
+            this.itemClass = itemClass;
+        }
+
+        @Nullable
+        @Override
+        public byte[] toStoreObject(@NonNull final Type jsonObjectType, @NonNull final Type bytesType, @Nullable final List<T> object) {
+            if (object == null) {
+                return null;
+            }
+            try {
+                final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                LoganSquare.serialize(object, outputStream, itemClass);
+                return outputStream.toByteArray();
+            } catch (final IOException exception) {
+                throw new ShouldNotHappenException(exception);
+            }
+        }
+
+        @Nullable
+        @Override
+        public List<T> toObject(@NonNull final Type jsonObjectType, @NonNull final Type bytesType, @Nullable final byte[] storeValue) {
+            if (storeValue == null) {
+                return null;
+            }
+            try {
+                return LoganSquare.parseList(new ByteArrayInputStream(storeValue), itemClass);
+            } catch (final IOException exception) {
+                throw new ShouldNotHappenException(exception);
+            }
+        }
+
+    }
+
 }
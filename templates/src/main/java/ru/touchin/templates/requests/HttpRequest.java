@@ -21,7 +21,6 @@ package ru.touchin.templates.requests;
 
 import android.support.annotation.NonNull;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
@@ -53,6 +52,7 @@ import ru.touchin.roboswag.core.log.LcLevel;
 public abstract class HttpRequest<T> {
 
     private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+    private static final long DEFAULT_MAX_LOGGED_BODY_LENGTH = 4096;
 
     @NonNull
     private static Charset getCharset(@NonNull final ResponseBody responseBody) {
@@ -97,14 +97,15 @@ public abstract class HttpRequest<T> {
     protected abstract String baseUrl();
 
     /**
-     * Creates {@link OkHttpClient} object.
+     * Creates {@link OkHttpClient} object. By default returns {@link SharedHttpClient#get()}.
      * Could be override if you want to specify client.
+     * Use {@link OkHttpClient#newBuilder()} of {@link SharedHttpClient#get()} to keep connections reusing.
      *
      * @return Exemplar of {@link OkHttpClient}.
      */
     @NonNull
     protected OkHttpClient createHttpClient() {
-        return new OkHttpClient();
+        return SharedHttpClient.get();
     }
 
     /**
@@ -167,17 +168,16 @@ public abstract class HttpRequest<T> {
         final Response response = requestController.call.execute();
         final ResponseBody responseBody = response.body();
         final Charset charset = getCharset(responseBody);
-        final byte[] bytes = shouldLog ? response.body().bytes() : null;
         if (shouldLog) {
             Lc.d("Response for: %s has code %s and content: %s", requestController.request.url(), response.code(),
-                    new String(bytes, charset));
+                    peekBodyToLog(response, charset));
         }
         if (getResponseResultType().equals(Response.class)) {
             return handleResponse((T) response);
         }
         final T result;
         try {
-            result = parse(responseResultType, charset, bytes == null ? response.body().byteStream() : new ByteArrayInputStream(bytes));
+            result = parse(responseResultType, charset, responseBody.byteStream());
         } catch (final RuntimeException throwable) {
             Lc.assertion("Runtime exception during response parsing " + requestController.request.url());
             throw new IOException(throwable);
@@ -185,6 +185,27 @@ public abstract class HttpRequest<T> {
         return handleResponse(result);
     }
 
+    @NonNull
+    private String peekBodyToLog(@NonNull final Response response, @NonNull final Charset charset) throws IOException {
+        final long maxLength = getMaxLoggedBodyLength();
+        // one more byte is peeked to know if body is longer than logged part
+        final byte[] peekedBytes = response.peekBody(maxLength < Long.MAX_VALUE ? maxLength + 1 : maxLength).bytes();
+        return peekedBytes.length > maxLength
+                ? new String(peekedBytes, 0, (int) maxLength, charset) + "..."
+                : new String(peekedBytes, charset);
+    }
+
+    /**
+     * Returns maximum count of bytes of response body to log.
+     * Response is parsing directly from stream so only that part of body is buffering for logging.
+     * Could be override if you want to log more or less data.
+     *
+     * @return Maximum count of bytes.
+     */
+    protected long getMaxLoggedBodyLength() {
+        return DEFAULT_MAX_LOGGED_BODY_LENGTH;
+    }
+
     /**
      * Synchronously executes request.
      *
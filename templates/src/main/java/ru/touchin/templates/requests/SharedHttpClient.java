@@ -0,0 +1,148 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.templates.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * Process-wide {@link OkHttpClient} which is used by {@link HttpRequest} by default.
+ * All requests are sharing same connection pool, dispatcher and TLS sessions so connections are kept alive and reused.
+ * Use {@link OkHttpClient#newBuilder()} of {@link #get()} to create client with specific settings but with same pool and dispatcher.
+ */
+public final class SharedHttpClient {
+
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    private static final long DEFAULT_KEEP_ALIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int DEFAULT_MAX_REQUESTS = 64;
+    private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+
+    @NonNull
+    private static final AtomicLong CREATED_CONNECTIONS_COUNT = new AtomicLong();
+    @NonNull
+    private static final AtomicLong REUSED_CONNECTIONS_COUNT = new AtomicLong();
+    @NonNull
+    private static final Set<Connection> KNOWN_CONNECTIONS = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private static int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+    private static long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+    private static int maxRequests = DEFAULT_MAX_REQUESTS;
+    private static int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+    @Nullable
+    private static OkHttpClient httpClient;
+
+    /**
+     * Returns shared {@link OkHttpClient}. It is creating on first call.
+     *
+     * @return Shared client.
+     */
+    @NonNull
+    public static synchronized OkHttpClient get() {
+        if (httpClient == null) {
+            httpClient = createHttpClient();
+        }
+        return httpClient;
+    }
+
+    /**
+     * Configures connection pool and dispatcher of shared client.
+     * Client will be recreated on next {@link #get()} call. Already created clients are continuing to work with old settings.
+     *
+     * @param maxIdleConnections Maximum count of idle connections to keep in pool;
+     * @param keepAliveDuration  Time to keep idle connection alive;
+     * @param timeUnit           Time unit of keepAliveDuration;
+     * @param maxRequests        Maximum count of requests to execute concurrently;
+     * @param maxRequestsPerHost Maximum count of requests to each host to execute concurrently.
+     */
+    public static synchronized void configure(final int maxIdleConnections,
+                                              final long keepAliveDuration,
+                                              @NonNull final TimeUnit timeUnit,
+                                              final int maxRequests,
+                                              final int maxRequestsPerHost) {
+        SharedHttpClient.maxIdleConnections = maxIdleConnections;
+        SharedHttpClient.keepAliveMillis = timeUnit.toMillis(keepAliveDuration);
+        SharedHttpClient.maxRequests = maxRequests;
+        SharedHttpClient.maxRequestsPerHost = maxRequestsPerHost;
+        httpClient = null;
+    }
+
+    /**
+     * Returns count of connections which have been created by shared client and clients derived from it.
+     *
+     * @return Count of created connections.
+     */
+    public static long getCreatedConnectionsCount() {
+        return CREATED_CONNECTIONS_COUNT.get();
+    }
+
+    /**
+     * Returns count of requests which have reused already created connection.
+     *
+     * @return Count of reused connections.
+     */
+    public static long getReusedConnectionsCount() {
+        return REUSED_CONNECTIONS_COUNT.get();
+    }
+
+    @NonNull
+    private static OkHttpClient createHttpClient() {
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .addNetworkInterceptor(chain -> {
+                    onConnectionAcquired(chain.connection());
+                    return chain.proceed(chain.request());
+                })
+                .build();
+    }
+
+    private static void onConnectionAcquired(@Nullable final Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        final boolean created;
+        synchronized (KNOWN_CONNECTIONS) {
+            created = KNOWN_CONNECTIONS.add(connection);
+        }
+        if (created) {
+            CREATED_CONNECTIONS_COUNT.incrementAndGet();
+        } else {
+            REUSED_CONNECTIONS_COUNT.incrementAndGet();
+        }
+    }
+
+    private SharedHttpClient() {
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.templates.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import ru.touchin.roboswag.core.log.ConsoleLogProcessor;
+import ru.touchin.roboswag.core.log.Lc;
+import ru.touchin.roboswag.core.log.LcGroup;
+import ru.touchin.roboswag.core.log.LcLevel;
+import ru.touchin.roboswag.core.log.LogProcessor;
+import ru.touchin.templates.requests.HttpRequestTest.CountingRequest;
+
+public class HttpRequestBenchmark {
+
+    // first size is warming up
+    private static final int[] BODY_SIZES = {1024 * 1024, 1024 * 1024, 5 * 1024 * 1024, 20 * 1024 * 1024};
+
+    @NonNull
+    private final MockWebServer server = new MockWebServer();
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        Lc.initialize(new LogProcessor(LcLevel.VERBOSE) {
+            @Override
+            public void processLogMessage(@NonNull final LcGroup group, @NonNull final LcLevel level,
+                                          @NonNull final String tag, @NonNull final String message, @Nullable final Throwable throwable) {
+                // debug logging is enabled but messages are not kept
+            }
+        }, false);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Lc.initialize(new ConsoleLogProcessor(LcLevel.ERROR), true);
+        server.shutdown();
+    }
+
+    @Test
+    public void allocationsAndDurationOfParsingBigResponses() throws IOException {
+        final CountingRequest request = new CountingRequest(server.url("/").toString());
+        final byte[] chunk = new byte[64 * 1024];
+        for (final int bodySize : BODY_SIZES) {
+            final Buffer body = new Buffer();
+            for (int i = 0; i < bodySize / chunk.length; i++) {
+                body.write(chunk);
+            }
+            server.enqueue(new MockResponse().setBody(body));
+
+            final long allocatedBytesBefore = HttpRequestTest.getAllocatedBytes();
+            final long startTime = System.nanoTime();
+            final long parsedBytesCount = request.executeSync();
+            final long durationNanos = System.nanoTime() - startTime;
+            final long allocatedBytes = HttpRequestTest.getAllocatedBytes() - allocatedBytesBefore;
+
+            Assert.assertEquals(bodySize, parsedBytesCount);
+            System.out.println(String.format(Locale.US, "HttpRequest parsing of %d bytes response with debug logging: %.3f ms, %d KB allocated",
+                    bodySize, durationNanos / 1_000_000.0, allocatedBytes / 1024));
+        }
+    }
+
+}
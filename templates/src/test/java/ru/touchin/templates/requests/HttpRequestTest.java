@@ -0,0 +1,166 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package ru.touchin.templates.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import ru.touchin.roboswag.core.log.ConsoleLogProcessor;
+import ru.touchin.roboswag.core.log.Lc;
+import ru.touchin.roboswag.core.log.LcGroup;
+import ru.touchin.roboswag.core.log.LcLevel;
+import ru.touchin.roboswag.core.log.LogProcessor;
+
+public class HttpRequestTest {
+
+    private static final int BODY_SIZE = 20 * 1024 * 1024;
+    private static final long MAX_ALLOCATED_BYTES = 1024 * 1024;
+    private static final String LOGGED_CONTENT_PREFIX = "content: ";
+
+    @NonNull
+    private final MockWebServer server = new MockWebServer();
+    @NonNull
+    private final List<String> loggedMessages = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        Lc.initialize(new LogProcessor(LcLevel.VERBOSE) {
+            @Override
+            public void processLogMessage(@NonNull final LcGroup group, @NonNull final LcLevel level,
+                                          @NonNull final String tag, @NonNull final String message, @Nullable final Throwable throwable) {
+                loggedMessages.add(message);
+            }
+        }, false);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Lc.initialize(new ConsoleLogProcessor(LcLevel.ERROR), true);
+        server.shutdown();
+    }
+
+    @Test
+    public void bigResponseIsParsedFromStreamWithDebugLogging() throws IOException {
+        final Buffer body = new Buffer();
+        final byte[] chunk = new byte[64 * 1024];
+        for (int i = 0; i < BODY_SIZE / chunk.length; i++) {
+            body.write(chunk);
+        }
+        // warming up client and logging so their initialization is not counted
+        server.enqueue(new MockResponse().setBody("warm up"));
+        final CountingRequest request = new CountingRequest(server.url("/").toString());
+        request.executeSync();
+        server.enqueue(new MockResponse().setBody(body));
+
+        final long allocatedBytesBefore = getAllocatedBytes();
+        final long parsedBytesCount = request.executeSync();
+        final long allocatedBytes = getAllocatedBytes() - allocatedBytesBefore;
+
+        Assert.assertEquals(BODY_SIZE, parsedBytesCount);
+        Assert.assertTrue("Allocated " + allocatedBytes + " bytes", allocatedBytes < MAX_ALLOCATED_BYTES);
+        for (final String message : loggedMessages) {
+            Assert.assertTrue(message.length() < 2 * request.getMaxLoggedBodyLength());
+        }
+    }
+
+    @Test
+    public void loggedBodyIsEllipsizedOnlyIfLongerThanMaxLength() throws IOException {
+        final CountingRequest request = new CountingRequest(server.url("/").toString(), 10);
+        for (final String body : new String[]{"012345678", "0123456789", "0123456789A"}) {
+            server.enqueue(new MockResponse().setBody(body));
+            request.executeSync();
+        }
+
+        final List<String> loggedBodies = new ArrayList<>();
+        for (final String message : loggedMessages) {
+            if (message.contains(LOGGED_CONTENT_PREFIX)) {
+                loggedBodies.add(message.substring(message.indexOf(LOGGED_CONTENT_PREFIX) + LOGGED_CONTENT_PREFIX.length()));
+            }
+        }
+        Assert.assertEquals(Arrays.asList("012345678", "0123456789", "0123456789..."), loggedBodies);
+    }
+
+    static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static class CountingRequest extends HttpRequest<Long> {
+
+        @NonNull
+        private final String url;
+        private final long maxLoggedBodyLength;
+
+        public CountingRequest(@NonNull final String url) {
+            this(url, 4096);
+        }
+
+        public CountingRequest(@NonNull final String url, final long maxLoggedBodyLength) {
+            super(Long.class);
+            this.url = url;
+            this.maxLoggedBodyLength = maxLoggedBodyLength;
+        }
+
+        @Override
+        protected long getMaxLoggedBodyLength() {
+            return maxLoggedBodyLength;
+        }
+
+        @NonNull
+        @Override
+        protected String baseUrl() {
+            return url;
+        }
+
+        @NonNull
+        @Override
+        protected Long parse(@NonNull final Class<Long> responseResultType, @NonNull final Charset charset,
+                             @NonNull final InputStream inputStream) throws IOException {
+            final byte[] buffer = new byte[8 * 1024];
+            long result = 0;
+            int readCount = inputStream.read(buffer);
+            while (readCount != -1) {
+                result += readCount;
+                readCount = inputStream.read(buffer);
+            }
+            return result;
+        }
+
+    }
+
+}
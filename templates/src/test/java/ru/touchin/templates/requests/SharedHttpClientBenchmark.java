@@ -0,0 +1,79 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.templates.requests;
+
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import ru.touchin.templates.requests.SharedHttpClientTest.NoDelayServerSocketFactory;
+import ru.touchin.templates.requests.SharedHttpClientTest.StringRequest;
+
+public class SharedHttpClientBenchmark {
+
+    private static final int REQUESTS_COUNT = 300;
+
+    @NonNull
+    private final MockWebServer server = new MockWebServer();
+
+    @Before
+    public void startServer() throws IOException {
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.start();
+    }
+
+    @After
+    public void shutdownServer() throws IOException {
+        server.shutdown();
+    }
+
+    private long executeRequests(final int count, final boolean sharedClient) throws IOException {
+        for (int i = 0; i < count; i++) {
+            server.enqueue(new MockResponse().setBody("response"));
+        }
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            new StringRequest(server.url("/").toString(), sharedClient ? null : new OkHttpClient()).executeSync();
+        }
+        return System.nanoTime() - startTime;
+    }
+
+    @Test
+    public void throughputOfSharedClientComparedToClientPerRequest() throws IOException {
+        // warming up both ways before measuring
+        executeRequests(REQUESTS_COUNT, false);
+        executeRequests(REQUESTS_COUNT, true);
+
+        final long clientPerRequestNanos = executeRequests(REQUESTS_COUNT, false);
+        final long sharedClientNanos = executeRequests(REQUESTS_COUNT, true);
+
+        System.out.println(String.format(Locale.US, "Client per request: %.0f requests/s, shared client: %.0f requests/s",
+                REQUESTS_COUNT * 1e9 / clientPerRequestNanos, REQUESTS_COUNT * 1e9 / sharedClientNanos));
+    }
+
+}
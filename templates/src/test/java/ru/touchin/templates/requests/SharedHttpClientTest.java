@@ -0,0 +1,220 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package ru.touchin.templates.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ServerSocketFactory;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class SharedHttpClientTest {
+
+    private static final int REQUESTS_COUNT = 300;
+    private static final int CONCURRENT_REQUESTS_COUNT = 1000;
+    private static final int THREADS_COUNT = 16;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    @NonNull
+    private final MockWebServer server = new MockWebServer();
+
+    @Before
+    public void startServer() throws IOException {
+        // without TCP_NODELAY on server side each response on kept-alive connection is delayed by delayed ACK of client
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.start();
+    }
+
+    @After
+    public void shutdownServer() throws IOException {
+        server.shutdown();
+        // default settings of shared client
+        SharedHttpClient.configure(5, 5, TimeUnit.MINUTES, 64, 5);
+    }
+
+    @Test
+    public void requestsAreReusingConnectionOfSharedClient() throws IOException {
+        for (int i = 0; i < REQUESTS_COUNT; i++) {
+            server.enqueue(new MockResponse().setBody("response"));
+        }
+        final long createdConnectionsCount = SharedHttpClient.getCreatedConnectionsCount();
+        final long reusedConnectionsCount = SharedHttpClient.getReusedConnectionsCount();
+
+        for (int i = 0; i < REQUESTS_COUNT; i++) {
+            Assert.assertEquals("response", new StringRequest(server.url("/").toString(), null).executeSync());
+        }
+
+        Assert.assertEquals(1, SharedHttpClient.getCreatedConnectionsCount() - createdConnectionsCount);
+        Assert.assertEquals(REQUESTS_COUNT - 1, SharedHttpClient.getReusedConnectionsCount() - reusedConnectionsCount);
+    }
+
+    @Test
+    public void concurrentRequestsAreCountedOnceAndReuseConnections() throws Exception {
+        // pool keeps connection of each caller so connections are closed only by server
+        SharedHttpClient.configure(THREADS_COUNT, 5, TimeUnit.MINUTES, THREADS_COUNT, THREADS_COUNT);
+        for (int i = 0; i < CONCURRENT_REQUESTS_COUNT; i++) {
+            server.enqueue(new MockResponse().setBody("response"));
+        }
+        final long createdConnectionsCount = SharedHttpClient.getCreatedConnectionsCount();
+        final long reusedConnectionsCount = SharedHttpClient.getReusedConnectionsCount();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS_COUNT);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Future<String>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < CONCURRENT_REQUESTS_COUNT; i++) {
+                responses.add(executor.submit(() -> {
+                    startLatch.await();
+                    return new StringRequest(server.url("/").toString(), null).executeSync();
+                }));
+            }
+            startLatch.countDown();
+            for (final Future<String> response : responses) {
+                Assert.assertEquals("response", response.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final long createdCount = SharedHttpClient.getCreatedConnectionsCount() - createdConnectionsCount;
+        final long reusedCount = SharedHttpClient.getReusedConnectionsCount() - reusedConnectionsCount;
+        Assert.assertEquals(CONCURRENT_REQUESTS_COUNT, createdCount + reusedCount);
+        Assert.assertTrue("Created connections: " + createdCount, createdCount >= 1 && createdCount <= THREADS_COUNT);
+        // first request on each connection has zero sequence number on server
+        int serverConnectionsCount = 0;
+        for (int i = 0; i < CONCURRENT_REQUESTS_COUNT; i++) {
+            if (server.takeRequest().getSequenceNumber() == 0) {
+                serverConnectionsCount++;
+            }
+        }
+        Assert.assertEquals(serverConnectionsCount, createdCount);
+    }
+
+    static class NoDelayServerSocketFactory extends ServerSocketFactory {
+
+        @NonNull
+        private static ServerSocket createNoDelayServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    final Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @NonNull
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return createNoDelayServerSocket();
+        }
+
+        @NonNull
+        @Override
+        public ServerSocket createServerSocket(final int port) throws IOException {
+            final ServerSocket serverSocket = createNoDelayServerSocket();
+            serverSocket.bind(new InetSocketAddress(port));
+            return serverSocket;
+        }
+
+        @NonNull
+        @Override
+        public ServerSocket createServerSocket(final int port, final int backlog) throws IOException {
+            final ServerSocket serverSocket = createNoDelayServerSocket();
+            serverSocket.bind(new InetSocketAddress(port), backlog);
+            return serverSocket;
+        }
+
+        @NonNull
+        @Override
+        public ServerSocket createServerSocket(final int port, final int backlog, @NonNull final InetAddress address) throws IOException {
+            final ServerSocket serverSocket = createNoDelayServerSocket();
+            serverSocket.bind(new InetSocketAddress(address, port), backlog);
+            return serverSocket;
+        }
+
+    }
+
+    static class StringRequest extends HttpRequest<String> {
+
+        @NonNull
+        private final String url;
+        @Nullable
+        private final OkHttpClient httpClient;
+
+        public StringRequest(@NonNull final String url, @Nullable final OkHttpClient httpClient) {
+            super(String.class);
+            this.url = url;
+            this.httpClient = httpClient;
+        }
+
+        @NonNull
+        @Override
+        protected String baseUrl() {
+            return url;
+        }
+
+        @NonNull
+        @Override
+        protected OkHttpClient createHttpClient() {
+            return httpClient != null ? httpClient : super.createHttpClient();
+        }
+
+        @NonNull
+        @Override
+        protected String parse(@NonNull final Class<String> responseResultType, @NonNull final Charset charset,
+                               @NonNull final InputStream inputStream) throws IOException {
+            final StringBuilder result = new StringBuilder();
+            final byte[] buffer = new byte[1024];
+            int readCount = inputStream.read(buffer);
+            while (readCount != -1) {
+                result.append(new String(buffer, 0, readCount, charset));
+                readCount = inputStream.read(buffer);
+            }
+            return result.toString();
+        }
+
+    }
+
+}